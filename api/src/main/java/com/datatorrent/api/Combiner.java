@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.api;
+
+/**
+ * Combines the tuples of an output port which belong to the same key, for aggregations which are commutative and
+ * associative like counts, sums, minimums and maximums.
+ * <p>
+ * Set with {@link Context.PortContext#COMBINER} on an output port, the engine combines the tuples with equal keys
+ * which the port emits during a streaming window before they leave the container of the operator, and again in the
+ * output of every unifier of the stream, including the cascading unifiers of {@link Context.PortContext#UNIFIER_LIMIT}.
+ * The combined tuples are emitted at the end of the window, in the order in which their keys first appeared. Only one
+ * partial aggregate per key and window travels from each partition or unifier to the next level, so the downstream
+ * operator has to accept partial aggregates just like single tuples. Tuples which the downstream partitions are
+ * partitioned by should have the same key.
+ * <br />
+ * <br />
+ * The combiner is part of the logical plan and needs to be serializable.
+ *
+ * @param <T> data type of the tuples on the stream
+ */
+public interface Combiner<T>
+{
+  /**
+   * @param tuple
+   * @return the key of the aggregate which the tuple contributes to, tuples with equal keys are combined.
+   */
+  Object getKey(T tuple);
+
+  /**
+   * Combine two tuples with equal keys. The tuples are not used after the call, so either of them can be returned
+   * after adding the other to it.
+   *
+   * @param tuple1 the tuple which was emitted first, or the result of previous combines
+   * @param tuple2 the tuple which was emitted later
+   * @return the tuple which aggregates both tuples
+   */
+  T combine(T tuple1, T tuple2);
+}
@@ -153,6 +153,26 @@ public interface Context
      * This is a read-only attribute to query that whether the output of the operator from multiple instances is being unified.
      */
     Attribute<Boolean> IS_OUTPUT_UNIFIED = new Attribute<Boolean>(false);
+    /**
+     * Output port attribute. Whether the tuples which the port sends through the buffer server are sent in batches of
+     * up to a window, which the buffer server stores and distributes as single messages. This cuts the per tuple
+     * overhead of streams of small tuples at the expense of latency. For the output of a unifier the attribute of the
+     * downstream input port applies.
+     */
+    Attribute<Boolean> BUFFER_SERVER_BATCHING = new Attribute<Boolean>(false);
+    /**
+     * Output port attribute. Whether the tuples which the port sends through the buffer server are compressed. The
+     * tuples are compressed in batches as with {@link #BUFFER_SERVER_BATCHING}, which trades CPU time for network
+     * bandwidth and buffer server memory. For the output of a unifier the attribute of the downstream input port
+     * applies.
+     */
+    Attribute<Boolean> BUFFER_SERVER_COMPRESSION = new Attribute<Boolean>(false);
+    /**
+     * Output port attribute. Combiner which aggregates the tuples with equal keys the port emits in a streaming window
+     * in the container of the operator and in the unifiers of the stream, so only partial aggregates per window are
+     * sent downstream, see {@link Combiner}.
+     */
+    Attribute<Combiner<?>> COMBINER = new Attribute<Combiner<?>>(new Object2String<Combiner<?>>());
     /**
      * Provide the codec which can be used to serialize or deserialize the data
      * that can be received on the port. If it is unspecified the engine may use
@@ -270,6 +290,13 @@ public interface Context
      * Whether or not to auto record the tuples
      */
     Attribute<Boolean> AUTO_RECORD = new Attribute<Boolean>(false);
+    /**
+     * Interval in milliseconds at which an input operator traces one of the tuples it emits. The trace follows the
+     * tuple through the downstream operators, each of which records the latency since the input operator emitted the
+     * tuple and since the upstream operator passed it on. The latencies are reported with the operator stats.
+     * The default value 0 disables tracing.
+     */
+    Attribute<Integer> TUPLE_TRACING_INTERVAL_MILLIS = new Attribute<Integer>(0);
     /**
      * How the operator distributes its state and share the input can be influenced by setting the Partitioner attribute.
      * If this attribute is set to non null value, the instance of the partitioner is used to partition and merge the
@@ -48,6 +48,86 @@ public interface Stats extends Serializable
     }
   }
 
+  /**
+   * Histogram of latencies in milliseconds with buckets that double in width, i.e. 0, 1, 2-3, 4-7 and so on.
+   * Histograms of different windows or partitions are merged without losing precision.
+   */
+  class LatencyHistogram implements Stats
+  {
+    private final long[] buckets = new long[Long.SIZE];
+    private long count;
+    private long sum;
+    private long max;
+
+    public void add(long latency)
+    {
+      if (latency < 0) {
+        // clocks of the hosts are not in perfect sync
+        latency = 0;
+      }
+      buckets[Long.SIZE - Long.numberOfLeadingZeros(latency)]++;
+      count++;
+      sum += latency;
+      if (latency > max) {
+        max = latency;
+      }
+    }
+
+    public void merge(LatencyHistogram other)
+    {
+      for (int i = buckets.length; i-- > 0;) {
+        buckets[i] += other.buckets[i];
+      }
+      count += other.count;
+      sum += other.sum;
+      if (other.max > max) {
+        max = other.max;
+      }
+    }
+
+    public long getCount()
+    {
+      return count;
+    }
+
+    public long getAvg()
+    {
+      return count == 0 ? 0 : sum / count;
+    }
+
+    public long getMax()
+    {
+      return max;
+    }
+
+    /**
+     * Returns the upper bound of the bucket containing the given percentile of the latencies.
+     *
+     * @param percentile percentage between 0 and 100
+     * @return the latency in milliseconds or 0 if there are no latencies
+     */
+    public long getPercentile(double percentile)
+    {
+      long rank = Math.min(Math.max((long)Math.ceil(percentile / 100 * count), 1), count);
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen >= rank && seen > 0) {
+          return i == 0 ? 0 : Math.min((1L << i) - 1, max);
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public String toString()
+    {
+      return "LatencyHistogram{" + "count=" + count + ", avg=" + getAvg() + ", max=" + max + '}';
+    }
+
+    private static final long serialVersionUID = 201602251030L;
+  }
+
   public static class OperatorStats implements Stats
   {
     public long windowId;
@@ -68,6 +148,17 @@ public interface Stats extends Serializable
      */
     public String recordingId;
 
+    /**
+     * Latency from the input operator to this operator of the tuples traced during the window, null if no tuple was
+     * traced. See {@link com.datatorrent.api.Context.OperatorContext#TUPLE_TRACING_INTERVAL_MILLIS}.
+     */
+    public LatencyHistogram tracedLatency;
+    /**
+     * Latency from the upstream operator to this operator of the tuples traced during the window, null if no tuple
+     * was traced.
+     */
+    public LatencyHistogram tracedHopLatency;
+
     public static class PortStats implements Stats
     {
       private static final long serialVersionUID = 201309131906L;
@@ -75,7 +166,17 @@ public interface Stats extends Serializable
       public int tupleCount;
       public long endWindowTimestamp;
       public long bufferServerBytes;
+      /**
+       * Bytes of the tuples before they were compressed for the buffer server, equal to bufferServerBytes if the stream
+       * is not compressed. See {@link com.datatorrent.api.Context.PortContext#BUFFER_SERVER_COMPRESSION}.
+       */
+      public long bufferServerUncompressedBytes;
       public int queueSize;
+      /**
+       * Tuples received per key group on an input port of a partitioned stream, by the key masked with the partition
+       * mask, otherwise null. The keys of the partition without tuples are included.
+       */
+      public Map<Integer, Long> keyGroupTupleCounts;
       /**
        * If there is a recording on the port, this contains the recording id, otherwise null
        */
@@ -89,7 +190,7 @@ public interface Stats extends Serializable
       @Override
       public String toString()
       {
-        return "PortStats{" + "portname=" + id + ", processedCount=" + tupleCount + ", bufferServerBytes = " + bufferServerBytes + ", queueSize = " + queueSize + ", endWindowTimestamp=" + endWindowTimestamp + '}';
+        return "PortStats{" + "portname=" + id + ", processedCount=" + tupleCount + ", bufferServerBytes = " + bufferServerBytes + ", bufferServerUncompressedBytes = " + bufferServerUncompressedBytes + ", queueSize = " + queueSize + ", endWindowTimestamp=" + endWindowTimestamp + '}';
       }
 
     }
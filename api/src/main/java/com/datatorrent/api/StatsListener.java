@@ -115,6 +115,21 @@ public interface StatsListener
     List<OperatorResponse> getOperatorResponse();
   }
 
+  /**
+   * Operator stats which also provide percentiles of the latency. Stats listeners can check the
+   * {@link BatchedOperatorStats} they are called with for this interface.
+   */
+  public interface LatencyPercentileStats extends BatchedOperatorStats
+  {
+    /**
+     * Returns a percentile of the recent latency samples from which {@link #getLatencyMA()} is computed.
+     *
+     * @param percentile percentage between 0 and 100, for example 50 for the median or 99
+     * @return the latency in milliseconds
+     */
+    long getLatencyPercentile(double percentile);
+  }
+
   public class Response implements Serializable
   {
     /**
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import com.datatorrent.api.DefaultInputPort;
+import com.datatorrent.api.DefaultOutputPort;
+import com.datatorrent.api.InputOperator;
+import com.datatorrent.common.util.BaseOperator;
+
+/**
+ * Operators used by the benchmarks. They do as little work as possible so the benchmarks measure the engine.
+ */
+public class BenchmarkOperators
+{
+  public static class Generator extends BaseOperator implements InputOperator
+  {
+    public final transient DefaultOutputPort<Object> output = new DefaultOutputPort<Object>();
+
+    @Override
+    public void emitTuples()
+    {
+    }
+  }
+
+  /**
+   * Emits the given number of tuples and then shuts the application down.
+   */
+  public static class BoundedGenerator extends BaseOperator implements InputOperator
+  {
+    public final transient DefaultOutputPort<Object> output = new DefaultOutputPort<Object>();
+    private int tuples;
+    private int emitted;
+
+    @Override
+    public void emitTuples()
+    {
+      if (emitted == tuples) {
+        BaseOperator.shutdown();
+      }
+      output.emit(++emitted);
+    }
+
+    public int getTuples()
+    {
+      return tuples;
+    }
+
+    public void setTuples(int tuples)
+    {
+      this.tuples = tuples;
+    }
+  }
+
+  public static class PassThrough extends BaseOperator
+  {
+    public final transient DefaultInputPort<Object> input = new DefaultInputPort<Object>()
+    {
+      @Override
+      public void process(Object tuple)
+      {
+        output.emit(tuple);
+      }
+    };
+
+    public final transient DefaultOutputPort<Object> output = new DefaultOutputPort<Object>();
+  }
+
+  public static class Merge extends BaseOperator
+  {
+    public final transient DefaultInputPort<Object> input1 = new DefaultInputPort<Object>()
+    {
+      @Override
+      public void process(Object tuple)
+      {
+        output.emit(tuple);
+      }
+    };
+
+    public final transient DefaultInputPort<Object> input2 = new DefaultInputPort<Object>()
+    {
+      @Override
+      public void process(Object tuple)
+      {
+        output.emit(tuple);
+      }
+    };
+
+    public final transient DefaultOutputPort<Object> output = new DefaultOutputPort<Object>();
+  }
+
+  public static class DevNull extends BaseOperator
+  {
+    public final transient DefaultInputPort<Object> input = new DefaultInputPort<Object>()
+    {
+      @Override
+      public void process(Object tuple)
+      {
+      }
+    };
+  }
+
+  /**
+   * Tuple with a mix of field types, representative of what applications usually stream.
+   */
+  public static class Event
+  {
+    public long timestamp;
+    public String key;
+    public double value;
+    public int[] counts;
+
+    public Event()
+    {
+    }
+
+    public Event(long timestamp, String key, double value, int[] counts)
+    {
+      this.timestamp = timestamp;
+      this.key = key;
+      this.value = value;
+      this.counts = counts;
+    }
+  }
+
+}
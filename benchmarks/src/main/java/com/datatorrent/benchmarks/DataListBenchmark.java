@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.bufferserver.internal.DataList;
+import com.datatorrent.bufferserver.internal.DataList.DataListIterator;
+import com.datatorrent.bufferserver.packet.BeginWindowTuple;
+import com.datatorrent.bufferserver.packet.EndWindowTuple;
+import com.datatorrent.bufferserver.packet.PayloadTuple;
+import com.datatorrent.bufferserver.storage.DiskStorage;
+import com.datatorrent.bufferserver.util.VarInt;
+
+/**
+ * Exercises the {@link DataList} the way the buffer server uses it: the publisher appends length prefixed messages
+ * to the last block and flushes them, subscribers iterate over the blocks and full blocks are spooled to the
+ * {@link DiskStorage} and read back. The append and iterate scores are per data tuple.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class DataListBenchmark
+{
+  private static final int TUPLES = 1000;
+  private static final int PAYLOAD_SIZE = 64;
+  private static final int BLOCK_SIZE = 1024 * 1024;
+  private static final int ITERATED_WINDOWS = 64;
+
+  private final byte[] payload = frame(PayloadTuple.getSerializedTuple(0, PAYLOAD_SIZE));
+  private ExecutorService executor;
+  private DataList appended;
+  private DataList iterated;
+  private int windowId;
+  private boolean blockAdded;
+  private byte[] block;
+  private DiskStorage storage;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    executor = Executors.newSingleThreadExecutor();
+    appended = newDataList("append");
+    iterated = newDataList("iterate");
+    for (int i = 0; i < ITERATED_WINDOWS; i++) {
+      appendWindow(iterated, i);
+    }
+    blockAdded = false;
+
+    block = new byte[BLOCK_SIZE];
+    for (int offset = 0; offset + payload.length <= block.length; offset += payload.length) {
+      System.arraycopy(payload, 0, block, offset, payload.length);
+    }
+    File directory = File.createTempFile("datalist", "spool");
+    if (!directory.delete() || !directory.mkdir()) {
+      throw new IOException("Could not create spool directory " + directory);
+    }
+    directory.deleteOnExit();
+    storage = new DiskStorage(directory.getPath());
+  }
+
+  @TearDown
+  public void teardown()
+  {
+    executor.shutdown();
+  }
+
+  private DataList newDataList(String identifier)
+  {
+    DataList dl = new DataList(identifier, BLOCK_SIZE, 8);
+    dl.setAutoFlushExecutor(executor);
+    return dl;
+  }
+
+  private static byte[] frame(byte[] message)
+  {
+    byte[] framed = new byte[VarInt.getSize(message.length) + message.length];
+    System.arraycopy(message, 0, framed, VarInt.write(message.length, framed, 0), message.length);
+    return framed;
+  }
+
+  private void append(DataList dl, long windowId, byte[] framed)
+  {
+    byte[] buffer = dl.getBuffer(windowId);
+    int position = dl.getPosition();
+    if (position + framed.length > buffer.length) {
+      /* fill the block with the head of the message and repeat it in full in the next block, same as the server */
+      System.arraycopy(framed, 0, buffer, position, buffer.length - position);
+      dl.flush(buffer.length);
+      buffer = dl.newBuffer(framed.length);
+      dl.addBuffer(buffer);
+      blockAdded = true;
+      position = 0;
+    }
+    System.arraycopy(framed, 0, buffer, position, framed.length);
+    dl.flush(position + framed.length);
+  }
+
+  private void appendWindow(DataList dl, int windowId)
+  {
+    append(dl, windowId, frame(BeginWindowTuple.getSerializedTuple(windowId)));
+    for (int i = TUPLES; i-- > 0;) {
+      append(dl, windowId, payload);
+    }
+    append(dl, windowId, frame(EndWindowTuple.getSerializedTuple(windowId)));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TUPLES)
+  public int append()
+  {
+    if (blockAdded) {
+      /* keep the memory footprint flat, as the purge requests of the downstream operators would */
+      appended.purge(0, windowId - 1);
+      blockAdded = false;
+    }
+    appendWindow(appended, windowId++);
+    return appended.getPosition();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TUPLES * ITERATED_WINDOWS)
+  public int iterate()
+  {
+    int length = 0;
+    try (DataListIterator iterator = iterated.newIterator(0)) {
+      while (iterator.hasNext()) {
+        length += iterator.next().length;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Spools one block to the disk and reads it back, the way a block which is not in memory anymore gets retrieved for
+   * a subscriber catching up.
+   *
+   * @return the retrieved block
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public byte[] spool()
+  {
+    int uniqueIdentifier = storage.store("spool", block, 0, block.length);
+    byte[] retrieved = storage.retrieve("spool", uniqueIdentifier);
+    storage.discard("spool", uniqueIdentifier);
+    return retrieved;
+  }
+
+}
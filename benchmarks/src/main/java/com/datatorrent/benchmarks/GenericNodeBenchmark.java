@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.api.Attribute.AttributeMap.DefaultAttributeMap;
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.stram.engine.AbstractReservoir;
+import com.datatorrent.stram.engine.GenericNode;
+import com.datatorrent.stram.engine.OperatorContext;
+import com.datatorrent.stram.tuple.EndStreamTuple;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * Feeds windows of tuples to a {@link GenericNode} running a pass through operator on its own thread and waits for
+ * the end of each window to come out of the output port. The score is per data tuple and covers the window
+ * bookkeeping of the node as well as the hand off through the input reservoir.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class GenericNodeBenchmark
+{
+  private static final int TUPLES = 1000;
+
+  private GenericNode node;
+  private AbstractReservoir reservoir;
+  private Thread thread;
+  private final Object payload = new Object();
+  private volatile long endWindowCount;
+  private long windowId;
+
+  @Setup
+  public void setup()
+  {
+    OperatorContext context = new OperatorContext(0, new DefaultAttributeMap(), null);
+    node = new GenericNode(new BenchmarkOperators.PassThrough(), context);
+    node.setId(1);
+    reservoir = AbstractReservoir.newReservoir("input", 16 * 1024);
+    node.connectInputPort("input", reservoir);
+    node.connectOutputPort("output", new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        if (tuple instanceof Tuple && ((Tuple)tuple).getType() == MessageType.END_WINDOW) {
+          endWindowCount++;
+        }
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+    });
+    node.firstWindowMillis = 0;
+    node.windowWidthMillis = 500;
+
+    thread = new Thread("GenericNodeBenchmark")
+    {
+      @Override
+      public void run()
+      {
+        node.activate();
+        node.run();
+        node.deactivate();
+      }
+    };
+    thread.start();
+  }
+
+  @TearDown
+  public void teardown() throws InterruptedException
+  {
+    reservoir.add(new EndStreamTuple(windowId));
+    thread.join();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TUPLES)
+  public long processWindow()
+  {
+    long window = ++windowId;
+    reservoir.add(new Tuple(MessageType.BEGIN_WINDOW, window));
+    for (int i = TUPLES; i-- > 0;) {
+      reservoir.add(payload);
+    }
+    reservoir.add(new EndWindowTuple(window));
+
+    while (endWindowCount < window) {
+      Thread.yield();
+    }
+    return endWindowCount;
+  }
+
+}
@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.hadoop.conf.Configuration;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.Context.PortContext;
+import com.datatorrent.api.DAG;
+import com.datatorrent.api.DefaultOutputPort;
+import com.datatorrent.api.StreamingApplication;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.logical.LogicalPlanConfiguration;
+
+/**
+ * Configures a logical plan with the given number of pass through operators from properties. Every operator has an
+ * attribute, an input port attribute and the locality of its input stream set by name, a few more attributes are set
+ * for the operators matching regular expressions, so there are about three properties per operator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class LogicalPlanConfigurationBenchmark
+{
+  private static final String APP_NAME = "benchmark";
+  private static final String APP_PREFIX = StreamingApplication.DT_PREFIX + "application." + APP_NAME + ".";
+
+  @Param({"100", "1000"})
+  public int operatorCount;
+
+  private Properties properties;
+  private StreamingApplication app;
+
+  @Setup
+  public void setup()
+  {
+    properties = new Properties();
+    for (int i = 0; i < operatorCount; i++) {
+      String operatorPrefix = APP_PREFIX + "operator.passThrough" + i + ".";
+      properties.setProperty(operatorPrefix + "attr." + OperatorContext.MEMORY_MB.getSimpleName(), "512");
+      properties.setProperty(operatorPrefix + "inputport.input.attr." + PortContext.QUEUE_CAPACITY.getSimpleName(),
+          "4096");
+      properties.setProperty(APP_PREFIX + "stream.stream" + i + ".locality", DAG.Locality.CONTAINER_LOCAL.name());
+    }
+    properties.setProperty(APP_PREFIX + "operator.passThrough[0-9]*0.attr." + OperatorContext.VCORES.getSimpleName(),
+        "2");
+    properties.setProperty(APP_PREFIX + "operator.passThrough[0-9]*5.attr."
+        + OperatorContext.APPLICATION_WINDOW_COUNT.getSimpleName(), "2");
+    properties.setProperty(APP_PREFIX + "operator.*.attr." + OperatorContext.TIMEOUT_WINDOW_COUNT.getSimpleName(),
+        "240");
+
+    app = new StreamingApplication()
+    {
+      @Override
+      public void populateDAG(DAG dag, Configuration conf)
+      {
+        DefaultOutputPort<Object> output = dag.addOperator("generator", new BenchmarkOperators.Generator()).output;
+        for (int i = 0; i < operatorCount; i++) {
+          BenchmarkOperators.PassThrough passThrough = dag.addOperator("passThrough" + i,
+              new BenchmarkOperators.PassThrough());
+          dag.addStream("stream" + i, output, passThrough.input);
+          output = passThrough.output;
+        }
+        dag.addStream("stream" + operatorCount, output,
+            dag.addOperator("devNull", new BenchmarkOperators.DevNull()).input);
+      }
+    };
+  }
+
+  @Benchmark
+  public LogicalPlan configure()
+  {
+    LogicalPlanConfiguration planConfiguration = new LogicalPlanConfiguration(new Configuration(false));
+    planConfiguration.addFromProperties(properties, null);
+    LogicalPlan dag = new LogicalPlan();
+    planConfiguration.prepareDAG(dag, app, APP_NAME);
+    return dag;
+  }
+
+}
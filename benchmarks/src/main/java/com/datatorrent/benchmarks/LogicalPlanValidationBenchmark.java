@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.api.DefaultOutputPort;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+
+/**
+ * Validates a logical plan with the given number of operators. The plan is a pipeline of pass through operators
+ * which every tenth operator merges with the output of another input operator, so validation has to deal with
+ * several roots and operators with multiple inputs. The plan is validated completely and after a change of the last
+ * operator, like the validation of plan modifications of a running application.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class LogicalPlanValidationBenchmark
+{
+  @Param({"100", "1000", "10000"})
+  public int operatorCount;
+
+  private LogicalPlan dag;
+  private List<LogicalPlan.OperatorMeta> changedOperators;
+
+  @Setup
+  public void setup()
+  {
+    dag = new LogicalPlan();
+    DefaultOutputPort<Object> output = dag.addOperator("generator", new BenchmarkOperators.Generator()).output;
+    for (int i = 1; i < operatorCount - 1; i++) {
+      if (i % 10 == 0 && i + 2 < operatorCount) {
+        BenchmarkOperators.Generator generator = dag.addOperator("generator" + i, new BenchmarkOperators.Generator());
+        BenchmarkOperators.Merge merge = dag.addOperator("merge" + ++i, new BenchmarkOperators.Merge());
+        dag.addStream("stream" + i, output, merge.input1);
+        dag.addStream("side" + i, generator.output, merge.input2);
+        output = merge.output;
+      } else {
+        BenchmarkOperators.PassThrough passThrough = dag.addOperator("passThrough" + i,
+            new BenchmarkOperators.PassThrough());
+        dag.addStream("stream" + i, output, passThrough.input);
+        output = passThrough.output;
+      }
+    }
+    dag.addStream("stream" + operatorCount, output, dag.addOperator("devNull", new BenchmarkOperators.DevNull()).input);
+    changedOperators = Collections.singletonList(dag.getOperatorMeta("devNull"));
+  }
+
+  @Benchmark
+  public LogicalPlan validate()
+  {
+    dag.validate();
+    return dag;
+  }
+
+  @Benchmark
+  public LogicalPlan validateChange()
+  {
+    dag.validate(changedOperators);
+    return dag;
+  }
+
+}
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.FileUtils;
+
+import com.datatorrent.api.DAG.Locality;
+import com.datatorrent.api.DefaultOutputPort;
+import com.datatorrent.stram.StramLocalCluster;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+
+/**
+ * Runs an application with pipelines of lightweight pass through operators in a single {@link StramLocalCluster}
+ * container until the generator feeding them has emitted all tuples, once with a platform thread per operator, once
+ * with virtual threads and once with the cooperative scheduler. The score is the time it takes to deploy, run and
+ * undeploy the application. Virtual threads fall back to platform threads on JVMs older than Java 21.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class OperatorThreadsBenchmark
+{
+  /**
+   * The operators form parallel pipelines behind the generator.
+   */
+  private static final int PIPELINES = 9;
+  /**
+   * Stack size of the thread which deploys the application, the plan is serialized recursively.
+   */
+  private static final long PLAN_STACK_SIZE = 256 * 1024 * 1024;
+
+  @Param({"1000"})
+  public int operatorCount;
+
+  @Param({"10000"})
+  public int tuples;
+
+  @Param({"platform", "virtual", "cooperative"})
+  public String threads;
+
+  private LogicalPlan dag;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    File path = Files.createTempDirectory("OperatorThreadsBenchmark").toFile();
+    FileUtils.forceDeleteOnExit(path);
+    dag = new LogicalPlan();
+    dag.setAttribute(LogicalPlan.APPLICATION_PATH, path.getAbsolutePath());
+    dag.setAttribute(LogicalPlan.CONTAINERS_MAX_COUNT, 1);
+    if ("virtual".equals(threads)) {
+      dag.setAttribute(LogicalPlan.VIRTUAL_THREADS, true);
+    } else if ("cooperative".equals(threads)) {
+      dag.setAttribute(LogicalPlan.COOPERATIVE_SCHEDULER_MIN_OPERATORS, 1);
+    }
+
+    BenchmarkOperators.BoundedGenerator generator = dag.addOperator("generator",
+        new BenchmarkOperators.BoundedGenerator());
+    generator.setTuples(tuples);
+    LogicalPlan.StreamMeta stream = dag.addStream("generated", generator.output).setLocality(Locality.CONTAINER_LOCAL);
+    int length = (operatorCount - 1) / PIPELINES;
+    for (int p = 0; p < PIPELINES; p++) {
+      BenchmarkOperators.PassThrough head = dag.addOperator("passThrough" + p + ".0",
+          new BenchmarkOperators.PassThrough());
+      stream.addSink(head.input);
+      DefaultOutputPort<Object> output = head.output;
+      for (int i = 1; i < length - 1; i++) {
+        BenchmarkOperators.PassThrough passThrough = dag.addOperator("passThrough" + p + "." + i,
+            new BenchmarkOperators.PassThrough());
+        dag.addStream("stream" + p + "." + i, output, passThrough.input).setLocality(Locality.CONTAINER_LOCAL);
+        output = passThrough.output;
+      }
+      BenchmarkOperators.DevNull devNull = dag.addOperator("devNull" + p, new BenchmarkOperators.DevNull());
+      dag.addStream("stream" + p + "." + length, output, devNull.input).setLocality(Locality.CONTAINER_LOCAL);
+    }
+  }
+
+  @Benchmark
+  public LogicalPlan runApplication() throws Exception
+  {
+    final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+    Thread thread = new Thread(null, new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        try {
+          StramLocalCluster localCluster = new StramLocalCluster(dag);
+          localCluster.setHeartbeatMonitoringEnabled(false);
+          localCluster.run();
+        } catch (Exception ex) {
+          failure.set(ex);
+        }
+      }
+    }, "OperatorThreadsBenchmark", PLAN_STACK_SIZE);
+    thread.start();
+    thread.join();
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+    return dag;
+  }
+
+}
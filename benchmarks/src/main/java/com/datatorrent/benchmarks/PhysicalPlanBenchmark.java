@@ -0,0 +1,219 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.Context.PortContext;
+import com.datatorrent.api.DefaultPartition;
+import com.datatorrent.api.StatsListener;
+import com.datatorrent.api.StorageAgent;
+import com.datatorrent.common.partitioner.StatelessPartitioner;
+import com.datatorrent.stram.Journal.Recoverable;
+import com.datatorrent.stram.api.StramEvent;
+import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.StramToNodeRequest;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.physical.PTContainer;
+import com.datatorrent.stram.plan.physical.PTOperator;
+import com.datatorrent.stram.plan.physical.PhysicalPlan;
+
+/**
+ * Constructs and repartitions the physical plan of an application with the given number of partitions. An input
+ * operator feeds the partitioned operator, which feeds a parallel partitioned operator and a single downstream
+ * operator through a unifier, so the plan has about twice as many operators as partitions. Every repartitioning
+ * replaces one partition, which undeploys and redeploys it with its parallel partition and keeps the plan size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class PhysicalPlanBenchmark
+{
+  @Param({"500", "5000"})
+  public int partitionCount;
+
+  private LogicalPlan dag;
+  private Context context;
+  private PhysicalPlan plan;
+  private LogicalPlan.OperatorMeta partitioned;
+
+  @Setup
+  public void setup()
+  {
+    dag = new LogicalPlan();
+    context = new Context();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, context);
+    BenchmarkOperators.Generator generator = dag.addOperator("generator", new BenchmarkOperators.Generator());
+    BenchmarkOperators.PassThrough passThrough = dag.addOperator("passThrough", new BenchmarkOperators.PassThrough());
+    BenchmarkOperators.PassThrough parallel = dag.addOperator("parallel", new BenchmarkOperators.PassThrough());
+    BenchmarkOperators.DevNull devNull = dag.addOperator("devNull", new BenchmarkOperators.DevNull());
+    dag.addStream("input", generator.output, passThrough.input);
+    dag.addStream("parallel", passThrough.output, parallel.input);
+    dag.addStream("output", parallel.output, devNull.input);
+    dag.setInputPortAttribute(parallel.input, PortContext.PARTITION_PARALLEL, true);
+    dag.setAttribute(passThrough, OperatorContext.PARTITIONER, new ReplacingPartitioner(partitionCount));
+    partitioned = dag.getMeta(passThrough);
+    plan = new PhysicalPlan(dag, context);
+  }
+
+  @Benchmark
+  public PhysicalPlan construct()
+  {
+    return new PhysicalPlan(dag, context);
+  }
+
+  @Benchmark
+  public PhysicalPlan repartition()
+  {
+    plan.onStatusUpdate(plan.getOperators(partitioned).get(0));
+    for (Runnable event : context.events) {
+      event.run();
+    }
+    context.events.clear();
+    return plan;
+  }
+
+  /**
+   * Creates the configured number of partitions and replaces the first partition on every later call.
+   */
+  public static class ReplacingPartitioner extends StatelessPartitioner<BenchmarkOperators.PassThrough>
+      implements StatsListener
+  {
+    private static final long serialVersionUID = 201610190000L;
+
+    public ReplacingPartitioner(int partitionCount)
+    {
+      super(partitionCount);
+    }
+
+    @Override
+    public Collection<Partition<BenchmarkOperators.PassThrough>> definePartitions(
+        Collection<Partition<BenchmarkOperators.PassThrough>> partitions, PartitioningContext context)
+    {
+      if (partitions.iterator().next().getStats() == null) {
+        return super.definePartitions(partitions, context);
+      }
+      List<Partition<BenchmarkOperators.PassThrough>> newPartitions = new ArrayList<>(partitions);
+      Partition<BenchmarkOperators.PassThrough> partition = newPartitions.get(0);
+      newPartitions.set(0, new DefaultPartition<>(new BenchmarkOperators.PassThrough(), partition.getPartitionKeys(),
+          0, null));
+      return newPartitions;
+    }
+
+    @Override
+    public Response processStats(BatchedOperatorStats stats)
+    {
+      Response response = new Response();
+      response.repartitionRequired = true;
+      return response;
+    }
+  }
+
+  /**
+   * Plan context which queues the plan changes and keeps the checkpoints of the operators in memory.
+   */
+  private static class Context implements PhysicalPlan.PlanContext, StorageAgent
+  {
+    private final List<Runnable> events = new ArrayList<>();
+    private final Map<String, Object> checkpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordEventAsync(StramEvent ev)
+    {
+    }
+
+    @Override
+    public void deploy(Set<PTContainer> releaseContainers, Collection<PTOperator> undeploy,
+        Set<PTContainer> startContainers, Collection<PTOperator> deploy)
+    {
+    }
+
+    @Override
+    public void dispatch(Runnable r)
+    {
+      events.add(r);
+    }
+
+    @Override
+    public void writeJournal(Recoverable operation)
+    {
+    }
+
+    @Override
+    public void addOperatorRequest(PTOperator oper, StramToNodeRequest request)
+    {
+    }
+
+    @Override
+    public void save(Object object, int operatorId, long windowId) throws IOException
+    {
+      checkpoints.put(getKey(operatorId, windowId), object);
+    }
+
+    @Override
+    public Object load(int operatorId, long windowId) throws IOException
+    {
+      Object object = checkpoints.get(getKey(operatorId, windowId));
+      if (object == null) {
+        throw new IOException("checkpoint not found operatorId=" + operatorId + " windowId=" + windowId);
+      }
+      return object;
+    }
+
+    @Override
+    public void delete(int operatorId, long windowId) throws IOException
+    {
+      checkpoints.remove(getKey(operatorId, windowId));
+    }
+
+    @Override
+    public long[] getWindowIds(int operatorId) throws IOException
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    private static String getKey(int operatorId, long windowId)
+    {
+      return operatorId + "_" + windowId;
+    }
+  }
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.api.StreamCodec;
+import com.datatorrent.bufferserver.client.Controller;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.server.Server;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.engine.Stream;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.stream.BufferServerPublisher;
+import com.datatorrent.stram.stream.BufferServerSubscriber;
+import com.datatorrent.stram.stream.FastPublisher;
+import com.datatorrent.stram.stream.FastSubscriber;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * Publishes windows of tuples through an in-process buffer server {@link Server} and waits for the subscriber to
+ * receive the end of each window, comparing the {@link BufferServerPublisher} with the {@link FastPublisher} and
+ * their matching subscribers. The buffer server publisher also runs with the tuples sent in batches and in compressed
+ * batches. The score is per data tuple and includes the serialization of the tuples.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class PublisherBenchmark
+{
+  private static final String STREAM_ID = "stream";
+  private static final String PUBLISHER_ID = "publisher";
+  private static final String SUBSCRIBER_ID = "subscriber";
+  private static final int TUPLES = 1000;
+  private static final int PURGE_INTERVAL_WINDOWS = 64;
+
+  @Param({"default", "batched", "compressed", "fast"})
+  public String publisher;
+
+  private DefaultEventLoop eventloop;
+  private Server server;
+  private Stream output;
+  private BufferServerSubscriber input;
+  private SweepableReservoir reservoir;
+  private Controller controller;
+  private final String payload = "the quick brown fox jumps over the lazy dog";
+  private int windowId;
+
+  @Setup
+  public void setup(final Blackhole blackhole) throws IOException
+  {
+    eventloop = DefaultEventLoop.createEventLoop("PublisherBenchmark");
+    eventloop.start();
+    server = new Server(0, 8 * 1024 * 1024, 8);
+    InetSocketAddress address = server.run(eventloop);
+    address = new InetSocketAddress("localhost", address.getPort());
+
+    StreamCodec<Object> codec = new DefaultStatefulStreamCodec<Object>();
+    StreamContext inputContext = newStreamContext(address, codec);
+    inputContext.setFinishedWindowId(-1);
+    StreamContext outputContext = newStreamContext(address, codec);
+    outputContext.put(StreamContext.BATCHING, "batched".equals(publisher));
+    outputContext.put(StreamContext.COMPRESSION, "compressed".equals(publisher));
+
+    boolean fast = "fast".equals(publisher);
+    input = fast ? new FastSubscriber(SUBSCRIBER_ID, 1024) : new BufferServerSubscriber(SUBSCRIBER_ID, 1024);
+    input.setup(inputContext);
+    reservoir = input.acquireReservoir("reservoir", 1024);
+    reservoir.setSink(new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        blackhole.consume(tuple);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+    });
+
+    output = fast ? new FastPublisher(PUBLISHER_ID, 64 * 1024) : new BufferServerPublisher(PUBLISHER_ID, 1024);
+    output.setup(outputContext);
+
+    input.activate(inputContext);
+    output.activate(outputContext);
+
+    controller = new Controller("controller")
+    {
+      @Override
+      public void onMessage(String message)
+      {
+      }
+    };
+    eventloop.connect(address, controller);
+  }
+
+  private StreamContext newStreamContext(InetSocketAddress address, StreamCodec<Object> codec)
+  {
+    StreamContext context = new StreamContext(STREAM_ID);
+    context.setSourceId(PUBLISHER_ID);
+    context.setSinkId(SUBSCRIBER_ID);
+    context.setBufferServerAddress(address);
+    context.put(StreamContext.CODEC, codec);
+    context.put(StreamContext.EVENT_LOOP, eventloop);
+    return context;
+  }
+
+  @TearDown
+  public void teardown()
+  {
+    eventloop.disconnect(controller);
+    output.deactivate();
+    input.deactivate();
+    output.teardown();
+    input.teardown();
+    eventloop.stop(server);
+    eventloop.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TUPLES)
+  public Tuple publish()
+  {
+    if (windowId > 0 && windowId % PURGE_INTERVAL_WINDOWS == 0) {
+      /* the subscriber received all the earlier windows, release them as the checkpointing would */
+      controller.purge(null, PUBLISHER_ID, windowId - 1);
+    }
+
+    output.put(new Tuple(MessageType.BEGIN_WINDOW, windowId));
+    for (int i = TUPLES; i-- > 0;) {
+      output.put(payload);
+    }
+    output.put(new EndWindowTuple(windowId++));
+
+    Tuple t;
+    do {
+      t = reservoir.sweep();
+      if (t == null) {
+        Thread.yield();
+      } else {
+        reservoir.remove();
+      }
+    } while (!(t instanceof EndWindowTuple));
+    return t;
+  }
+
+}
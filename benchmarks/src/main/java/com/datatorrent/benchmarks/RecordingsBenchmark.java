@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+
+import com.datatorrent.stram.client.RecordingsAgent;
+import com.datatorrent.stram.client.RecordingsAgent.TuplesInfo;
+import com.datatorrent.stram.client.StramAgent;
+import com.datatorrent.stram.debug.TupleRecorder;
+import com.datatorrent.stram.util.FSPartFileCollection;
+
+/**
+ * Pages to the end of a multi-GB tuple recording through the {@link RecordingsAgent}, by tuple offset and by window,
+ * once with the sparse per part file index and once with the part files scanned from the beginning. The recording is
+ * written with the {@link TupleRecorder} in the setup of each trial, which takes a while for the default size. The
+ * score is the time of one query for a page of tuples.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class RecordingsBenchmark
+{
+  private static final String APP_ID = "application_benchmark";
+  private static final String OPERATOR_ID = "1";
+  private static final String RECORDING_ID = "recording";
+  private static final String PORT = "port";
+  private static final int WINDOW_TUPLES = 100;
+  private static final int TUPLE_SIZE = 1024;
+  private static final int LIMIT = 10;
+
+  @Param({"2048"})
+  public int recordingMB;
+
+  /**
+   * Size of the part files, the agent skips whole part files through the recording index either way.
+   */
+  @Param({"1", "256"})
+  public int partMB;
+
+  @Param({"indexed", "scanned"})
+  public String parts;
+
+  private File appDir;
+  private FileSystem fs;
+  private RecordingsAgent agent;
+  private long tupleCount;
+  private long lastWindowId;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    appDir = File.createTempFile("recordings", "benchmark");
+    if (!appDir.delete() || !appDir.mkdir()) {
+      throw new IOException("Could not create application directory " + appDir);
+    }
+    File recordingDir = new File(appDir, "recordings/" + OPERATOR_ID + "/" + RECORDING_ID);
+
+    TupleRecorder recorder = new TupleRecorder(RECORDING_ID, APP_ID);
+    recorder.getStorage().setBytesPerPartFile(partMB * 1024 * 1024);
+    recorder.getStorage().setLocalMode(true);
+    recorder.getStorage().setBasePath("file://" + recordingDir.getAbsolutePath());
+    recorder.addInputPortInfo(PORT, "stream");
+    recorder.setup(null, null);
+    char[] value = new char[TUPLE_SIZE];
+    Arrays.fill(value, 'x');
+    String tuple = new String(value);
+    long windowId = 0;
+    for (long bytes = 0; bytes < recordingMB * 1024L * 1024L; bytes += WINDOW_TUPLES * TUPLE_SIZE) {
+      recorder.beginWindow(windowId);
+      for (int i = WINDOW_TUPLES; i-- > 0;) {
+        recorder.writeTuple(tuple, PORT);
+      }
+      recorder.endWindow();
+      lastWindowId = windowId++;
+      tupleCount += WINDOW_TUPLES;
+    }
+    recorder.teardown();
+
+    if ("scanned".equals(parts)) {
+      for (File file : recordingDir.listFiles()) {
+        if (file.getName().endsWith(FSPartFileCollection.PART_INDEX_FILE_SUFFIX) && !file.delete()) {
+          throw new IOException("Could not delete part index " + file);
+        }
+      }
+    }
+
+    fs = FileSystem.newInstance(new Configuration());
+    agent = new RecordingsAgent(new StramAgent(fs, new Configuration())
+    {
+      @Override
+      public String getAppPath(String appId)
+      {
+        return appDir.getAbsolutePath();
+      }
+
+    });
+  }
+
+  @TearDown
+  public void teardown() throws IOException
+  {
+    fs.close();
+    FileUtils.deleteDirectory(appDir);
+  }
+
+  @Benchmark
+  public TuplesInfo byOffset()
+  {
+    return agent.getTuplesInfoByOffset(APP_ID, OPERATOR_ID, RECORDING_ID, tupleCount - LIMIT, LIMIT, null);
+  }
+
+  @Benchmark
+  public TuplesInfo byWindow()
+  {
+    return agent.getTuplesInfoByWindow(APP_ID, OPERATOR_ID, RECORDING_ID, lastWindowId, LIMIT, null);
+  }
+
+}
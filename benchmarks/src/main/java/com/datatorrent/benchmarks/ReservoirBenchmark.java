@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.stram.engine.AbstractReservoir;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * Adds a window worth of data tuples to the reservoir and sweeps them to the sink of the reservoir, the way a
+ * {@link com.datatorrent.stram.engine.GenericNode} drains its input ports. The score is per data tuple.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class ReservoirBenchmark
+{
+  private static final String RESERVOIR_CLASS_NAME_PROPERTY = "com.datatorrent.stram.engine.Reservoir";
+  private static final int TUPLES = 1000;
+
+  @Param({
+      "com.datatorrent.stram.engine.AbstractReservoir$SpscArrayQueueReservoir",
+      "com.datatorrent.stram.engine.AbstractReservoir$ArrayBlockingQueueReservoir",
+      "com.datatorrent.stram.engine.AbstractReservoir$CircularBufferReservoir"})
+  public String reservoirClassName;
+
+  @Param({"1024", "65536"})
+  public int capacity;
+
+  private AbstractReservoir reservoir;
+  private final Object payload = new Object();
+  private final Tuple beginWindow = new Tuple(MessageType.BEGIN_WINDOW, 1);
+  private final Tuple endWindow = new EndWindowTuple(1);
+
+  @Setup
+  public void setup(final Blackhole blackhole)
+  {
+    System.setProperty(RESERVOIR_CLASS_NAME_PROPERTY, reservoirClassName);
+    reservoir = AbstractReservoir.newReservoir("benchmark", capacity);
+    reservoir.setSink(new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        blackhole.consume(tuple);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+    });
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TUPLES)
+  public Tuple addAndSweep()
+  {
+    reservoir.add(beginWindow);
+    for (int i = TUPLES; i-- > 0;) {
+      reservoir.add(payload);
+    }
+    reservoir.add(endWindow);
+
+    reservoir.sweep();
+    reservoir.remove();
+    Tuple t = reservoir.sweep();
+    reservoir.remove();
+    return t;
+  }
+
+}
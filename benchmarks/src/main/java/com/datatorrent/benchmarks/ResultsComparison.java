@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Compares two JMH result files written with <code>-rf json</code>, for example the results of the previous
+ * release with the results of the current build, and reports the change of the score of every benchmark present in
+ * both files. A benchmark regresses when its score gets worse by more than the threshold, which takes the throughput
+ * scores as higher is better and all the other modes as lower is better.
+ *
+ * Usage: ResultsComparison baseline.json current.json [threshold percentage, 5 by default]
+ *
+ * The process exits with status 1 when at least one benchmark regressed, so it can be used to fail a build.
+ */
+public class ResultsComparison
+{
+  private static final double DEFAULT_THRESHOLD = 5;
+
+  public static class Score
+  {
+    public final String mode;
+    public final double score;
+    public final double error;
+    public final String unit;
+
+    public Score(String mode, double score, double error, String unit)
+    {
+      this.mode = mode;
+      this.score = score;
+      this.error = error;
+      this.unit = unit;
+    }
+
+    /**
+     * Returns how much better, in percent, this score is than the given one.
+     *
+     * @param baseline
+     * @return positive percentage for an improvement, negative one for a regression
+     */
+    public double improvementOver(Score baseline)
+    {
+      double change = (score - baseline.score) / baseline.score * 100;
+      return "thrpt".equals(mode) ? change : -change;
+    }
+  }
+
+  /**
+   * Reads the scores from a JMH result file.
+   *
+   * @param file result file in the JSON format
+   * @return the scores keyed by the benchmark name followed by its sorted parameters
+   * @throws IOException
+   */
+  public static Map<String, Score> readResults(File file) throws IOException
+  {
+    Map<String, Score> results = new TreeMap<String, Score>();
+    for (JsonNode result : new ObjectMapper().readTree(file)) {
+      StringBuilder key = new StringBuilder(result.get("benchmark").getTextValue());
+      JsonNode params = result.get("params");
+      if (params != null) {
+        Map<String, String> sorted = new TreeMap<String, String>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = params.getFields(); it.hasNext();) {
+          Map.Entry<String, JsonNode> entry = it.next();
+          sorted.put(entry.getKey(), entry.getValue().asText());
+        }
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+          key.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+      }
+
+      JsonNode metric = result.get("primaryMetric");
+      results.put(key.toString(), new Score(result.get("mode").getTextValue(), metric.get("score").asDouble(),
+          metric.get("scoreError").asDouble(), metric.get("scoreUnit").getTextValue()));
+    }
+    return results;
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length < 2 || args.length > 3) {
+      System.err.printf("Usage: ResultsComparison <baseline.json> <current.json> [threshold percentage]%n");
+      System.exit(2);
+    }
+    double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+    Map<String, Score> baseline = readResults(new File(args[0]));
+    Map<String, Score> current = readResults(new File(args[1]));
+
+    int regressions = 0;
+    for (Map.Entry<String, Score> entry : current.entrySet()) {
+      Score before = baseline.get(entry.getKey());
+      Score after = entry.getValue();
+      if (before == null) {
+        System.out.printf("%-100s %14s %14.3f %-8s%n", entry.getKey(), "new", after.score, after.unit);
+        continue;
+      }
+
+      double improvement = after.improvementOver(before);
+      boolean regressed = improvement < -threshold;
+      if (regressed) {
+        regressions++;
+      }
+      System.out.printf("%-100s %14.3f %14.3f +- %-10.3f %-8s %+8.2f%% %s%n", entry.getKey(), before.score,
+          after.score, after.error, after.unit, improvement, regressed ? "REGRESSION" : "");
+    }
+    for (String key : baseline.keySet()) {
+      if (!current.containsKey(key)) {
+        System.out.printf("%-100s %14s%n", key, "removed");
+      }
+    }
+
+    if (regressions > 0) {
+      System.out.printf("%d benchmarks regressed by more than %.1f%%%n", regressions, threshold);
+      System.exit(1);
+    }
+  }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.codec.StatefulStreamCodec.DataStatePair;
+
+/**
+ * Serializes tuples with the {@link DefaultStatefulStreamCodec} the way a buffer server publisher does and
+ * deserializes them with a separate instance the way a subscriber does, through the {@link DataStatePair}s of the
+ * stateful codec interface and straight from and into a reused buffer. Run with {@code -prof gc} to compare the bytes
+ * allocated per tuple by both.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class StreamCodecBenchmark
+{
+  @Param({"string", "event"})
+  public String tupleType;
+
+  private final DefaultStatefulStreamCodec<Object> serializer = new DefaultStatefulStreamCodec<Object>();
+  private final DefaultStatefulStreamCodec<Object> deserializer = new DefaultStatefulStreamCodec<Object>();
+  private Object tuple;
+  private DataStatePair serialized;
+  private final Output output = new Output(4096, Integer.MAX_VALUE);
+
+  @Setup
+  public void setup()
+  {
+    Random random = new Random(1);
+    if ("string".equals(tupleType)) {
+      tuple = "key-" + random.nextInt(100000) + ":" + random.nextLong();
+    } else {
+      int[] counts = new int[8];
+      for (int i = counts.length; i-- > 0;) {
+        counts[i] = random.nextInt();
+      }
+      tuple = new BenchmarkOperators.Event(random.nextLong(), "key-" + random.nextInt(100000), random.nextDouble(),
+          counts);
+    }
+
+    /* the first tuple of a class carries the codec state, keep it out of the measurement */
+    serialized = serializer.toDataStatePair(tuple);
+    deserializer.fromDataStatePair(serialized);
+    serialized = serializer.toDataStatePair(tuple);
+    output.setPosition(0);
+    serializer.writeTuple(tuple, output);
+  }
+
+  @Benchmark
+  public DataStatePair serialize()
+  {
+    return serializer.toDataStatePair(tuple);
+  }
+
+  @Benchmark
+  public Object deserialize()
+  {
+    return deserializer.fromDataStatePair(serialized);
+  }
+
+  @Benchmark
+  public Object roundTrip()
+  {
+    return deserializer.fromDataStatePair(serializer.toDataStatePair(tuple));
+  }
+
+  @Benchmark
+  public Output serializeToBuffer()
+  {
+    output.setPosition(0);
+    serializer.writeTuple(tuple, output);
+    return output;
+  }
+
+  @Benchmark
+  public Object deserializeFromBuffer()
+  {
+    return deserializer.readTuple(output.getBuffer(), 0, output.position());
+  }
+
+}
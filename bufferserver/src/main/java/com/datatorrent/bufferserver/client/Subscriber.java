@@ -48,9 +48,20 @@ public abstract class Subscriber extends AuthClient
 
   public void activate(final String version, final String type, final String sourceId, final int mask,
       final Collection<Integer> partitions, final long windowId, final int bufferSize)
+  {
+    activate(version, type, sourceId, mask, partitions, windowId, bufferSize, 0);
+  }
+
+  /**
+   * Subscribes with credit based flow control when credits are given. The buffer server sends the given number of
+   * bytes of messages and waits for the subscriber to grant more with
+   * {@link com.datatorrent.bufferserver.packet.CreditTuple}.
+   */
+  public void activate(final String version, final String type, final String sourceId, final int mask,
+      final Collection<Integer> partitions, final long windowId, final int bufferSize, final int credits)
   {
     sendAuthenticate();
-    write(getSerializedRequest(version, id, type, sourceId, mask, partitions, windowId, bufferSize));
+    write(getSerializedRequest(version, id, type, sourceId, mask, partitions, windowId, bufferSize, credits));
   }
 
   @Override
@@ -72,6 +72,7 @@ public class DataList
   private final AtomicInteger numberOfInMemBlockPermits;
   private MutableInt nextOffset = new MutableInt();
   private Future<?> future;
+  private int spoolLagBlockCount;
 
   public DataList(final String identifier, final int blockSize, final int numberOfCacheBlocks)
   {
@@ -317,6 +318,34 @@ public class DataList
     storageExecutor = es;
   }
 
+  /**
+   * Keeps the blocks with the given number of bytes behind the newest data in memory when the buffer server runs low on
+   * memory, so the subscribers which keep up with the publisher are served from memory and only the ones lagging
+   * further behind read spooled blocks. At most half of the memory blocks less one are kept this way.
+   *
+   * @param bytes the lag behind the newest data after which blocks are spooled, 0 spools any block no one reads
+   */
+  public void setSpoolLag(long bytes)
+  {
+    long count = (bytes + blockSize - 1) / blockSize;
+    spoolLagBlockCount = (int)Math.max(0, Math.min(count, MAX_COUNT_OF_INMEM_BLOCKS / 2 - 1));
+  }
+
+  /**
+   * @param block
+   * @return true if the block lags further behind the block being written than the spool lag.
+   */
+  private synchronized boolean isPastSpoolLag(Block block)
+  {
+    int count = 0;
+    for (Block b = block.next; b != null; b = b.next) {
+      if (++count > spoolLagBlockCount) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /*
    * Iterator related functions.
    */
@@ -439,6 +468,23 @@ public class DataList
     last.next = new Block(identifier, array, last.ending_window, last.ending_window);
     last.release(false);
     last = last.next;
+
+    if (spoolLagBlockCount > 0 && storage != null) {
+      /*
+       * the block which just fell behind the spool lag was released while it was kept in memory.
+       */
+      int count = 0;
+      for (Block b = first; b != last; b = b.next) {
+        count++;
+      }
+      Block block = first;
+      for (int i = count - spoolLagBlockCount - 1; i > 0; i--) {
+        block = block.next;
+      }
+      if (count > spoolLagBlockCount && block.refCount.get() == 0) {
+        block.spool();
+      }
+    }
   }
 
   public byte[] getBuffer(long windowId)
@@ -462,6 +508,19 @@ public class DataList
     public long numBytesWaiting = 0;
     public long numBytesAllocated = 0;
     public String slowestConsumer;
+    public Map<String, SubscriberStatus> subscribers = new HashMap<String, SubscriberStatus>();
+  }
+
+  public static class SubscriberStatus
+  {
+    /**
+     * Bytes of the data list which the subscriber has not read yet.
+     */
+    public long numBytesLagging = 0;
+    /**
+     * Bytes which may be sent to the subscriber before it grants more, -1 if the subscriber does not use credits.
+     */
+    public long credits = -1;
   }
 
   public Status getStatus()
@@ -471,11 +530,16 @@ public class DataList
     // When the number of subscribers becomes high or the number of blocks becomes high, consider optimize it.
     Block b = first;
     Map<Block, Integer> indices = new HashMap<Block, Integer>();
+    ArrayList<Long> bytesAfter = new ArrayList<Long>();
     int i = 0;
     while (b != null) {
       indices.put(b, i++);
+      bytesAfter.add((long)b.writingOffset - b.readingOffset);
       b = b.next;
     }
+    for (i = bytesAfter.size() - 1; i-- > 0;) {
+      bytesAfter.set(i, bytesAfter.get(i) + bytesAfter.get(i + 1));
+    }
     int oldestBlockIndex = Integer.MAX_VALUE;
     int oldestReadOffset = Integer.MAX_VALUE;
 
@@ -487,6 +551,13 @@ public class DataList
         // error
         throw new RuntimeException("problemo!");
       }
+      SubscriberStatus subscriberStatus = new SubscriberStatus();
+      subscriberStatus.numBytesLagging = dli.da.writingOffset - dli.getReadOffset();
+      if (index + 1 < bytesAfter.size()) {
+        subscriberStatus.numBytesLagging += bytesAfter.get(index + 1);
+      }
+      subscriberStatus.credits = logicalNode.getCredits();
+      status.subscribers.put(logicalNode.getIdentifier(), subscriberStatus);
       if (index < oldestBlockIndex) {
         oldestBlockIndex = index;
         oldestReadOffset = dli.getReadOffset();
@@ -828,16 +899,15 @@ public class DataList
       final int refCount = this.refCount.decrementAndGet();
       if (refCount == 0 && storage != null) {
         assert (next != null);
-        final Runnable storer = getStorer(data, readingOffset, writingOffset, storage);
         if (future != null && future.cancel(false)) {
           logger.debug("Block {} future is cancelled", this);
         }
         final int numberOfInMemBlockPermits = DataList.this.numberOfInMemBlockPermits.get();
         if (wait && numberOfInMemBlockPermits == 0) {
           future = null;
-          storer.run();
-        } else if (numberOfInMemBlockPermits < MAX_COUNT_OF_INMEM_BLOCKS / 2) {
-          future = storageExecutor.submit(storer);
+          getStorer(data, readingOffset, writingOffset, storage).run();
+        } else if (numberOfInMemBlockPermits < MAX_COUNT_OF_INMEM_BLOCKS / 2 && isPastSpoolLag(this)) {
+          future = storageExecutor.submit(getStorer(data, readingOffset, writingOffset, storage));
         } else {
           future = null;
         }
@@ -846,6 +916,21 @@ public class DataList
       }
     }
 
+    /**
+     * Spools the block if the buffer server runs low on memory. Used for the blocks kept in memory while they were
+     * within the spool lag.
+     */
+    void spool()
+    {
+      final byte[] data = this.data;
+      if (data != null && numberOfInMemBlockPermits.get() < MAX_COUNT_OF_INMEM_BLOCKS / 2) {
+        if (future != null && future.cancel(false)) {
+          logger.debug("Block {} future is cancelled", this);
+        }
+        future = storageExecutor.submit(getStorer(data, readingOffset, writingOffset, storage));
+      }
+    }
+
     private Runnable getDiscarder()
     {
       return new Runnable()
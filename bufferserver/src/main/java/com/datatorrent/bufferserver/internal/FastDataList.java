@@ -51,9 +51,10 @@ public class FastDataList extends DataList
     do {
       while (size == 0) {
         if (writeOffset - processingOffset >= 2) {
-          size = last.data[processingOffset];
-          size |= (last.data[processingOffset + 1] << 8);
+          size = last.data[processingOffset] & 0xff;
+          size |= (last.data[processingOffset + 1] & 0xff) << 8;
 //          logger.debug("read item = {} of size = {} at offset = {}", item++, size, processingOffset);
+          processingOffset += 2;
         } else {
           if (writeOffset == last.data.length) {
             processingOffset = 0;
@@ -63,8 +64,6 @@ public class FastDataList extends DataList
         }
       }
 
-      processingOffset += 2;
-
       if (processingOffset + size <= writeOffset) {
         switch (last.data[processingOffset]) {
           case MessageType.BEGIN_WINDOW_VALUE:
@@ -180,8 +179,8 @@ public class FastDataList extends DataList
     {
       while (size == 0) {
         if (da.writingOffset - readOffset >= 2) {
-          size = buffer[readOffset];
-          size |= (buffer[readOffset + 1] << 8);
+          size = buffer[readOffset] & 0xff;
+          size |= (buffer[readOffset + 1] & 0xff) << 8;
         } else {
           if (da.writingOffset == buffer.length && switchToNextBlock()) {
             continue;
@@ -20,12 +20,14 @@ package com.datatorrent.bufferserver.internal;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.zip.Inflater;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.datatorrent.bufferserver.internal.DataList.DataListIterator;
 import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.packet.PayloadBatchTuple;
 import com.datatorrent.bufferserver.packet.Tuple;
 import com.datatorrent.bufferserver.policy.GiveAll;
 import com.datatorrent.bufferserver.policy.Policy;
@@ -34,6 +36,7 @@ import com.datatorrent.bufferserver.util.Codec;
 import com.datatorrent.bufferserver.util.SerializedData;
 import com.datatorrent.netlet.AbstractLengthPrependerClient;
 import com.datatorrent.netlet.EventLoop;
+import com.datatorrent.netlet.util.Slice;
 
 /**
  * LogicalNode represents a logical node in a DAG<p>
@@ -51,11 +54,27 @@ public class LogicalNode implements DataListener
   private final String group;
   private final HashSet<PhysicalNode> physicalNodes;
   private final HashSet<BitVector> partitions;
+  /**
+   * Whether the partitions match each value of the partition masks combined, looked up instead of matching every
+   * partition for combined masks of up to {@link #MAX_LOOKUP_MASK}, null for larger masks.
+   */
+  private boolean[] matches;
+  private int matchesMask;
   private final Policy policy = GiveAll.getInstance();
   private final DataListIterator iterator;
   private final long skipWindowId;
   private long baseSeconds;
   private boolean caughtup;
+  private Inflater inflater;
+  private final PayloadBatchTuple.PartitionMatcher partitionMatcher = new PayloadBatchTuple.PartitionMatcher()
+  {
+    @Override
+    public boolean matches(int partition)
+    {
+      return LogicalNode.this.matches(partition);
+    }
+
+  };
 
   /**
    *
@@ -121,6 +140,52 @@ public class LogicalNode implements DataListener
     }
   }
 
+  /**
+   * Grants credits to the physical node of the given connection.
+   *
+   * @param client
+   * @param credits bytes of messages which may be sent to the connection on top of the ones granted before
+   * @return true if the connection belongs to this logical node
+   */
+  public boolean addCredits(AbstractLengthPrependerClient client, int credits)
+  {
+    for (PhysicalNode pn : physicalNodes) {
+      if (pn.getClient() == client) {
+        pn.addCredits(credits);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the smallest credits of the physical nodes which use credits, or -1 if none of them does.
+   */
+  public long getCredits()
+  {
+    long credits = -1;
+    for (PhysicalNode pn : physicalNodes) {
+      long c = pn.getCredits();
+      if (c >= 0 && (credits < 0 || c < credits)) {
+        credits = c;
+      }
+    }
+    return credits;
+  }
+
+  /**
+   * @return true if a physical node waits for credits, there is no point in retrying to send before it gets them.
+   */
+  public boolean isWaitingForCredits()
+  {
+    for (PhysicalNode pn : physicalNodes) {
+      if (pn.isWaitingForCredits()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    *
    * @param partition
@@ -128,7 +193,42 @@ public class LogicalNode implements DataListener
    */
   public void addPartition(int partition, int mask)
   {
-    partitions.add(new BitVector(partition, mask));
+    BitVector partitionBits = new BitVector(partition, mask);
+    partitions.add(partitionBits);
+    int previousMask = matchesMask;
+    matchesMask |= mask;
+    if (matchesMask < 0 || matchesMask > MAX_LOOKUP_MASK) {
+      matches = null;
+    } else if (matches == null || matchesMask != previousMask) {
+      matches = new boolean[matchesMask + 1];
+      for (BitVector bv : partitions) {
+        addMatches(bv);
+      }
+    } else {
+      addMatches(partitionBits);
+    }
+  }
+
+  private void addMatches(BitVector bv)
+  {
+    for (int value = matches.length; value-- > 0;) {
+      if (bv.matches(value)) {
+        matches[value] = true;
+      }
+    }
+  }
+
+  private boolean matches(int value)
+  {
+    if (matches != null) {
+      return matches[value & matchesMask];
+    }
+    for (BitVector bv : partitions) {
+      if (bv.matches(value)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   boolean ready = true;
@@ -178,6 +278,7 @@ public class LogicalNode implements DataListener
           switch (data.buffer[data.dataOffset]) {
 
             case MessageType.PAYLOAD_VALUE:
+            case MessageType.PAYLOAD_BATCH_VALUE:
               ++skippedPayloadTuples;
               break;
 
@@ -241,6 +342,7 @@ public class LogicalNode implements DataListener
               SerializedData data = iterator.next();
               switch (data.buffer[data.dataOffset]) {
                 case MessageType.PAYLOAD_VALUE:
+                case MessageType.PAYLOAD_BATCH_VALUE:
                   ready = policy.distribute(physicalNodes, data);
                   break;
 
@@ -268,12 +370,20 @@ public class LogicalNode implements DataListener
               switch (data.buffer[data.dataOffset]) {
                 case MessageType.PAYLOAD_VALUE:
                   Tuple tuple = Tuple.getTuple(data.buffer, data.dataOffset, length);
-                  int value = tuple.getPartition();
-                  for (BitVector bv : partitions) {
-                    if (bv.matches(value)) {
-                      ready = policy.distribute(physicalNodes, data);
-                      break;
+                  if (matches(tuple.getPartition())) {
+                    ready = policy.distribute(physicalNodes, data);
+                  }
+                  break;
+
+                case MessageType.PAYLOAD_BATCH_VALUE:
+                  PayloadBatchTuple batch = (PayloadBatchTuple)Tuple.getTuple(data.buffer, data.dataOffset, length);
+                  if (batch.isMixed()) {
+                    SerializedData selected = select(data, batch);
+                    if (selected != null) {
+                      ready = policy.distribute(physicalNodes, selected);
                     }
+                  } else if (matches(batch.getPartition())) {
+                    ready = policy.distribute(physicalNodes, data);
                   }
                   break;
 
@@ -300,7 +410,31 @@ public class LogicalNode implements DataListener
         catchUp();
       }
     }
-    return !ready;
+    return !ready && !isWaitingForCredits();
+  }
+
+  /**
+   * Selects the payload tuples of the partitions of this node from a batch of payload tuples of different partitions,
+   * which the publisher sends while none of its subscribers is partitioned.
+   *
+   * @return the data or a batch of the selected payload tuples, null if there are none
+   */
+  private SerializedData select(SerializedData data, PayloadBatchTuple batch)
+  {
+    if (inflater == null && batch.getCodec() != PayloadBatchTuple.STORED) {
+      inflater = new Inflater();
+    }
+    Slice selected = batch.select(inflater, partitionMatcher);
+    if (selected == null) {
+      return null;
+    }
+    if (selected.buffer == data.buffer) {
+      /* all payload tuples of the batch match */
+      return data;
+    }
+    SerializedData serializedData = new SerializedData(selected.buffer, selected.offset, selected.length);
+    serializedData.dataOffset = selected.offset;
+    return serializedData;
   }
 
   /**
@@ -341,10 +475,17 @@ public class LogicalNode implements DataListener
     return identifier;
   }
 
-  public void boot(EventLoop eventloop)
+  /**
+   * Disconnects all the physical nodes.
+   *
+   * @param eventloops the event loops which may serve the connections of the physical nodes
+   */
+  public void boot(EventLoop... eventloops)
   {
     for (PhysicalNode pn : physicalNodes) {
-      eventloop.disconnect(pn.getClient());
+      for (EventLoop eventloop : eventloops) {
+        eventloop.disconnect(pn.getClient());
+      }
     }
     physicalNodes.clear();
   }
@@ -357,5 +498,6 @@ public class LogicalNode implements DataListener
         ", iterator=" + iterator + '}';
   }
 
+  private static final int MAX_LOOKUP_MASK = 0xffff;
   private static final Logger logger = LoggerFactory.getLogger(LogicalNode.class);
 }
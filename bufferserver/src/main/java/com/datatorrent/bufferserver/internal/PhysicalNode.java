@@ -72,15 +72,30 @@ public class PhysicalNode
    * @throws InterruptedException
    */
   private SerializedData blocker;
+  /**
+   * Whether the subscriber grants credits, the messages are sent only while there are credits left.
+   */
+  private boolean creditBased;
+  /**
+   * Bytes of messages granted by the subscriber less the ones sent since the subscriber connected.
+   */
+  private long credits;
 
   public boolean send(SerializedData d)
   {
+    if (creditBased && credits <= 0) {
+      blocker = d;
+      return false;
+    }
+
     if (d.offset == d.dataOffset) {
       if (client.write(d.buffer, d.offset, d.length)) {
+        credits -= d.length;
         return true;
       }
     } else {
       if (client.send(d.buffer, d.offset, d.length)) {
+        credits -= d.length - (d.dataOffset - d.offset);
         return true;
       }
     }
@@ -89,6 +104,34 @@ public class PhysicalNode
     return false;
   }
 
+  /**
+   * Switches the node to credit based flow control on the first call.
+   *
+   * @param credits bytes of messages which the subscriber grants on top of the ones granted before
+   */
+  public void addCredits(int credits)
+  {
+    creditBased = true;
+    this.credits += credits;
+  }
+
+  /**
+   * @return the bytes of messages which can be sent before the subscriber has to grant more, or -1 if the subscriber
+   * does not use credits.
+   */
+  public long getCredits()
+  {
+    return creditBased ? Math.max(credits, 0) : -1;
+  }
+
+  /**
+   * @return true if a message is held back until the subscriber grants more credits.
+   */
+  public boolean isWaitingForCredits()
+  {
+    return blocker != null && creditBased && credits <= 0;
+  }
+
   public boolean unblock()
   {
     if (blocker == null) {
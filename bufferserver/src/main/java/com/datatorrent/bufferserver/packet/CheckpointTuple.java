@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+/**
+ * <p>CheckpointTuple class.</p>
+ */
+public class CheckpointTuple extends WindowIdTuple
+{
+  private static volatile SerializedTuple lastSerializedTuple;
+
+  public CheckpointTuple(byte[] array, int offset, int length)
+  {
+    super(array, offset, length);
+  }
+
+  /**
+   * @param windowId
+   * @return the serialized checkpoint tuple, it is shared and must not be modified.
+   */
+  public static byte[] getSerializedTuple(int windowId)
+  {
+    SerializedTuple last = lastSerializedTuple;
+    if (last != null && last.key == windowId) {
+      return last.buffer;
+    }
+
+    byte[] buffer = WindowIdTuple.getSerializedTuple(windowId);
+    buffer[0] = MessageType.CHECKPOINT_VALUE;
+    lastSerializedTuple = new SerializedTuple(windowId, buffer);
+    return buffer;
+  }
+
+}
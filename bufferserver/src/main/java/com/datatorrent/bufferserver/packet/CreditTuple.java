@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.netlet.util.VarInt;
+
+/**
+ * <p>CreditTuple class.</p>
+ *
+ * Grants the receiving end of a connection the given number of bytes of messages which it may send on top of the ones
+ * it was granted before. A subscriber announces its initial credits in its subscribe request and sends this message to
+ * the buffer server as it consumes the messages, the buffer server sends it to a publisher as it stores the messages.
+ * A publisher announces that it takes part in the credit based flow control by sending the number of bytes it sends
+ * before it waits for credits, that message is not distributed to the subscribers.
+ */
+public class CreditTuple extends Tuple
+{
+  public CreditTuple(byte[] buffer, int offset, int length)
+  {
+    super(buffer, offset, length);
+  }
+
+  @Override
+  public MessageType getType()
+  {
+    return MessageType.CREDIT;
+  }
+
+  public int getCredits()
+  {
+    return readVarInt(offset + 1, offset + length);
+  }
+
+  @Override
+  public int getWindowId()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public int getPartition()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public Slice getData()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public int getBaseSeconds()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public int getWindowWidth()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public String toString()
+  {
+    return "CreditTuple{" + getCredits() + '}';
+  }
+
+  public static byte[] getSerializedTuple(int credits)
+  {
+    int size = 1; /* for type */
+
+    /* for credits */
+    int bits = 32 - Integer.numberOfLeadingZeros(credits);
+    size += bits / 7 + 1;
+
+    byte[] buffer = new byte[size];
+    buffer[0] = MessageType.CREDIT_VALUE;
+    VarInt.write(credits, buffer, 1);
+    return buffer;
+  }
+
+}
@@ -0,0 +1,267 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.netlet.util.VarInt;
+
+/**
+ * <p>PayloadBatchTuple class.</p>
+ *
+ * Carries a batch of payload tuples of a window, each prepended with its length, as a single message. The buffer
+ * server stores and distributes it like a payload tuple of the given partition. A publisher puts payload tuples of
+ * different partitions in a batch only while none of its subscribers is partitioned and marks such a batch as
+ * {@link #MIXED}, the buffer server then selects the payload tuples of partitioned subscribers which are added later.
+ * The payload tuples are stored as they are or compressed as a single block, every batch names the codec of its block.
+ */
+public class PayloadBatchTuple extends Tuple
+{
+  /**
+   * The payload tuples are stored as they are.
+   */
+  public static final byte STORED = 0;
+  /**
+   * The payload tuples are compressed with {@link Deflater}.
+   */
+  public static final byte DEFLATE = 1;
+  /**
+   * Flag of the codec byte set when the payload tuples belong to different partitions, the partition of the batch is
+   * the one of its last payload tuple then.
+   */
+  public static final byte MIXED = 0x10;
+  private static final int HEADER_SIZE = 6;
+
+  public PayloadBatchTuple(byte[] array, int offset, int length)
+  {
+    super(array, offset, length);
+  }
+
+  @Override
+  public MessageType getType()
+  {
+    return MessageType.PAYLOAD_BATCH;
+  }
+
+  @Override
+  public int getPartition()
+  {
+    int p = buffer[offset + 1] & 0xff;
+    p |= (buffer[offset + 2] & 0xff) << 8;
+    p |= (buffer[offset + 3] & 0xff) << 16;
+    p |= buffer[offset + 4] << 24;
+    return p;
+  }
+
+  public int getCodec()
+  {
+    return buffer[offset + 5] & ~MIXED;
+  }
+
+  /**
+   * @return true if the payload tuples of the batch belong to different partitions
+   */
+  public boolean isMixed()
+  {
+    return (buffer[offset + 5] & MIXED) != 0;
+  }
+
+  public int getUncompressedLength()
+  {
+    return readVarInt(offset + HEADER_SIZE, offset + length);
+  }
+
+  @Override
+  public Slice getData()
+  {
+    int dataOffset = offset + HEADER_SIZE + VarInt.getSize(getUncompressedLength());
+    return new Slice(buffer, dataOffset, offset + length - dataOffset);
+  }
+
+  /**
+   * @param inflater the inflater used for deflated blocks
+   * @return the payload tuples of the batch, each prepended with its length. Stored payload tuples are not copied.
+   */
+  public Slice getMessages(Inflater inflater)
+  {
+    final Slice data = getData();
+    switch (getCodec()) {
+      case STORED:
+        return data;
+
+      case DEFLATE:
+        final byte[] messages = new byte[getUncompressedLength()];
+        inflater.reset();
+        inflater.setInput(data.buffer, data.offset, data.length);
+        try {
+          int size = 0;
+          while (size < messages.length) {
+            int inflated = inflater.inflate(messages, size, messages.length - size);
+            if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+              throw new RuntimeException("Truncated block of " + size + " of " + messages.length + " bytes");
+            }
+            size += inflated;
+          }
+        } catch (DataFormatException ex) {
+          throw new RuntimeException(ex);
+        }
+        return new Slice(messages);
+
+      default:
+        throw new UnsupportedOperationException("Unknown codec " + getCodec());
+    }
+  }
+
+  /**
+   * Selects the payload tuples of the matching partitions.
+   *
+   * @param inflater the inflater used for deflated blocks
+   * @param matcher the partitions to select
+   * @return this batch if all of its payload tuples match, a stored batch of the matching ones or null if none does
+   */
+  public Slice select(Inflater inflater, PartitionMatcher matcher)
+  {
+    final Slice messages = getMessages(inflater);
+    final VarInt.MutableInt messageOffset = new VarInt.MutableInt();
+    byte[] selected = null;
+    int size = 0;
+    int position = messages.offset;
+    int limit = messages.offset + messages.length;
+    while (position < limit) {
+      int start = position;
+      int length = VarInt.read(messages.buffer, position, limit, messageOffset);
+      position = messageOffset.integer + length;
+      if (matcher.matches(Tuple.getTuple(messages.buffer, messageOffset.integer, length).getPartition())) {
+        if (selected == null) {
+          selected = new byte[messages.length];
+        }
+        System.arraycopy(messages.buffer, start, selected, size, position - start);
+        size += position - start;
+      }
+    }
+    if (size == messages.length) {
+      return new Slice(buffer, offset, length);
+    }
+    return size == 0 ? null : new Slice(getSerializedTuple(getPartition(), true, null, selected, 0, size));
+  }
+
+  @Override
+  public int getWindowId()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public int getBaseSeconds()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public int getWindowWidth()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public String toString()
+  {
+    return "PayloadBatchTuple{" + getPartition() + ", " + getCodec() + ", " + getUncompressedLength() + ", "
+        + getData() + '}';
+  }
+
+  /**
+   * Compresses the payload tuples of the same partition with the given deflater, or stores them as they are if there
+   * is no deflater or they do not get smaller.
+   *
+   * @param partition the partition of the payload tuples
+   * @param deflater the deflater used to compress the payload tuples, null to store them as they are
+   * @param buffer the payload tuples, each prepended with its length
+   * @param offset
+   * @param length
+   * @return the serialized tuple
+   */
+  public static byte[] getSerializedTuple(int partition, Deflater deflater, byte[] buffer, int offset, int length)
+  {
+    return getSerializedTuple(partition, false, deflater, buffer, offset, length);
+  }
+
+  /**
+   * Compresses the payload tuples with the given deflater, or stores them as they are if there is no deflater or they
+   * do not get smaller.
+   *
+   * @param partition the partition of the last payload tuple
+   * @param mixed whether the payload tuples belong to different partitions
+   * @param deflater the deflater used to compress the payload tuples, null to store them as they are
+   * @param buffer the payload tuples, each prepended with its length
+   * @param offset
+   * @param length
+   * @return the serialized tuple
+   */
+  public static byte[] getSerializedTuple(int partition, boolean mixed, Deflater deflater, byte[] buffer, int offset,
+      int length)
+  {
+    final byte flags = mixed ? MIXED : 0;
+    final int dataOffset = HEADER_SIZE + VarInt.getSize(length);
+    byte[] array = new byte[dataOffset + length];
+    array[0] = MessageType.PAYLOAD_BATCH_VALUE;
+    array[1] = (byte)partition;
+    array[2] = (byte)(partition >> 8);
+    array[3] = (byte)(partition >> 16);
+    array[4] = (byte)(partition >> 24);
+    VarInt.write(length, array, HEADER_SIZE);
+
+    if (deflater == null) {
+      array[5] = (byte)(STORED | flags);
+      System.arraycopy(buffer, offset, array, dataOffset, length);
+      return array;
+    }
+
+    deflater.reset();
+    deflater.setInput(buffer, offset, length);
+    deflater.finish();
+    int size = dataOffset;
+    while (!deflater.finished() && size < array.length) {
+      size += deflater.deflate(array, size, array.length - size);
+    }
+
+    if (deflater.finished() && size < array.length) {
+      array[5] = (byte)(DEFLATE | flags);
+      byte[] compressed = new byte[size];
+      System.arraycopy(array, 0, compressed, 0, size);
+      return compressed;
+    }
+
+    array[5] = (byte)(STORED | flags);
+    System.arraycopy(buffer, offset, array, dataOffset, length);
+    return array;
+  }
+
+  /**
+   * Selects payload tuples by their partition.
+   */
+  public interface PartitionMatcher
+  {
+    boolean matches(int partition);
+  }
+
+}
@@ -101,4 +101,41 @@ public class PayloadTuple extends Tuple
     return array;
   }
 
+  /**
+   * Writes the serialized tuple into the given buffer.
+   *
+   * @param partition
+   * @param f
+   * @param buffer
+   * @param offset
+   * @return the offset behind the serialized tuple
+   */
+  public static int writeSerializedTuple(int partition, Slice f, byte[] buffer, int offset)
+  {
+    return writeSerializedTuple(partition, f.buffer, f.offset, f.length, buffer, offset);
+  }
+
+  /**
+   * Writes the serialized tuple with the given data into the given buffer.
+   *
+   * @param partition
+   * @param data
+   * @param dataOffset
+   * @param dataLength
+   * @param buffer
+   * @param offset
+   * @return the offset behind the serialized tuple
+   */
+  public static int writeSerializedTuple(int partition, byte[] data, int dataOffset, int dataLength, byte[] buffer,
+      int offset)
+  {
+    buffer[offset] = MessageType.PAYLOAD_VALUE;
+    buffer[offset + 1] = (byte)partition;
+    buffer[offset + 2] = (byte)(partition >> 8);
+    buffer[offset + 3] = (byte)(partition >> 16);
+    buffer[offset + 4] = (byte)(partition >> 24);
+    System.arraycopy(data, dataOffset, buffer, offset + 5, dataLength);
+    return offset + 5 + dataLength;
+  }
+
 }
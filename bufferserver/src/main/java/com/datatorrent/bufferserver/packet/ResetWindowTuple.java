@@ -29,6 +29,8 @@ import com.datatorrent.netlet.util.VarInt;
  */
 public class ResetWindowTuple extends Tuple
 {
+  private static volatile SerializedTuple lastSerializedTuple;
+
   public ResetWindowTuple(byte[] buffer, int offset, int length)
   {
     super(buffer, offset, length);
@@ -73,8 +75,19 @@ public class ResetWindowTuple extends Tuple
     return readVarInt(intervalOffset, offset + length);
   }
 
+  /**
+   * @param baseSeconds
+   * @param windowWidth
+   * @return the serialized reset window tuple, it is shared and must not be modified.
+   */
   public static byte[] getSerializedTuple(int baseSeconds, int windowWidth)
   {
+    long key = (long)baseSeconds << 32 | windowWidth & 0xffffffffL;
+    SerializedTuple last = lastSerializedTuple;
+    if (last != null && last.key == key) {
+      return last.buffer;
+    }
+
     int size = 1; /* for type */
 
     /* for baseSeconds */
@@ -92,6 +105,7 @@ public class ResetWindowTuple extends Tuple
     size = VarInt.write(baseSeconds, buffer, size);
     VarInt.write(windowWidth, buffer, size);
 
+    lastSerializedTuple = new SerializedTuple(key, buffer);
     return buffer;
   }
 
@@ -0,0 +1,39 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+/**
+ * A serialized control tuple along with the values it was serialized from<p>
+ * <br>
+ * The publishers of a process send the same control tuples for a window, so the most recently serialized one is kept
+ * and shared by all of them. Shared serialized tuples must not be modified.<br>
+ * <br>
+ */
+final class SerializedTuple
+{
+  final long key;
+  final byte[] buffer;
+
+  SerializedTuple(long key, byte[] buffer)
+  {
+    this.key = key;
+    this.buffer = buffer;
+  }
+
+}
@@ -44,6 +44,7 @@ public class SubscribeRequestTuple extends RequestTuple
   private int mask;
   private int[] partitions;
   private int bufferSize;
+  private int credits;
 
   @Override
   public void parse()
@@ -124,9 +125,9 @@ public class SubscribeRequestTuple extends RequestTuple
        * read the partition count
        */
       int count = readVarInt(dataOffset, limit);
+      while (buffer[dataOffset++] < 0) {
+      }
       if (count > 0) {
-        while (buffer[dataOffset++] < 0) {
-        }
         mask = readVarInt(dataOffset, limit);
         if (mask > 0) {
           while (buffer[dataOffset++] < 0) {
@@ -154,6 +155,16 @@ public class SubscribeRequestTuple extends RequestTuple
       while (buffer[dataOffset++] < 0) {
       }
 
+      /*
+       * the credits are left out by the subscribers which do not use them.
+       */
+      if (dataOffset < limit) {
+        credits = readVarInt(dataOffset, limit);
+        if (credits == -1) {
+          return;
+        }
+      }
+
       valid = true;
     } catch (NumberFormatException nfe) {
       logger.warn("Unparseable Tuple", nfe);
@@ -235,9 +246,25 @@ public class SubscribeRequestTuple extends RequestTuple
     return bufferSize;
   }
 
+  /**
+   * @return the bytes of messages which the buffer server may send before the subscriber grants more with a
+   * {@link CreditTuple}, 0 if the subscriber does not use credits.
+   */
+  public int getCredits()
+  {
+    return credits;
+  }
+
   public static byte[] getSerializedRequest(final String version, final String id, final String down_type,
       final String upstream_id, final int mask, final Collection<Integer> partitions, final long startingWindowId,
       final int bufferSize)
+  {
+    return getSerializedRequest(version, id, down_type, upstream_id, mask, partitions, startingWindowId, bufferSize, 0);
+  }
+
+  public static byte[] getSerializedRequest(final String version, final String id, final String down_type,
+      final String upstream_id, final int mask, final Collection<Integer> partitions, final long startingWindowId,
+      final int bufferSize, final int credits)
   {
     byte[] array = new byte[4096];
     int offset = 0;
@@ -279,6 +306,11 @@ public class SubscribeRequestTuple extends RequestTuple
     /* write the buffer size */
     offset = VarInt.write(bufferSize, array, offset);
 
+    /* write the credits */
+    if (credits > 0) {
+      offset = VarInt.write(credits, array, offset);
+    }
+
     return Arrays.copyOfRange(array, 0, offset);
   }
 
@@ -289,7 +321,7 @@ public class SubscribeRequestTuple extends RequestTuple
         ", windowId=" + Codec.getStringWindowId((long)baseSeconds | windowId) + ", type=" + streamType +
         ", upstreamIdentifier=" + upstreamIdentifier + ", mask=" + mask +
         ", partitions=" + (partitions == null ? "null" : Arrays.toString(partitions)) +
-        ", bufferSize=" + bufferSize + '}';
+        ", bufferSize=" + bufferSize + ", credits=" + credits + '}';
   }
 
   private static final Logger logger = LoggerFactory.getLogger(SubscribeRequestTuple.class);
@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.netlet.util.VarInt;
+
+/**
+ * <p>TraceTuple class.</p>
+ *
+ * Carries the timestamps of a data tuple sampled for latency tracing. The message is distributed to all the
+ * subscribers like the other control messages but is not replayed to the subscribers catching up.
+ */
+public class TraceTuple extends Tuple
+{
+  public TraceTuple(byte[] buffer, int offset, int length)
+  {
+    super(buffer, offset, length);
+  }
+
+  @Override
+  public MessageType getType()
+  {
+    return MessageType.TRACE;
+  }
+
+  @Override
+  public int getWindowId()
+  {
+    return readVarInt(offset + 1, offset + length);
+  }
+
+  @Override
+  public int getPartition()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public Slice getData()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public int getBaseSeconds()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  @Override
+  public int getWindowWidth()
+  {
+    throw new UnsupportedOperationException("Not supported yet.");
+  }
+
+  public long getOriginTimestamp()
+  {
+    return readLong(getTimestampsOffset());
+  }
+
+  public long getHopTimestamp()
+  {
+    return readLong(getTimestampsOffset() + 8);
+  }
+
+  public int getHopCount()
+  {
+    return readVarInt(getTimestampsOffset() + 16, offset + length);
+  }
+
+  /**
+   * Returns the id of the input operator which started the trace, together with the origin timestamp it identifies
+   * the trace.
+   *
+   * @return the operator id
+   */
+  public int getOriginId()
+  {
+    int originIdOffset = getTimestampsOffset() + 16;
+    while (buffer[originIdOffset++] < 0) {
+    }
+    return readVarInt(originIdOffset, offset + length);
+  }
+
+  private int getTimestampsOffset()
+  {
+    int timestampsOffset = offset + 1;
+    while (buffer[timestampsOffset++] < 0) {
+    }
+    return timestampsOffset;
+  }
+
+  private long readLong(int index)
+  {
+    long value = 0;
+    for (int i = index; i < index + 8; i++) {
+      value = (value << 8) | (buffer[i] & 0xff);
+    }
+    return value;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "TraceTuple{" + Integer.toHexString(getWindowId()) + ", " + getOriginId() + ", " + getOriginTimestamp()
+        + ", " + getHopTimestamp() + ", " + getHopCount() + '}';
+  }
+
+  public static byte[] getSerializedTuple(int windowId, int originId, long originTimestamp, long hopTimestamp,
+      int hopCount)
+  {
+    int size = 1; /* for type */
+
+    /* for windowId */
+    int bits = 32 - Integer.numberOfLeadingZeros(windowId);
+    size += bits / 7 + 1;
+
+    /* for the timestamps */
+    size += 16;
+
+    /* for hopCount */
+    bits = 32 - Integer.numberOfLeadingZeros(hopCount);
+    size += bits / 7 + 1;
+
+    /* for originId */
+    bits = 32 - Integer.numberOfLeadingZeros(originId);
+    size += bits / 7 + 1;
+
+    byte[] buffer = new byte[size];
+    buffer[0] = MessageType.TRACE_VALUE;
+    size = VarInt.write(windowId, buffer, 1);
+    for (int i = 8; i-- > 0;) {
+      buffer[size + i] = (byte)originTimestamp;
+      originTimestamp >>>= 8;
+      buffer[size + 8 + i] = (byte)hopTimestamp;
+      hopTimestamp >>>= 8;
+    }
+    VarInt.write(originId, buffer, VarInt.write(hopCount, buffer, size + 16));
+
+    return buffer;
+  }
+
+}
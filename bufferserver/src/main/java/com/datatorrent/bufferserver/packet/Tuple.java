@@ -56,14 +56,23 @@ public abstract class Tuple
         return new NoMessageTuple(buffer, offset, length);
 
       case CHECKPOINT:
-        return new WindowIdTuple(buffer, offset, length);
+        return new CheckpointTuple(buffer, offset, length);
 
       case CODEC_STATE:
         return new DataTuple(buffer, offset, length);
 
+      case TRACE:
+        return new TraceTuple(buffer, offset, length);
+
+      case CREDIT:
+        return new CreditTuple(buffer, offset, length);
+
       case PAYLOAD:
         return new PayloadTuple(buffer, offset, length);
 
+      case PAYLOAD_BATCH:
+        return new PayloadBatchTuple(buffer, offset, length);
+
       case RESET_WINDOW:
         return new ResetWindowTuple(buffer, offset, length);
 
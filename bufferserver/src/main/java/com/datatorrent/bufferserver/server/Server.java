@@ -22,12 +22,15 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,6 +46,8 @@ import org.slf4j.LoggerFactory;
 import com.datatorrent.bufferserver.internal.DataList;
 import com.datatorrent.bufferserver.internal.FastDataList;
 import com.datatorrent.bufferserver.internal.LogicalNode;
+import com.datatorrent.bufferserver.packet.CreditTuple;
+import com.datatorrent.bufferserver.packet.MessageType;
 import com.datatorrent.bufferserver.packet.PayloadTuple;
 import com.datatorrent.bufferserver.packet.PublishRequestTuple;
 import com.datatorrent.bufferserver.packet.PurgeRequestTuple;
@@ -54,6 +59,7 @@ import com.datatorrent.common.util.NameableThreadFactory;
 import com.datatorrent.netlet.AbstractLengthPrependerClient;
 import com.datatorrent.netlet.DefaultEventLoop;
 import com.datatorrent.netlet.EventLoop;
+import com.datatorrent.netlet.Listener.ClientListener;
 import com.datatorrent.netlet.Listener.ServerListener;
 import com.datatorrent.netlet.util.VarInt;
 
@@ -70,7 +76,12 @@ public class Server implements ServerListener
   private final int port;
   private String identity;
   private Storage storage;
+  private long spoolLag;
   private EventLoop eventloop;
+  private EventLoop[] eventloops;
+  private DefaultEventLoop[] workers;
+  private int nextWorker;
+  private final ConcurrentHashMap<Selector, EventLoop> workerSelectors = new ConcurrentHashMap<>();
   private InetSocketAddress address;
   private final ExecutorService serverHelperExecutor;
   private final ExecutorService storageHelperExecutor;
@@ -102,6 +113,17 @@ public class Server implements ServerListener
     this.storage = storage;
   }
 
+  /**
+   * Sets the number of bytes behind the newest data of a publisher which are kept in memory when spooling, see
+   * {@link DataList#setSpoolLag(long)}.
+   *
+   * @param bytes the lag behind the newest data after which blocks are spooled
+   */
+  public void setSpoolLag(long bytes)
+  {
+    this.spoolLag = bytes;
+  }
+
   @Override
   public synchronized void registered(SelectionKey key)
   {
@@ -136,9 +158,46 @@ public class Server implements ServerListener
     }
 
     this.eventloop = eventloop;
+    if (eventloops == null) {
+      eventloops = new EventLoop[] {eventloop};
+    }
     return address;
   }
 
+  /**
+   * Accepts connections on the given event loop and hands them to the worker event loops in turn, which then serve
+   * them. The worker event loops have to be started by the caller and may include the accepting event loop.
+   *
+   * @param eventloop event loop accepting the connections
+   * @param workers event loops serving the connections
+   * @return the address the server listens at
+   */
+  public synchronized InetSocketAddress run(EventLoop eventloop, List<DefaultEventLoop> workers)
+  {
+    LinkedHashSet<EventLoop> distinct = new LinkedHashSet<>();
+    distinct.add(eventloop);
+    distinct.addAll(workers);
+    this.eventloops = distinct.toArray(new EventLoop[distinct.size()]);
+    this.workers = workers.isEmpty() ? null : workers.toArray(new DefaultEventLoop[workers.size()]);
+    return run(eventloop);
+  }
+
+  /**
+   * Disconnects the client from whichever event loop serves it.
+   */
+  private void disconnect(ClientListener client)
+  {
+    for (EventLoop el : eventloops) {
+      el.disconnect(client);
+    }
+  }
+
+  private EventLoop getEventLoop(SelectionKey key)
+  {
+    EventLoop el = workerSelectors.get(key.selector());
+    return el == null ? eventloop : el;
+  }
+
   public void setAuthToken(byte[] authToken)
   {
     this.authToken = authToken;
@@ -176,7 +235,8 @@ public class Server implements ServerListener
   private final int blockSize;
   private final int numberOfCacheBlocks;
 
-  private void handlePurgeRequest(PurgeRequestTuple request, final AbstractLengthPrependerClient ctx) throws IOException
+  private synchronized void handlePurgeRequest(PurgeRequestTuple request, final AbstractLengthPrependerClient ctx)
+      throws IOException
   {
     DataList dl;
     dl = publisherBuffers.get(request.getIdentifier());
@@ -199,7 +259,8 @@ public class Server implements ServerListener
     }
   }
 
-  private void handleResetRequest(ResetRequestTuple request, final AbstractLengthPrependerClient ctx) throws IOException
+  private synchronized void handleResetRequest(ResetRequestTuple request, final AbstractLengthPrependerClient ctx)
+      throws IOException
   {
     DataList dl;
     dl = publisherBuffers.remove(request.getIdentifier());
@@ -210,7 +271,7 @@ public class Server implements ServerListener
     } else {
       AbstractLengthPrependerClient channel = publisherChannels.remove(request.getIdentifier());
       if (channel != null) {
-        eventloop.disconnect(channel);
+        disconnect(channel);
       }
       dl.reset();
       message = ("Request sent for processing: " + request).getBytes();
@@ -232,12 +293,13 @@ public class Server implements ServerListener
    * @param connection
    * @return
    */
-  public LogicalNode handleSubscriberRequest(SubscribeRequestTuple request,
+  public synchronized LogicalNode handleSubscriberRequest(SubscribeRequestTuple request,
       final AbstractLengthPrependerClient connection)
   {
     String identifier = request.getIdentifier();
     String type = request.getStreamType();
     String upstream_identifier = request.getUpstreamIdentifier();
+    final int credits = request.getCredits();
 
     // Check if there is a logical node of this type, if not create it.
     final LogicalNode ln;
@@ -248,7 +310,7 @@ public class Server implements ServerListener
        */
       AbstractLengthPrependerClient previous = subscriberChannels.put(identifier, connection);
       if (previous != null) {
-        eventloop.disconnect(previous);
+        disconnect(previous);
       }
 
       ln = subscriberGroups.get(type);
@@ -257,8 +319,11 @@ public class Server implements ServerListener
         @Override
         public void run()
         {
-          ln.boot(eventloop);
+          ln.boot(eventloops);
           ln.addConnection(connection);
+          if (credits > 0) {
+            ln.addCredits(connection, credits);
+          }
           ln.catchUp();
         }
       });
@@ -297,6 +362,9 @@ public class Server implements ServerListener
         public void run()
         {
           ln.addConnection(connection);
+          if (credits > 0) {
+            ln.addCredits(connection, credits);
+          }
           ln.catchUp();
           dl.addDataListener(ln);
         }
@@ -312,7 +380,8 @@ public class Server implements ServerListener
    * @param connection
    * @return
    */
-  public DataList handlePublisherRequest(PublishRequestTuple request, AbstractLengthPrependerClient connection)
+  public synchronized DataList handlePublisherRequest(PublishRequestTuple request,
+      AbstractLengthPrependerClient connection)
   {
     String identifier = request.getIdentifier();
 
@@ -324,7 +393,7 @@ public class Server implements ServerListener
        */
       AbstractLengthPrependerClient previous = publisherChannels.put(identifier, connection);
       if (previous != null) {
-        eventloop.disconnect(previous);
+        disconnect(previous);
       }
 
       dl = publisherBuffers.get(identifier);
@@ -340,6 +409,7 @@ public class Server implements ServerListener
       publisherBuffers.put(identifier, dl);
     }
     dl.setSecondaryStorage(storage, storageHelperExecutor);
+    dl.setSpoolLag(spoolLag);
 
     return dl;
   }
@@ -355,9 +425,86 @@ public class Server implements ServerListener
       authClient.setToken(authToken);
       client = authClient;
     }
+
+    DefaultEventLoop[] workers = this.workers;
+    if (workers != null) {
+      DefaultEventLoop worker = workers[nextWorker];
+      nextWorker = (nextWorker + 1) % workers.length;
+      if (worker != eventloop) {
+        return new HandOff(worker, client);
+      }
+    }
     return client;
   }
 
+  /**
+   * Moves a connection from the accepting event loop to a worker event loop as soon as it is registered with the
+   * accepting one, before the accepting event loop reads from it.
+   */
+  private class HandOff implements ClientListener
+  {
+    private final DefaultEventLoop worker;
+    private final ClientListener client;
+    private volatile boolean handedOff;
+
+    HandOff(DefaultEventLoop worker, ClientListener client)
+    {
+      this.worker = worker;
+      this.client = client;
+    }
+
+    @Override
+    public void registered(SelectionKey key)
+    {
+      if (handedOff) {
+        workerSelectors.putIfAbsent(key.selector(), worker);
+        key.attach(client);
+        client.registered(key);
+      } else {
+        handedOff = true;
+        key.cancel();
+        worker.register((SocketChannel)key.channel(), SelectionKey.OP_READ, this);
+      }
+    }
+
+    @Override
+    public void unregistered(SelectionKey key)
+    {
+      client.unregistered(key);
+    }
+
+    @Override
+    public void read() throws IOException
+    {
+      client.read();
+    }
+
+    @Override
+    public void write() throws IOException
+    {
+      client.write();
+    }
+
+    @Override
+    public void connected()
+    {
+      client.connected();
+    }
+
+    @Override
+    public void disconnected()
+    {
+      client.disconnected();
+    }
+
+    @Override
+    public void handleException(Exception cce, EventLoop el)
+    {
+      client.handleException(cce, el);
+    }
+
+  }
+
   @Override
   public void handleException(Exception cce, EventLoop el)
   {
@@ -433,8 +580,14 @@ public class Server implements ServerListener
                   return -1;
                 }
 
-                short s = buffer[readOffset++];
-                return s | (buffer[readOffset++] << 8);
+                int s = buffer[readOffset++] & 0xff;
+                return s | (buffer[readOffset++] & 0xff) << 8;
+              }
+
+              @Override
+              int getSizeLength(int size)
+              {
+                return 2;
               }
 
             };
@@ -463,14 +616,14 @@ public class Server implements ServerListener
           logger.info("Received subscriber request: {}", request);
 
           SubscribeRequestTuple subscriberRequest = (SubscribeRequestTuple)request;
-          AbstractLengthPrependerClient subscriber;
+          Subscriber subscriber;
 
 //          /* for backward compatibility - set the buffer size to 16k - EXPERIMENTAL */
           int bufferSize = subscriberRequest.getBufferSize();
 //          if (bufferSize == 0) {
 //            bufferSize = 16 * 1024;
 //          }
-          if (subscriberRequest.getVersion().equals(Tuple.FAST_VERSION)) {
+          if (!subscriberRequest.getVersion().equals(Tuple.FAST_VERSION)) {
             subscriber = new Subscriber(subscriberRequest.getStreamType(), subscriberRequest.getMask(),
                 subscriberRequest.getPartitions(), bufferSize);
           } else {
@@ -484,8 +637,8 @@ public class Server implements ServerListener
                   return -1;
                 }
 
-                short s = buffer[readOffset++];
-                return s | (buffer[readOffset++] << 8);
+                int s = buffer[readOffset++] & 0xff;
+                return s | (buffer[readOffset++] & 0xff) << 8;
               }
 
             };
@@ -494,7 +647,13 @@ public class Server implements ServerListener
           key.interestOps(SelectionKey.OP_WRITE | SelectionKey.OP_READ);
           subscriber.registered(key);
 
-          handleSubscriberRequest(subscriberRequest, subscriber);
+          LogicalNode ln = handleSubscriberRequest(subscriberRequest, subscriber);
+          subscriber.setLogicalNode(ln);
+
+          int remaining = writeOffset - readOffset - size;
+          if (remaining > 0) {
+            subscriber.transferBuffer(this.buffer, readOffset + size, remaining);
+          }
           break;
 
         case PURGE_REQUEST:
@@ -522,11 +681,12 @@ public class Server implements ServerListener
 
   }
 
-  class Subscriber extends AbstractLengthPrependerClient
+  class Subscriber extends SeedDataClient
   {
     private final String type;
     private final int mask;
     private final int[] partitions;
+    private volatile LogicalNode ln;
 
     Subscriber(String type, int mask, int[] partitions, int bufferSize)
     {
@@ -537,11 +697,31 @@ public class Server implements ServerListener
       super.write = false;
     }
 
+    void setLogicalNode(LogicalNode ln)
+    {
+      this.ln = ln;
+    }
+
     @Override
     public void onMessage(byte[] buffer, int offset, int size)
     {
-      logger.warn("Received data when no data is expected: {}",
-          Arrays.toString(Arrays.copyOfRange(buffer, offset, offset + size)));
+      if (buffer[offset] == MessageType.CREDIT_VALUE) {
+        final int credits = ((CreditTuple)Tuple.getTuple(buffer, offset, size)).getCredits();
+        final LogicalNode ln = this.ln;
+        serverHelperExecutor.submit(new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            if (ln.addCredits(Subscriber.this, credits)) {
+              ln.addedData();
+            }
+          }
+        });
+      } else {
+        logger.warn("Received data when no data is expected: {}",
+            Arrays.toString(Arrays.copyOfRange(buffer, offset, offset + size)));
+      }
     }
 
     @Override
@@ -588,12 +768,14 @@ public class Server implements ServerListener
         }
 
         ln.removeChannel(this);
-        if (ln.getPhysicalNodeCount() == 0) {
-          DataList dl = publisherBuffers.get(ln.getUpstream());
-          if (dl != null) {
-            dl.removeDataListener(ln);
+        synchronized (Server.this) {
+          if (ln.getPhysicalNodeCount() == 0) {
+            DataList dl = publisherBuffers.get(ln.getUpstream());
+            if (dl != null) {
+              dl.removeDataListener(ln);
+            }
+            subscriberGroups.remove(ln.getGroup());
           }
-          subscriberGroups.remove(ln.getGroup());
         }
         ln.getIterator().close();
       }
@@ -610,11 +792,20 @@ public class Server implements ServerListener
   {
     private final DataList datalist;
     boolean dirty;
+    /**
+     * Bytes which the publisher sends before it waits for credits, 0 if the publisher does not use credits.
+     */
+    private int creditBytes;
+    /**
+     * Bytes received from the publisher since the last credits were granted.
+     */
+    private int receivedBytes;
 
     Publisher(DataList dl, long windowId)
     {
       super(dl.getBuffer(windowId), dl.getPosition(), 1024);
       this.datalist = dl;
+      super.write = false;
     }
 
     @Override
@@ -623,9 +814,44 @@ public class Server implements ServerListener
       //if (buffer[offset] == MessageType.BEGIN_WINDOW_VALUE || buffer[offset] == MessageType.END_WINDOW_VALUE) {
       //  logger.debug("server received {}", Tuple.getTuple(buffer, offset, size));
       //}
+      if (buffer[offset] == MessageType.CREDIT_VALUE) {
+        /*
+         * the publisher asks for credits, the request is kept from the subscribers.
+         */
+        creditBytes = ((CreditTuple)Tuple.getTuple(buffer, offset, size)).getCredits();
+        buffer[offset] = MessageType.NO_MESSAGE_VALUE;
+      } else if (creditBytes > 0) {
+        receivedBytes += size;
+        if (receivedBytes >= creditBytes / 2) {
+          grantCredits();
+        }
+      }
       dirty = true;
     }
 
+    /**
+     * Returns the number of bytes in which the publisher sends the size of a message of the given size.
+     */
+    int getSizeLength(int size)
+    {
+      return VarInt.getSize(size);
+    }
+
+    /**
+     * Grants the publisher the bytes received since the last grant while there is memory to store them, otherwise the
+     * credits are granted when the memory is available again.
+     */
+    private void grantCredits()
+    {
+      if (datalist.isMemoryBlockAvailable()) {
+        if (write(CreditTuple.getSerializedTuple(receivedBytes))) {
+          receivedBytes = 0;
+        }
+      } else {
+        datalist.suspendRead(this);
+      }
+    }
+
     /**
      * Schedules a task to conditionally resume I/O channel read operations.
      * No-op if {@linkplain java.nio.channels.SelectionKey#OP_READ OP_READ}
@@ -638,11 +864,14 @@ public class Server implements ServerListener
     @Override
     public boolean resumeReadIfSuspended()
     {
-      eventloop.submit(new Runnable()
+      getEventLoop(key).submit(new Runnable()
       {
         @Override
         public void run()
         {
+          if (creditBytes > 0 && receivedBytes >= creditBytes / 2) {
+            grantCredits();
+          }
           final int interestOps = key.interestOps();
           if ((interestOps & SelectionKey.OP_READ) == 0) {
             if (readExt(0)) {
@@ -681,7 +910,7 @@ public class Server implements ServerListener
                    * so we allocate a new byteBuffer and copy over the partially written data to the
                    * new byteBuffer and start as if we always had full room but not enough data.
                    */
-                  if (!switchToNewBufferOrSuspendRead(buffer, readOffset, size  + VarInt.getSize(size))) {
+                  if (!switchToNewBufferOrSuspendRead(buffer, readOffset, size + getSizeLength(size))) {
                     return false;
                   }
                 }
@@ -710,8 +939,8 @@ public class Server implements ServerListener
             /*
              * hit wall while writing serialized data, so have to allocate a new byteBuffer.
              */
-            if (!switchToNewBufferOrSuspendRead(buffer, readOffset - VarInt.getSize(size), size + VarInt.getSize(size))) {
-              readOffset -= VarInt.getSize(size);
+            if (!switchToNewBufferOrSuspendRead(buffer, readOffset - getSizeLength(size), size + getSizeLength(size))) {
+              readOffset -= getSizeLength(size);
               size = 0;
               return false;
             }
@@ -824,7 +1053,7 @@ public class Server implements ServerListener
       }
 
       for (LogicalNode ln : list) {
-        ln.boot(eventloop);
+        ln.boot(eventloops);
       }
     }
 
@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.internal;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+
+import com.datatorrent.bufferserver.packet.BeginWindowTuple;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.util.SerializedData;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ *
+ */
+public class FastDataListTest
+{
+  @Test
+  public void testFlush()
+  {
+    FastDataList list = new FastDataList("test", 1024, 8);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    list.setAutoFlushExecutor(executor);
+    try {
+      byte[] buffer = list.getBuffer(0);
+      int offset = write(buffer, 0, BeginWindowTuple.getSerializedTuple(1));
+      byte[] payload = new byte[200];
+      payload[0] = MessageType.PAYLOAD_VALUE;
+      offset = write(buffer, offset, payload);
+      int payloadEnd = offset;
+      offset = write(buffer, offset, BeginWindowTuple.getSerializedTuple(2));
+
+      /* the payload arrives in two reads */
+      list.flush(payloadEnd - payload.length / 2);
+      list.flush(offset);
+      assertEquals(list.last.ending_window, 2, "ending window");
+
+      FastDataList.FastDataListIterator iterator = list.getIterator(list.first);
+      int[] lengths = {BeginWindowTuple.getSerializedTuple(1).length, payload.length,
+          BeginWindowTuple.getSerializedTuple(2).length};
+      for (int length : lengths) {
+        assertTrue(iterator.hasNext(), "has next");
+        SerializedData data = iterator.next();
+        assertEquals(data.length, length + 2, "length");
+        assertEquals(data.dataOffset, data.offset + 2, "data offset");
+      }
+      assertFalse(iterator.hasNext(), "has next");
+      iterator.close();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static int write(byte[] buffer, int offset, byte[] tuple)
+  {
+    buffer[offset++] = (byte)tuple.length;
+    buffer[offset++] = (byte)(tuple.length >> 8);
+    System.arraycopy(tuple, 0, buffer, offset, tuple.length);
+    return offset + tuple.length;
+  }
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class CheckpointTupleTest
+{
+  @Test
+  public void testGetSerializedTuple()
+  {
+    byte[] serial = CheckpointTuple.getSerializedTuple(0x1234);
+    Tuple tuple = Tuple.getTuple(serial, 0, serial.length);
+
+    assertEquals(tuple.getType(), MessageType.CHECKPOINT, "type");
+    assertEquals(tuple.getWindowId(), 0x1234, "window id");
+    assertSame(CheckpointTuple.getSerializedTuple(0x1234), serial, "same checkpoint");
+    assertNotSame(CheckpointTuple.getSerializedTuple(0x1235), serial, "next checkpoint");
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.testng.annotations.Test;
+
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.netlet.util.VarInt;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ *
+ */
+public class PayloadBatchTupleTest
+{
+  public PayloadBatchTupleTest()
+  {
+  }
+
+  @Test
+  public void testGetSerializedTuple()
+  {
+    byte[] messages = new byte[4096];
+    Arrays.fill(messages, (byte)'a');
+    byte[] serial = PayloadBatchTuple.getSerializedTuple(0x7afebabe, new Deflater(Deflater.BEST_SPEED), messages,
+        0, messages.length);
+    PayloadBatchTuple tuple = (PayloadBatchTuple)Tuple.getTuple(serial, 0, serial.length);
+
+    assertEquals(tuple.getType(), MessageType.PAYLOAD_BATCH, "type");
+    assertEquals(tuple.getPartition(), 0x7afebabe, "partition");
+    assertEquals(tuple.getCodec(), PayloadBatchTuple.DEFLATE, "codec");
+    assertEquals(tuple.getUncompressedLength(), messages.length, "uncompressed length");
+    assertTrue(serial.length < messages.length, "compressed");
+    Slice data = tuple.getMessages(new Inflater());
+    assertEquals(Arrays.copyOfRange(data.buffer, data.offset, data.offset + data.length), messages, "messages");
+  }
+
+  @Test
+  public void testGetSerializedTupleStored()
+  {
+    byte[] messages = new byte[] {1, 2, 3, 4, 5};
+    byte[] serial = PayloadBatchTuple.getSerializedTuple(1, new Deflater(Deflater.BEST_SPEED), messages, 1, 3);
+    PayloadBatchTuple tuple = (PayloadBatchTuple)Tuple.getTuple(serial, 0, serial.length);
+
+    assertEquals(tuple.getPartition(), 1, "partition");
+    assertEquals(tuple.getCodec(), PayloadBatchTuple.STORED, "codec");
+    Slice data = tuple.getMessages(new Inflater());
+    assertEquals(Arrays.copyOfRange(data.buffer, data.offset, data.offset + data.length), new byte[] {2, 3, 4},
+        "messages");
+    assertSame(data.buffer, serial, "not copied");
+
+    serial = PayloadBatchTuple.getSerializedTuple(1, null, messages, 0, 5);
+    tuple = (PayloadBatchTuple)Tuple.getTuple(serial, 0, serial.length);
+    assertEquals(tuple.getCodec(), PayloadBatchTuple.STORED, "codec without deflater");
+    assertEquals(tuple.getUncompressedLength(), 5, "length");
+  }
+
+  @Test
+  public void testSelect()
+  {
+    byte[] messages = new byte[30];
+    int length = 0;
+    for (int i = 0; i < 3; i++) {
+      length = VarInt.write(6, messages, length);
+      length = PayloadTuple.writeSerializedTuple(i & 1, new byte[] {(byte)i}, 0, 1, messages, length);
+    }
+    byte[] serial = PayloadBatchTuple.getSerializedTuple(0, true, new Deflater(), messages, 0, length);
+    PayloadBatchTuple tuple = (PayloadBatchTuple)Tuple.getTuple(serial, 0, serial.length);
+    assertTrue(tuple.isMixed(), "mixed");
+
+    Slice selected = tuple.select(new Inflater(), new PayloadBatchTuple.PartitionMatcher()
+    {
+      @Override
+      public boolean matches(int partition)
+      {
+        return partition == 0;
+      }
+
+    });
+    PayloadBatchTuple batch = (PayloadBatchTuple)Tuple.getTuple(selected.buffer, selected.offset, selected.length);
+    assertEquals(batch.getCodec(), PayloadBatchTuple.STORED, "codec");
+    Slice data = batch.getMessages(null);
+    byte[] expected = new byte[14];
+    System.arraycopy(messages, 0, expected, 0, 7);
+    System.arraycopy(messages, 14, expected, 7, 7);
+    assertEquals(Arrays.copyOfRange(data.buffer, data.offset, data.offset + data.length), expected, "selected");
+
+    selected = tuple.select(new Inflater(), new PayloadBatchTuple.PartitionMatcher()
+    {
+      @Override
+      public boolean matches(int partition)
+      {
+        return partition < 2;
+      }
+
+    });
+    assertSame(selected.buffer, serial, "all selected");
+
+    selected = tuple.select(new Inflater(), new PayloadBatchTuple.PartitionMatcher()
+    {
+      @Override
+      public boolean matches(int partition)
+      {
+        return partition == 2;
+      }
+
+    });
+    assertEquals(selected, null, "none selected");
+  }
+}
@@ -21,6 +21,8 @@ package com.datatorrent.bufferserver.packet;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 
 /**
  *
@@ -40,4 +42,16 @@ public class ResetWindowTupleTest
     assertEquals(tuple.getBaseSeconds(), 0x7afebabe, "base seconds");
     assertEquals(tuple.getWindowWidth(), 500, "window width");
   }
+
+  @Test
+  public void testSharedSerializedTuple()
+  {
+    byte[] serial = ResetWindowTuple.getSerializedTuple(0x7afebabe, 500);
+    assertSame(ResetWindowTuple.getSerializedTuple(0x7afebabe, 500), serial, "same reset window");
+
+    byte[] width = ResetWindowTuple.getSerializedTuple(0x7afebabe, 250);
+    assertNotSame(width, serial, "different window width");
+    ResetWindowTuple tuple = (ResetWindowTuple)Tuple.getTuple(width, 0, width.length);
+    assertEquals(tuple.getWindowWidth(), 250, "window width");
+  }
 }
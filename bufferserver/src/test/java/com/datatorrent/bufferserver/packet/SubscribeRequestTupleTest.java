@@ -55,6 +55,18 @@ public class SubscribeRequestTupleTest
     assertTrue(parts != null && parts.length == 1 && parts[0] == 5);
 
     assertEquals((long)tuple.getBaseSeconds() << 32 | tuple.getWindowId(), startingWindowId, "Window");
+    assertEquals(tuple.getCredits(), 0, "Credits");
+  }
+
+  @Test
+  public void testGetSerializedRequestWithCredits()
+  {
+    byte[] serial = getSerializedRequest(null, "SubscriberId", "SubscriberId/StreamType", "PublisherId", 0, null,
+        0xcafebabe00000078L, 0, 65536);
+    SubscribeRequestTuple tuple = (SubscribeRequestTuple)Tuple.getTuple(serial, 0, serial.length);
+    assertTrue(tuple.isValid(), "Valid");
+    assertEquals(tuple.getBufferSize(), 0, "Buffer size");
+    assertEquals(tuple.getCredits(), 65536, "Credits");
   }
 
 }
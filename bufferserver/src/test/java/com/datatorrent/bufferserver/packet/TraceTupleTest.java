@@ -0,0 +1,47 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.packet;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ *
+ */
+public class TraceTupleTest
+{
+  public TraceTupleTest()
+  {
+  }
+
+  @Test
+  public void testGetSerializedTuple()
+  {
+    byte[] serial = TraceTuple.getSerializedTuple(0x7afebabe, 1000, 1456234567890L, -1L, 300);
+    TraceTuple tuple = (TraceTuple)Tuple.getTuple(serial, 0, serial.length);
+
+    assertEquals(tuple.getType(), MessageType.TRACE, "type");
+    assertEquals(tuple.getWindowId(), 0x7afebabe, "window id");
+    assertEquals(tuple.getOriginTimestamp(), 1456234567890L, "origin timestamp");
+    assertEquals(tuple.getHopTimestamp(), -1L, "hop timestamp");
+    assertEquals(tuple.getHopCount(), 300, "hop count");
+    assertEquals(tuple.getOriginId(), 1000, "origin id");
+  }
+}
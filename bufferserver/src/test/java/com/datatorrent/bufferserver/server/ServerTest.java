@@ -29,6 +29,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.datatorrent.bufferserver.packet.BeginWindowTuple;
+import com.datatorrent.bufferserver.packet.CreditTuple;
 import com.datatorrent.bufferserver.packet.EndWindowTuple;
 import com.datatorrent.bufferserver.packet.PayloadTuple;
 import com.datatorrent.bufferserver.packet.ResetWindowTuple;
@@ -530,5 +531,57 @@ public class ServerTest
     assertTrue(bss.resetPayloads.isEmpty());
   }
 
+  @Test
+  @SuppressWarnings("SleepWhileInLoop")
+  public void testCredits() throws InterruptedException
+  {
+    Server server = new Server(0, 4096, 8);
+    InetSocketAddress serverAddress = server.run(eventloopServer);
+    Publisher publisher = new Publisher("CreditPublisher");
+    eventloopClient.connect(serverAddress, publisher);
+
+    Subscriber subscriber = new Subscriber("CreditSubscriber");
+    eventloopClient.connect(serverAddress, subscriber);
+
+    try {
+      publisher.activate(null, 0x7afebabe, 0);
+      publisher.publishMessage(CreditTuple.getSerializedTuple(64));
+      subscriber.activate(null, "BufferServerOutput/CreditSubscriber", "CreditPublisher", 0, null, 0L, 0, 16);
+
+      long windowId = 0x7afebabe00000000L;
+      publisher.publishMessage(BeginWindowTuple.getSerializedTuple((int)windowId));
+      for (int i = 0; i < 100; i++) {
+        byte[] buff = PayloadTuple.getSerializedTuple(0, 1);
+        buff[buff.length - 1] = (byte)i;
+        publisher.publishMessage(buff);
+      }
+      publisher.publishMessage(EndWindowTuple.getSerializedTuple((int)windowId));
+
+      for (int i = 0; i < spinCount; i++) {
+        Thread.sleep(10);
+        if (publisher.credits.get() > 0 && subscriber.tupleCount.get() > 0) {
+          break;
+        }
+      }
+      Thread.sleep(50);
+      int tupleCount = subscriber.tupleCount.get();
+      assertTrue(tupleCount > 0 && tupleCount < 16, "tuples within the credits " + tupleCount);
+      assertTrue(publisher.credits.get() > 0, "credits granted to the publisher");
+
+      subscriber.write(CreditTuple.getSerializedTuple(1024));
+      for (int i = 0; i < spinCount; i++) {
+        Thread.sleep(10);
+        if (subscriber.tupleCount.get() == 102) {
+          break;
+        }
+      }
+      assertEquals(subscriber.tupleCount.get(), 102);
+    } finally {
+      eventloopClient.disconnect(subscriber);
+      eventloopClient.disconnect(publisher);
+      eventloopServer.stop(server);
+    }
+  }
+
   private static final Logger logger = LoggerFactory.getLogger(ServerTest.class);
 }
@@ -19,14 +19,22 @@
 package com.datatorrent.bufferserver.support;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datatorrent.bufferserver.packet.CreditTuple;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.packet.Tuple;
+
 /**
  *
  */
 public class Publisher extends com.datatorrent.bufferserver.client.Publisher
 {
+  public final AtomicInteger credits = new AtomicInteger(0);
+
   public Publisher(String id)
   {
     super(id);
@@ -41,6 +49,10 @@ public class Publisher extends com.datatorrent.bufferserver.client.Publisher
   @Override
   public void onMessage(byte[] buffer, int offset, int size)
   {
+    if (buffer[offset] == MessageType.CREDIT_VALUE) {
+      credits.addAndGet(((CreditTuple)Tuple.getTuple(buffer, offset, size)).getCredits());
+      return;
+    }
     logger.warn("received data when unexpected {}", Arrays.toString(Arrays.copyOfRange(buffer, offset, size)));
   }
 
@@ -44,12 +44,12 @@ public class Subscriber extends com.datatorrent.bufferserver.client.Subscriber
 
   @Override
   public void activate(final String version, final String type, final String sourceId, final int mask,
-      final Collection<Integer> partitions, final long windowId, final int bufferSize)
+      final Collection<Integer> partitions, final long windowId, final int bufferSize, final int credits)
   {
     tupleCount.set(0);
     firstPayload = lastPayload = null;
     resetPayloads.clear();
-    super.activate(version, type, sourceId, mask, partitions, windowId, bufferSize);
+    super.activate(version, type, sourceId, mask, partitions, windowId, bufferSize, credits);
   }
 
   @Override
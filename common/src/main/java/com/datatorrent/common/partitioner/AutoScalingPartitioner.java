@@ -0,0 +1,327 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.partitioner;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.validation.constraints.Min;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.Operator;
+import com.datatorrent.api.Stats.OperatorStats;
+import com.datatorrent.api.Stats.OperatorStats.PortStats;
+import com.datatorrent.api.StatsListener;
+
+/**
+ * A stateless partitioner which adjusts the number of partitions at runtime so that every partition stays within
+ * configured targets for throughput, latency, input queue size and CPU usage.<p>
+ * <br>
+ * A partition which exceeds any of the configured maximums is split. A partition is merged with a sibling when its
+ * throughput falls below the minimum and all other configured metrics are below their maximum scaled by the
+ * hysteresis factor, so that a partition count does not flip back and forth around a single threshold. A target of 0
+ * is not considered. The number of partitions stays within the minimum and maximum partition count and no
+ * repartitioning is requested before the cooldown period since the last change elapsed.<br>
+ * <br>
+ * The partitioner has to be set both as the {@link com.datatorrent.api.Context.OperatorContext#PARTITIONER} and in the
+ * {@link com.datatorrent.api.Context.OperatorContext#STATS_LISTENERS} of an operator to receive the stats of its
+ * partitions. The initial number of partitions is the partition count of the {@link StatelessPartitioner}.<br>
+ *
+ * @param <T> The type of the operator
+ */
+public class AutoScalingPartitioner<T extends Operator> extends StatelessPartitioner<T> implements StatsListener
+{
+  private static final Logger logger = LoggerFactory.getLogger(AutoScalingPartitioner.class);
+  private static final long serialVersionUID = 201610190000L;
+
+  @Min(1)
+  private int minPartitions = 1;
+  @Min(1)
+  private int maxPartitions = Integer.MAX_VALUE;
+  @Min(0)
+  private long minTuplesPerSecond;
+  @Min(0)
+  private long maxTuplesPerSecond;
+  @Min(0)
+  private long maxLatencyMillis;
+  @Min(0)
+  private int maxQueueSize;
+  @Min(0)
+  private double maxCpuPercentage;
+  private double hysteresis = 0.5;
+  @Min(0)
+  private long cooldownMillis = 30000;
+
+  /**
+   * The load indicators last returned to the partitions, by operator id.
+   */
+  private final Map<Integer, Integer> loads = new HashMap<Integer, Integer>();
+  private long lastRepartitionMillis;
+
+  public AutoScalingPartitioner()
+  {
+  }
+
+  /**
+   * @param partitionCount The number of partitions to create initially.
+   */
+  public AutoScalingPartitioner(int partitionCount)
+  {
+    super(partitionCount);
+  }
+
+  @Override
+  public Collection<Partition<T>> definePartitions(Collection<Partition<T>> partitions, PartitioningContext context)
+  {
+    if (context.getParallelPartitionCount() == 0 && partitions.iterator().next().getStats() == null) {
+      setPartitionCount(Math.min(Math.max(getPartitionCount(), minPartitions), maxPartitions));
+    }
+    return super.definePartitions(partitions, context);
+  }
+
+  @Override
+  public void partitioned(Map<Integer, Partition<T>> partitions)
+  {
+    synchronized (loads) {
+      loads.clear();
+      for (Integer operatorId : partitions.keySet()) {
+        loads.put(operatorId, 0);
+      }
+      lastRepartitionMillis = System.currentTimeMillis();
+    }
+  }
+
+  @Override
+  public Response processStats(BatchedOperatorStats stats)
+  {
+    int load = getLoad(stats);
+    Response response = new Response();
+    synchronized (loads) {
+      if (!loads.containsKey(stats.getOperatorId())) {
+        return null;
+      }
+      loads.put(stats.getOperatorId(), 0);
+      int splits = 0;
+      int merges = 0;
+      for (int l : loads.values()) {
+        if (l > 0) {
+          splits++;
+        } else if (l < 0) {
+          merges++;
+        }
+      }
+      // a split adds one partition, two merged partitions remove one
+      if (load > 0 && loads.size() + splits >= maxPartitions
+          || load < 0 && loads.size() - (merges + 2) / 2 < minPartitions) {
+        load = 0;
+      }
+      loads.put(stats.getOperatorId(), load);
+      response.loadIndicator = load;
+      if (load != 0 && System.currentTimeMillis() - lastRepartitionMillis >= cooldownMillis) {
+        response.repartitionRequired = true;
+        response.repartitionNote = String.format("Partition %d %s with %d tuples/s, %d ms latency, %.1f%% CPU",
+            stats.getOperatorId(), load > 0 ? "over target" : "under target", getTuplesPerSecond(stats),
+            stats.getLatencyMA(), stats.getCpuPercentageMA());
+        logger.debug("{}", response.repartitionNote);
+      }
+    }
+    return response;
+  }
+
+  /**
+   * @param stats the stats of a partition
+   * @return 1 when the partition exceeds a target, -1 when it is below all targets by the hysteresis, otherwise 0
+   */
+  protected int getLoad(BatchedOperatorStats stats)
+  {
+    long tuplesPerSecond = getTuplesPerSecond(stats);
+    long latencyMillis = stats.getLatencyMA();
+    int queueSize = getQueueSize(stats);
+    double cpuPercentage = stats.getCpuPercentageMA();
+
+    if (maxTuplesPerSecond > 0 && tuplesPerSecond > maxTuplesPerSecond
+        || maxLatencyMillis > 0 && latencyMillis > maxLatencyMillis
+        || maxQueueSize > 0 && queueSize > maxQueueSize
+        || maxCpuPercentage > 0 && cpuPercentage > maxCpuPercentage) {
+      return 1;
+    }
+
+    double lowTuplesPerSecond = minTuplesPerSecond > 0 ? minTuplesPerSecond : maxTuplesPerSecond * hysteresis;
+    if (lowTuplesPerSecond <= 0 && maxLatencyMillis <= 0 && maxQueueSize <= 0 && maxCpuPercentage <= 0) {
+      return 0;
+    }
+    if ((lowTuplesPerSecond <= 0 || tuplesPerSecond < lowTuplesPerSecond)
+        && (maxLatencyMillis <= 0 || latencyMillis < maxLatencyMillis * hysteresis)
+        && (maxQueueSize <= 0 || queueSize < maxQueueSize * hysteresis)
+        && (maxCpuPercentage <= 0 || cpuPercentage < maxCpuPercentage * hysteresis)) {
+      return -1;
+    }
+    return 0;
+  }
+
+  /**
+   * @return the processed tuples per second, or the emitted ones for an input operator
+   */
+  private static long getTuplesPerSecond(BatchedOperatorStats stats)
+  {
+    long tuplesPerSecond = stats.getTuplesProcessedPSMA();
+    return tuplesPerSecond == 0 ? stats.getTuplesEmittedPSMA() : tuplesPerSecond;
+  }
+
+  /**
+   * @return the largest input queue size in the last reported window
+   */
+  private static int getQueueSize(BatchedOperatorStats stats)
+  {
+    List<OperatorStats> windowedStats = stats.getLastWindowedStats();
+    int queueSize = 0;
+    if (windowedStats != null && !windowedStats.isEmpty()) {
+      OperatorStats os = windowedStats.get(windowedStats.size() - 1);
+      if (os.inputPorts != null) {
+        for (PortStats ps : os.inputPorts) {
+          queueSize = Math.max(queueSize, ps.queueSize);
+        }
+      }
+    }
+    return queueSize;
+  }
+
+  public int getMinPartitions()
+  {
+    return minPartitions;
+  }
+
+  /**
+   * @param minPartitions the number of partitions below which partitions are not merged
+   */
+  public void setMinPartitions(int minPartitions)
+  {
+    this.minPartitions = minPartitions;
+  }
+
+  public int getMaxPartitions()
+  {
+    return maxPartitions;
+  }
+
+  /**
+   * @param maxPartitions the number of partitions above which partitions are not split
+   */
+  public void setMaxPartitions(int maxPartitions)
+  {
+    this.maxPartitions = maxPartitions;
+  }
+
+  public long getMinTuplesPerSecond()
+  {
+    return minTuplesPerSecond;
+  }
+
+  /**
+   * @param minTuplesPerSecond the throughput of a partition below which it can be merged, by default the maximum
+   *                           throughput scaled by the hysteresis
+   */
+  public void setMinTuplesPerSecond(long minTuplesPerSecond)
+  {
+    this.minTuplesPerSecond = minTuplesPerSecond;
+  }
+
+  public long getMaxTuplesPerSecond()
+  {
+    return maxTuplesPerSecond;
+  }
+
+  /**
+   * @param maxTuplesPerSecond the throughput of a partition above which it is split
+   */
+  public void setMaxTuplesPerSecond(long maxTuplesPerSecond)
+  {
+    this.maxTuplesPerSecond = maxTuplesPerSecond;
+  }
+
+  public long getMaxLatencyMillis()
+  {
+    return maxLatencyMillis;
+  }
+
+  /**
+   * @param maxLatencyMillis the latency of a partition above which it is split
+   */
+  public void setMaxLatencyMillis(long maxLatencyMillis)
+  {
+    this.maxLatencyMillis = maxLatencyMillis;
+  }
+
+  public int getMaxQueueSize()
+  {
+    return maxQueueSize;
+  }
+
+  /**
+   * @param maxQueueSize the input queue size of a partition above which it is split
+   */
+  public void setMaxQueueSize(int maxQueueSize)
+  {
+    this.maxQueueSize = maxQueueSize;
+  }
+
+  public double getMaxCpuPercentage()
+  {
+    return maxCpuPercentage;
+  }
+
+  /**
+   * @param maxCpuPercentage the CPU percentage of a partition above which it is split
+   */
+  public void setMaxCpuPercentage(double maxCpuPercentage)
+  {
+    this.maxCpuPercentage = maxCpuPercentage;
+  }
+
+  public double getHysteresis()
+  {
+    return hysteresis;
+  }
+
+  /**
+   * @param hysteresis the factor between 0 and 1 applied to the maximums to get the levels below which a partition
+   *                   can be merged
+   */
+  public void setHysteresis(double hysteresis)
+  {
+    this.hysteresis = hysteresis;
+  }
+
+  public long getCooldownMillis()
+  {
+    return cooldownMillis;
+  }
+
+  /**
+   * @param cooldownMillis the time after a repartitioning during which no other one is requested
+   */
+  public void setCooldownMillis(long cooldownMillis)
+  {
+    this.cooldownMillis = cooldownMillis;
+  }
+}
@@ -0,0 +1,353 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.partitioner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.validation.constraints.Min;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import com.datatorrent.api.DefaultPartition;
+import com.datatorrent.api.Operator;
+import com.datatorrent.api.Operator.InputPort;
+import com.datatorrent.api.Stats.OperatorStats;
+import com.datatorrent.api.Stats.OperatorStats.PortStats;
+import com.datatorrent.api.StatsListener;
+
+/**
+ * A stateless partitioner which divides the partitioned stream into a fixed number of key groups and moves key groups
+ * between the partitions to balance their load when the keys are skewed.<p>
+ * <br>
+ * The key groups are the values of the partition keys masked with keyGroupCount - 1. Each partition receives a range
+ * of key groups initially. The buffer server subscribers of the partitions count the tuples of each key group, see
+ * {@link PortStats#keyGroupTupleCounts}. When the load of the most loaded partition exceeds the average by more than
+ * the maximum imbalance, the key groups are reassigned: key groups are moved from the most to the least loaded
+ * partition as long as this reduces the imbalance. Only the partitions whose key groups changed are redeployed. A key
+ * group carrying most of the load of its partition cannot be split, so the number of key groups should be a multiple
+ * of the number of partitions large enough to spread the hot keys.<br>
+ * <br>
+ * The partitioner has to be set both as the {@link com.datatorrent.api.Context.OperatorContext#PARTITIONER} and in the
+ * {@link com.datatorrent.api.Context.OperatorContext#STATS_LISTENERS} of an operator to receive the stats of its
+ * partitions. The number of partitions is the partition count of the {@link StatelessPartitioner}, it stays the same
+ * on repartitioning.<br>
+ *
+ * @param <T> The type of the operator
+ */
+public class KeyGroupPartitioner<T extends Operator> extends StatelessPartitioner<T> implements StatsListener
+{
+  private static final Logger logger = LoggerFactory.getLogger(KeyGroupPartitioner.class);
+  private static final long serialVersionUID = 201610190000L;
+
+  @Min(1)
+  private int keyGroupCount = 64;
+  @Min(0)
+  private double maxImbalance = 0.2;
+  @Min(0)
+  private long cooldownMillis = 30000;
+
+  /**
+   * The key groups of the partitions, by operator id.
+   */
+  private final Map<Integer, Set<Integer>> keyGroups = new HashMap<Integer, Set<Integer>>();
+  /**
+   * The tuples per window of the key groups last reported.
+   */
+  private final Map<Integer, Double> keyGroupLoads = new HashMap<Integer, Double>();
+  private long lastRepartitionMillis;
+
+  public KeyGroupPartitioner()
+  {
+  }
+
+  /**
+   * @param partitionCount The number of partitions to create.
+   */
+  public KeyGroupPartitioner(int partitionCount)
+  {
+    super(partitionCount);
+  }
+
+  @Override
+  public Collection<Partition<T>> definePartitions(Collection<Partition<T>> partitions, PartitioningContext context)
+  {
+    List<InputPort<?>> inputPorts = context.getInputPorts();
+    if (context.getParallelPartitionCount() != 0 || inputPorts == null || inputPorts.isEmpty()) {
+      return super.definePartitions(partitions, context);
+    }
+    InputPort<?> port = inputPorts.get(0);
+    int mask = getKeyGroupMask();
+
+    if (partitions.iterator().next().getStats() == null) {
+      T operator = partitions.iterator().next().getPartitionedInstance();
+      int count = Math.min(getPartitionCount(), mask + 1);
+      List<Partition<T>> newPartitions = Lists.newArrayListWithCapacity(count);
+      for (int i = 0; i < count; i++) {
+        Set<Integer> keys = Sets.newHashSet();
+        for (int key = (mask + 1) * i / count; key < (mask + 1) * (i + 1) / count; key++) {
+          keys.add(key);
+        }
+        Partition<T> partition = new DefaultPartition<T>(operator);
+        partition.getPartitionKeys().put(port, new PartitionKeys(mask, keys));
+        newPartitions.add(partition);
+      }
+      return newPartitions;
+    }
+
+    List<Set<Integer>> assignment = Lists.newArrayListWithCapacity(partitions.size());
+    for (Partition<T> partition : partitions) {
+      PartitionKeys pks = partition.getPartitionKeys().get(port);
+      if (pks == null || pks.mask != mask) {
+        logger.warn("Partitions {} do not have key groups of mask {}", partitions, mask);
+        return partitions;
+      }
+      assignment.add(Sets.newHashSet(pks.partitions));
+    }
+
+    Map<Integer, Double> loads;
+    synchronized (keyGroups) {
+      loads = new HashMap<Integer, Double>(keyGroupLoads);
+    }
+    if (rebalance(assignment, loads, maxImbalance)) {
+      int i = 0;
+      for (Partition<T> partition : partitions) {
+        Set<Integer> keys = assignment.get(i++);
+        if (!keys.equals(partition.getPartitionKeys().get(port).partitions)) {
+          // put new value so the map gets marked as modified
+          partition.getPartitionKeys().put(port, new PartitionKeys(mask, keys));
+        }
+      }
+    }
+    return partitions;
+  }
+
+  @Override
+  public void partitioned(Map<Integer, Partition<T>> partitions)
+  {
+    synchronized (keyGroups) {
+      keyGroups.clear();
+      for (Map.Entry<Integer, Partition<T>> e : partitions.entrySet()) {
+        Map<InputPort<?>, PartitionKeys> pks = e.getValue().getPartitionKeys();
+        Set<Integer> keys = pks.isEmpty() ? null : pks.values().iterator().next().partitions;
+        keyGroups.put(e.getKey(), keys == null ? Sets.<Integer>newHashSet() : Sets.newHashSet(keys));
+      }
+      lastRepartitionMillis = System.currentTimeMillis();
+    }
+  }
+
+  @Override
+  public Response processStats(BatchedOperatorStats stats)
+  {
+    Map<Integer, Long> counts = new HashMap<Integer, Long>();
+    int windows = 0;
+    List<OperatorStats> windowedStats = stats.getLastWindowedStats();
+    if (windowedStats != null) {
+      for (OperatorStats os : windowedStats) {
+        if (os.inputPorts == null) {
+          continue;
+        }
+        for (PortStats ps : os.inputPorts) {
+          if (ps.keyGroupTupleCounts != null) {
+            windows++;
+            for (Map.Entry<Integer, Long> e : ps.keyGroupTupleCounts.entrySet()) {
+              Long count = counts.get(e.getKey());
+              counts.put(e.getKey(), count == null ? e.getValue() : count + e.getValue());
+            }
+          }
+        }
+      }
+    }
+
+    Response response = new Response();
+    synchronized (keyGroups) {
+      Set<Integer> keys = keyGroups.get(stats.getOperatorId());
+      if (keys == null) {
+        return null;
+      }
+      if (windows == 0) {
+        return response;
+      }
+      for (Map.Entry<Integer, Long> e : counts.entrySet()) {
+        if (keys.contains(e.getKey())) {
+          keyGroupLoads.put(e.getKey(), (double)e.getValue() / windows);
+        }
+      }
+
+      List<Set<Integer>> assignment = new ArrayList<Set<Integer>>(keyGroups.values());
+      double imbalance = getImbalance(assignment, keyGroupLoads);
+      if (imbalance > maxImbalance && System.currentTimeMillis() - lastRepartitionMillis >= cooldownMillis) {
+        List<Set<Integer>> newAssignment = new ArrayList<Set<Integer>>(assignment.size());
+        for (Set<Integer> partitionKeys : assignment) {
+          newAssignment.add(Sets.newHashSet(partitionKeys));
+        }
+        if (rebalance(newAssignment, keyGroupLoads, maxImbalance)) {
+          response.repartitionRequired = true;
+          response.repartitionNote = String.format("Load of the key groups is %.0f%% above the average",
+              imbalance * 100);
+          logger.debug("{}", response.repartitionNote);
+        }
+      }
+    }
+    return response;
+  }
+
+  /**
+   * @param assignment the key groups of each partition
+   * @param loads the load of the key groups
+   * @return the fraction by which the load of the most loaded partition exceeds the average
+   */
+  static double getImbalance(List<Set<Integer>> assignment, Map<Integer, Double> loads)
+  {
+    double total = 0;
+    double max = 0;
+    for (Set<Integer> keys : assignment) {
+      double load = getLoad(keys, loads);
+      total += load;
+      max = Math.max(max, load);
+    }
+    return total > 0 ? max * assignment.size() / total - 1 : 0;
+  }
+
+  private static double getLoad(Set<Integer> keys, Map<Integer, Double> loads)
+  {
+    double load = 0;
+    for (Integer key : keys) {
+      Double keyLoad = loads.get(key);
+      if (keyLoad != null) {
+        load += keyLoad;
+      }
+    }
+    return load;
+  }
+
+  /**
+   * Moves key groups from the most loaded to the least loaded partition while the imbalance exceeds the maximum and
+   * a move reduces the load of the most loaded partition. Every partition keeps at least one key group.
+   *
+   * @param assignment the key groups of each partition, modified in place
+   * @param loads the load of the key groups
+   * @param maxImbalance the fraction by which the most loaded partition may exceed the average
+   * @return whether any key group was moved
+   */
+  static boolean rebalance(List<Set<Integer>> assignment, Map<Integer, Double> loads, double maxImbalance)
+  {
+    int partitionCount = assignment.size();
+    double[] partitionLoads = new double[partitionCount];
+    double total = 0;
+    int keyCount = 0;
+    for (int i = 0; i < partitionCount; i++) {
+      partitionLoads[i] = getLoad(assignment.get(i), loads);
+      total += partitionLoads[i];
+      keyCount += assignment.get(i).size();
+    }
+    double limit = total / partitionCount * (1 + maxImbalance);
+
+    boolean moved = false;
+    for (int moves = 0; moves < keyCount; moves++) {
+      int maxIndex = 0;
+      int minIndex = 0;
+      for (int i = 1; i < partitionCount; i++) {
+        if (partitionLoads[i] > partitionLoads[maxIndex]) {
+          maxIndex = i;
+        }
+        if (partitionLoads[i] < partitionLoads[minIndex]) {
+          minIndex = i;
+        }
+      }
+      if (partitionLoads[maxIndex] <= limit || assignment.get(maxIndex).size() < 2) {
+        break;
+      }
+
+      // the key group closest to half the difference evens out the two partitions the most
+      double difference = partitionLoads[maxIndex] - partitionLoads[minIndex];
+      Integer bestKey = null;
+      double bestLoad = 0;
+      for (Integer key : assignment.get(maxIndex)) {
+        Double load = loads.get(key);
+        if (load != null && load > 0 && load < difference
+            && (bestKey == null || Math.abs(load - difference / 2) < Math.abs(bestLoad - difference / 2))) {
+          bestKey = key;
+          bestLoad = load;
+        }
+      }
+      if (bestKey == null) {
+        break;
+      }
+      assignment.get(maxIndex).remove(bestKey);
+      assignment.get(minIndex).add(bestKey);
+      partitionLoads[maxIndex] -= bestLoad;
+      partitionLoads[minIndex] += bestLoad;
+      moved = true;
+    }
+    return moved;
+  }
+
+  private int getKeyGroupMask()
+  {
+    return Integer.highestOneBit(Math.max(keyGroupCount - 1, 1) << 1) - 1;
+  }
+
+  public int getKeyGroupCount()
+  {
+    return keyGroupCount;
+  }
+
+  /**
+   * @param keyGroupCount the number of key groups, rounded up to a power of two
+   */
+  public void setKeyGroupCount(int keyGroupCount)
+  {
+    this.keyGroupCount = keyGroupCount;
+  }
+
+  public double getMaxImbalance()
+  {
+    return maxImbalance;
+  }
+
+  /**
+   * @param maxImbalance the fraction by which the load of a partition may exceed the average before key groups move
+   */
+  public void setMaxImbalance(double maxImbalance)
+  {
+    this.maxImbalance = maxImbalance;
+  }
+
+  public long getCooldownMillis()
+  {
+    return cooldownMillis;
+  }
+
+  /**
+   * @param cooldownMillis the time after a repartitioning during which no other one is requested
+   */
+  public void setCooldownMillis(long cooldownMillis)
+  {
+    this.cooldownMillis = cooldownMillis;
+  }
+}
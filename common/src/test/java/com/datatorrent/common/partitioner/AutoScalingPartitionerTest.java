@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.partitioner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import com.datatorrent.api.DefaultPartition;
+import com.datatorrent.api.Operator.InputPort;
+import com.datatorrent.api.Partitioner.Partition;
+import com.datatorrent.api.Partitioner.PartitionKeys;
+import com.datatorrent.api.Stats.OperatorStats;
+import com.datatorrent.api.StatsListener.BatchedOperatorStats;
+import com.datatorrent.api.StatsListener.OperatorResponse;
+import com.datatorrent.api.StatsListener.Response;
+import com.datatorrent.common.partitioner.StatelessPartitionerTest.DummyOperator;
+import com.datatorrent.common.partitioner.StatelessPartitionerTest.PartitioningContextImpl;
+
+public class AutoScalingPartitionerTest
+{
+  @Test
+  public void testLoad()
+  {
+    AutoScalingPartitioner<DummyOperator> partitioner = new AutoScalingPartitioner<DummyOperator>();
+    partitioner.setMaxTuplesPerSecond(1000);
+    partitioner.setMaxLatencyMillis(100);
+    partitioner.setMaxQueueSize(1000);
+    partitioner.setMaxCpuPercentage(80);
+
+    Assert.assertEquals("within targets", 0, partitioner.getLoad(new TestStats(1, 800, 10, 10, 10)));
+    Assert.assertEquals("throughput", 1, partitioner.getLoad(new TestStats(1, 1200, 10, 10, 10)));
+    Assert.assertEquals("latency", 1, partitioner.getLoad(new TestStats(1, 800, 200, 10, 10)));
+    Assert.assertEquals("queue", 1, partitioner.getLoad(new TestStats(1, 800, 10, 2000, 10)));
+    Assert.assertEquals("cpu", 1, partitioner.getLoad(new TestStats(1, 800, 10, 10, 90)));
+    Assert.assertEquals("below targets", -1, partitioner.getLoad(new TestStats(1, 100, 10, 10, 10)));
+    Assert.assertEquals("hysteresis", 0, partitioner.getLoad(new TestStats(1, 100, 60, 10, 10)));
+    partitioner.setMinTuplesPerSecond(50);
+    Assert.assertEquals("minimum throughput", 0, partitioner.getLoad(new TestStats(1, 100, 10, 10, 10)));
+    Assert.assertEquals("below minimum throughput", -1, partitioner.getLoad(new TestStats(1, 40, 10, 10, 10)));
+
+    Assert.assertEquals("no targets", 0,
+        new AutoScalingPartitioner<DummyOperator>().getLoad(new TestStats(1, 0, 10, 10, 10)));
+  }
+
+  @Test
+  public void testScaling()
+  {
+    AutoScalingPartitioner<DummyOperator> partitioner = new AutoScalingPartitioner<DummyOperator>(2);
+    partitioner.setMinPartitions(2);
+    partitioner.setMaxPartitions(3);
+    partitioner.setMaxTuplesPerSecond(1000);
+    partitioner.setCooldownMillis(0);
+
+    List<Partition<DummyOperator>> partitions = Lists.newArrayList();
+    partitions.add(new DefaultPartition<DummyOperator>(new DummyOperator(5)));
+    Collection<Partition<DummyOperator>> newPartitions = partitioner.definePartitions(partitions,
+        new PartitioningContextImpl(null, 0));
+    Assert.assertEquals("initial partitions", 2, newPartitions.size());
+
+    Assert.assertNull("not partitioned", partitioner.processStats(new TestStats(1, 2000, 0, 0, 0)));
+    Map<Integer, Partition<DummyOperator>> operatorIdToPartition = Maps.newHashMap();
+    int operatorId = 1;
+    for (Partition<DummyOperator> p : newPartitions) {
+      operatorIdToPartition.put(operatorId++, p);
+    }
+    partitioner.partitioned(operatorIdToPartition);
+
+    Response rsp = partitioner.processStats(new TestStats(1, 2000, 0, 0, 0));
+    Assert.assertEquals("split", 1, rsp.loadIndicator);
+    Assert.assertTrue("split", rsp.repartitionRequired);
+    rsp = partitioner.processStats(new TestStats(2, 2000, 0, 0, 0));
+    Assert.assertEquals("maximum partitions", 0, rsp.loadIndicator);
+    Assert.assertFalse("maximum partitions", rsp.repartitionRequired);
+    rsp = partitioner.processStats(new TestStats(1, 700, 0, 0, 0));
+    Assert.assertEquals("within targets", 0, rsp.loadIndicator);
+    rsp = partitioner.processStats(new TestStats(2, 100, 0, 0, 0));
+    Assert.assertEquals("minimum partitions", 0, rsp.loadIndicator);
+    Assert.assertFalse("minimum partitions", rsp.repartitionRequired);
+
+    partitioner.setCooldownMillis(60000);
+    partitioner.partitioned(operatorIdToPartition);
+    rsp = partitioner.processStats(new TestStats(1, 2000, 0, 0, 0));
+    Assert.assertEquals("cooldown", 1, rsp.loadIndicator);
+    Assert.assertFalse("cooldown", rsp.repartitionRequired);
+  }
+
+  @Test
+  public void testRepartition()
+  {
+    AutoScalingPartitioner<DummyOperator> partitioner = new AutoScalingPartitioner<DummyOperator>();
+    partitioner.setMaxTuplesPerSecond(1000);
+    partitioner.setCooldownMillis(0);
+
+    List<Partition<DummyOperator>> partitions = Lists.newArrayList();
+    partitions.add(new DefaultPartition<DummyOperator>(new DummyOperator(5)));
+    Collection<Partition<DummyOperator>> newPartitions = partitioner.definePartitions(partitions,
+        new PartitioningContextImpl(null, 0));
+    partitioner.partitioned(Collections.singletonMap(1, newPartitions.iterator().next()));
+
+    TestStats stats = new TestStats(1, 2000, 0, 0, 0);
+    Response rsp = partitioner.processStats(stats);
+    Assert.assertTrue("split", rsp.repartitionRequired);
+    partitions = Lists.newArrayList();
+    partitions.add(new DefaultPartition<DummyOperator>(new DummyOperator(5),
+        Maps.<InputPort<?>, PartitionKeys>newHashMap(), rsp.loadIndicator, stats));
+    newPartitions = partitioner.definePartitions(partitions, new PartitioningContextImpl(null, 0));
+    Assert.assertEquals("split input operator", 2, newPartitions.size());
+  }
+
+  private static class TestStats implements BatchedOperatorStats
+  {
+    private final int operatorId;
+    private final long tuplesPerSecond;
+    private final long latencyMillis;
+    private final double cpuPercentage;
+    private final List<OperatorStats> windowedStats = new ArrayList<OperatorStats>();
+
+    TestStats(int operatorId, long tuplesPerSecond, long latencyMillis, int queueSize, double cpuPercentage)
+    {
+      this.operatorId = operatorId;
+      this.tuplesPerSecond = tuplesPerSecond;
+      this.latencyMillis = latencyMillis;
+      this.cpuPercentage = cpuPercentage;
+      OperatorStats os = new OperatorStats();
+      OperatorStats.PortStats ps = new OperatorStats.PortStats("input");
+      ps.queueSize = queueSize;
+      os.inputPorts = Lists.newArrayList(ps);
+      windowedStats.add(os);
+    }
+
+    @Override
+    public List<OperatorStats> getLastWindowedStats()
+    {
+      return windowedStats;
+    }
+
+    @Override
+    public int getOperatorId()
+    {
+      return operatorId;
+    }
+
+    @Override
+    public long getCurrentWindowId()
+    {
+      return 0;
+    }
+
+    @Override
+    public long getTuplesProcessedPSMA()
+    {
+      return tuplesPerSecond;
+    }
+
+    @Override
+    public long getTuplesEmittedPSMA()
+    {
+      return 0;
+    }
+
+    @Override
+    public double getCpuPercentageMA()
+    {
+      return cpuPercentage;
+    }
+
+    @Override
+    public long getLatencyMA()
+    {
+      return latencyMillis;
+    }
+
+    @Override
+    public List<OperatorResponse> getOperatorResponse()
+    {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.partitioner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import com.datatorrent.api.DefaultInputPort;
+import com.datatorrent.api.DefaultPartition;
+import com.datatorrent.api.Operator.InputPort;
+import com.datatorrent.api.Partitioner.Partition;
+import com.datatorrent.api.Partitioner.PartitionKeys;
+import com.datatorrent.api.Stats.OperatorStats;
+import com.datatorrent.api.StatsListener.BatchedOperatorStats;
+import com.datatorrent.api.StatsListener.OperatorResponse;
+import com.datatorrent.api.StatsListener.Response;
+import com.datatorrent.common.partitioner.StatelessPartitionerTest.DummyOperator;
+import com.datatorrent.common.partitioner.StatelessPartitionerTest.PartitioningContextImpl;
+
+public class KeyGroupPartitionerTest
+{
+  private final InputPort<Integer> input = new DefaultInputPort<Integer>()
+  {
+    @Override
+    public void process(Integer tuple)
+    {
+    }
+  };
+
+  @Test
+  public void testInitialPartitions()
+  {
+    KeyGroupPartitioner<DummyOperator> partitioner = new KeyGroupPartitioner<DummyOperator>(3);
+    partitioner.setKeyGroupCount(16);
+    Collection<Partition<DummyOperator>> partitions = definePartitions(partitioner);
+    Assert.assertEquals("partitions", 3, partitions.size());
+
+    Set<Integer> keys = Sets.newHashSet();
+    for (Partition<DummyOperator> p : partitions) {
+      PartitionKeys pks = p.getPartitionKeys().get(input);
+      Assert.assertEquals("mask", 15, pks.mask);
+      Assert.assertTrue("key groups " + pks, pks.partitions.size() == 5 || pks.partitions.size() == 6);
+      keys.addAll(pks.partitions);
+    }
+    Assert.assertEquals("all key groups", 16, keys.size());
+  }
+
+  @Test
+  public void testRebalance()
+  {
+    List<Set<Integer>> assignment = Lists.newArrayList();
+    assignment.add(Sets.newHashSet(0, 1, 2, 3));
+    assignment.add(Sets.newHashSet(4, 5, 6, 7));
+    Map<Integer, Double> loads = new HashMap<Integer, Double>();
+    for (int key = 0; key < 8; key++) {
+      loads.put(key, 10.0);
+    }
+    Assert.assertEquals("balanced", 0, KeyGroupPartitioner.getImbalance(assignment, loads), 0.001);
+    Assert.assertFalse("balanced", KeyGroupPartitioner.rebalance(assignment, loads, 0.1));
+
+    loads.put(0, 50.0);
+    loads.put(1, 30.0);
+    Assert.assertEquals("skewed", 3.0 / 7, KeyGroupPartitioner.getImbalance(assignment, loads), 0.001);
+    Assert.assertTrue("skewed", KeyGroupPartitioner.rebalance(assignment, loads, 0.1));
+    Assert.assertTrue("imbalance " + assignment, KeyGroupPartitioner.getImbalance(assignment, loads) <= 0.1);
+    Assert.assertFalse("hot keys separated " + assignment, assignment.get(0).containsAll(Sets.newHashSet(0, 1)));
+
+    assignment = Lists.newArrayList();
+    assignment.add(Sets.newHashSet(0));
+    assignment.add(Sets.newHashSet(1, 2));
+    Assert.assertFalse("single hot key", KeyGroupPartitioner.rebalance(assignment, loads, 0.1));
+  }
+
+  @Test
+  public void testRepartition()
+  {
+    KeyGroupPartitioner<DummyOperator> partitioner = new KeyGroupPartitioner<DummyOperator>(2);
+    partitioner.setKeyGroupCount(8);
+    partitioner.setCooldownMillis(0);
+    Collection<Partition<DummyOperator>> partitions = definePartitions(partitioner);
+    Map<Integer, Partition<DummyOperator>> operatorIdToPartition = Maps.newHashMap();
+    int operatorId = 1;
+    for (Partition<DummyOperator> p : partitions) {
+      operatorIdToPartition.put(operatorId++, p);
+    }
+    partitioner.partitioned(operatorIdToPartition);
+
+    Assert.assertNull("unknown partition", partitioner.processStats(new TestStats(3, new HashMap<Integer, Long>())));
+    Map<Integer, Long> counts = new HashMap<Integer, Long>();
+    for (int key : operatorIdToPartition.get(1).getPartitionKeys().get(input).partitions) {
+      counts.put(key, 100L);
+    }
+    Response rsp = partitioner.processStats(new TestStats(1, counts));
+    Assert.assertTrue("repartition", rsp.repartitionRequired);
+    Assert.assertEquals("load", 0, rsp.loadIndicator);
+
+    List<Partition<DummyOperator>> currentPartitions = Lists.newArrayList();
+    for (Map.Entry<Integer, Partition<DummyOperator>> e : operatorIdToPartition.entrySet()) {
+      currentPartitions.add(new DefaultPartition<DummyOperator>(e.getValue().getPartitionedInstance(),
+          e.getValue().getPartitionKeys(), 0, new TestStats(e.getKey(), counts)));
+    }
+    Collection<Partition<DummyOperator>> newPartitions = partitioner.definePartitions(currentPartitions,
+        new PartitioningContextImpl(Lists.<InputPort<?>>newArrayList(input), 0));
+    Assert.assertEquals("partitions", 2, newPartitions.size());
+    for (Partition<DummyOperator> p : newPartitions) {
+      Assert.assertTrue("modified " + p, ((DefaultPartition<DummyOperator>)p).isModified());
+      Set<Integer> loadedKeys = Sets.intersection(counts.keySet(), p.getPartitionKeys().get(input).partitions);
+      Assert.assertEquals("loaded key groups " + p, 2, loadedKeys.size());
+    }
+  }
+
+  private Collection<Partition<DummyOperator>> definePartitions(KeyGroupPartitioner<DummyOperator> partitioner)
+  {
+    List<Partition<DummyOperator>> partitions = Lists.newArrayList();
+    partitions.add(new DefaultPartition<DummyOperator>(new DummyOperator(5)));
+    return partitioner.definePartitions(partitions,
+        new PartitioningContextImpl(Lists.<InputPort<?>>newArrayList(input), 0));
+  }
+
+  private static class TestStats implements BatchedOperatorStats
+  {
+    private final int operatorId;
+    private final List<OperatorStats> windowedStats = new ArrayList<OperatorStats>();
+
+    TestStats(int operatorId, Map<Integer, Long> keyGroupTupleCounts)
+    {
+      this.operatorId = operatorId;
+      OperatorStats os = new OperatorStats();
+      OperatorStats.PortStats ps = new OperatorStats.PortStats("input");
+      ps.keyGroupTupleCounts = keyGroupTupleCounts;
+      os.inputPorts = Lists.newArrayList(ps);
+      windowedStats.add(os);
+    }
+
+    @Override
+    public List<OperatorStats> getLastWindowedStats()
+    {
+      return windowedStats;
+    }
+
+    @Override
+    public int getOperatorId()
+    {
+      return operatorId;
+    }
+
+    @Override
+    public long getCurrentWindowId()
+    {
+      return 0;
+    }
+
+    @Override
+    public long getTuplesProcessedPSMA()
+    {
+      return 0;
+    }
+
+    @Override
+    public long getTuplesEmittedPSMA()
+    {
+      return 0;
+    }
+
+    @Override
+    public double getCpuPercentageMA()
+    {
+      return 0;
+    }
+
+    @Override
+    public long getLatencyMA()
+    {
+      return 0;
+    }
+
+    @Override
+    public List<OperatorResponse> getOperatorResponse()
+    {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.math.LongMath;
+
+import com.datatorrent.api.Context.DAGContext;
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.stram.engine.WindowWidthSchedule;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.logical.LogicalPlan.OperatorMeta;
+
+/**
+ * Picks the streaming window width of an application within the configured bounds.<p>
+ * <br>
+ * The width doubles when the windows carry many more tuples than {@link LogicalPlan#ADAPTIVE_WINDOW_TUPLES} or when
+ * the latency of the critical path is several windows long, so the per window overhead is spread over more tuples.
+ * It halves when the windows carry much fewer tuples and the critical path keeps up with the windows, so the tuples
+ * are delivered with less latency. The width stays a power of two multiple or fraction of the configured width.<br>
+ * <br>
+ * Window counts larger than one which are configured for the application windows, sliding windows and checkpoints of
+ * the operators keep spanning the same time, so the width has to divide all of their spans. The operators count their
+ * windows from the first window after the start of the application, the width changes at a window boundary at which
+ * all of these spans end.<br>
+ */
+public class AdaptiveWindowWidth
+{
+  private final LogicalPlan dag;
+  private final int minWidthMillis;
+  private final int maxWidthMillis;
+  private final long targetTuples;
+  private final long changeIntervalMillis;
+  private final long leadMillis;
+  private long lastChangeMillis;
+
+  public AdaptiveWindowWidth(LogicalPlan dag)
+  {
+    this.dag = dag;
+    minWidthMillis = dag.getValue(LogicalPlan.MIN_STREAMING_WINDOW_SIZE_MILLIS);
+    maxWidthMillis = dag.getValue(LogicalPlan.MAX_STREAMING_WINDOW_SIZE_MILLIS);
+    targetTuples = dag.getValue(LogicalPlan.ADAPTIVE_WINDOW_TUPLES);
+    changeIntervalMillis = dag.getValue(LogicalPlan.ADAPTIVE_WINDOW_SIZE_INTERVAL_MILLIS);
+    leadMillis = 4L * dag.getValue(DAGContext.HEARTBEAT_INTERVAL_MILLIS);
+  }
+
+  /**
+   * @param widthMillis the current window width
+   * @param tuplesPerSecond the rate at which the input operators emit tuples
+   * @param latencyMillis the latency of the critical path
+   * @param currentMillis the current time
+   * @return the window width the application should use
+   */
+  public int getWidth(int widthMillis, long tuplesPerSecond, long latencyMillis, long currentMillis)
+  {
+    if (currentMillis - lastChangeMillis < changeIntervalMillis || tuplesPerSecond <= 0) {
+      return widthMillis;
+    }
+
+    long tuples = tuplesPerSecond * widthMillis / 1000;
+    int width = widthMillis;
+    if (tuples > 2 * targetTuples || latencyMillis > 4L * widthMillis) {
+      width = widthMillis * 2;
+    } else if (tuples < targetTuples / 2 && latencyMillis <= widthMillis && widthMillis % 2 == 0) {
+      width = widthMillis / 2;
+    }
+
+    long span = getSpan();
+    if (width == widthMillis || width < minWidthMillis || width > maxWidthMillis || span > 0 && span % width != 0) {
+      return widthMillis;
+    }
+    logger.info("Changing window width from {} to {} for {} tuples per window and a latency of {} ms", widthMillis,
+        width, tuples, latencyMillis);
+    lastChangeMillis = currentMillis;
+    return width;
+  }
+
+  /**
+   * Picks the time of a window width change. The time is not in the same second as the last reset window before it,
+   * so the window ids with the new width are larger than the ones before.
+   *
+   * @param schedule the window widths of the application
+   * @param widthMillis the new window width
+   * @param currentMillis the current time
+   * @return the first time after the containers learned about a change at which the window width can change.
+   */
+  public long getChangeMillis(WindowWidthSchedule schedule, int widthMillis, long currentMillis)
+  {
+    long interval = getChangeInterval(schedule.getWidth(Long.MAX_VALUE), widthMillis);
+    long firstMillis = schedule.getStartMillis() + schedule.getInitialWidth();
+    long elapsed = currentMillis + leadMillis - firstMillis;
+    long millis = firstMillis + (elapsed + interval - 1) / interval * interval;
+    while (true) {
+      long resetMillis = schedule.getWindowMillis(schedule.getWindowId(millis) & 0xffffffff00000000L);
+      if (resetMillis == millis || resetMillis / 1000 < millis / 1000) {
+        return millis;
+      }
+      millis += interval;
+    }
+  }
+
+  /**
+   * @return the greatest common divisor of the spans of all window counts larger than one, or 0 if there are none.
+   */
+  private long getSpan()
+  {
+    long span = 0;
+    for (long s : getSpans()) {
+      span = span == 0 ? s : LongMath.gcd(span, s);
+    }
+    return span;
+  }
+
+  /**
+   * @return the least common multiple of both window widths and the spans of all window counts larger than one.
+   */
+  private long getChangeInterval(int widthMillis, int newWidthMillis)
+  {
+    long interval = widthMillis / LongMath.gcd(widthMillis, newWidthMillis) * newWidthMillis;
+    for (long s : getSpans()) {
+      interval = LongMath.checkedMultiply(interval / LongMath.gcd(interval, s), s);
+    }
+    return interval;
+  }
+
+  private long[] getSpans()
+  {
+    int widthMillis = dag.getValue(DAGContext.STREAMING_WINDOW_SIZE_MILLIS);
+    long[] counts = new long[dag.getAllOperators().size() * 3 + 1];
+    int i = 0;
+    counts[i++] = dag.getValue(DAGContext.CHECKPOINT_WINDOW_COUNT);
+    for (OperatorMeta operatorMeta : dag.getAllOperators()) {
+      counts[i++] = operatorMeta.getValue(OperatorContext.APPLICATION_WINDOW_COUNT);
+      counts[i++] = operatorMeta.getValue(OperatorContext.CHECKPOINT_WINDOW_COUNT);
+      Integer slideByWindowCount = operatorMeta.getValue(OperatorContext.SLIDE_BY_WINDOW_COUNT);
+      counts[i++] = slideByWindowCount == null ? 1 : slideByWindowCount;
+    }
+
+    int spans = 0;
+    for (long count : counts) {
+      if (count > 1) {
+        counts[spans++] = count * widthMillis;
+      }
+    }
+    long[] result = new long[spans];
+    System.arraycopy(counts, 0, result, 0, spans);
+    return result;
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(AdaptiveWindowWidth.class);
+}
@@ -52,7 +52,8 @@ public final class Journal
     OPERATOR_STATE             (PTOperator.SET_OPERATOR_STATE),
     CONTAINER_STATE            (PTContainer.SET_CONTAINER_STATE),
     OPERATOR_PROPERTY          (StreamingContainerManager.SET_OPERATOR_PROPERTY),
-    PHYSICAL_OPERATOR_PROPERTY (StreamingContainerManager.SET_PHYSICAL_OPERATOR_PROPERTY);
+    PHYSICAL_OPERATOR_PROPERTY (StreamingContainerManager.SET_PHYSICAL_OPERATOR_PROPERTY),
+    WINDOW_WIDTH               (StreamingContainerManager.SET_WINDOW_WIDTH);
 
     private static final Map<Class<? extends Recoverable>, Integer> classToId;
 
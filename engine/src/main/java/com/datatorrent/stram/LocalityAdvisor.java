@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.Context.PortContext;
+import com.datatorrent.api.DAG.Locality;
+import com.datatorrent.api.Operator;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.logical.LogicalPlan.InputPortMeta;
+import com.datatorrent.stram.plan.logical.LogicalPlan.OperatorMeta;
+import com.datatorrent.stram.plan.logical.LogicalPlan.StreamMeta;
+import com.datatorrent.stram.plan.physical.OperatorStatus.PortStatus;
+import com.datatorrent.stram.plan.physical.PTContainer;
+import com.datatorrent.stram.plan.physical.PTOperator;
+import com.datatorrent.stram.plan.physical.PTOperator.PTInput;
+import com.datatorrent.stram.plan.physical.PTOperator.PTOutput;
+import com.datatorrent.stram.plan.physical.PhysicalPlan;
+import com.datatorrent.stram.webapp.LocalitySuggestion;
+
+/**
+ * Ranks the streams of an application by the observed traffic they pass through the buffer server.<p>
+ * <br>
+ * Tuples of container local streams are passed in memory, they are neither serialized nor sent over the network. The
+ * suggestions are the streams which are not container or thread local yet and whose source and sink operators are not
+ * partitioned, in the order of the bytes per second the buffer server delivered to their sinks. With
+ * {@link LogicalPlan#LOCALITY_UPGRADE_BYTES_PER_SECOND} set, the top suggestion which carries at least that many bytes
+ * per second and whose sinks fit into the allocated memory of the container of the source is applied to the running
+ * application, at most once per {@link LogicalPlan#LOCALITY_UPGRADE_INTERVAL_MILLIS}.<br>
+ */
+public class LocalityAdvisor
+{
+  private final PhysicalPlan plan;
+  private final long upgradeBytesPerSecond;
+  private final long upgradeIntervalMillis;
+  private long lastUpgradeMillis;
+
+  public LocalityAdvisor(PhysicalPlan plan)
+  {
+    this.plan = plan;
+    LogicalPlan dag = plan.getLogicalPlan();
+    upgradeBytesPerSecond = dag.getValue(LogicalPlan.LOCALITY_UPGRADE_BYTES_PER_SECOND);
+    upgradeIntervalMillis = dag.getValue(LogicalPlan.LOCALITY_UPGRADE_INTERVAL_MILLIS);
+  }
+
+  /**
+   * @return the streams which could be container local, the ones which pass the most bytes first
+   */
+  public List<LocalitySuggestion> getSuggestions()
+  {
+    List<LocalitySuggestion> suggestions = Lists.newArrayList();
+    for (StreamMeta sm : plan.getLogicalPlan().getAllStreams()) {
+      LocalitySuggestion suggestion = getSuggestion(sm);
+      if (suggestion != null) {
+        suggestions.add(suggestion);
+      }
+    }
+    Collections.sort(suggestions, new Comparator<LocalitySuggestion>()
+    {
+      @Override
+      public int compare(LocalitySuggestion o1, LocalitySuggestion o2)
+      {
+        int result = Long.compare(o2.bufferServerBytesPSMA, o1.bufferServerBytesPSMA);
+        return result != 0 ? result : Long.compare(o2.tuplesPSMA, o1.tuplesPSMA);
+      }
+    });
+    return suggestions;
+  }
+
+  /**
+   * @param currentMillis the current time
+   * @return the suggestion to apply to the running application, null if none is due
+   */
+  public LocalitySuggestion getUpgrade(long currentMillis)
+  {
+    if (upgradeBytesPerSecond <= 0 || currentMillis - lastUpgradeMillis < upgradeIntervalMillis) {
+      return null;
+    }
+    for (LocalitySuggestion suggestion : getSuggestions()) {
+      if (suggestion.bufferServerBytesPSMA < upgradeBytesPerSecond) {
+        break;
+      }
+      // the container of the source has to fit the sinks
+      PTContainer container = getOperator(plan.getLogicalPlan().getOperatorMeta(suggestion.sourceOperatorName))
+          .getContainer();
+      if (container.getAllocatedMemoryMB() == 0
+          || container.getRequiredMemoryMB() + suggestion.memoryMB <= container.getAllocatedMemoryMB()) {
+        lastUpgradeMillis = currentMillis;
+        LOG.info("Upgrading stream {} to {} for {} bytes per second", suggestion.streamName,
+            suggestion.suggestedLocality, suggestion.bufferServerBytesPSMA);
+        return suggestion;
+      }
+    }
+    return null;
+  }
+
+  private LocalitySuggestion getSuggestion(StreamMeta sm)
+  {
+    if (sm.getLocality() == Locality.CONTAINER_LOCAL || sm.getLocality() == Locality.THREAD_LOCAL
+        || sm.getSinks().isEmpty()) {
+      return null;
+    }
+    OperatorMeta sourceMeta = sm.getSource().getOperatorMeta();
+    PTOperator source = getOperator(sourceMeta);
+    if (source == null) {
+      return null;
+    }
+    String host = sourceMeta.getValue(OperatorContext.LOCALITY_HOST);
+
+    LocalitySuggestion suggestion = new LocalitySuggestion();
+    suggestion.streamName = sm.getName();
+    suggestion.sourceOperatorName = sourceMeta.getName();
+    suggestion.locality = sm.getLocality();
+    suggestion.suggestedLocality = Locality.CONTAINER_LOCAL;
+    for (InputPortMeta ipm : sm.getSinks()) {
+      OperatorMeta sinkMeta = ipm.getOperatorWrapper();
+      PTOperator sink = getOperator(sinkMeta);
+      String sinkHost = sinkMeta.getValue(OperatorContext.LOCALITY_HOST);
+      if (sink == null || ipm.getValue(PortContext.PARTITION_PARALLEL)
+          || host != null && sinkHost != null && !host.equals(sinkHost)) {
+        return null;
+      }
+      for (PTOperator oper : sink.getContainerLocalOperators().getOperatorSet()) {
+        if (oper != sink && oper.getContainer() != source.getContainer()) {
+          // the sink is container local with other operators already
+          return null;
+        }
+      }
+      if (!suggestion.sinkOperatorNames.contains(sinkMeta.getName())) {
+        suggestion.sinkOperatorNames.add(sinkMeta.getName());
+        if (sink.getContainer() != source.getContainer()) {
+          suggestion.memoryMB += sinkMeta.getValue(OperatorContext.MEMORY_MB) + sink.getBufferServerMemory();
+        }
+      }
+    }
+
+    for (PTOutput output : source.getOutputs()) {
+      if (output.logicalStream == sm) {
+        for (PTInput input : output.sinks) {
+          PortStatus ps = input.target.stats.inputPortStatusList.get(input.portName);
+          if (ps != null) {
+            suggestion.tuplesPSMA += Math.round(ps.tuplesPMSMA.getAvg() * 1000);
+            suggestion.bufferServerBytesPSMA += Math.round(ps.bufferServerBytesPMSMA.getAvg() * 1000);
+          }
+        }
+      }
+    }
+    return suggestion;
+  }
+
+  /**
+   * @return the only physical operator of the logical operator, null if it is partitioned
+   */
+  private PTOperator getOperator(OperatorMeta om)
+  {
+    if (om.getOperator() instanceof Operator.DelayOperator || plan.getAllOperators(om).size() != 1) {
+      return null;
+    }
+    return plan.getOperators(om).get(0);
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocalityAdvisor.class);
+}
@@ -77,6 +77,13 @@ public class ResourceRequestHandler
        */
       return new ContainerRequest(capability, nodes, racks, Priority.newInstance(priority), false);
     }
+    if (csr.container.getAvoidedHost() != null) {
+      // prefer another host, with relaxed locality the resource manager may still allocate the avoided one
+      host = getOtherHost(csr.container);
+      if (host != null) {
+        return new ContainerRequest(capability, new String[]{host}, racks, Priority.newInstance(priority));
+      }
+    }
     // For now, only memory is supported so we set memory requirements
     return new ContainerRequest(capability, nodes, racks, Priority.newInstance(priority));
   }
@@ -185,4 +192,22 @@ public class ResourceRequestHandler
     return host;
   }
 
+  /**
+   * @return a host other than the one the container avoids with the resources the container requires, or null
+   */
+  private String getOtherHost(PTContainer c)
+  {
+    for (Map.Entry<String, NodeReport> nodeEntry : nodeReportMap.entrySet()) {
+      if (!nodeEntry.getKey().equals(c.getAvoidedHost())) {
+        NodeReport report = nodeEntry.getValue();
+        int memAvailable = report.getCapability().getMemory() - report.getUsed().getMemory();
+        int vCoresAvailable = report.getCapability().getVirtualCores() - report.getUsed().getVirtualCores();
+        if (memAvailable >= c.getRequiredMemoryMB() && vCoresAvailable >= c.getRequiredVCores()) {
+          return nodeEntry.getKey();
+        }
+      }
+    }
+    return null;
+  }
+
 }
@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+import com.datatorrent.stram.engine.WindowWidthSchedule;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.logical.LogicalPlan.OperatorMeta;
+import com.datatorrent.stram.plan.physical.PTOperator;
+import com.datatorrent.stram.plan.physical.PTOperator.PTInput;
+import com.datatorrent.stram.plan.physical.PhysicalPlan;
+
+/**
+ * Finds the partitions which lag behind their sibling partitions.<p>
+ * <br>
+ * A slow partition, for example on a node with a bad disk or busy neighbors, holds back the committed window and
+ * every downstream unifier without being blocked long enough to hit the window processing timeout. The window of every
+ * partition of an operator with at least three active partitions is compared with the median window of the
+ * partitions. A partition whose window is more than {@link LogicalPlan#STRAGGLER_LAG_MILLIS} behind the median is a
+ * straggler. One straggler, the one with the largest lag which does not just wait for an upstream straggler, is
+ * moved to a new container at most once per {@link LogicalPlan#STRAGGLER_REPLACEMENT_INTERVAL_MILLIS}.<br>
+ */
+public class StragglerDetector
+{
+  private final PhysicalPlan plan;
+  private final long lagMillis;
+  private final long replacementIntervalMillis;
+  private Map<PTOperator, Long> stragglers = Maps.newHashMap();
+  private long lastReplacementMillis;
+
+  public StragglerDetector(PhysicalPlan plan)
+  {
+    this.plan = plan;
+    LogicalPlan dag = plan.getLogicalPlan();
+    lagMillis = dag.getValue(LogicalPlan.STRAGGLER_LAG_MILLIS);
+    replacementIntervalMillis = dag.getValue(LogicalPlan.STRAGGLER_REPLACEMENT_INTERVAL_MILLIS);
+  }
+
+  /**
+   * Compares the windows of the partitions of all operators.
+   *
+   * @param schedule the window widths of the application
+   * @return the partitions which became stragglers since the last call, with their lag in milliseconds
+   */
+  public Map<PTOperator, Long> detect(WindowWidthSchedule schedule)
+  {
+    Map<PTOperator, Long> newStragglers = Maps.newHashMap();
+    Map<PTOperator, Long> detected = Maps.newHashMap();
+    for (OperatorMeta om : plan.getLogicalPlan().getAllOperators()) {
+      List<PTOperator> partitions = plan.getOperators(om);
+      long[] windowMillis = getWindowMillis(partitions, schedule);
+      if (windowMillis == null) {
+        continue;
+      }
+      long[] sorted = windowMillis.clone();
+      Arrays.sort(sorted);
+      long median = sorted[sorted.length / 2];
+      for (int i = 0; i < windowMillis.length; i++) {
+        long lag = median - windowMillis[i];
+        if (lag > lagMillis) {
+          PTOperator oper = partitions.get(i);
+          detected.put(oper, lag);
+          if (!stragglers.containsKey(oper)) {
+            newStragglers.put(oper, lag);
+          }
+        }
+      }
+    }
+    stragglers = detected;
+    return newStragglers;
+  }
+
+  /**
+   * @return the times of the current windows of the partitions, or null if there are fewer than three partitions or
+   * not all of them are active.
+   */
+  private static long[] getWindowMillis(List<PTOperator> partitions, WindowWidthSchedule schedule)
+  {
+    if (partitions == null || partitions.size() < 3) {
+      return null;
+    }
+    long[] windowMillis = new long[partitions.size()];
+    for (int i = 0; i < windowMillis.length; i++) {
+      PTOperator oper = partitions.get(i);
+      long windowId = oper.stats.getCurrentWindowId();
+      if (oper.getState() != PTOperator.State.ACTIVE || windowId <= 0) {
+        return null;
+      }
+      windowMillis[i] = schedule.getWindowMillis(windowId);
+    }
+    return windowMillis;
+  }
+
+  /**
+   * @param currentMillis the current time
+   * @return the straggler to move to a new container now, or null if there is none or the last one was moved too
+   * recently.
+   */
+  public PTOperator getReplacement(long currentMillis)
+  {
+    if (currentMillis - lastReplacementMillis < replacementIntervalMillis) {
+      return null;
+    }
+    PTOperator replacement = null;
+    long replacementLag = 0;
+    for (Map.Entry<PTOperator, Long> e : stragglers.entrySet()) {
+      if (e.getValue() > replacementLag && !hasUpstreamStraggler(e.getKey())) {
+        replacement = e.getKey();
+        replacementLag = e.getValue();
+      }
+    }
+    if (replacement != null) {
+      LOG.info("Replacing straggler {} with a lag of {} ms", replacement, replacementLag);
+      stragglers.remove(replacement);
+      lastReplacementMillis = currentMillis;
+    }
+    return replacement;
+  }
+
+  /**
+   * @return the partitions which lag behind their sibling partitions, with their lag in milliseconds
+   */
+  public Map<PTOperator, Long> getStragglers()
+  {
+    return stragglers;
+  }
+
+  private boolean hasUpstreamStraggler(PTOperator oper)
+  {
+    for (PTInput input : oper.getInputs()) {
+      if (stragglers.containsKey(input.source.source)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(StragglerDetector.class);
+}
@@ -30,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import org.apache.hadoop.yarn.api.ApplicationConstants;
 import org.apache.hadoop.yarn.conf.YarnConfiguration;
 
+import com.datatorrent.api.Combiner;
 import com.datatorrent.api.Context.PortContext;
 import com.datatorrent.api.DAG.Locality;
 import com.datatorrent.api.InputOperator;
@@ -100,6 +101,7 @@ public class StreamingContainerAgent {
   int memoryMBFree;
   long gcCollectionCount;
   long gcCollectionTime;
+  double[] eventLoopUtilization;
   final StreamingContainerManager dnmgr;
 
   private final ConcurrentLinkedQueue<StramToNodeRequest> operatorRequests = new ConcurrentLinkedQueue<StramToNodeRequest>();
@@ -188,6 +190,17 @@ public class StreamingContainerAgent {
             portInfo.contextAttributes = sink.getAttributes();
             break;
           }
+          // unifiers combine the partial aggregates of the partitions
+          Combiner<?> combiner = streamMeta.getSource().getValue(PortContext.COMBINER);
+          if (combiner != null) {
+            try {
+              portInfo.contextAttributes = portInfo.contextAttributes.clone();
+            }
+            catch (CloneNotSupportedException ex) {
+              throw new RuntimeException("Cannot clone attributes", ex);
+            }
+            portInfo.contextAttributes.put(PortContext.COMBINER, combiner);
+          }
         }
 
         if (!out.isDownStreamInline()) {
@@ -204,6 +217,16 @@ public class StreamingContainerAgent {
               if (!portInfo.streamCodecs.containsKey(id)) {
                 portInfo.streamCodecs.put(id, streamCodecInfo);
               }
+              if (isSharedMemoryStream(input)) {
+                ArrayList<String> sinkIds = portInfo.sharedMemorySinks.get(id);
+                if (sinkIds == null) {
+                  portInfo.sharedMemorySinks.put(id, sinkIds = new ArrayList<String>());
+                }
+                sinkIds.add(getSharedMemorySinkId(input));
+              }
+              if (input.partitions != null && input.partitions.mask != 0) {
+                portInfo.partitionedStreamCodecs.add(id);
+              }
             }
           }
         }
@@ -267,6 +290,7 @@ public class StreamingContainerAgent {
           inputInfo.bufferServerHost = addr.getHostName();
           inputInfo.bufferServerPort = addr.getPort();
           inputInfo.bufferServerToken = container.getBufferServerToken();
+          inputInfo.sharedMemory = isSharedMemoryStream(in);
         }
 
         // On the input side there is a unlikely scenario of partitions even for inline stream that is being
@@ -282,6 +306,43 @@ public class StreamingContainerAgent {
     return new ArrayList<OperatorDeployInfo>(nodes.keySet());
   }
 
+  /**
+   * Node local streams between containers on the same host can be read from shared memory when the application
+   * configures a directory for the ring buffers. As the ring replaces the buffer server, it is used only when all
+   * subscribers of the publisher, those with the same stream codec, can read from it.
+   */
+  private boolean isSharedMemoryStream(PTOperator.PTInput input)
+  {
+    if (!isSharedMemoryCapable(input)) {
+      return false;
+    }
+    PhysicalPlan plan = dnmgr.getPhysicalPlan();
+    Integer codecId = plan.getStreamCodecIdentifier(getStreamCodec(getIdentifyingInputPortMeta(input)));
+    for (PTOperator.PTInput sink : input.source.sinks) {
+      if (sink.target.getContainer() != input.source.source.getContainer() && !isSharedMemoryCapable(sink)
+          && codecId.equals(plan.getStreamCodecIdentifier(getStreamCodec(getIdentifyingInputPortMeta(sink))))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isSharedMemoryCapable(PTOperator.PTInput input)
+  {
+    PTContainer sourceContainer = input.source.source.getContainer();
+    PTContainer sinkContainer = input.target.getContainer();
+    return dnmgr.getPhysicalPlan().isSharedMemoryStream(input) && sourceContainer.host != null
+        && sourceContainer.host.equals(sinkContainer.host);
+  }
+
+  /**
+   * Identifies the subscriber of a shared memory stream, the same on the publishing and the subscribing side.
+   */
+  public static String getSharedMemorySinkId(PTOperator.PTInput input)
+  {
+    return input.target.getId() + "." + input.portName;
+  }
+
   public static InputPortMeta getInputPortMeta(LogicalPlan.OperatorMeta operatorMeta, StreamMeta streamMeta)
   {
     InputPortMeta inputPortMeta = null;
@@ -445,6 +506,7 @@ public class StreamingContainerAgent {
     ci.memoryMBFree = this.memoryMBFree;
     ci.gcCollectionCount = this.gcCollectionCount;
     ci.gcCollectionTime = this.gcCollectionTime;
+    ci.eventLoopUtilization = this.eventLoopUtilization;
     ci.startedTime = container.getStartedTime();
     ci.finishedTime = container.getFinishedTime();
     if (this.container.nodeHttpAddress != null) {
@@ -76,6 +76,7 @@ import com.datatorrent.api.*;
 import com.datatorrent.api.Context.OperatorContext;
 import com.datatorrent.api.Operator.InputPort;
 import com.datatorrent.api.Operator.OutputPort;
+import com.datatorrent.api.Stats;
 import com.datatorrent.api.Stats.OperatorStats;
 import com.datatorrent.api.annotation.Stateless;
 
@@ -92,7 +93,7 @@ import com.datatorrent.stram.api.*;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.*;
 import com.datatorrent.stram.engine.OperatorResponse;
 import com.datatorrent.stram.engine.StreamingContainer;
-import com.datatorrent.stram.engine.WindowGenerator;
+import com.datatorrent.stram.engine.WindowWidthSchedule;
 import com.datatorrent.stram.plan.logical.LogicalOperatorStatus;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.logical.LogicalPlan.InputPortMeta;
@@ -103,6 +104,7 @@ import com.datatorrent.stram.plan.logical.LogicalPlanConfiguration;
 import com.datatorrent.stram.plan.logical.Operators;
 import com.datatorrent.stram.plan.logical.Operators.PortContextPair;
 import com.datatorrent.stram.plan.logical.requests.LogicalPlanRequest;
+import com.datatorrent.stram.plan.logical.requests.SetStreamLocalityRequest;
 import com.datatorrent.stram.plan.physical.*;
 import com.datatorrent.stram.plan.physical.OperatorStatus.PortStatus;
 import com.datatorrent.stram.plan.physical.PTOperator.PTInput;
@@ -142,6 +144,7 @@ public class StreamingContainerManager implements PlanContext
   public final static long LATENCY_WARNING_THRESHOLD_MILLIS = 10 * 60 * 1000; // 10 minutes
   public final static Recoverable SET_OPERATOR_PROPERTY = new SetOperatorProperty();
   public final static Recoverable SET_PHYSICAL_OPERATOR_PROPERTY = new SetPhysicalOperatorProperty();
+  public final static Recoverable SET_WINDOW_WIDTH = new SetWindowWidth();
   public final static int METRIC_QUEUE_SIZE = 1000;
 
   private final FinalVars vars;
@@ -163,6 +166,11 @@ public class StreamingContainerManager implements PlanContext
   private Map<OperatorMeta, Set<OperatorMeta>> checkpointGroups;
   private final Map<Long, Set<PTOperator>> shutdownOperators = new HashMap<>();
   private CriticalPathInfo criticalPathInfo;
+  private WindowWidthSchedule windowWidthSchedule;
+  private AdaptiveWindowWidth adaptiveWindowWidth;
+  private LocalityAdvisor localityAdvisor;
+  private StragglerDetector stragglerDetector;
+  private FutureTask<Object> localityUpgrade;
   private final ConcurrentMap<PTOperator, PTOperator> reportStats = Maps.newConcurrentMap();
   private final AtomicBoolean deployChangeInProgress = new AtomicBoolean();
   private int deployChangeCnt;
@@ -296,6 +304,38 @@ public class StreamingContainerManager implements PlanContext
 
   }
 
+  private static class SetWindowWidth implements Recoverable
+  {
+    private final long millis;
+    private final int widthMillis;
+
+    private SetWindowWidth()
+    {
+      this(0, 0);
+    }
+
+    private SetWindowWidth(long millis, int widthMillis)
+    {
+      this.millis = millis;
+      this.widthMillis = widthMillis;
+    }
+
+    @Override
+    public void read(final Object object, final Input in) throws KryoException
+    {
+      final StreamingContainerManager scm = (StreamingContainerManager)object;
+      scm.windowWidthSchedule.setWidth(in.readLong(), in.readInt());
+    }
+
+    @Override
+    public void write(final Output out) throws KryoException
+    {
+      out.writeLong(millis);
+      out.writeInt(widthMillis);
+    }
+
+  }
+
   private static class SetPhysicalOperatorProperty implements Recoverable
   {
     final private int operatorId;
@@ -354,6 +394,8 @@ public class StreamingContainerManager implements PlanContext
   {
     this.clock = clock;
     this.vars = new FinalVars(dag, clock.getTime());
+    this.windowWidthSchedule = new WindowWidthSchedule(vars.windowStartMillis,
+        dag.getValue(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS));
     poolExecutor = Executors.newFixedThreadPool(4);
     // setup prior to plan creation for event recording
     if (enableEventRecording) {
@@ -370,6 +412,9 @@ public class StreamingContainerManager implements PlanContext
     this.clock = new SystemClock();
     poolExecutor = Executors.newFixedThreadPool(4);
     this.plan = checkpointedState.physicalPlan;
+    this.windowWidthSchedule = checkpointedState.windowWidthSchedule != null ? checkpointedState.windowWidthSchedule :
+        new WindowWidthSchedule(vars.windowStartMillis,
+            plan.getLogicalPlan().getValue(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS));
     this.eventBus = new MBassador<StramEvent>(BusConfiguration.Default(1, 1, 1));
     this.journal = new Journal(this);
     init(enableEventRecording);
@@ -377,6 +422,13 @@ public class StreamingContainerManager implements PlanContext
 
   private void init(boolean enableEventRecording)
   {
+    if (plan.getLogicalPlan().getValue(LogicalPlan.ADAPTIVE_WINDOW_SIZE)) {
+      adaptiveWindowWidth = new AdaptiveWindowWidth(plan.getLogicalPlan());
+    }
+    localityAdvisor = new LocalityAdvisor(plan);
+    if (plan.getLogicalPlan().getValue(LogicalPlan.STRAGGLER_LAG_MILLIS) > 0) {
+      stragglerDetector = new StragglerDetector(plan);
+    }
     setupWsClient();
     setupRecording(enableEventRecording);
     setupStringCodecs();
@@ -746,6 +798,9 @@ public class StreamingContainerManager implements PlanContext
 
     committedWindowId = updateCheckpoints(false);
     calculateEndWindowStats();
+    adaptWindowWidth(currentTms);
+    upgradeLocality(currentTms);
+    replaceStraggler(currentTms);
     if (this.vars.enableStatsRecording) {
       recordStats(currentTms);
     }
@@ -762,6 +817,116 @@ public class StreamingContainerManager implements PlanContext
     }
   }
 
+  /**
+   * Schedules a change of the streaming window width when the adaptive window size picks a different width for the
+   * current tuple rate and critical path latency.
+   */
+  private void adaptWindowWidth(long currentTms)
+  {
+    if (adaptiveWindowWidth == null || criticalPathInfo == null
+        || windowWidthSchedule.getWidthStartMillis(Long.MAX_VALUE) > currentTms) {
+      return;
+    }
+
+    long tuplesPerSecond = 0;
+    for (PTOperator oper : plan.getAllOperators().values()) {
+      if (oper.getInputs().isEmpty()) {
+        tuplesPerSecond += oper.stats.tuplesEmittedPSMA.get();
+      }
+    }
+    int widthMillis = windowWidthSchedule.getWidth(currentTms);
+    int newWidthMillis = adaptiveWindowWidth.getWidth(widthMillis, tuplesPerSecond, criticalPathInfo.latency,
+        currentTms);
+    if (newWidthMillis != widthMillis) {
+      setWindowWidth(adaptiveWindowWidth.getChangeMillis(windowWidthSchedule, newWidthMillis, currentTms),
+          newWidthMillis);
+    }
+  }
+
+  /**
+   * Makes the stream which the locality advisor picks container local. One change is pending at a time, failures are
+   * logged.
+   */
+  private void upgradeLocality(long currentTms)
+  {
+    if (localityUpgrade != null) {
+      if (!localityUpgrade.isDone()) {
+        return;
+      }
+      try {
+        localityUpgrade.get();
+      } catch (Exception ex) {
+        LOG.warn("Failed to upgrade stream locality", ex);
+      }
+      localityUpgrade = null;
+    }
+    if (deployChangeInProgress.get() || !pendingAllocation.isEmpty()) {
+      return;
+    }
+    LocalitySuggestion suggestion = localityAdvisor.getUpgrade(currentTms);
+    if (suggestion != null) {
+      SetStreamLocalityRequest request = new SetStreamLocalityRequest();
+      request.setStreamName(suggestion.streamName);
+      request.setLocality(suggestion.suggestedLocality.name());
+      try {
+        localityUpgrade = logicalPlanModification(Collections.<LogicalPlanRequest>singletonList(request));
+      } catch (Exception ex) {
+        LOG.warn("Failed to upgrade stream locality", ex);
+      }
+    }
+  }
+
+  /**
+   * Records the partitions which started to lag behind their sibling partitions and moves the straggler which the
+   * detector picks to a new container, while no other deploy change is in progress.
+   */
+  private void replaceStraggler(long currentTms)
+  {
+    if (stragglerDetector == null) {
+      return;
+    }
+    for (Map.Entry<PTOperator, Long> e : stragglerDetector.detect(windowWidthSchedule).entrySet()) {
+      PTOperator oper = e.getKey();
+      LOG.info("Straggler {} in container {} lags {} ms behind its partitions", oper,
+          oper.getContainer().toIdStateString(), e.getValue());
+      recordEventAsync(new StramEvent.StragglerEvent(oper.getName(), oper.getId(),
+          oper.getContainer().getExternalId(), e.getValue()));
+    }
+    if (deployChangeInProgress.get() || !pendingAllocation.isEmpty()) {
+      return;
+    }
+    PTOperator oper = stragglerDetector.getReplacement(currentTms);
+    if (oper != null) {
+      PTContainer container = oper.getContainer();
+      PTContainer newContainer = plan.moveToNewContainer(oper);
+      LOG.info("Moved straggler {} from container {}@{} to {}", oper, container.getExternalId(), container.host,
+          newContainer);
+    }
+  }
+
+  /**
+   * @return the streams which could be container local, the ones which pass the most bytes through the buffer server
+   * first
+   */
+  public List<LocalitySuggestion> getLocalitySuggestions()
+  {
+    return localityAdvisor.getSuggestions();
+  }
+
+  /**
+   * Changes the streaming window width of all containers from the given time on.
+   *
+   * @param millis a window boundary at which all window counts of the application end
+   * @param widthMillis the new window width
+   */
+  public void setWindowWidth(long millis, int widthMillis)
+  {
+    LOG.info("Changing window width to {} at {}", widthMillis, millis);
+    // an invalid change throws before it is journaled
+    windowWidthSchedule.setWidth(millis, widthMillis);
+    writeJournal(new SetWindowWidth(millis, widthMillis));
+  }
+
   private void calculateEndWindowStats()
   {
     if (!endWindowStatsOperatorMap.isEmpty()) {
@@ -1090,7 +1255,7 @@ public class StreamingContainerManager implements PlanContext
   }
 
   /**
-   * Transitively add operators that are container local to the dependency set.
+   * Transitively add operators that are container local or connected through shared memory to the dependency set.
    * (All downstream operators were traversed during checkpoint update.)
    *
    * @param ctx
@@ -1103,7 +1268,7 @@ public class StreamingContainerManager implements PlanContext
       newOperators.clear();
       for (PTOperator oper : ctx.visited) {
         for (PTInput input : oper.getInputs()) {
-          if (input.source.source.getContainer() == oper.getContainer()) {
+          if (input.source.source.getContainer() == oper.getContainer() || plan.isSharedMemoryStream(input)) {
             if (!ctx.visited.contains(input.source.source)) {
               newOperators.add(input.source.source);
             }
@@ -1208,6 +1373,8 @@ public class StreamingContainerManager implements PlanContext
     }
     container.setExternalId(resource.containerId);
     container.host = resource.host;
+    // a container moved away from a host may run there again when it is restarted
+    container.setAvoidedHost(null);
     container.bufferServerAddress = bufferServerAddr;
     if (UserGroupInformation.isSecurityEnabled()) {
       byte[] token = AuthManager.generateToken();
@@ -1242,6 +1409,10 @@ public class StreamingContainerManager implements PlanContext
       scc.attributes.put(ContainerContext.IDENTIFIER, container.getExternalId());
       scc.attributes.put(ContainerContext.BUFFER_SERVER_MB, bufferServerMemory);
       scc.attributes.put(ContainerContext.BUFFER_SERVER_TOKEN, container.getBufferServerToken());
+      int minOperators = plan.getLogicalPlan().getValue(LogicalPlan.COOPERATIVE_SCHEDULER_MIN_OPERATORS);
+      if (minOperators > 0 && container.getOperators().size() >= minOperators) {
+        scc.attributes.put(ContainerContext.COOPERATIVE_SCHEDULER_THREADS, Math.max(1, container.getAllocatedVCores()));
+      }
       scc.startWindowMillis = this.vars.windowStartMillis;
       return scc;
     }
@@ -1452,6 +1623,7 @@ public class StreamingContainerManager implements PlanContext
     sca.memoryMBFree = heartbeat.memoryMBFree;
     sca.gcCollectionCount = heartbeat.gcCollectionCount;
     sca.gcCollectionTime = heartbeat.gcCollectionTime;
+    sca.eventLoopUtilization = heartbeat.eventLoopUtilization;
 
     sca.undeployOpers.clear();
     sca.deployOpers.clear();
@@ -1473,6 +1645,13 @@ public class StreamingContainerManager implements PlanContext
         continue;
       }
 
+      if (oper.getContainer() != sca.container) {
+        // operator was moved to another container, like a straggler
+        LOG.info("Heartbeat for operator {} moved from container {}", oper, heartbeat.getContainerId());
+        sca.undeployOpers.add(shb.nodeId);
+        continue;
+      }
+
       if (shb.requestResponse != null) {
         for (StatsListener.OperatorResponse obj : shb.requestResponse) {
           if (obj instanceof OperatorResponse) {      // This is to identify platform requests
@@ -1493,6 +1672,8 @@ public class StreamingContainerManager implements PlanContext
 
       oper.stats.lastHeartbeat = shb;
       List<ContainerStats.OperatorStats> statsList = shb.getOperatorStatsContainer();
+      Stats.LatencyHistogram tracedLatency = null;
+      Stats.LatencyHistogram tracedHopLatency = null;
 
       if (!statsList.isEmpty()) {
         long tuplesProcessed = 0;
@@ -1531,6 +1712,15 @@ public class StreamingContainerManager implements PlanContext
 
           oper.stats.recordingId = stats.recordingId;
 
+          if (stats.tracedLatency != null) {
+            if (tracedLatency == null) {
+              tracedLatency = new Stats.LatencyHistogram();
+              tracedHopLatency = new Stats.LatencyHistogram();
+            }
+            tracedLatency.merge(stats.tracedLatency);
+            tracedHopLatency.merge(stats.tracedHopLatency);
+          }
+
           /* report all the other stuff */
 
           // calculate the stats related to end window
@@ -1675,7 +1865,7 @@ public class StreamingContainerManager implements PlanContext
                 if (ews == null) {
                   // This is when the operator is likely to be behind too many windows. We need to give an estimate for
                   // latency at this point, by looking at the number of windows behind
-                  int widthMillis = plan.getLogicalPlan().getValue(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS);
+                  int widthMillis = windowWidthSchedule.getWidth(currentTimeMillis);
                   portLatency = (upstreamOp.stats.currentWindowId.get() - oper.stats.currentWindowId.get()) * widthMillis;
                 } else {
                   MovingAverageLong upstreamRPCLatency = rpcLatencies.get(upstreamOp.getContainer().getExternalId());
@@ -1692,7 +1882,7 @@ public class StreamingContainerManager implements PlanContext
                   slowestUpstream = upstreamOp;
                 }
               }
-              status.latencyMA.add(latency);
+              status.latencyPercentiles.add(latency);
               slowestUpstreamOp.put(oper, slowestUpstream);
             }
 
@@ -1739,6 +1929,8 @@ public class StreamingContainerManager implements PlanContext
 
         status.statsRevs.commit();
       }
+      oper.stats.tracedLatency.add(tracedLatency);
+      oper.stats.tracedHopLatency.add(tracedHopLatency);
       if (lastStatsTimestamp < maxEndWindowTimestamp) {
         lastStatsTimestamp = maxEndWindowTimestamp;
       }
@@ -1775,6 +1967,9 @@ public class StreamingContainerManager implements PlanContext
     }
     rsp.nodeRequests = requests;
     rsp.committedWindowId = committedWindowId;
+    if (windowWidthSchedule.getWidthStartMillis(Long.MAX_VALUE) > heartbeat.windowWidthStartMillis) {
+      rsp.windowWidths = windowWidthSchedule.getWidths();
+    }
     return rsp;
   }
 
@@ -1959,7 +2154,7 @@ public class StreamingContainerManager implements PlanContext
       groupOpers.add(operator);
       maxCheckpoint = operator.getRecentCheckpoint();
       if (ctx.recovery && maxCheckpoint.windowId == Stateless.WINDOW_ID && operator.isOperatorStateLess()) {
-        long currentWindowId = WindowGenerator.getWindowId(ctx.currentTms, this.vars.windowStartMillis, this.getLogicalPlan().getValue(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS));
+        long currentWindowId = windowWidthSchedule.getWindowId(ctx.currentTms);
         maxCheckpoint = new Checkpoint(currentWindowId, 0, 0);
       }
     }
@@ -2019,7 +2214,7 @@ public class StreamingContainerManager implements PlanContext
           else {
             if (ctx.recovery && checkpoints.isEmpty() && groupOper.isOperatorStateLess()) {
               LOG.debug("Adding checkpoint for stateless operator {} {}", groupOper, Codec.getStringWindowId(maxCheckpoint.windowId));
-              c1 = groupOper.addCheckpoint(maxCheckpoint.windowId, this.vars.windowStartMillis);
+              c1 = groupOper.addCheckpoint(maxCheckpoint.windowId, windowWidthSchedule);
             }
           }
         }
@@ -2035,8 +2230,7 @@ public class StreamingContainerManager implements PlanContext
 
   public long windowIdToMillis(long windowId)
   {
-    int widthMillis = plan.getLogicalPlan().getValue(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS);
-    return WindowGenerator.getWindowMillis(windowId, this.vars.windowStartMillis, widthMillis);
+    return windowWidthSchedule.getWindowMillis(windowId);
   }
 
   public long getWindowStartMillis()
@@ -2044,6 +2238,11 @@ public class StreamingContainerManager implements PlanContext
     return this.vars.windowStartMillis;
   }
 
+  public WindowWidthSchedule getWindowWidthSchedule()
+  {
+    return windowWidthSchedule;
+  }
+
   private Map<OperatorMeta, Set<OperatorMeta>> getCheckpointGroups()
   {
     if (this.checkpointGroups == null) {
@@ -2364,6 +2563,37 @@ public class StreamingContainerManager implements PlanContext
     return fillOperatorAggregationInfo(operatorMeta);
   }
 
+  public TupleLatencyInfo getOperatorLatencyInfo(int operatorId)
+  {
+    PTOperator o = this.plan.getAllOperators().get(operatorId);
+    return o == null ? null : fillTupleLatencyInfo(o.getName(), Collections.singletonList(o));
+  }
+
+  public TupleLatencyInfo getLogicalOperatorLatencyInfo(String operatorName)
+  {
+    OperatorMeta operatorMeta = getLogicalPlan().getOperatorMeta(operatorName);
+    if (operatorMeta == null) {
+      return null;
+    }
+    return fillTupleLatencyInfo(operatorName, getPhysicalPlan().getAllOperators(operatorMeta));
+  }
+
+  private TupleLatencyInfo fillTupleLatencyInfo(String name, Collection<PTOperator> operators)
+  {
+    Stats.LatencyHistogram latency = new Stats.LatencyHistogram();
+    Stats.LatencyHistogram hopLatency = new Stats.LatencyHistogram();
+    for (PTOperator operator : operators) {
+      OperatorStatus os = operator.stats;
+      latency.merge(os.tracedLatency.get());
+      hopLatency.merge(os.tracedHopLatency.get());
+    }
+    TupleLatencyInfo tli = new TupleLatencyInfo();
+    tli.name = name;
+    tli.latency = new TupleLatencyInfo.Histogram(latency);
+    tli.hopLatency = new TupleLatencyInfo.Histogram(hopLatency);
+    return tli;
+  }
+
   public static long toWsWindowId(long windowId)
   {
     // until console handles -1
@@ -2391,7 +2621,9 @@ public class StreamingContainerManager implements PlanContext
     oi.tuplesProcessedPSMA = os.tuplesProcessedPSMA.get();
     oi.tuplesEmittedPSMA = os.tuplesEmittedPSMA.get();
     oi.cpuPercentageMA = os.cpuNanosPMSMA.getAvg() / 10000;
-    oi.latencyMA = os.latencyMA.getAvg();
+    oi.latencyMA = os.latencyPercentiles.getAvg();
+    oi.latencyP50 = os.latencyPercentiles.getPercentile(50);
+    oi.latencyP99 = os.latencyPercentiles.getPercentile(99);
     oi.failureCount = operator.failureCount;
     oi.recoveryWindowId = toWsWindowId(operator.getRecoveryCheckpoint().windowId);
     oi.currentWindowId = toWsWindowId(os.currentWindowId.get());
@@ -2517,7 +2749,7 @@ public class StreamingContainerManager implements PlanContext
     for (PTOperator physicalOperator : physicalOperators) {
       if (!physicalOperator.isUnifier()) {
         OperatorStatus os = physicalOperator.stats;
-        oai.latencyMA.addNumber(os.latencyMA.getAvg());
+        oai.latencyMA.addNumber(os.latencyPercentiles.getAvg());
         oai.cpuPercentageMA.addNumber(os.cpuNanosPMSMA.getAvg() / 10000);
         oai.tuplesEmittedPSMA.addNumber(os.tuplesEmittedPSMA.get());
         oai.tuplesProcessedPSMA.addNumber(os.tuplesProcessedPSMA.get());
@@ -2534,7 +2766,7 @@ public class StreamingContainerManager implements PlanContext
 
   private long calculateLatency(PTOperator operator)
   {
-    long latency = operator.stats.latencyMA.getAvg();
+    long latency = operator.stats.latencyPercentiles.getAvg();
     long maxUnifierLatency = 0;
     for (PTOutput output : operator.getOutputs()) {
       for (PTInput input : output.sinks) {
@@ -2571,6 +2803,11 @@ public class StreamingContainerManager implements PlanContext
             else {
               p.portName = input.portName;
             }
+            PortStatus ps = input.target.stats.inputPortStatusList.get(p.portName);
+            if (ps != null) {
+              si.tuplesPSMA += Math.round(ps.tuplesPMSMA.getAvg() * 1000);
+              si.bufferServerBytesPSMA += Math.round(ps.bufferServerBytesPMSMA.getAvg() * 1000);
+            }
             si.sinks.add(p);
           }
           infoList.add(si);
@@ -2646,6 +2883,25 @@ public class StreamingContainerManager implements PlanContext
 
   public void startRecording(String id, int operId, String portName, long numWindows)
   {
+    startRecording(id, operId, portName, numWindows, 0, 1.0, 0);
+  }
+
+  /**
+   * Starts recording the tuples of an operator or port, optionally recording only a sample of the data tuples.
+   *
+   * @param id recording id
+   * @param operId operator id
+   * @param portName port to record, all ports of the operator if null
+   * @param numWindows number of windows to record, 0 to record until stopped
+   * @param reservoirSize number of tuples to record per window, 0 for no limit
+   * @param sampleProbability probability with which each tuple is recorded
+   * @param maxTuplesPerSecond maximum number of tuples recorded per second, 0 for no limit
+   */
+  public void startRecording(String id, int operId, String portName, long numWindows, int reservoirSize, double sampleProbability, long maxTuplesPerSecond)
+  {
+    if (reservoirSize < 0 || !(sampleProbability > 0 && sampleProbability <= 1) || maxTuplesPerSecond < 0) {
+      throw new IllegalArgumentException("Invalid sampling parameters: reservoirSize=" + reservoirSize + ", sampleProbability=" + sampleProbability + ", maxTuplesPerSecond=" + maxTuplesPerSecond);
+    }
     StreamingContainerAgent sca = getContainerAgentFromOperatorId(operId);
     StramToNodeStartRecordingRequest request = new StramToNodeStartRecordingRequest();
     request.setOperatorId(operId);
@@ -2653,6 +2909,9 @@ public class StreamingContainerManager implements PlanContext
       request.setPortName(portName);
     }
     request.setNumWindows(numWindows);
+    request.setReservoirSize(reservoirSize);
+    request.setSampleProbability(sampleProbability);
+    request.setMaxTuplesPerSecond(maxTuplesPerSecond);
     request.setId(id);
     sca.addOperatorRequest(request);
     PTOperator operator = plan.getAllOperators().get(operId);
@@ -2912,7 +3171,7 @@ public class StreamingContainerManager implements PlanContext
         request.execute(pm);
       }
 
-      lp.validate();
+      lp.validate(pm.getChangedOperators());
 
       // perform changes on live plan
       pm = new PlanModifier(plan);
@@ -2944,6 +3203,7 @@ public class StreamingContainerManager implements PlanContext
       CheckpointState cs = new CheckpointState();
       cs.finals = this.vars;
       cs.physicalPlan = this.plan;
+      cs.windowWidthSchedule = this.windowWidthSchedule;
       recoveryHandler.save(cs);
     }
   }
@@ -3000,7 +3260,7 @@ public class StreamingContainerManager implements PlanContext
         logStream.close();
 
         // restore checkpoint info
-        plan.syncCheckpoints(scm.vars.windowStartMillis, scm.clock.getTime());
+        plan.syncCheckpoints(scm.windowWidthSchedule, scm.clock.getTime());
         scm.committedWindowId = scm.updateCheckpoints(true);
 
         // at this point the physical plan has been fully restored
@@ -3081,6 +3341,7 @@ public class StreamingContainerManager implements PlanContext
     private static final long serialVersionUID = 3827310557521807024L;
     private FinalVars finals;
     private PhysicalPlan physicalPlan;
+    private WindowWidthSchedule windowWidthSchedule;
 
     /**
      * Modify previously saved state to allow for re-launch of application.
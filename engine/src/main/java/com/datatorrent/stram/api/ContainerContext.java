@@ -33,6 +33,11 @@ public interface ContainerContext extends Context
   public static final Attribute<Integer> BUFFER_SERVER_MB = new Attribute<Integer>(8*64);
   public static final Attribute<byte[]> BUFFER_SERVER_TOKEN = new Attribute<byte[]>(null, null);
   public static final Attribute<RequestFactory> REQUEST_FACTORY = new Attribute<RequestFactory>(null, null);
+  /**
+   * Number of threads on which the container runs its generic operators as cooperative tasks, 0 for a thread per
+   * operator.
+   */
+  public static final Attribute<Integer> COOPERATIVE_SCHEDULER_THREADS = new Attribute<Integer>(0);
   @SuppressWarnings("FieldNameHidesFieldInSuperclass")
   long serialVersionUID = AttributeInitializer.initialize(ContainerContext.class);
 }
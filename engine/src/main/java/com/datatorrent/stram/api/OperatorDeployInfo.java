@@ -149,6 +149,10 @@ public class OperatorDeployInfo implements Serializable, OperatorContext
      */
     public Set<Integer> partitionKeys;
     public int partitionMask;
+    /**
+     * Whether the upstream container on the same host also publishes the stream to a shared memory ring.
+     */
+    public boolean sharedMemory;
     /**
      * Context attributes for input port
      */
@@ -224,6 +228,14 @@ public class OperatorDeployInfo implements Serializable, OperatorContext
     public int bufferServerPort;
     public byte[] bufferServerToken;
     public Map<Integer, StreamCodec<?>> streamCodecs = new HashMap<Integer, StreamCodec<?>>();
+    /**
+     * Identifiers of the subscribers on the same host to be served through shared memory, keyed by the stream codec.
+     */
+    public Map<Integer, ArrayList<String>> sharedMemorySinks = new HashMap<Integer, ArrayList<String>>();
+    /**
+     * Identifiers of the stream codecs of the subscribers which receive only some partitions of the stream.
+     */
+    public Set<Integer> partitionedStreamCodecs = new HashSet<Integer>();
     /**
      * Context attributes for output port
      */
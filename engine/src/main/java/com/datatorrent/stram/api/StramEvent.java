@@ -455,6 +455,46 @@ public abstract class StramEvent
 
   }
 
+  public static class StragglerEvent extends PhysicalOperatorEvent
+  {
+    private String containerId;
+    private long lagMillis;
+
+    public StragglerEvent(String operatorName, int operatorId, String containerId, long lagMillis)
+    {
+      super(operatorName, operatorId);
+      this.containerId = containerId;
+      this.lagMillis = lagMillis;
+    }
+
+    @Override
+    public String getType()
+    {
+      return "Straggler";
+    }
+
+    public String getContainerId()
+    {
+      return containerId;
+    }
+
+    public void setContainerId(String containerId)
+    {
+      this.containerId = containerId;
+    }
+
+    public long getLagMillis()
+    {
+      return lagMillis;
+    }
+
+    public void setLagMillis(long lagMillis)
+    {
+      this.lagMillis = lagMillis;
+    }
+
+  }
+
   public static class ContainerErrorEvent extends StramEvent
   {
     private String containerId;
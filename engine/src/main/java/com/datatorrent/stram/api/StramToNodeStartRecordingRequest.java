@@ -29,6 +29,9 @@ public class StramToNodeStartRecordingRequest extends StreamingContainerUmbilica
 {
   private long numWindows = 0;
   private String id;
+  private int reservoirSize = 0;
+  private double sampleProbability = 1.0;
+  private long maxTuplesPerSecond = 0;
 
   public StramToNodeStartRecordingRequest()
   {
@@ -54,6 +57,51 @@ public class StramToNodeStartRecordingRequest extends StreamingContainerUmbilica
   {
     this.id = id;
   }
+
+  public int getReservoirSize()
+  {
+    return reservoirSize;
+  }
+
+  /**
+   * Number of tuples to record per window, selected by reservoir sampling. 0 records all tuples of the window.
+   *
+   * @param reservoirSize
+   */
+  public void setReservoirSize(int reservoirSize)
+  {
+    this.reservoirSize = reservoirSize;
+  }
+
+  public double getSampleProbability()
+  {
+    return sampleProbability;
+  }
+
+  /**
+   * Probability with which each tuple is recorded. 1 records all tuples.
+   *
+   * @param sampleProbability
+   */
+  public void setSampleProbability(double sampleProbability)
+  {
+    this.sampleProbability = sampleProbability;
+  }
+
+  public long getMaxTuplesPerSecond()
+  {
+    return maxTuplesPerSecond;
+  }
+
+  /**
+   * Maximum number of tuples to record per second. 0 does not limit the rate.
+   *
+   * @param maxTuplesPerSecond
+   */
+  public void setMaxTuplesPerSecond(long maxTuplesPerSecond)
+  {
+    this.maxTuplesPerSecond = maxTuplesPerSecond;
+  }
   
   private static final long serialVersionUID = 201405271034L;
 
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedMap;
 
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
@@ -223,6 +224,15 @@ public interface StreamingContainerUmbilicalProtocol extends VersionedProtocol {
     public boolean restartRequested;
     public long gcCollectionTime;
     public long gcCollectionCount;
+    /**
+     * Fraction of the time since the previous heartbeat which each event loop of the container was busy.
+     */
+    public double[] eventLoopUtilization;
+    /**
+     * Time from which the latest window width known to the container applies, the master only sends the window widths
+     * when it has a later one.
+     */
+    public long windowWidthStartMillis;
 
     public ContainerStats stats;
 
@@ -358,6 +368,11 @@ public interface StreamingContainerUmbilicalProtocol extends VersionedProtocol {
      * Set when dag purges a particular windowId as it's processed by all the operators.
      */
     public long committedWindowId = -1;
+
+    /**
+     * Set when the streaming window width changes over time, the window widths by the time they take effect.
+     */
+    public SortedMap<Long, Integer> windowWidths;
   }
 
   /**
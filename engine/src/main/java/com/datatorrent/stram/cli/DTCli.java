@@ -685,8 +685,8 @@ public class DTCli
       "Wait for completion of current application"));
     connectedCommands.put("start-recording", new CommandSpec(new StartRecordingCommand(),
       new Arg[]{new Arg("operator-id")},
-      new Arg[]{new Arg("port-name"), new Arg("num-windows")},
-      "Start recording"));
+      new Arg[]{new Arg("port-name"), new Arg("num-windows"), new Arg("sampling")},
+      "Start recording. Sampling is a comma separated list of reservoir=<tuples per window>, probability=<0..1> and rate=<max tuples per second>"));
     connectedCommands.put("stop-recording", new CommandSpec(new StopRecordingCommand(),
       new Arg[]{new Arg("operator-id")},
       new Arg[]{new Arg("port-name")},
@@ -2521,7 +2521,30 @@ public class DTCli
       if (args.length >= 4) {
         numWindows = Long.valueOf(args[3]);
       }
-      printJson(recordingsAgent.startRecording(currentApp.getApplicationId().toString(), opId, port, numWindows));
+      int reservoirSize = 0;
+      double sampleProbability = 1.0;
+      long maxTuplesPerSecond = 0;
+      if (args.length >= 5) {
+        for (String param : args[4].split(",")) {
+          String[] keyValue = param.split("=", 2);
+          if (keyValue.length != 2) {
+            throw new CliException("Invalid sampling parameter: " + param);
+          }
+          if (keyValue[0].equals("reservoir")) {
+            reservoirSize = Integer.valueOf(keyValue[1]);
+          }
+          else if (keyValue[0].equals("probability")) {
+            sampleProbability = Double.valueOf(keyValue[1]);
+          }
+          else if (keyValue[0].equals("rate")) {
+            maxTuplesPerSecond = Long.valueOf(keyValue[1]);
+          }
+          else {
+            throw new CliException("Unknown sampling parameter: " + keyValue[0]);
+          }
+        }
+      }
+      printJson(recordingsAgent.startRecording(currentApp.getApplicationId().toString(), opId, port, numWindows, reservoirSize, sampleProbability, maxTuplesPerSecond));
     }
 
   }
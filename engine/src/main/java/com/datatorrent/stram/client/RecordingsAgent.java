@@ -59,6 +59,8 @@ public final class RecordingsAgent extends FSPartFileAgent
     public String operatorId;
     @JsonSerialize(using = ToStringSerializer.class)
     public long totalTuples = 0;
+    @JsonSerialize(using = ToStringSerializer.class)
+    public long observedTuples = 0; // including the tuples not recorded due to sampling
     public List<PortInfo> ports;
     public boolean ended = false;
     public List<TupleRecorder.Range> windowIdRanges;
@@ -75,6 +77,7 @@ public final class RecordingsAgent extends FSPartFileAgent
     @JsonSerialize(using = ToStringSerializer.class)
     public long tupleCount;
     public Map<String, MutableLong> portTupleCount;
+    public Map<String, MutableLong> portObservedTupleCount;
   }
 
   @XmlType(name = "port_info") // not really used, but this is to shut jackson up for conflicting xml names with TupleRecorder.PortInfo
@@ -82,6 +85,8 @@ public final class RecordingsAgent extends FSPartFileAgent
   {
     @JsonSerialize(using = ToStringSerializer.class)
     public long tupleCount = 0;
+    @JsonSerialize(using = ToStringSerializer.class)
+    public long observedTupleCount = 0;
   }
 
   public static class WindowTuplesInfo
@@ -149,6 +154,7 @@ public final class RecordingsAgent extends FSPartFileAgent
 
     info.windowIdRanges = new ArrayList<TupleRecorder.Range>();
     info.portTupleCount = new HashMap<String, MutableLong>();
+    info.portObservedTupleCount = info.portTupleCount;
 
     int cursor = 2;
     int cursor2 = line.indexOf(':', cursor);
@@ -186,19 +192,35 @@ public final class RecordingsAgent extends FSPartFileAgent
     int size = Integer.valueOf(line.substring(cursor, cursor2));
     cursor = cursor2 + 1;
     cursor2 = cursor + size;
-    JSONObject json = new JSONObject(line.substring(cursor, cursor2));
+    parsePortTupleCount(line.substring(cursor, cursor2), info.portTupleCount);
+    // tuple counts including the tuples not recorded, if the recording is sampled
+    cursor = cursor2;
+    if (line.startsWith(":S:", cursor)) {
+      cursor += 3;
+      cursor2 = line.indexOf(':', cursor);
+      size = Integer.valueOf(line.substring(cursor, cursor2));
+      cursor = cursor2 + 1;
+      cursor2 = cursor + size;
+      info.portObservedTupleCount = new HashMap<String, MutableLong>();
+      parsePortTupleCount(line.substring(cursor, cursor2), info.portObservedTupleCount);
+    }
+    return info;
+  }
+
+  private static void parsePortTupleCount(String jsonString, Map<String, MutableLong> portTupleCount) throws JSONException
+  {
+    JSONObject json = new JSONObject(jsonString);
     Iterator<?> keys = json.keys();
     while (keys.hasNext()) {
       String portIndex = (String)keys.next();
       long tupleCount = json.getLong(portIndex);
-      if (!info.portTupleCount.containsKey(portIndex)) {
-        info.portTupleCount.put(portIndex, new MutableLong(tupleCount));
+      if (!portTupleCount.containsKey(portIndex)) {
+        portTupleCount.put(portIndex, new MutableLong(tupleCount));
       }
       else {
-        info.portTupleCount.get(portIndex).add(tupleCount);
+        portTupleCount.get(portIndex).add(tupleCount);
       }
     }
-    return info;
   }
 
   private Set<String> getRunningContainerIds(String appId)
@@ -399,6 +421,14 @@ public final class RecordingsAgent extends FSPartFileAgent
             }
             portInfo.tupleCount += entry.getValue().longValue();
           }
+          for (Map.Entry<String, MutableLong> entry : indexLine.portObservedTupleCount.entrySet()) {
+            PortInfo portInfo = portMap.get(entry.getKey());
+            if (portInfo == null) {
+              throw new Exception("port info does not exist for " + entry.getKey());
+            }
+            portInfo.observedTupleCount += entry.getValue().longValue();
+            info.observedTuples += entry.getValue().longValue();
+          }
           for (TupleRecorder.Range r : indexLine.windowIdRanges) {
             if (info.windowIdRanges.isEmpty()) {
               TupleRecorder.Range range = new TupleRecorder.Range();
@@ -520,10 +550,15 @@ public final class RecordingsAgent extends FSPartFileAgent
 
         if (readPartFile) {
           lastProcessPartFile = indexLine.partFile;
-          BufferedReader partBr = new BufferedReader(new InputStreamReader(stramAgent.getFileSystem().open(new Path(dir, indexLine.partFile))));
+          FSDataInputStream partIs = stramAgent.getFileSystem().open(new Path(dir, indexLine.partFile));
+          long partOffset = currentOffset;
+          if (numRemainingTuples.longValue() == limit) {
+            partOffset = seekPartFile(partIs, dir, indexLine.partFile, queryType, low, ports, currentOffset);
+          }
+          BufferedReader partBr = new BufferedReader(new InputStreamReader(partIs));
           try {
             processPartFile(partBr, queryType, low, high, limit, ports,
-                            numRemainingTuples, currentTimestamp, currentWindowLow, currentOffset, info);
+                            numRemainingTuples, currentTimestamp, currentWindowLow, partOffset, info);
           }
           finally {
             partBr.close();
@@ -538,9 +573,14 @@ public final class RecordingsAgent extends FSPartFileAgent
       try {
         String extraPartFile = getNextPartFile(lastProcessPartFile);
         if (extraPartFile != null) {
-          partBr = new BufferedReader(new InputStreamReader(stramAgent.getFileSystem().open(new Path(dir, extraPartFile))));
+          FSDataInputStream partIs = stramAgent.getFileSystem().open(new Path(dir, extraPartFile));
+          long partOffset = currentOffset;
+          if (numRemainingTuples.longValue() == limit) {
+            partOffset = seekPartFile(partIs, dir, extraPartFile, queryType, low, ports, currentOffset);
+          }
+          partBr = new BufferedReader(new InputStreamReader(partIs));
           processPartFile(partBr, queryType, low, high, limit, ports,
-                          numRemainingTuples, currentTimestamp, new MutableLong(), currentOffset, info);
+                          numRemainingTuples, currentTimestamp, new MutableLong(), partOffset, info);
         }
       }
       catch (Exception ex) {
@@ -562,6 +602,76 @@ public final class RecordingsAgent extends FSPartFileAgent
     return info;
   }
 
+  /**
+   * Positions the part file stream at the last window that starts before the queried window, offset or time, using the
+   * sparse index written alongside the part file. The stream is left at the beginning of the part file if there is no
+   * usable index entry.
+   *
+   * @return the tuple offset at the position of the stream
+   */
+  private long seekPartFile(FSDataInputStream partIs, String dir, String partFile, QueryType queryType, long low, String[] ports, long currentOffset)
+  {
+    long seekPosition = 0;
+    long seekOffset = currentOffset;
+    BufferedReader br = null;
+    try {
+      Path path = new Path(dir, FSPartFileCollection.getPartIndexFile(partFile));
+      if (!stramAgent.getFileSystem().exists(path)) {
+        return currentOffset;
+      }
+      br = new BufferedReader(new InputStreamReader(stramAgent.getFileSystem().open(path)));
+      String line;
+      while ((line = br.readLine()) != null) {
+        // <byte offset>:<window id>:<time>:<tuple count of port 0>,<tuple count of port 1>,...
+        String[] parts = line.split(":");
+        if (parts.length != 4) {
+          break; // the last line may be incomplete while the part file is being written
+        }
+        long position = Long.valueOf(parts[0]);
+        long windowId = Long.valueOf(parts[1]);
+        long time = Long.valueOf(parts[2]);
+        String[] counts = parts[3].split(",");
+        long offset = currentOffset;
+        if (ports == null || ports.length == 0) {
+          for (String count : counts) {
+            offset += Long.valueOf(count);
+          }
+        }
+        else {
+          for (String port : ports) {
+            int portId = Integer.valueOf(port);
+            if (portId >= 0 && portId < counts.length) {
+              offset += Long.valueOf(counts[portId]);
+            }
+          }
+        }
+        if ((queryType == QueryType.WINDOW && windowId > low)
+                || (queryType == QueryType.OFFSET && offset > low)
+                || (queryType == QueryType.TIME && time >= low)) {
+          break;
+        }
+        seekPosition = position;
+        seekOffset = offset;
+      }
+    }
+    catch (Exception ex) {
+      LOG.debug("Cannot use index of part file {}, reading from the beginning", partFile, ex);
+    }
+    finally {
+      IOUtils.closeQuietly(br);
+    }
+    try {
+      if (seekPosition > 0) {
+        partIs.seek(seekPosition);
+      }
+      return seekOffset;
+    }
+    catch (IOException ex) {
+      LOG.warn("Cannot seek to {} in part file {}", seekPosition, partFile, ex);
+      return currentOffset;
+    }
+  }
+
   private void processPartFile(BufferedReader partBr, QueryType queryType, long low, long high, long limit, String[] ports, MutableLong numRemainingTuples, MutableLong currentTimestamp, MutableLong currentWindowLow, long currentOffset, TuplesInfo info) throws IOException
   {
     String partLine;
@@ -629,6 +739,11 @@ public final class RecordingsAgent extends FSPartFileAgent
   }
 
   public JSONObject startRecording(String appId, String opId, String portName, long numWindows) throws IncompatibleVersionException
+  {
+    return startRecording(appId, opId, portName, numWindows, 0, 1.0, 0);
+  }
+
+  public JSONObject startRecording(String appId, String opId, String portName, long numWindows, int reservoirSize, double sampleProbability, long maxTuplesPerSecond) throws IncompatibleVersionException
   {
 
     LOG.debug("Start recording requested for {}.{} ({} windows)", opId, portName, numWindows);
@@ -641,6 +756,15 @@ public final class RecordingsAgent extends FSPartFileAgent
       }
       uriSpec = uriSpec.path(StramWebServices.PATH_RECORDINGS_START);
       request.put("numWindows", numWindows);
+      if (reservoirSize > 0) {
+        request.put("reservoirSize", reservoirSize);
+      }
+      if (sampleProbability < 1) {
+        request.put("sampleProbability", sampleProbability);
+      }
+      if (maxTuplesPerSecond > 0) {
+        request.put("maxTuplesPerSecond", maxTuplesPerSecond);
+      }
       WebServicesClient webServicesClient = new WebServicesClient();
       return stramAgent.issueStramWebRequest(webServicesClient, appId, uriSpec, new WebServicesClient.WebServicesHandler<JSONObject>()
       {
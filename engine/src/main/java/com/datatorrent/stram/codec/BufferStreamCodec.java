@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.codec;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import com.datatorrent.netlet.util.Slice;
+
+/**
+ * A {@link StatefulStreamCodec} which serializes the tuples straight into a buffer provided by the caller and
+ * deserializes them from a view of the received bytes, so that the streams do not have to allocate and copy an
+ * intermediate {@link DataStatePair} and byte arrays for every tuple.<p>
+ * <br>
+ * The buffer server streams use the codec of the stream through this interface, the codecs which implement only
+ * {@link com.datatorrent.api.StreamCodec} or {@link StatefulStreamCodec} are adapted by
+ * {@link BufferStreamCodecAdapter}.<br>
+ *
+ * @param <T>
+ */
+public interface BufferStreamCodec<T> extends StatefulStreamCodec<T>
+{
+  /**
+   * Serializes the tuple at the position of the output, which grows its buffer as needed.
+   *
+   * @param tuple plain old java object
+   * @param output the buffer which receives the serialized tuple
+   * @return the incremental state the codec built while serializing the tuple, null if the state did not change.
+   * @see DataStatePair#state
+   */
+  Slice writeTuple(T tuple, Output output);
+
+  /**
+   * Adds the incremental state the serializing codec built to the state of this codec.
+   *
+   * @param buffer
+   * @param offset
+   * @param length
+   */
+  void readState(byte[] buffer, int offset, int length);
+
+  /**
+   * Deserializes the tuple from the given bytes, which may be reused once the method returns.
+   *
+   * @param buffer
+   * @param offset
+   * @param length
+   * @return plain old java object
+   */
+  Object readTuple(byte[] buffer, int offset, int length);
+
+  @Override
+  BufferStreamCodec<T> newInstance();
+
+}
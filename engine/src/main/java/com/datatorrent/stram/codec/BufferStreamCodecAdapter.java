@@ -0,0 +1,154 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.codec;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import com.datatorrent.api.StreamCodec;
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.stram.engine.StreamContext;
+
+/**
+ * Adapts a codec which implements only {@link StreamCodec} or {@link StatefulStreamCodec} to {@link BufferStreamCodec}.
+ * The tuples are serialized into the intermediate byte arrays of the codec and then copied into the output.
+ *
+ * @param <T>
+ */
+public class BufferStreamCodecAdapter<T> implements BufferStreamCodec<T>
+{
+  private final StreamCodec<T> codec;
+  /**
+   * The adapted codec if it is stateful, null otherwise.
+   */
+  private final StatefulStreamCodec<T> statefulCodec;
+  private final DataStatePair dsp = new DataStatePair();
+
+  public BufferStreamCodecAdapter(StreamCodec<T> codec)
+  {
+    this.codec = codec;
+    this.statefulCodec = codec instanceof StatefulStreamCodec ? (StatefulStreamCodec<T>)codec : null;
+  }
+
+  @Override
+  public Slice writeTuple(T tuple, Output output)
+  {
+    Slice state = null;
+    Slice data;
+    if (statefulCodec == null) {
+      data = codec.toByteArray(tuple);
+    } else {
+      DataStatePair pair = statefulCodec.toDataStatePair(tuple);
+      state = pair.state;
+      data = pair.data;
+    }
+    output.writeBytes(data.buffer, data.offset, data.length);
+    return state;
+  }
+
+  /**
+   * The state is handed to the adapted codec along with the next tuple, it has to stay intact until then.
+   */
+  @Override
+  public void readState(byte[] buffer, int offset, int length)
+  {
+    dsp.state = new Slice(buffer, offset, length);
+  }
+
+  @Override
+  public Object readTuple(byte[] buffer, int offset, int length)
+  {
+    Slice data = new Slice(buffer, offset, length);
+    if (statefulCodec == null) {
+      return codec.fromByteArray(data);
+    }
+    dsp.data = data;
+    return statefulCodec.fromDataStatePair(dsp);
+  }
+
+  @Override
+  public Object fromDataStatePair(DataStatePair dspair)
+  {
+    return statefulCodec == null ? codec.fromByteArray(dspair.data) : statefulCodec.fromDataStatePair(dspair);
+  }
+
+  @Override
+  public DataStatePair toDataStatePair(T object)
+  {
+    if (statefulCodec != null) {
+      return statefulCodec.toDataStatePair(object);
+    }
+    DataStatePair pair = new DataStatePair();
+    pair.data = codec.toByteArray(object);
+    return pair;
+  }
+
+  @Override
+  public void resetState()
+  {
+    if (statefulCodec != null) {
+      statefulCodec.resetState();
+    }
+  }
+
+  @Override
+  public BufferStreamCodecAdapter<T> newInstance()
+  {
+    return new BufferStreamCodecAdapter<T>(statefulCodec == null ? codec : statefulCodec.newInstance());
+  }
+
+  @Override
+  public Object fromByteArray(Slice fragment)
+  {
+    return codec.fromByteArray(fragment);
+  }
+
+  @Override
+  public Slice toByteArray(T o)
+  {
+    return codec.toByteArray(o);
+  }
+
+  @Override
+  public int getPartition(T o)
+  {
+    return codec.getPartition(o);
+  }
+
+  /**
+   * Picks the codec a stream uses, a new instance of the default codec if none is configured.
+   *
+   * @param codec the codec configured for the stream, may be null
+   * @return a codec of the stream, a new instance for stateful codecs.
+   */
+  @SuppressWarnings("unchecked")
+  public static BufferStreamCodec<Object> getBufferStreamCodec(StreamCodec<?> codec)
+  {
+    if (codec == null) {
+      codec = StreamContext.CODEC.defaultValue;
+    }
+    if (codec instanceof BufferStreamCodec) {
+      return ((BufferStreamCodec<Object>)codec).newInstance();
+    }
+    if (codec instanceof StatefulStreamCodec) {
+      return new BufferStreamCodecAdapter<Object>(((StatefulStreamCodec<Object>)codec).newInstance());
+    }
+    return new BufferStreamCodecAdapter<Object>((StreamCodec<Object>)codec);
+  }
+
+}
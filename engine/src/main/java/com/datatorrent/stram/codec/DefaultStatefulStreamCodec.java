@@ -44,7 +44,7 @@ import com.datatorrent.netlet.util.Slice;
  * @param <T>
  * @since 0.3.2
  */
-public class DefaultStatefulStreamCodec<T> extends Kryo implements StatefulStreamCodec<T>
+public class DefaultStatefulStreamCodec<T> extends Kryo implements BufferStreamCodec<T>
 {
   private final Output data;
   private final Output state;
@@ -70,29 +70,43 @@ public class DefaultStatefulStreamCodec<T> extends Kryo implements StatefulStrea
   {
     if (dspair.state != null) {
       try {
-        input.setBuffer(dspair.state.buffer, dspair.state.offset, dspair.state.length);
-        while (input.position() < input.limit()) {
-          ClassIdPair pair = (ClassIdPair)readClassAndObject(input);
-          classResolver.registerExplicit(pair);
-        }
-      }
-      catch (Throwable th) {
-        logger.error("Catastrophic Error: Execution halted due to Kryo exception!", th);
-        synchronized (this) {
-          try {
-            wait();
-          }
-          catch (InterruptedException ex) {
-            throw new RuntimeException("Serialization State Error Halt Interrupted", ex);
-          }
-        }
+        readState(dspair.state.buffer, dspair.state.offset, dspair.state.length);
       }
       finally {
         dspair.state = null;
       }
     }
 
-    input.setBuffer(dspair.data.buffer, dspair.data.offset, dspair.data.length);
+    return readTuple(dspair.data.buffer, dspair.data.offset, dspair.data.length);
+  }
+
+  @Override
+  public void readState(byte[] buffer, int offset, int length)
+  {
+    try {
+      input.setBuffer(buffer, offset, length);
+      while (input.position() < input.limit()) {
+        ClassIdPair pair = (ClassIdPair)readClassAndObject(input);
+        classResolver.registerExplicit(pair);
+      }
+    }
+    catch (Throwable th) {
+      logger.error("Catastrophic Error: Execution halted due to Kryo exception!", th);
+      synchronized (this) {
+        try {
+          wait();
+        }
+        catch (InterruptedException ex) {
+          throw new RuntimeException("Serialization State Error Halt Interrupted", ex);
+        }
+      }
+    }
+  }
+
+  @Override
+  public Object readTuple(byte[] buffer, int offset, int length)
+  {
+    input.setBuffer(buffer, offset, length);
     // the following code does not need to be in the try-catch block. It can be
     // taken out of it, once the stability of the code is validated by 4/1/2014.
     try {
@@ -117,25 +131,32 @@ public class DefaultStatefulStreamCodec<T> extends Kryo implements StatefulStrea
   {
     DataStatePair pair = new DataStatePair();
     data.setPosition(0);
-    writeClassAndObject(data, o);
-
-    if (!pairs.isEmpty()) {
-      state.setPosition(0);
-      for (ClassIdPair cip : pairs) {
-        writeClassAndObject(state, cip);
-      }
-      pairs.clear();
-
-      // can we optimize this?
-      byte[] bytes = state.toBytes();
-      pair.state = new Slice(bytes, 0, bytes.length);
-    }
+    pair.state = writeTuple(o, data);
 
     byte[] bytes = data.toBytes();
     pair.data = new Slice(bytes, 0, bytes.length);
     return pair;
   }
 
+  @Override
+  public Slice writeTuple(T o, Output output)
+  {
+    writeClassAndObject(output, o);
+    if (pairs.isEmpty()) {
+      return null;
+    }
+
+    state.setPosition(0);
+    for (ClassIdPair cip : pairs) {
+      writeClassAndObject(state, cip);
+    }
+    pairs.clear();
+
+    // can we optimize this?
+    byte[] bytes = state.toBytes();
+    return new Slice(bytes, 0, bytes.length);
+  }
+
   @Override
   public int getPartition(T o)
   {
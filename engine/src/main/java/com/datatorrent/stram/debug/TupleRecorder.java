@@ -67,6 +67,10 @@ public class TupleRecorder
   private String recordingNameTopic;
   private long numWindows = Long.MAX_VALUE; // number of windows to record
   private Runnable stopProcedure; // stop procedure to execute
+  private TupleSampler sampler; // all tuples are recorded if null
+  private transient ReservoirEntry[] reservoir;
+  private transient int reservoirCount;
+  private transient long reservoirSequence;
   private final FSPartFileCollection storage = new FSPartFileCollection()
   {
     @Override
@@ -91,6 +95,19 @@ public class TupleRecorder
       countStr.append("}");
       str += countStr.length();
       str += ":" + countStr.toString();
+      if (sampler != null) {
+        StringBuilder observedStr = new StringBuilder("{");
+        i = 0;
+        for (PortCount pc: portCountMap.values()) {
+          if (i != 0) {
+            observedStr.append(",");
+          }
+          observedStr.append("\"").append(pc.id).append("\":\"").append(pc.observedCount).append("\"");
+          i++;
+        }
+        observedStr.append("}");
+        str += ":S:" + observedStr.length() + ":" + observedStr.toString();
+      }
       return str;
     }
 
@@ -99,6 +116,7 @@ public class TupleRecorder
     {
       for (PortCount pc: portCountMap.values()) {
         pc.count = 0;
+        pc.observedCount = 0;
       }
       windowIdRanges.clear();
     }
@@ -135,6 +153,23 @@ public class TupleRecorder
     this.streamCodec = streamCodec;
   }
 
+  /**
+   * Sets the sampler which selects the data tuples to be recorded. All tuples are recorded if no sampler is set.
+   * Windows are then annotated with the number of tuples received on each port, including the ones not recorded.
+   *
+   * @param sampler
+   */
+  public void setSampler(TupleSampler sampler)
+  {
+    this.sampler = sampler;
+    reservoir = sampler != null && sampler.getReservoirSize() > 0 ? new ReservoirEntry[sampler.getReservoirSize()] : null;
+  }
+
+  public TupleSampler getSampler()
+  {
+    return sampler;
+  }
+
   public void setWebSocketClient(SharedPubSubWebSocketClient wsClient)
   {
     this.wsClient = wsClient;
@@ -182,6 +217,25 @@ public class TupleRecorder
   {
     public int id;
     public long count;
+    public long observedCount; // including the tuples not recorded due to sampling
+    public long windowObservedCount;
+  }
+
+  private static class ReservoirEntry
+  {
+    final long sequence;
+    final byte[] bytes;
+    final String port;
+    final Object obj;
+
+    ReservoirEntry(long sequence, byte[] bytes, String port, Object obj)
+    {
+      this.sequence = sequence;
+      this.bytes = bytes;
+      this.port = port;
+      this.obj = obj;
+    }
+
   }
 
   public static class RecordInfo
@@ -357,8 +411,17 @@ public class TupleRecorder
       }
       this.currentWindowId = windowId;
       endWindowTuplesProcessed = 0;
+      if (sampler != null) {
+        sampler.beginWindow(windowId);
+        for (PortCount pc: portCountMap.values()) {
+          pc.windowObservedCount = 0;
+        }
+        reservoirCount = 0;
+      }
       try {
-        storage.writeDataItem(("B:" + System.currentTimeMillis() + ":" + windowId + "\n").getBytes(), false);
+        long time = System.currentTimeMillis();
+        storage.writePartIndexEntry(windowId + ":" + time + ":" + getTupleCounts(false));
+        storage.writeDataItem(("B:" + time + ":" + windowId + "\n").getBytes(), false);
       }
       catch (IOException ex) {
         logger.error(ex.toString());
@@ -370,6 +433,10 @@ public class TupleRecorder
   {
     if (++endWindowTuplesProcessed == portMap.size()) {
       try {
+        if (sampler != null) {
+          flushReservoir();
+          storage.writeDataItem(("S:" + System.currentTimeMillis() + ":" + currentWindowId + ":" + getTupleCounts(true) + "\n").getBytes(), false);
+        }
         storage.writeDataItem(("E:" + System.currentTimeMillis() + ":" + currentWindowId + "\n").getBytes(), false);
         logger.debug("Got last end window tuple.  Flushing...");
         if (!storage.flushData() && wsClient != null) {
@@ -390,25 +457,33 @@ public class TupleRecorder
     if (windowIdRanges.isEmpty()) {
       throw new RuntimeException("Data tuples received from tuple recorder before any BEGIN_WINDOW");
     }
+    long time = System.currentTimeMillis();
+    int slot = TupleSampler.RECORD;
+    if (sampler != null) {
+      PortCount pc = portCountMap.get(port);
+      pc.observedCount++;
+      pc.windowObservedCount++;
+      slot = sampler.offer(time);
+      if (slot == TupleSampler.SKIP) {
+        return;
+      }
+    }
     try {
       ByteArrayOutputStream bos = new ByteArrayOutputStream();
       Slice f = streamCodec.toByteArray(obj);
       PortInfo pi = portMap.get(port);
-      String str = "T:" + System.currentTimeMillis() + ":" + pi.id + ":" + f.length + ":";
+      String str = "T:" + time + ":" + pi.id + ":" + f.length + ":";
       bos.write(str.getBytes());
       bos.write(f.buffer, f.offset, f.length);
       bos.write("\n".getBytes());
-      PortCount pc = portCountMap.get(port);
-      pc.count++;
-      portCountMap.put(port, pc);
-
-      storage.writeDataItem(bos.toByteArray(), true);
-      //logger.debug("Writing tuple for port id {}", pi.id);
-      //fsOutput.hflush();
-      ++totalTupleCount;
-      if (numSubscribers > 0) {
-        // this is not asynchronous.  we need to fix this
-        publishTupleData(pi.id, obj);
+      if (slot == TupleSampler.RECORD) {
+        writeDataItem(bos.toByteArray(), port, obj);
+      }
+      else {
+        reservoir[slot] = new ReservoirEntry(reservoirSequence++, bos.toByteArray(), port, obj);
+        if (slot >= reservoirCount) {
+          reservoirCount = slot + 1;
+        }
       }
     }
     catch (IOException ex) {
@@ -416,6 +491,46 @@ public class TupleRecorder
     }
   }
 
+  private void writeDataItem(byte[] bytes, String port, Object obj) throws IOException
+  {
+    PortInfo pi = portMap.get(port);
+    PortCount pc = portCountMap.get(port);
+    pc.count++;
+
+    storage.writeDataItem(bytes, true);
+    //logger.debug("Writing tuple for port id {}", pi.id);
+    //fsOutput.hflush();
+    ++totalTupleCount;
+    if (numSubscribers > 0) {
+      // this is not asynchronous.  we need to fix this
+      publishTupleData(pi.id, obj);
+    }
+  }
+
+  /**
+   * Writes the tuples sampled into the reservoir during the current window in the order they were received.
+   */
+  private void flushReservoir() throws IOException
+  {
+    if (reservoirCount == 0) {
+      return;
+    }
+    Arrays.sort(reservoir, 0, reservoirCount, new Comparator<ReservoirEntry>()
+    {
+      @Override
+      public int compare(ReservoirEntry o1, ReservoirEntry o2)
+      {
+        return Long.compare(o1.sequence, o2.sequence);
+      }
+
+    });
+    for (int i = 0; i < reservoirCount; i++) {
+      writeDataItem(reservoir[i].bytes, reservoir[i].port, reservoir[i].obj);
+      reservoir[i] = null;
+    }
+    reservoirCount = 0;
+  }
+
   public void writeControlTuple(Tuple tuple, String port)
   {
     try {
@@ -433,6 +548,26 @@ public class TupleRecorder
     }
   }
 
+  /**
+   * Returns the number of tuples for each port, ordered by port id. These are either the tuples written to the
+   * current part file so far or the tuples received in the current window.
+   */
+  private String getTupleCounts(boolean observedInWindow)
+  {
+    long[] counts = new long[nextPortIndex];
+    for (PortCount pc: portCountMap.values()) {
+      counts[pc.id] = observedInWindow ? pc.windowObservedCount : pc.count;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < counts.length; i++) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      sb.append(counts[i]);
+    }
+    return sb.toString();
+  }
+
   private static String convertToString(List<Range> ranges)
   {
     String result = "";
@@ -491,6 +626,9 @@ public class TupleRecorder
       if (payload instanceof Tuple) {
         Tuple tuple = (Tuple)payload;
         MessageType messageType = tuple.getType();
+        if (messageType == MessageType.TRACE) {
+          return;
+        }
         if (messageType == MessageType.BEGIN_WINDOW) {
           beginWindow(tuple.getWindowId());
         }
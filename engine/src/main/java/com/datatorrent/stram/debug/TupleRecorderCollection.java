@@ -128,6 +128,11 @@ public class TupleRecorderCollection extends HashMap<OperatorIdPortNamePair, Tup
   }
 
   private void startRecording(String id, final Node<?> node, int operatorId, final String portName, long numWindows)
+  {
+    startRecording(id, node, operatorId, portName, numWindows, null);
+  }
+
+  private void startRecording(String id, final Node<?> node, int operatorId, final String portName, long numWindows, TupleSampler sampler)
   {
     PortMappingDescriptor descriptor = node.getPortMappingDescriptor();
     OperatorIdPortNamePair operatorIdPortNamePair = new OperatorIdPortNamePair(operatorId, portName);
@@ -179,6 +184,7 @@ public class TupleRecorderCollection extends HashMap<OperatorIdPortNamePair, Tup
 
       TupleRecorder tupleRecorder = new TupleRecorder(id, appId);
       tupleRecorder.setWebSocketClient(wsClient);
+      tupleRecorder.setSampler(sampler);
 
       HashMap<String, Sink<Object>> sinkMap = new HashMap<String, Sink<Object>>();
       for (Map.Entry<String, PortContextPair<InputPort<?>>> entry : descriptor.inputPorts.entrySet()) {
@@ -404,7 +410,11 @@ public class TupleRecorderCollection extends HashMap<OperatorIdPortNamePair, Tup
             public StatsListener.OperatorResponse execute(Operator operator, int operatorId, long windowId) throws IOException
             {
               StramToNodeStartRecordingRequest r = (StramToNodeStartRecordingRequest) snr;
-              startRecording(r.getId(), node, operatorId, r.getPortName(), r.getNumWindows());
+              TupleSampler sampler = null;
+              if (TupleSampler.isSampling(r.getReservoirSize(), r.getSampleProbability(), r.getMaxTuplesPerSecond())) {
+                sampler = new TupleSampler(r.getReservoirSize(), r.getSampleProbability(), r.getMaxTuplesPerSecond());
+              }
+              startRecording(r.getId(), node, operatorId, r.getPortName(), r.getNumWindows(), sampler);
               return null;
             }
 
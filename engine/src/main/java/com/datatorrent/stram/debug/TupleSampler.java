@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.debug;
+
+import java.util.Random;
+
+/**
+ * Decides which data tuples a {@link TupleRecorder} writes when only a sample of the tuples is to be recorded.
+ *
+ * The filters are applied in order: a tuple is first kept with the fixed probability, then counted against the
+ * tuples per second budget and finally offered to the per window reservoir. A filter which is not configured lets
+ * every tuple through.
+ */
+public class TupleSampler
+{
+  /**
+   * The tuple is to be written right away.
+   */
+  public static final int RECORD = -1;
+  /**
+   * The tuple is not to be recorded.
+   */
+  public static final int SKIP = -2;
+  private final int reservoirSize;
+  private final double probability;
+  private final long maxTuplesPerSecond;
+  private final Random random;
+  private long reservoirOffered;
+  private long currentSecond;
+  private long currentSecondCount;
+
+  /**
+   * @param reservoirSize number of tuples to keep per window, 0 to not use a reservoir
+   * @param probability probability with which a tuple is kept, 1 to keep all tuples
+   * @param maxTuplesPerSecond maximum number of tuples kept per second, 0 for no limit
+   */
+  public TupleSampler(int reservoirSize, double probability, long maxTuplesPerSecond)
+  {
+    this(reservoirSize, probability, maxTuplesPerSecond, new Random());
+  }
+
+  TupleSampler(int reservoirSize, double probability, long maxTuplesPerSecond, Random random)
+  {
+    if (reservoirSize < 0) {
+      throw new IllegalArgumentException("Reservoir size cannot be negative: " + reservoirSize);
+    }
+    if (!(probability > 0 && probability <= 1)) {
+      throw new IllegalArgumentException("Sampling probability has to be in (0, 1]: " + probability);
+    }
+    if (maxTuplesPerSecond < 0) {
+      throw new IllegalArgumentException("Maximum tuples per second cannot be negative: " + maxTuplesPerSecond);
+    }
+    this.reservoirSize = reservoirSize;
+    this.probability = probability;
+    this.maxTuplesPerSecond = maxTuplesPerSecond;
+    this.random = random;
+  }
+
+  /**
+   * Returns true if the parameters select a subset of the tuples, false if all tuples would be recorded.
+   *
+   * @param reservoirSize
+   * @param probability
+   * @param maxTuplesPerSecond
+   * @return whether sampling is required
+   */
+  public static boolean isSampling(int reservoirSize, double probability, long maxTuplesPerSecond)
+  {
+    return reservoirSize > 0 || probability < 1 || maxTuplesPerSecond > 0;
+  }
+
+  public int getReservoirSize()
+  {
+    return reservoirSize;
+  }
+
+  public void beginWindow(long windowId)
+  {
+    reservoirOffered = 0;
+  }
+
+  /**
+   * Offers the next data tuple of the current window to the sampler.
+   *
+   * @param time the time at which the tuple was received
+   * @return {@link #RECORD}, {@link #SKIP} or the slot of the reservoir in which the tuple is to be stored
+   */
+  public int offer(long time)
+  {
+    if (probability < 1 && random.nextDouble() >= probability) {
+      return SKIP;
+    }
+    if (maxTuplesPerSecond > 0) {
+      long second = time / 1000;
+      if (second != currentSecond) {
+        currentSecond = second;
+        currentSecondCount = 0;
+      }
+      if (currentSecondCount >= maxTuplesPerSecond) {
+        return SKIP;
+      }
+      currentSecondCount++;
+    }
+    if (reservoirSize > 0) {
+      long offered = reservoirOffered++;
+      if (offered < reservoirSize) {
+        return (int)offered;
+      }
+      long slot = (long)(random.nextDouble() * (offered + 1));
+      return slot < reservoirSize ? (int)slot : SKIP;
+    }
+    return RECORD;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "TupleSampler{" + "reservoirSize=" + reservoirSize + ", probability=" + probability + ", maxTuplesPerSecond=" + maxTuplesPerSecond + '}';
+  }
+
+}
@@ -31,6 +31,7 @@ import com.datatorrent.stram.api.ContainerEvent.StreamActivationEvent;
 import com.datatorrent.stram.api.ContainerEvent.StreamDeactivationEvent;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHeartbeat;
+import com.datatorrent.stram.stream.BufferServerSubscriber;
 
 import net.engio.mbassy.listener.Handler;
 
@@ -100,6 +101,10 @@ public class BufferServerStatsSubscriber
             ByteCounterStream stream = inputStreams.get(ps.id);
             if (stream != null) {
               ps.bufferServerBytes = stream.getByteCount(true);
+              ps.bufferServerUncompressedBytes = stream.getUncompressedByteCount(true);
+              if (stream instanceof BufferServerSubscriber) {
+                ps.keyGroupTupleCounts = ((BufferServerSubscriber)stream).getKeyGroupTupleCounts(true);
+              }
             }
           }
         }
@@ -111,6 +116,7 @@ public class BufferServerStatsSubscriber
               ps.bufferServerBytes = 0;
               for (ByteCounterStream stream : portStreams) {
                 ps.bufferServerBytes = stream.getByteCount(true);
+                ps.bufferServerUncompressedBytes = stream.getUncompressedByteCount(true);
               }
             }
           }
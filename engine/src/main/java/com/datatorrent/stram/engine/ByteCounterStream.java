@@ -26,4 +26,11 @@ package com.datatorrent.stram.engine;
 public interface ByteCounterStream extends Stream
 {
   public long getByteCount(boolean reset);
+
+  /**
+   * @param reset
+   * @return the bytes of the tuples before they were compressed, equal to the byte count if the stream is not
+   * compressed.
+   */
+  public long getUncompressedByteCount(boolean reset);
 }
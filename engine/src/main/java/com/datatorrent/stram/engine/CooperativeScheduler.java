@@ -0,0 +1,296 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the nodes of a container as cooperative tasks on a bounded work stealing pool instead of a thread per node.
+ *
+ * A node runs in turns. Each turn processes the input which is available for up to a time slice, then the node
+ * yields its thread to the other nodes. A node without input is parked until a stream delivers tuples to it, or at
+ * the latest until its spin time elapses, the same time for which it would sleep when it has its own thread.
+ */
+public class CooperativeScheduler
+{
+  private static final int RUNNING = 0;
+  private static final int PARKED = 1;
+  private static final int TERMINATED = 2;
+  private final ForkJoinPool pool;
+  private final ScheduledThreadPoolExecutor timer;
+  private final long sliceNanos;
+
+  /**
+   * Work which is done in turns.
+   */
+  public interface Job
+  {
+    /**
+     * @param sliceNanos time after which the job should return even if there is more work
+     * @return 0 to run again right away, the number of milliseconds to wait for more work or -1 when the job is done
+     * @throws Exception
+     */
+    long turn(long sliceNanos) throws Exception;
+
+    /**
+     * Called after the job is marked parked, to catch work which arrived after the turn ended but before the signal
+     * could see the job parked.
+     *
+     * @return true if the job has work to do
+     */
+    boolean hasWork();
+
+    /**
+     * Called once after the job is done or failed.
+     *
+     * @param cause the failure or null
+     */
+    void terminated(Throwable cause);
+
+  }
+
+  /**
+   * @param threads number of threads shared by the nodes
+   * @param sliceMillis maximum time a node processes input before it yields its thread
+   */
+  public CooperativeScheduler(int threads, long sliceMillis)
+  {
+    final AtomicInteger count = new AtomicInteger();
+    pool = new ForkJoinPool(threads, new ForkJoinPool.ForkJoinWorkerThreadFactory()
+    {
+      @Override
+      public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+      {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("CooperativeScheduler-" + count.incrementAndGet());
+        return thread;
+      }
+
+    }, null, true);
+    timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+    {
+      @Override
+      public Thread newThread(Runnable r)
+      {
+        Thread thread = new Thread(r, "CooperativeScheduler-timer");
+        thread.setDaemon(true);
+        return thread;
+      }
+
+    });
+    timer.setRemoveOnCancelPolicy(true);
+    this.sliceNanos = TimeUnit.MILLISECONDS.toNanos(sliceMillis);
+  }
+
+  /**
+   * Starts running the job in turns.
+   *
+   * @param name name of the job
+   * @param job the job
+   * @return the task running the job
+   */
+  public Task submit(String name, Job job)
+  {
+    Task task = new Task(name, job);
+    pool.execute(task);
+    return task;
+  }
+
+  public int getParallelism()
+  {
+    return pool.getParallelism();
+  }
+
+  public void shutdown()
+  {
+    timer.shutdownNow();
+    pool.shutdownNow();
+  }
+
+  /**
+   * Puts the tuple into the queue, letting the pool compensate for the blocked thread while the queue is full, so
+   * that the consumer of the queue can run even when all the threads of the pool are producers waiting for room.
+   *
+   * @param queue the queue
+   * @param tuple the tuple
+   * @throws InterruptedException
+   */
+  public static void put(final BlockingQueue<Object> queue, final Object tuple) throws InterruptedException
+  {
+    ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker()
+    {
+      boolean done;
+
+      @Override
+      public boolean block() throws InterruptedException
+      {
+        queue.put(tuple);
+        return done = true;
+      }
+
+      @Override
+      public boolean isReleasable()
+      {
+        return done || (done = queue.offer(tuple));
+      }
+
+    });
+  }
+
+  /**
+   * A job on the scheduler, which is either running, parked or terminated.
+   */
+  public class Task implements Runnable
+  {
+    private final String name;
+    private final Job job;
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile ScheduledFuture<?> timeout;
+    /**
+     * Wakes up the task when it is parked, passed to the streams which deliver tuples to the job.
+     */
+    public final Runnable signal = new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        if (state.get() == PARKED) {
+          wake();
+        }
+      }
+
+    };
+    private final Runnable wakeup = new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        wake();
+      }
+
+    };
+
+    Task(String name, Job job)
+    {
+      this.name = name;
+      this.job = job;
+    }
+
+    @Override
+    public void run()
+    {
+      long waitMillis;
+      try {
+        waitMillis = job.turn(sliceNanos);
+      } catch (Throwable cause) {
+        terminate(cause);
+        return;
+      }
+
+      if (waitMillis < 0) {
+        terminate(null);
+      } else if (waitMillis == 0) {
+        pool.execute(this);
+      } else {
+        /*
+         * A signal which arrives before the task is marked parked finds it running and is dropped, so the job is
+         * asked for work once more after it is marked parked. Any later signal sees it parked and wakes it up.
+         */
+        state.set(PARKED);
+        if (job.hasWork()) {
+          wake();
+          return;
+        }
+        try {
+          timeout = timer.schedule(wakeup, waitMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException ex) {
+          logger.debug("Timer of {} is not available, running it right away", name, ex);
+          wake();
+        }
+      }
+    }
+
+    private void wake()
+    {
+      if (state.compareAndSet(PARKED, RUNNING)) {
+        ScheduledFuture<?> f = timeout;
+        if (f != null) {
+          f.cancel(false);
+        }
+        pool.execute(this);
+      }
+    }
+
+    private void terminate(Throwable cause)
+    {
+      try {
+        job.terminated(cause);
+      } finally {
+        state.set(TERMINATED);
+        terminated.countDown();
+      }
+    }
+
+    public boolean isTerminated()
+    {
+      return state.get() == TERMINATED;
+    }
+
+    /**
+     * Waits for the task to terminate.
+     *
+     * @param millis maximum time to wait
+     * @return true if the task terminated
+     * @throws InterruptedException
+     */
+    public boolean awaitTermination(long millis) throws InterruptedException
+    {
+      return terminated.await(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gives a parked task its next turn right away, for example to let it notice that it was shut down.
+     */
+    public void interrupt()
+    {
+      wake();
+    }
+
+    @Override
+    public String toString()
+    {
+      return "Task{" + "name=" + name + ", state=" + state + '}';
+    }
+
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(CooperativeScheduler.class);
+}
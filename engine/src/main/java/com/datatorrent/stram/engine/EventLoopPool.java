@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.netlet.EventLoop;
+
+/**
+ * Event loops which serve the buffer server and the connections of the streams to buffer servers in a container.
+ *
+ * The first event loop is the process wide event loop, the others are created by the pool. Streams are assigned to the
+ * event loop which serves the fewest streams or to the event loop selected by the hash of the stream identifier. The
+ * pool samples the CPU time of the event loop threads to report how busy every event loop is.
+ */
+public class EventLoopPool
+{
+  /**
+   * How the event loop of a stream is selected.
+   */
+  public enum Assignment
+  {
+    /**
+     * The event loop serving the fewest streams.
+     */
+    LEAST_LOADED,
+    /**
+     * The event loop selected by the hash of the stream identifier, which keeps the assignment stable across
+     * redeployments.
+     */
+    STREAM_ID
+  }
+
+  private final DefaultEventLoop[] eventloops;
+  private final AtomicInteger[] streams;
+  private final Assignment assignment;
+  private final Thread[] threads;
+  private final long[] lastCpuTime;
+  private long lastSampleTime;
+  private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+  /**
+   * @param eventloop the process wide event loop
+   * @param size number of event loops including the process wide one
+   * @param assignment how the event loops are assigned to the streams
+   * @throws IOException if an event loop cannot be created
+   */
+  public EventLoopPool(DefaultEventLoop eventloop, int size, Assignment assignment) throws IOException
+  {
+    if (size < 1) {
+      throw new IllegalArgumentException("Number of event loops has to be positive: " + size);
+    }
+    this.assignment = assignment;
+    eventloops = new DefaultEventLoop[size];
+    streams = new AtomicInteger[size];
+    threads = new Thread[size];
+    lastCpuTime = new long[size];
+    eventloops[0] = eventloop;
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        eventloops[i] = DefaultEventLoop.createEventLoop(eventloop.id + "-" + i);
+      }
+      streams[i] = new AtomicInteger();
+    }
+  }
+
+  public void start()
+  {
+    for (int i = 0; i < eventloops.length; i++) {
+      threads[i] = eventloops[i].start();
+    }
+    lastSampleTime = System.nanoTime();
+  }
+
+  public void stop()
+  {
+    for (DefaultEventLoop eventloop : eventloops) {
+      eventloop.stop();
+    }
+  }
+
+  public List<DefaultEventLoop> getEventLoops()
+  {
+    return Arrays.asList(eventloops);
+  }
+
+  /**
+   * Selects the event loop for the connection of a stream to a buffer server.
+   *
+   * @param streamId identifier of the stream
+   * @return the event loop
+   */
+  public EventLoop assign(String streamId)
+  {
+    int index = 0;
+    if (assignment == Assignment.STREAM_ID) {
+      index = (streamId.hashCode() & Integer.MAX_VALUE) % eventloops.length;
+    } else {
+      for (int i = 1; i < eventloops.length; i++) {
+        if (streams[i].get() < streams[index].get()) {
+          index = i;
+        }
+      }
+    }
+    streams[index].incrementAndGet();
+    return eventloops[index];
+  }
+
+  /**
+   * Releases the event loop assigned to a stream once the stream is deactivated.
+   *
+   * @param eventloop the event loop assigned to the stream or null
+   */
+  public void release(EventLoop eventloop)
+  {
+    for (int i = eventloops.length; i-- > 0;) {
+      if (eventloops[i] == eventloop) {
+        streams[i].decrementAndGet();
+        break;
+      }
+    }
+  }
+
+  /**
+   * Returns the fraction of the time since the previous call which every event loop thread spent on the CPU.
+   *
+   * @return the utilization of the event loops in the order of {@link #getEventLoops()}
+   */
+  public synchronized double[] sampleUtilization()
+  {
+    long now = System.nanoTime();
+    long elapsed = now - lastSampleTime;
+    lastSampleTime = now;
+    double[] utilization = new double[eventloops.length];
+    for (int i = 0; i < eventloops.length; i++) {
+      Thread thread = threads[i];
+      long cpuTime = thread == null ? -1 : threadMXBean.getThreadCpuTime(thread.getId());
+      if (cpuTime >= 0) {
+        if (elapsed > 0 && lastCpuTime[i] > 0) {
+          utilization[i] = Math.min(1.0, (double)(cpuTime - lastCpuTime[i]) / elapsed);
+        }
+        lastCpuTime[i] = cpuTime;
+      }
+    }
+    return utilization;
+  }
+
+}
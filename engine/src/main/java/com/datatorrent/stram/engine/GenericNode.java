@@ -26,6 +26,8 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,7 +41,6 @@ import com.datatorrent.api.Operator.ProcessingMode;
 import com.datatorrent.api.Operator.ShutdownException;
 import com.datatorrent.api.Sink;
 import com.datatorrent.api.annotation.Stateless;
-import com.datatorrent.bufferserver.packet.MessageType;
 import com.datatorrent.bufferserver.util.Codec;
 import com.datatorrent.netlet.util.CircularBuffer;
 import com.datatorrent.netlet.util.DTThrowable;
@@ -47,7 +48,10 @@ import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerSt
 import com.datatorrent.stram.debug.TappedReservoir;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.logical.Operators;
+import com.datatorrent.stram.tuple.BeginWindowTuple;
+import com.datatorrent.stram.tuple.EndWindowTuple;
 import com.datatorrent.stram.tuple.ResetWindowTuple;
+import com.datatorrent.stram.tuple.TraceTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
 /**
@@ -219,22 +223,55 @@ public class GenericNode extends Node<Operator>
     return pcPair.context.getValue(LogicalPlan.IS_CONNECTED_TO_DELAY_OPERATOR);
   }
 
+  private long maxSpinMillis;
+  private long spinMillis;
+  private boolean handleIdleTime;
+  private int totalQueues;
+  private int regularQueues;
+  private ArrayList<Map.Entry<String, SweepableReservoir>> activeQueues;
+  private int expectingBeginWindow;
+  private int receivedEndWindow;
+  private long firstWindowId;
+  private LinkedList<TupleTracker> resetTupleTracker;
+  private boolean parkWhenIdle;
+
+  /**
+   * Lets the node park instead of sleep while it waits for input, so the streams delivering to the node can wake it up
+   * by unparking its thread as soon as there is input. The node still wakes up after its spin time in case it missed
+   * a wakeup. Has to be set before the node runs.
+   *
+   * @param parkWhenIdle whether to park while idle
+   */
+  public void setParkWhenIdle(boolean parkWhenIdle)
+  {
+    this.parkWhenIdle = parkWhenIdle;
+  }
+
   /**
    * Originally this method was defined in an attempt to implement the interface Runnable.
    *
    * Note that activate does not return as long as there is useful workload for the node.
    */
   @Override
-  @SuppressWarnings({"SleepWhileInLoop", "UseSpecificCatch", "BroadCatchBlock", "TooBroadCatch"})
   public final void run()
+  {
+    startTurns();
+    processTurns(false, 0);
+    completeRun();
+  }
+
+  /**
+   * Prepares the node to be run in turns by {@link #runTurn(long)} instead of {@link #run()}.
+   */
+  public final void startTurns()
   {
     doCheckpoint = false;
 
-    final long maxSpinMillis = context.getValue(OperatorContext.SPIN_MILLIS);
-    long spinMillis = 0;
-    final boolean handleIdleTime = operator instanceof IdleTimeHandler;
-    int totalQueues = inputs.size();
-    int regularQueues = totalQueues;
+    maxSpinMillis = context.getValue(OperatorContext.SPIN_MILLIS);
+    spinMillis = 0;
+    handleIdleTime = operator instanceof IdleTimeHandler;
+    totalQueues = inputs.size();
+    regularQueues = totalQueues;
     // regularQueues is the number of queues that are not connected to a DelayOperator
     for (String portName : inputs.keySet()) {
       if (isInputPortConnectedToDelayOperator(portName)) {
@@ -242,17 +279,62 @@ public class GenericNode extends Node<Operator>
       }
     }
 
-    ArrayList<Map.Entry<String, SweepableReservoir>> activeQueues = new ArrayList<>();
+    activeQueues = new ArrayList<>();
     activeQueues.addAll(inputs.entrySet());
 
-    int expectingBeginWindow = activeQueues.size();
-    int receivedEndWindow = 0;
-    long firstWindowId = -1;
+    expectingBeginWindow = activeQueues.size();
+    receivedEndWindow = 0;
+    firstWindowId = -1;
 
     calculateNextCheckpointWindow();
 
+    resetTupleTracker = new LinkedList<TupleTracker>();
+  }
+
+  /**
+   * Runs the node on a thread it shares with other nodes until it runs out of input or the time slice is used up.
+   *
+   * @param sliceNanos time after which the node yields the thread even if there is more input
+   * @return 0 if the node is to run again right away, the number of milliseconds the node can wait for input before
+   * its next turn, or -1 once the node stopped
+   */
+  public final long runTurn(long sliceNanos)
+  {
+    long waitMillis = processTurns(true, System.nanoTime() + sliceNanos);
+    if (waitMillis < 0) {
+      completeRun();
+    }
+    return waitMillis;
+  }
+
+  /**
+   * Checks for input which arrived after the last turn ran out of it, called by the thread which ran the turn.
+   *
+   * @return true if one of the active input ports has tuples
+   */
+  public final boolean hasInput()
+  {
+    for (Map.Entry<String, SweepableReservoir> cb : activeQueues) {
+      if (!cb.getValue().isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Processes the input of the node. Run on its own thread the node idles by sleeping or parking until it stops. Run in
+   * turns it returns when it runs out of input or its turn ends.
+   *
+   * @param turn whether the node runs in turns
+   * @param deadline value of {@link System#nanoTime()} at which the turn ends
+   * @return 0 if the node is to run again right away, the number of milliseconds the node can wait for input before
+   * its next turn, or -1 once the node stopped
+   */
+  @SuppressWarnings({"SleepWhileInLoop", "UseSpecificCatch", "BroadCatchBlock", "TooBroadCatch"})
+  private long processTurns(boolean turn, long deadline)
+  {
     TupleTracker tracker;
-    LinkedList<TupleTracker> resetTupleTracker = new LinkedList<TupleTracker>();
     try {
       do {
         Iterator<Map.Entry<String, SweepableReservoir>> buffers = activeQueues.iterator();
@@ -266,7 +348,7 @@ public class GenericNode extends Node<Operator>
             boolean delay = (operator instanceof Operator.DelayOperator);
             long windowAhead = 0;
             if (delay) {
-              windowAhead = WindowGenerator.getAheadWindowId(t.getWindowId(), firstWindowMillis, windowWidthMillis, 1);
+              windowAhead = getNextWindowId(t.getWindowId());
             }
             switch (t.getType()) {
               case BEGIN_WINDOW:
@@ -290,13 +372,15 @@ public class GenericNode extends Node<Operator>
                       // Buffer server code strips out the base seconds from BEGIN_WINDOW and END_WINDOW tuples for
                       // serialization optimization.  That's why we need a reset window here to tell the buffer
                       // server we are having a new baseSeconds now.
-                      Tuple resetWindowTuple = new ResetWindowTuple(windowAhead);
+                      long widthAhead = windowWidthSchedule == null ? windowWidthMillis :
+                          windowWidthSchedule.getWidth(windowWidthSchedule.getWindowMillis(windowAhead));
+                      Tuple resetWindowTuple = new ResetWindowTuple(windowAhead & 0xffffffff00000000L | widthAhead);
                       for (int s = sinks.length; s-- > 0; ) {
                         sinks[s].put(resetWindowTuple);
                       }
                       controlTupleCount++;
                     }
-                    t.setWindowId(windowAhead);
+                    t = BeginWindowTuple.getTuple(windowAhead);
                   }
                   for (int s = sinks.length; s-- > 0; ) {
                     sinks[s].put(t);
@@ -360,7 +444,7 @@ public class GenericNode extends Node<Operator>
                   if (++receivedEndWindow == totalQueues) {
                     assert (activeQueues.isEmpty());
                     if (delay) {
-                      t.setWindowId(windowAhead);
+                      t = EndWindowTuple.getTuple(windowAhead);
                     }
                     processEndWindow(t);
                     activeQueues.addAll(inputs.entrySet());
@@ -432,6 +516,7 @@ public class GenericNode extends Node<Operator>
                 }
 
                 if (trackerIndex == regularQueues) {
+                  setWindowWidth(((ResetWindowTuple)t).getIntervalMillis());
                   Iterator<TupleTracker> trackerIterator = resetTupleTracker.iterator();
                   while (trackerIterator.hasNext()) {
                     if (trackerIterator.next().tuple.getBaseSeconds() <= baseSeconds) {
@@ -588,6 +673,11 @@ public class GenericNode extends Node<Operator>
                 }
                 break;
 
+              case TRACE:
+                activePort.remove();
+                processTrace((TraceTuple)t);
+                break;
+
               default:
                 throw new UnhandledException("Unrecognized Control Tuple", new IllegalArgumentException(t.toString()));
             }
@@ -610,25 +700,42 @@ public class GenericNode extends Node<Operator>
           if (need2sleep) {
             if (handleIdleTime && insideWindow) {
               ((IdleTimeHandler) operator).handleIdleTime();
+            } else if (turn) {
+              if (alive) {
+                long waitMillis = spinMillis;
+                spinMillis = Math.min(maxSpinMillis, spinMillis + 1);
+                return waitMillis;
+              }
             } else {
-              Thread.sleep(spinMillis);
+              if (parkWhenIdle) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(spinMillis));
+                if (Thread.interrupted()) {
+                  throw new InterruptedException();
+                }
+              } else {
+                Thread.sleep(spinMillis);
+              }
               spinMillis = Math.min(maxSpinMillis, spinMillis + 1);
             }
           }
         }
       }
-      while (alive);
+      while (alive && (!turn || System.nanoTime() - deadline < 0));
     }
     catch (ShutdownException se) {
       logger.debug("Shutdown requested by the operator when alive = {}.", alive);
       alive = false;
     }
     catch (Throwable cause) {
-      synchronized (this) {
+      aliveLock.lock();
+      try {
         if (alive) {
           DTThrowable.rethrow(cause);
         }
       }
+      finally {
+        aliveLock.unlock();
+      }
 
       Throwable rootCause = cause;
       while (rootCause != null) {
@@ -646,6 +753,11 @@ public class GenericNode extends Node<Operator>
       }
     }
 
+    return alive ? 0 : -1;
+  }
+
+  private void completeRun()
+  {
     /**
      * TODO: If shutdown and inside window provide alternate way of notifying the operator in such ways
      * TODO: as using a listener callback
@@ -670,13 +782,12 @@ public class GenericNode extends Node<Operator>
       stats.metrics = collectMetrics();
       handleRequests(currentWindowId);
     }
-
   }
 
   private void fabricateFirstWindow(Operator.DelayOperator delayOperator, long windowAhead)
   {
-    Tuple beginWindowTuple = new Tuple(MessageType.BEGIN_WINDOW, windowAhead);
-    Tuple endWindowTuple = new Tuple(MessageType.END_WINDOW, windowAhead);
+    Tuple beginWindowTuple = BeginWindowTuple.getTuple(windowAhead);
+    Tuple endWindowTuple = EndWindowTuple.getTuple(windowAhead);
     for (Sink<Object> sink : outputs.values()) {
       sink.put(beginWindowTuple);
     }
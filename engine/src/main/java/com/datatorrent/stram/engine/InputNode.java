@@ -31,6 +31,7 @@ import com.datatorrent.api.Sink;
 import com.datatorrent.netlet.util.DTThrowable;
 
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
+import com.datatorrent.stram.tuple.ResetWindowTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
 /**
@@ -68,6 +69,8 @@ public class InputNode extends Node<InputOperator>
   {
     long spinMillis = context.getValue(OperatorContext.SPIN_MILLIS);
     final boolean handleIdleTime = operator instanceof IdleTimeHandler;
+    final long tracingIntervalMillis = context.getValue(OperatorContext.TUPLE_TRACING_INTERVAL_MILLIS);
+    long lastTraceMillis = 0;
 
     boolean insideApplicationWindow = applicationWindowCount != 0;
     boolean doCheckpoint = false;
@@ -92,6 +95,14 @@ public class InputNode extends Node<InputOperator>
               generatedTuples += cs.getCount(false);
             }
 
+            if (tracingIntervalMillis > 0 && generatedTuples > 0) {
+              long now = System.currentTimeMillis();
+              if (now - lastTraceMillis >= tracingIntervalMillis) {
+                emitTrace(now);
+                lastTraceMillis = now;
+              }
+            }
+
             if (generatedTuples == 0) {
               if (handleIdleTime) {
                 ((IdleTimeHandler)operator).handleIdleTime();
@@ -187,6 +198,14 @@ public class InputNode extends Node<InputOperator>
               }
               break;
 
+            case RESET_WINDOW:
+              setWindowWidth(((ResetWindowTuple)t).getIntervalMillis());
+              for (int i = sinks.length; i-- > 0;) {
+                sinks[i].put(t);
+              }
+              controlTupleCount++;
+              break;
+
             default:
               for (int i = sinks.length; i-- > 0;) {
                 sinks[i].put(t);
@@ -202,11 +221,15 @@ public class InputNode extends Node<InputOperator>
       alive = false;
     }
     catch (Throwable cause) {
-      synchronized (this) {
+      aliveLock.lock();
+      try {
         if (alive) {
           DTThrowable.rethrow(cause);
         }
       }
+      finally {
+        aliveLock.unlock();
+      }
 
       Throwable rootCause = cause;
       while (rootCause != null) {
@@ -24,6 +24,7 @@ import com.datatorrent.netlet.util.CircularBuffer;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Queue;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,11 @@ public abstract class MuxReservoir
   @SuppressWarnings("VolatileArrayField")
   private volatile SubReservoir[] reservoirs = new SubReservoir[0];
   private HashMap<String, SubReservoir> reservoirMap = new HashMap<String, SubReservoir>();
+  /**
+   * Serializes the reservoirs draining the queue. Not a monitor as the operators may run on virtual threads, which a
+   * contended monitor would pin to their carriers.
+   */
+  private final ReentrantLock queueLock = new ReentrantLock();
 
   public SweepableReservoir acquireReservoir(String id, int capacity)
   {
@@ -129,7 +135,8 @@ public abstract class MuxReservoir
       }
 
       final Queue queue = getQueue();
-      synchronized (queue) {
+      queueLock.lock();
+      try {
         if (queue.isEmpty()) {
           return null;
         }
@@ -152,6 +159,9 @@ public abstract class MuxReservoir
           }
         }
       }
+      finally {
+        queueLock.unlock();
+      }
 
       return null;
     }
@@ -43,6 +43,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +55,7 @@ import com.google.common.collect.Maps;
 import com.google.common.math.IntMath;
 
 import com.datatorrent.api.AutoMetric;
+import com.datatorrent.api.Combiner;
 import com.datatorrent.api.Component;
 import com.datatorrent.api.Context;
 import com.datatorrent.api.InputOperator;
@@ -78,8 +80,10 @@ import com.datatorrent.stram.debug.MuxSink;
 import com.datatorrent.stram.plan.logical.Operators;
 import com.datatorrent.stram.plan.logical.Operators.PortContextPair;
 import com.datatorrent.stram.plan.logical.Operators.PortMappingDescriptor;
+import com.datatorrent.stram.stream.CombiningSink;
 import com.datatorrent.stram.tuple.EndStreamTuple;
 import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.TraceTuple;
 
 /**
  * <p>
@@ -108,9 +112,15 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
 
   protected int id;
   protected final HashMap<String, Sink<Object>> outputs;
+  private final Map<String, Combiner<?>> combiners = new HashMap<String, Combiner<?>>();
   @SuppressWarnings(value = "VolatileArrayField")
   protected volatile Sink<Object>[] sinks = Sink.NO_SINKS;
   protected boolean alive;
+  /**
+   * Publishes changes of alive between the thread shutting the node down and the thread running it. Not a monitor as
+   * the node may run on a virtual thread, which a contended monitor would pin to its carrier.
+   */
+  protected final ReentrantLock aliveLock = new ReentrantLock();
   protected final OPERATOR operator;
   protected final PortMappingDescriptor descriptor;
   public long currentWindowId;
@@ -131,8 +141,15 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
   private ExecutorService executorService;
   private Queue<Pair<FutureTask<Stats.CheckpointStats>, CheckpointWindowInfo>> taskQueue;
   protected Stats.CheckpointStats checkpointStats;
+  protected Stats.LatencyHistogram tracedLatency;
+  protected Stats.LatencyHistogram tracedHopLatency;
+  private final Map<Integer, Long> lastTraceOrigins = new HashMap<Integer, Long>();
   public long firstWindowMillis;
   public long windowWidthMillis;
+  public WindowWidthSchedule windowWidthSchedule;
+  private int initialApplicationWindowCount;
+  private int initialCheckpointWindowCount;
+  private int initialDagCheckpointWindowCount;
 
   public Node(OPERATOR operator, OperatorContext context)
   {
@@ -219,19 +236,57 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     return descriptor;
   }
 
+  /**
+   * Combine the tuples of the given output port with the given combiner before they are passed to the sinks of the
+   * port. Has to be set before the port is connected.
+   *
+   * @param port
+   * @param combiner
+   */
+  public void setCombiner(String port, Combiner<?> combiner)
+  {
+    combiners.put(port, combiner);
+  }
+
   public void connectOutputPort(String port, final Sink<Object> sink)
   {
     PortContextPair<OutputPort<?>> outputPort = descriptor.outputPorts.get(port);
     if (outputPort != null) {
-      if (sink == null) {
-        outputPort.component.setSink(null);
-        outputs.remove(port);
-      }
-      else {
-        outputPort.component.setSink(sink);
-        outputs.put(port, sink);
+      setOutput(port, outputPort, sink);
+    }
+  }
+
+  /**
+   * @return the sink connected to the given output port, without the combining sink of the port
+   */
+  private Sink<Object> getOutput(String port)
+  {
+    Sink<Object> sink = outputs.get(port);
+    return sink instanceof CombiningSink ? ((CombiningSink)sink).getSink() : sink;
+  }
+
+  /**
+   * Connect the given sink to the output port, through the combining sink of the port if the port has a combiner. An
+   * existing combining sink is kept with the tuples it combined in the current window.
+   */
+  private void setOutput(String port, PortContextPair<OutputPort<?>> pcpair, Sink<Object> sink)
+  {
+    if (sink == null) {
+      pcpair.component.setSink(null);
+      outputs.remove(port);
+      return;
+    }
+    Combiner<?> combiner = combiners.get(port);
+    if (combiner != null) {
+      Sink<Object> output = outputs.get(port);
+      if (output instanceof CombiningSink) {
+        ((CombiningSink)output).setSink(sink);
+        return;
       }
+      sink = new CombiningSink(combiner, sink);
     }
+    pcpair.component.setSink(sink);
+    outputs.put(port, sink);
   }
 
   public abstract void connectInputPort(String port, final SweepableReservoir reservoir);
@@ -248,10 +303,9 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
       }
       changes = true;
 
-      Sink<Object> ics = outputs.get(e.getKey());
+      Sink<Object> ics = getOutput(e.getKey());
       if (ics == null) {
-        pcpair.component.setSink(e.getValue());
-        outputs.put(e.getKey(), e.getValue());
+        setOutput(e.getKey(), pcpair, e.getValue());
         changes = true;
       }
       else if (ics instanceof MuxSink) {
@@ -259,8 +313,7 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
       }
       else {
         MuxSink muxSink = new MuxSink(ics, e.getValue());
-        pcpair.component.setSink(muxSink);
-        outputs.put(e.getKey(), muxSink);
+        setOutput(e.getKey(), pcpair, muxSink);
         changes = true;
       }
     }
@@ -280,10 +333,9 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
         continue;
       }
 
-      Sink<Object> ics = outputs.get(e.getKey());
+      Sink<Object> ics = getOutput(e.getKey());
       if (ics == e.getValue()) {
-        pcpair.component.setSink(null);
-        outputs.remove(e.getKey());
+        setOutput(e.getKey(), pcpair, null);
         changes = true;
       }
       else if (ics instanceof MuxSink) {
@@ -291,13 +343,11 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
         ms.remove(e.getValue());
         Sink<Object>[] sinks1 = ms.getSinks();
         if (sinks1.length == 0) {
-          pcpair.component.setSink(null);
-          outputs.remove(e.getKey());
+          setOutput(e.getKey(), pcpair, null);
           changes = true;
         }
         else if (sinks1.length == 1) {
-          pcpair.component.setSink(sinks1[0]);
-          outputs.put(e.getKey(), sinks1[0]);
+          setOutput(e.getKey(), pcpair, sinks1[0]);
           changes = true;
         }
       }
@@ -315,9 +365,13 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
   {
     shutdown = true;
 
-    synchronized (this) {
+    aliveLock.lock();
+    try {
       alive = false;
     }
+    finally {
+      aliveLock.unlock();
+    }
 
     if (context == null) {
       logger.warn("Shutdown requested when context is not available!");
@@ -361,15 +415,62 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
 
   protected void emitEndWindow()
   {
-    long windowId = (operator instanceof Operator.DelayOperator) ?
-        WindowGenerator.getAheadWindowId(currentWindowId, firstWindowMillis, windowWidthMillis, 1) : currentWindowId;
-    EndWindowTuple ewt = new EndWindowTuple(windowId);
+    long windowId = (operator instanceof Operator.DelayOperator) ? getNextWindowId(currentWindowId) : currentWindowId;
+    EndWindowTuple ewt = EndWindowTuple.getTuple(windowId);
     for (int s = sinks.length; s-- > 0; ) {
       sinks[s].put(ewt);
     }
     controlTupleCount++;
   }
 
+  /**
+   * Starts a trace for the data tuples just emitted by the operator.
+   *
+   * @param timestamp the time at which the tuples were emitted
+   */
+  protected void emitTrace(long timestamp)
+  {
+    TraceTuple tt = new TraceTuple(currentWindowId, id, timestamp, timestamp, 0);
+    for (int s = sinks.length; s-- > 0; ) {
+      sinks[s].put(tt);
+    }
+    controlTupleCount++;
+  }
+
+  /**
+   * Records the latencies of the traced tuple and passes the trace on to the downstream operators. The trace is
+   * received after the traced tuple, so it leaves after the tuples the operator emitted while processing it.
+   *
+   * An operator downstream of a fan-in receives the same trace once per path. Every path carries every trace of an
+   * origin in the order the origin emitted them, so a trace not newer than the last one seen from its origin is a
+   * repeat and is dropped instead of being recorded and multiplied further downstream.
+   *
+   * @param trace
+   */
+  protected void processTrace(TraceTuple trace)
+  {
+    Long lastOriginTimestamp = lastTraceOrigins.get(trace.getOriginId());
+    if (lastOriginTimestamp != null && trace.getOriginTimestamp() <= lastOriginTimestamp) {
+      return;
+    }
+    lastTraceOrigins.put(trace.getOriginId(), trace.getOriginTimestamp());
+
+    long now = System.currentTimeMillis();
+    if (tracedLatency == null) {
+      tracedLatency = new Stats.LatencyHistogram();
+      tracedHopLatency = new Stats.LatencyHistogram();
+    }
+    tracedLatency.add(now - trace.getOriginTimestamp());
+    tracedHopLatency.add(now - trace.getHopTimestamp());
+
+    TraceTuple tt = new TraceTuple(currentWindowId, trace.getOriginId(), trace.getOriginTimestamp(), now,
+        trace.getHopCount() + 1);
+    for (int s = sinks.length; s-- > 0; ) {
+      sinks[s].put(tt);
+    }
+    controlTupleCount++;
+  }
+
   protected void handleRequests(long windowId)
   {
     /*
@@ -439,9 +540,17 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     }
     controlTupleCount = 0;
 
+    stats.tracedLatency = tracedLatency;
+    stats.tracedHopLatency = tracedHopLatency;
+    tracedLatency = null;
+    tracedHopLatency = null;
+
     long currentCpuTime = tmb.getCurrentThreadCpuTime();
-    stats.cpuTimeUsed = currentCpuTime - lastSampleCpuTime;
-    lastSampleCpuTime = currentCpuTime;
+    if (currentCpuTime >= 0) {
+      /* the cpu time is not measured for virtual threads */
+      stats.cpuTimeUsed = currentCpuTime - lastSampleCpuTime;
+      lastSampleCpuTime = currentCpuTime;
+    }
 
     if (checkpoint != null) {
       stats.checkpoint = checkpoint;
@@ -630,6 +739,9 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
       logger.warn("Ignoring {} attribute in favor of {} processing mode", OperatorContext.CHECKPOINT_WINDOW_COUNT.getSimpleName(), ProcessingMode.EXACTLY_ONCE.name());
       CHECKPOINT_WINDOW_COUNT = 1;
     }
+    initialApplicationWindowCount = APPLICATION_WINDOW_COUNT;
+    initialCheckpointWindowCount = CHECKPOINT_WINDOW_COUNT;
+    initialDagCheckpointWindowCount = DAG_CHECKPOINT_WINDOW_COUNT;
 
     activateSinks();
     if (operator instanceof Operator.ActivationListener) {
@@ -657,6 +769,41 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     handleRequests(currentWindowId);
   }
 
+  /**
+   * Rescales the window counts when a reset window changes the window width, so that application windows and
+   * checkpoints keep spanning the same time.
+   *
+   * @param millis the window width carried by the reset window
+   */
+  protected void setWindowWidth(long millis)
+  {
+    if (windowWidthSchedule == null || millis <= 0 || millis == windowWidthMillis) {
+      return;
+    }
+    windowWidthMillis = millis;
+    long initialWidthMillis = windowWidthSchedule.getInitialWidth();
+    APPLICATION_WINDOW_COUNT = WindowWidthSchedule.scaleWindowCount(initialApplicationWindowCount, initialWidthMillis,
+        millis);
+    CHECKPOINT_WINDOW_COUNT = WindowWidthSchedule.scaleWindowCount(initialCheckpointWindowCount, initialWidthMillis,
+        millis);
+    DAG_CHECKPOINT_WINDOW_COUNT = WindowWidthSchedule.scaleWindowCount(initialDagCheckpointWindowCount,
+        initialWidthMillis, millis);
+    /* the width changes on the boundary of all windows, these only matter if the change was applied late */
+    applicationWindowCount = Math.min(applicationWindowCount, APPLICATION_WINDOW_COUNT - 1);
+    checkpointWindowCount = Math.min(checkpointWindowCount, CHECKPOINT_WINDOW_COUNT - 1);
+    dagCheckpointOffsetCount %= DAG_CHECKPOINT_WINDOW_COUNT;
+    logger.debug("Window width of {} is {}, application window count {}, checkpoint window count {}", operator,
+        millis, APPLICATION_WINDOW_COUNT, CHECKPOINT_WINDOW_COUNT);
+  }
+
+  protected long getNextWindowId(long windowId)
+  {
+    if (windowWidthSchedule == null) {
+      return WindowGenerator.getAheadWindowId(windowId, firstWindowMillis, windowWidthMillis, 1);
+    }
+    return windowWidthSchedule.getNextWindowId(windowId);
+  }
+
   public void deactivate()
   {
     if (operator instanceof Operator.ActivationListener) {
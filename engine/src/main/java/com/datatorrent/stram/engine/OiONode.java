@@ -30,6 +30,8 @@ import com.datatorrent.api.Operator.InputPort;
 import com.datatorrent.api.Sink;
 import com.datatorrent.stram.plan.logical.Operators.PortContextPair;
 import com.datatorrent.stram.stream.OiOStream;
+import com.datatorrent.stram.tuple.ResetWindowTuple;
+import com.datatorrent.stram.tuple.TraceTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
 /**
@@ -108,6 +110,7 @@ public class OiONode extends GenericNode
         case RESET_WINDOW:
           if (t.getWindowId() != lastResetWindowId) {
             lastResetWindowId = t.getWindowId();
+            setWindowWidth(((ResetWindowTuple)t).getIntervalMillis());
             for (int s = sinks.length; s-- > 0;) {
               sinks[s].put(t);
             }
@@ -147,6 +150,10 @@ public class OiONode extends GenericNode
           }
           break;
 
+        case TRACE:
+          processTrace((TraceTuple)t);
+          break;
+
         default:
           throw new UnhandledException("Unrecognized Control Tuple", new IllegalArgumentException(t.toString()));
       }
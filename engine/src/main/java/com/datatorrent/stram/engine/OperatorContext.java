@@ -42,6 +42,7 @@ import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerSt
 public class OperatorContext extends BaseContext implements Context.OperatorContext
 {
   private Thread thread;
+  private CooperativeScheduler.Task task;
   private long lastProcessedWindowId;
   private final int id;
   // the size of the circular queue should be configurable. hardcoded to 1024 for now.
@@ -156,6 +157,61 @@ public class OperatorContext extends BaseContext implements Context.OperatorCont
     this.thread = thread;
   }
 
+  /**
+   * @return the task running the node when the container runs the node on its cooperative scheduler
+   */
+  public CooperativeScheduler.Task getTask()
+  {
+    return task;
+  }
+
+  public void setTask(CooperativeScheduler.Task task)
+  {
+    this.task = task;
+  }
+
+  /**
+   * @return true if the node was started and has not terminated yet
+   */
+  public boolean isAlive()
+  {
+    if (task != null) {
+      return !task.isTerminated();
+    }
+    return thread != null && thread.isAlive();
+  }
+
+  /**
+   * @return true if the node was started and has terminated
+   */
+  public boolean isTerminated()
+  {
+    if (task != null) {
+      return task.isTerminated();
+    }
+    return thread != null && thread.getState() == Thread.State.TERMINATED;
+  }
+
+  /**
+   * Waits for the node to terminate, then interrupts it if it is still running.
+   *
+   * @param millis maximum time to wait
+   * @throws InterruptedException
+   */
+  public void awaitTermination(long millis) throws InterruptedException
+  {
+    if (task != null) {
+      if (!task.awaitTermination(millis)) {
+        task.interrupt();
+      }
+    } else if (thread != null) {
+      thread.join(millis);
+      if (!thread.getState().equals(Thread.State.TERMINATED)) {
+        thread.interrupt();
+      }
+    }
+  }
+
   @SuppressWarnings("FieldNameHidesFieldInSuperclass")
   private static final long serialVersionUID = 2013060671427L;
   @SuppressWarnings("unused")
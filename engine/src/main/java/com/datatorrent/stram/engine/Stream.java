@@ -39,4 +39,16 @@ public interface Stream extends Component<StreamContext>, ActivationListener<Str
     public void setSink(String id, Sink<Object> sink);
   }
 
+  /**
+   * Stream which notifies the node consuming its tuples when it delivers them, so that a node which waits for input
+   * on the cooperative scheduler does not have to poll.
+   */
+  public interface SignalingStream extends Stream
+  {
+    /**
+     * @param signal run after tuples are delivered, null to not notify
+     */
+    public void setSignal(Runnable signal);
+  }
+
 }
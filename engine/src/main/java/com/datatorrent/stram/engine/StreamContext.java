@@ -50,6 +50,26 @@ public class StreamContext extends DefaultAttributeMap implements Context
   public static final Attribute<byte[]> BUFFER_SERVER_TOKEN = new Attribute<byte[]>(null, null);
   public static final Attribute<EventLoop> EVENT_LOOP = new Attribute<EventLoop>(null, null);
   public static final Attribute<StreamCodec<?>> CODEC = new Attribute<StreamCodec<?>>(new DefaultStatefulStreamCodec<Object>(), null);
+  /**
+   * Bytes of messages which the buffer server sends to the subscriber, or receives from the publisher, before they
+   * grant more, 0 if the stream does not use credits.
+   */
+  public static final Attribute<Integer> CREDIT_BYTES = new Attribute<Integer>(0);
+  /**
+   * Whether the publisher sends the payload tuples in batches, see
+   * {@link com.datatorrent.api.Context.PortContext#BUFFER_SERVER_BATCHING}.
+   */
+  public static final Attribute<Boolean> BATCHING = new Attribute<Boolean>(false);
+  /**
+   * Whether the publisher compresses the payload tuples in batches, see
+   * {@link com.datatorrent.api.Context.PortContext#BUFFER_SERVER_COMPRESSION}.
+   */
+  public static final Attribute<Boolean> COMPRESSION = new Attribute<Boolean>(false);
+  /**
+   * Whether some subscribers of the publisher receive only some partitions of the stream, in which case a batch of
+   * payload tuples holds a single partition.
+   */
+  public static final Attribute<Boolean> PARTITIONED_SINKS = new Attribute<Boolean>(false);
 
   @Override
   public AttributeMap getAttributes()
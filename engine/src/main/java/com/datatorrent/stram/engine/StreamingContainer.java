@@ -18,8 +18,8 @@
  */
 package com.datatorrent.stram.engine;
 
+import java.io.File;
 import java.io.IOException;
-import java.lang.Thread.State;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
@@ -40,6 +40,7 @@ import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +58,7 @@ import org.apache.log4j.DTLoggerFactory;
 import org.apache.log4j.LogManager;
 
 import com.datatorrent.api.Attribute;
+import com.datatorrent.api.Combiner;
 import com.datatorrent.api.Component;
 import com.datatorrent.api.Context;
 import com.datatorrent.api.DAG.Locality;
@@ -76,6 +78,7 @@ import com.datatorrent.bufferserver.storage.DiskStorage;
 import com.datatorrent.bufferserver.util.Codec;
 import com.datatorrent.common.util.ScheduledThreadPoolExecutor;
 import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.netlet.EventLoop;
 import com.datatorrent.netlet.util.Slice;
 import com.datatorrent.stram.ComponentContextPair;
 import com.datatorrent.stram.RecoverableRpcProxy;
@@ -117,6 +120,8 @@ import com.datatorrent.stram.stream.MuxStream;
 import com.datatorrent.stram.stream.OiOStream;
 import com.datatorrent.stram.stream.PartitionAwareSink;
 import com.datatorrent.stram.stream.PartitionAwareSinkForPersistence;
+import com.datatorrent.stram.stream.SharedMemoryPublisher;
+import com.datatorrent.stram.stream.SharedMemorySubscriber;
 
 import net.engio.mbassy.bus.MBassador;
 import net.engio.mbassy.bus.config.BusConfiguration;
@@ -154,10 +159,18 @@ public class StreamingContainer extends YarnContainerMain
    */
   private long firstWindowMillis;
   private int windowWidthMillis;
+  private WindowWidthSchedule windowWidthSchedule;
   private InetSocketAddress bufferServerAddress;
   private com.datatorrent.bufferserver.server.Server bufferServer;
   private int checkpointWindowCount;
   private boolean fastPublisherSubscriber;
+  private String sharedMemoryStreamPath;
+  private int sharedMemoryStreamBufferBytes;
+  private long sharedMemoryTimeoutMillis;
+  private int bufferServerCreditBytes;
+  private CooperativeScheduler scheduler;
+  private boolean virtualThreads;
+  private EventLoopPool eventLoopPool;
   private StreamingContainerContext containerContext;
   private List<StramToNodeRequest> nodeRequests;
   private final HashMap<String, Object> singletons;
@@ -199,12 +212,45 @@ public class StreamingContainer extends YarnContainerMain
     firstWindowMillis = ctx.startWindowMillis;
     windowWidthMillis = ctx.getValue(Context.DAGContext.STREAMING_WINDOW_SIZE_MILLIS);
     checkpointWindowCount = ctx.getValue(Context.DAGContext.CHECKPOINT_WINDOW_COUNT);
+    windowWidthSchedule = new WindowWidthSchedule(firstWindowMillis, windowWidthMillis);
 
     fastPublisherSubscriber = ctx.getValue(LogicalPlan.FAST_PUBLISHER_SUBSCRIBER);
+    sharedMemoryStreamPath = ctx.getValue(LogicalPlan.SHARED_MEMORY_STREAM_PATH);
+    sharedMemoryStreamBufferBytes = ctx.getValue(LogicalPlan.SHARED_MEMORY_STREAM_BUFFER_MB) * 1024 * 1024;
+    sharedMemoryTimeoutMillis = ctx.getValue(LogicalPlan.SHARED_MEMORY_ATTACH_TIMEOUT_MILLIS);
+    bufferServerCreditBytes = ctx.getValue(LogicalPlan.BUFFER_SERVER_CREDIT_BYTES);
+
+    int schedulerThreads = ctx.getValue(ContainerContext.COOPERATIVE_SCHEDULER_THREADS);
+    if (schedulerThreads > 0) {
+      logger.info("Running operators on a cooperative scheduler with {} threads", schedulerThreads);
+      int sliceMillis = ctx.getValue(LogicalPlan.COOPERATIVE_SCHEDULER_SLICE_MILLIS);
+      scheduler = new CooperativeScheduler(schedulerThreads, sliceMillis);
+    }
+
+    virtualThreads = ctx.getValue(LogicalPlan.VIRTUAL_THREADS);
+    if (virtualThreads) {
+      if (VirtualThreads.isSupported()) {
+        logger.info("Running operators on virtual threads");
+      } else {
+        logger.warn("Running operators on platform threads since the JVM does not support virtual threads");
+        virtualThreads = false;
+      }
+    }
 
     Map<Class<?>, Class<? extends StringCodec<?>>> codecs = ctx.getValue(Context.DAGContext.STRING_CODECS);
     StringCodecs.loadConverters(codecs);
 
+    int eventLoops = ctx.getValue(LogicalPlan.EVENT_LOOPS);
+    try {
+      eventLoopPool = new EventLoopPool(eventloop, eventLoops, ctx.getValue(LogicalPlan.EVENT_LOOP_ASSIGNMENT));
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to create event loops", ex);
+    }
+    eventLoopPool.start();
+    if (eventLoops > 1) {
+      logger.info("Serving streams on {} event loops", eventLoops);
+    }
+
     try {
       if (ctx.deployBufferServer) {
         eventloop.start();
@@ -228,8 +274,9 @@ public class StreamingContainer extends YarnContainerMain
         bufferServer.setAuthToken(ctx.getValue(StreamingContainerContext.BUFFER_SERVER_TOKEN));
         if (ctx.getValue(Context.DAGContext.BUFFER_SPOOLING)) {
           bufferServer.setSpoolStorage(new DiskStorage());
+          bufferServer.setSpoolLag(ctx.getValue(LogicalPlan.BUFFER_SERVER_SPOOL_LAG_MB) * 1024L * 1024L);
         }
-        SocketAddress bindAddr = bufferServer.run(eventloop);
+        SocketAddress bindAddr = bufferServer.run(eventloop, eventLoopPool.getEventLoops());
         logger.debug("Buffer server started: {}", bindAddr);
         this.bufferServerAddress = NetUtils.getConnectAddress(((InetSocketAddress)bindAddr));
       }
@@ -338,15 +385,15 @@ public class StreamingContainer extends YarnContainerMain
 
   public synchronized void deactivate()
   {
-    ArrayList<Thread> activeThreads = new ArrayList<Thread>();
+    ArrayList<OperatorContext> activeContexts = new ArrayList<OperatorContext>();
     ArrayList<Integer> activeOperators = new ArrayList<Integer>();
 
     for (Map.Entry<Integer, Node<?>> e : nodes.entrySet()) {
-      Thread t = e.getValue().context.getThread();
-      if (t == null || !t.isAlive()) {
+      OperatorContext context = e.getValue().context;
+      if (!context.isAlive()) {
         disconnectNode(e.getKey());
       } else {
-        activeThreads.add(t);
+        activeContexts.add(context);
         activeOperators.add(e.getKey());
         e.getValue().shutdown();
       }
@@ -354,11 +401,8 @@ public class StreamingContainer extends YarnContainerMain
 
     try {
       Iterator<Integer> iterator = activeOperators.iterator();
-      for (Thread t : activeThreads) {
-        t.join(1000);
-        if (!t.getState().equals(State.TERMINATED)) {
-          t.interrupt();
-        }
+      for (OperatorContext context : activeContexts) {
+        context.awaitTermination(1000);
         disconnectNode(iterator.next());
       }
     } catch (InterruptedException ex) {
@@ -370,8 +414,9 @@ public class StreamingContainer extends YarnContainerMain
     }
     activeGenerators.clear();
 
-    for (Stream stream : activeStreams.keySet()) {
-      stream.deactivate();
+    for (Map.Entry<Stream, StreamContext> e : activeStreams.entrySet()) {
+      e.getKey().deactivate();
+      releaseEventLoop(e.getValue());
     }
     activeStreams.clear();
   }
@@ -390,6 +435,7 @@ public class StreamingContainer extends YarnContainerMain
         if (activeStreams.remove(pair.component) != null) {
           pair.component.deactivate();
           eventBus.publish(new StreamDeactivationEvent(pair));
+          releaseEventLoop(pair.context);
         }
 
         if (pair.component instanceof Stream.MultiSinkCapableStream) {
@@ -406,6 +452,7 @@ public class StreamingContainer extends YarnContainerMain
                 if (activeStreams.remove(spair.component) != null) {
                   spair.component.deactivate();
                   eventBus.publish(new StreamDeactivationEvent(spair));
+                  releaseEventLoop(spair.context);
                 }
 
                 spair.component.teardown();
@@ -428,6 +475,7 @@ public class StreamingContainer extends YarnContainerMain
         if (activeStreams.remove(pair.component) != null) {
           pair.component.deactivate();
           eventBus.publish(new StreamDeactivationEvent(pair));
+          releaseEventLoop(pair.context);
         }
 
         pair.component.teardown();
@@ -470,6 +518,7 @@ public class StreamingContainer extends YarnContainerMain
         if (activeStreams.remove(muxpair.component) != null) {
           muxpair.component.deactivate();
           eventBus.publish(new StreamDeactivationEvent(muxpair));
+          releaseEventLoop(muxpair.context);
         }
         muxpair.component.teardown();
       } else {
@@ -535,14 +584,14 @@ public class StreamingContainer extends YarnContainerMain
       }
     }
 
-    ArrayList<Thread> joinList = new ArrayList<Thread>();
+    ArrayList<OperatorContext> joinList = new ArrayList<OperatorContext>();
     ArrayList<Integer> discoList = new ArrayList<Integer>();
     for (Integer operatorId : nodeList) {
-      Thread t = nodes.get(operatorId).context.getThread();
-      if (t == null || !t.isAlive()) {
+      OperatorContext context = nodes.get(operatorId).context;
+      if (!context.isAlive()) {
         disconnectNode(operatorId);
       } else {
-        joinList.add(t);
+        joinList.add(context);
         discoList.add(operatorId);
         nodes.get(operatorId).shutdown();
       }
@@ -550,11 +599,8 @@ public class StreamingContainer extends YarnContainerMain
 
     try {
       Iterator<Integer> iterator = discoList.iterator();
-      for (Thread t : joinList) {
-        t.join(1000);
-        if (!t.getState().equals(State.TERMINATED)) {
-          t.interrupt();
-        }
+      for (OperatorContext context : joinList) {
+        context.awaitTermination(1000);
         disconnectNode(iterator.next());
       }
       logger.info("Undeploy complete.");
@@ -591,6 +637,14 @@ public class StreamingContainer extends YarnContainerMain
       eventloop.stop();
     }
 
+    if (eventLoopPool != null) {
+      eventLoopPool.stop();
+    }
+
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+
     gens.clear();
   }
 
@@ -641,6 +695,10 @@ public class StreamingContainer extends YarnContainerMain
         }
       }
       msg.memoryMBFree = ((int)(Runtime.getRuntime().freeMemory() / (1024 * 1024)));
+      msg.windowWidthStartMillis = windowWidthSchedule.getWidthStartMillis(Long.MAX_VALUE);
+      if (eventLoopPool != null) {
+        msg.eventLoopUtilization = eventLoopPool.sampleUtilization();
+      }
       garbageCollectorMXBeans = ManagementFactory.getGarbageCollectorMXBeans();
       for (GarbageCollectorMXBean bean : garbageCollectorMXBeans) {
         msg.gcCollectionTime += bean.getCollectionTime();
@@ -667,12 +725,13 @@ public class StreamingContainer extends YarnContainerMain
           OperatorContext context = e.getValue().context;
           context.drainStats(hb.getOperatorStatsContainer());
 
-          if (context.getThread() == null || context.getThread().getState() != Thread.State.TERMINATED) {
+          if (!context.isTerminated()) {
             hb.setState(DeployState.ACTIVE);
           } else if (failedNodes.contains(hb.nodeId)) {
             hb.setState(DeployState.FAILED);
           } else {
-            logger.debug("Reporting SHUTDOWN state because thread is {} and failedNodes is {}", context.getThread(), failedNodes);
+            logger.debug("Reporting SHUTDOWN state because thread is {} and failedNodes is {}",
+                context.getTask() == null ? context.getThread() : context.getTask(), failedNodes);
             hb.setState(DeployState.SHUTDOWN);
           }
 
@@ -730,8 +789,7 @@ public class StreamingContainer extends YarnContainerMain
         continue;
       }
 
-      Thread thread = node.context.getThread();
-      if (thread == null || !thread.isAlive()) {
+      if (!node.context.isAlive()) {
         if (flagInvalid) {
           logger.warn("Received request with invalid operator id {} ({})", req.getOperatorId(), req);
           req.setDeleted(true);
@@ -755,12 +813,15 @@ public class StreamingContainer extends YarnContainerMain
       nodeRequests = rsp.nodeRequests;
     }
 
+    if (rsp.windowWidths != null) {
+      windowWidthSchedule.update(rsp.windowWidths);
+    }
+
     if (rsp.committedWindowId != lastCommittedWindowId) {
       lastCommittedWindowId = rsp.committedWindowId;
       OperatorRequest nr = null;
       for (Entry<Integer, Node<?>> e : nodes.entrySet()) {
-        final Thread thread = e.getValue().context.getThread();
-        if (thread == null || !thread.isAlive()) {
+        if (!e.getValue().context.isAlive()) {
           continue;
         }
 
@@ -896,6 +957,14 @@ public class StreamingContainer extends YarnContainerMain
       node.applicationWindowCount = ndi.checkpoint.applicationWindowCount;
       node.firstWindowMillis = firstWindowMillis;
       node.windowWidthMillis = windowWidthMillis;
+      node.windowWidthSchedule = windowWidthSchedule;
+
+      for (OperatorDeployInfo.OutputDeployInfo nodi : ndi.outputs) {
+        Combiner<?> combiner = getValue(PortContext.COMBINER, nodi, null);
+        if (combiner != null) {
+          node.setCombiner(nodi.portName, combiner);
+        }
+      }
 
       node.setId(ndi.id);
       nodes.put(ndi.id, node);
@@ -903,8 +972,14 @@ public class StreamingContainer extends YarnContainerMain
     }
   }
 
+  private File getSharedMemoryStreamFile(int bufferServerPort, String connIdentifier)
+  {
+    return new File(sharedMemoryStreamPath, bufferServerPort + "-" + connIdentifier);
+  }
+
   private HashMap.SimpleEntry<String, ComponentContextPair<Stream, StreamContext>> deployBufferServerPublisher(
-    String connIdentifier, StreamCodec<?> streamCodec, long finishedWindowId, int queueCapacity, OperatorDeployInfo.OutputDeployInfo nodi)
+    String connIdentifier, Integer streamCodecIdentifier, StreamCodec<?> streamCodec, long finishedWindowId,
+    int queueCapacity, OperatorDeployInfo.OutputDeployInfo nodi)
     throws UnknownHostException
   {
     String sinkIdentifier = "tcp://".concat(nodi.bufferServerHost).concat(":").concat(String.valueOf(nodi.bufferServerPort)).concat("/").concat(connIdentifier);
@@ -915,15 +990,29 @@ public class StreamingContainer extends YarnContainerMain
     bssc.setSinkId(sinkIdentifier);
     bssc.setFinishedWindowId(finishedWindowId);
     bssc.put(StreamContext.CODEC, streamCodec);
-    bssc.put(StreamContext.EVENT_LOOP, eventloop);
+    bssc.put(StreamContext.EVENT_LOOP, assignEventLoop(connIdentifier));
     bssc.setBufferServerAddress(InetSocketAddress.createUnresolved(nodi.bufferServerHost, nodi.bufferServerPort));
     bssc.put(StreamContext.BUFFER_SERVER_TOKEN, nodi.bufferServerToken);
+    bssc.put(StreamContext.CREDIT_BYTES, bufferServerCreditBytes);
+    bssc.put(StreamContext.BATCHING, getValue(PortContext.BUFFER_SERVER_BATCHING, nodi, null));
+    bssc.put(StreamContext.COMPRESSION, getValue(PortContext.BUFFER_SERVER_COMPRESSION, nodi, null));
+    bssc.put(StreamContext.PARTITIONED_SINKS, nodi.partitionedStreamCodecs.contains(streamCodecIdentifier));
     InetAddress inetAddress = bssc.getBufferServerAddress().getAddress();
     if (inetAddress != null && NetUtils.isLocalAddress(inetAddress)) {
       bssc.setBufferServerAddress(new InetSocketAddress(InetAddress.getByName(null), nodi.bufferServerPort));
     }
 
-    Stream publisher = fastPublisherSubscriber ? new FastPublisher(connIdentifier, queueCapacity * 256) : new BufferServerPublisher(connIdentifier, queueCapacity);
+    Stream publisher;
+    ArrayList<String> sharedMemorySinks = nodi.sharedMemorySinks.get(streamCodecIdentifier);
+    if (fastPublisherSubscriber) {
+      publisher = new FastPublisher(connIdentifier, queueCapacity * 256);
+    } else if (sharedMemorySinks != null && sharedMemoryStreamPath != null) {
+      publisher = new SharedMemoryPublisher(connIdentifier, queueCapacity,
+          getSharedMemoryStreamFile(nodi.bufferServerPort, connIdentifier), sharedMemoryStreamBufferBytes,
+          sharedMemorySinks, sharedMemoryTimeoutMillis);
+    } else {
+      publisher = new BufferServerPublisher(connIdentifier, queueCapacity);
+    }
     return new HashMap.SimpleEntry<String, ComponentContextPair<Stream, StreamContext>>(sinkIdentifier, new ComponentContextPair<Stream, StreamContext>(publisher, bssc));
   }
 
@@ -963,7 +1052,8 @@ public class StreamingContainer extends YarnContainerMain
           String connIdentifier = sourceIdentifier + Component.CONCAT_SEPARATOR + streamCodecIdentifier;
 
           SimpleEntry<String, ComponentContextPair<Stream, StreamContext>> deployBufferServerPublisher =
-            deployBufferServerPublisher(connIdentifier, streamCodec, checkpointWindowId, queueCapacity, nodi);
+            deployBufferServerPublisher(connIdentifier, streamCodecIdentifier, streamCodec, checkpointWindowId,
+              queueCapacity, nodi);
           newStreams.put(sourceIdentifier, deployBufferServerPublisher.getValue());
           node.connectOutputPort(nodi.portName, deployBufferServerPublisher.getValue().component);
         } else {
@@ -1002,7 +1092,8 @@ public class StreamingContainer extends YarnContainerMain
               String connIdentifier = sourceIdentifier + Component.CONCAT_SEPARATOR + streamCodecIdentifier;
 
               SimpleEntry<String, ComponentContextPair<Stream, StreamContext>> deployBufferServerPublisher =
-                deployBufferServerPublisher(connIdentifier, streamCodec, checkpointWindowId, queueCapacity, nodi);
+                deployBufferServerPublisher(connIdentifier, streamCodecIdentifier, streamCodec, checkpointWindowId,
+              queueCapacity, nodi);
               newStreams.put(deployBufferServerPublisher.getKey(), deployBufferServerPublisher.getValue());
 
               String sinkIdentifier = pair.context.getSinkId();
@@ -1112,19 +1203,28 @@ public class StreamingContainer extends YarnContainerMain
               context.setBufferServerAddress(new InetSocketAddress(InetAddress.getByName(null), nidi.bufferServerPort));
             }
             context.put(StreamContext.BUFFER_SERVER_TOKEN, nidi.bufferServerToken);
+            context.put(StreamContext.CREDIT_BYTES, bufferServerCreditBytes);
             String connIdentifier = sourceIdentifier + Component.CONCAT_SEPARATOR + streamCodecIdentifier;
             context.setPortId(nidi.portName);
             context.put(StreamContext.CODEC, streamCodec);
-            context.put(StreamContext.EVENT_LOOP, eventloop);
+            context.put(StreamContext.EVENT_LOOP, assignEventLoop(sinkIdentifier));
             context.setPartitions(nidi.partitionMask, nidi.partitionKeys);
             //context.setSourceId(sourceIdentifier);
             context.setSourceId(connIdentifier);
             context.setSinkId(sinkIdentifier);
             context.setFinishedWindowId(checkpoint.windowId);
 
-            BufferServerSubscriber subscriber = fastPublisherSubscriber
-              ? new FastSubscriber("tcp://".concat(nidi.bufferServerHost).concat(":").concat(String.valueOf(nidi.bufferServerPort)).concat("/").concat(connIdentifier), queueCapacity)
-              : new BufferServerSubscriber("tcp://".concat(nidi.bufferServerHost).concat(":").concat(String.valueOf(nidi.bufferServerPort)).concat("/").concat(connIdentifier), queueCapacity);
+            String subscriberId = "tcp://".concat(nidi.bufferServerHost).concat(":")
+                .concat(String.valueOf(nidi.bufferServerPort)).concat("/").concat(connIdentifier);
+            BufferServerSubscriber subscriber;
+            if (fastPublisherSubscriber) {
+              subscriber = new FastSubscriber(subscriberId, queueCapacity);
+            } else if (nidi.sharedMemory && sharedMemoryStreamPath != null) {
+              subscriber = new SharedMemorySubscriber(subscriberId, queueCapacity,
+                  getSharedMemoryStreamFile(nidi.bufferServerPort, connIdentifier), sharedMemoryTimeoutMillis);
+            } else {
+              subscriber = new BufferServerSubscriber(subscriberId, queueCapacity);
+            }
             if (streamCodec instanceof StreamCodecWrapperForPersistance) {
               subscriber.acquireReservoirForPersistStream(sinkIdentifier, queueCapacity, streamCodec);
             }
@@ -1271,14 +1371,15 @@ public class StreamingContainer extends YarnContainerMain
     /**
      * let's make sure that we send the same window Ids with the same reset windows.
      */
-    windowGenerator.setResetWindow(firstWindowMillis);
-
-    long millisAtFirstWindow = WindowGenerator.getNextWindowMillis(finishedWindowId, firstWindowMillis, windowWidthMillis);
+    long millisAtFirstWindow = windowWidthSchedule.getNextWindowMillis(finishedWindowId);
+    windowGenerator.setResetWindow(windowWidthSchedule.getWidthStartMillis(millisAtFirstWindow));
     windowGenerator.setFirstWindow(millisAtFirstWindow);
-    windowGenerator.setWindowWidth(windowWidthMillis);
+    windowGenerator.setWindowWidth(windowWidthSchedule.getWidth(millisAtFirstWindow));
 
-    long windowCount = WindowGenerator.getWindowCount(millisAtFirstWindow, firstWindowMillis, windowWidthMillis);
-    windowGenerator.setCheckpointCount(checkpointWindowCount, (int)(windowCount % checkpointWindowCount));
+    long windowCount = windowWidthSchedule.getWindowCount(millisAtFirstWindow);
+    int count = windowWidthSchedule.scaleWindowCount(checkpointWindowCount, millisAtFirstWindow);
+    windowGenerator.setCheckpointCount(count, (int)(windowCount % count));
+    windowGenerator.setWindowWidthSchedule(windowWidthSchedule, checkpointWindowCount);
     return windowGenerator;
   }
 
@@ -1357,95 +1458,84 @@ public class StreamingContainer extends YarnContainerMain
           .append(':')
           .append(node.getOperator().getClass().getSimpleName())
           .toString();
-      final Thread thread = new Thread(name)
-      {
-        @Override
-        public void run()
+      final NodeLifecycle lifecycle = new NodeLifecycle(ndi, nodeMap, signal);
+      if (scheduler != null && node instanceof GenericNode) {
+        final GenericNode genericNode = (GenericNode)node;
+        node.context.setTask(scheduler.submit(name, new CooperativeScheduler.Job()
         {
-          HashSet<OperatorDeployInfo> setOperators = new HashSet<OperatorDeployInfo>();
-          OperatorDeployInfo currentdi = ndi;
-          try {
-            /* primary operator initialization */
-            setupNode(currentdi);
-            setOperators.add(currentdi);
-
-            /* lets go for OiO operator initialization */
-            List<Integer> oioNodeIdList = oioGroups.get(ndi.id);
-            if (oioNodeIdList != null) {
-              for (Integer oioNodeId : oioNodeIdList) {
-                currentdi = nodeMap.get(oioNodeId);
-                setupNode(currentdi);
-                setOperators.add(currentdi);
-              }
+          private boolean started;
+
+          @Override
+          public long turn(long sliceNanos) throws Exception
+          {
+            if (!started) {
+              started = true;
+              lifecycle.setup();
+              genericNode.startTurns();
             }
+            return genericNode.runTurn(sliceNanos);
+          }
 
-            currentdi = null;
-
-            for (int i = setOperators.size(); i-- > 0; ) {
-              signal.countDown();
-            }
+          @Override
+          public boolean hasWork()
+          {
+            return genericNode.hasInput();
+          }
 
-            node.run(); /* this is a blocking call */
-          } catch (Error error) {
-            int[] operators;
-            if (currentdi == null) {
-              logger.error("Voluntary container termination due to an error in operator set {}.", setOperators, error);
-              operators = new int[setOperators.size()];
-              int i = 0;
-              for (Iterator<OperatorDeployInfo> it = setOperators.iterator(); it.hasNext(); i++) {
-                operators[i] = it.next().id;
-              }
-            } else {
-              logger.error("Voluntary container termination due to an error in operator {}.", currentdi, error);
-              operators = new int[]{currentdi.id};
-            }
-            umbilical.reportError(containerId, operators, "Voluntary container termination due to an error. " + ExceptionUtils.getStackTrace(error));
-            System.exit(1);
-          } catch (Exception ex) {
-            if (currentdi == null) {
-              failedNodes.add(ndi.id);
-              logger.error("Operator set {} stopped running due to an exception.", setOperators, ex);
-              int[] operators = new int[]{ndi.id};
-              umbilical.reportError(containerId, operators, "Stopped running due to an exception. " + ExceptionUtils.getStackTrace(ex));
-            } else {
-              failedNodes.add(currentdi.id);
-              logger.error("Abandoning deployment of operator {} due to setup failure.", currentdi, ex);
-              int[] operators = new int[]{currentdi.id};
-              umbilical.reportError(containerId, operators, "Abandoning deployment due to setup failure. " + ExceptionUtils.getStackTrace(ex));
-            }
-          } finally {
-            if (setOperators.contains(ndi)) {
-              try {
-                teardownNode(ndi);
-              } catch (Exception ex) {
-                failedNodes.add(ndi.id);
-                logger.error("Shutdown of operator {} failed due to an exception.", ndi, ex);
+          @Override
+          public void terminated(Throwable cause)
+          {
+            try {
+              if (cause instanceof Error) {
+                lifecycle.failed((Error)cause);
+              } else if (cause != null) {
+                lifecycle.failed(cause);
               }
-            } else {
-              signal.countDown();
+            } finally {
+              lifecycle.teardown();
             }
+          }
 
-            List<Integer> oioNodeIdList = oioGroups.get(ndi.id);
-            if (oioNodeIdList != null) {
-              for (Integer oioNodeId : oioNodeIdList) {
-                OperatorDeployInfo oiodi = nodeMap.get(oioNodeId);
-                if (setOperators.contains(oiodi)) {
-                  try {
-                    teardownNode(oiodi);
-                  } catch (Exception ex) {
-                    failedNodes.add(oiodi.id);
-                    logger.error("Shutdown of operator {} failed due to an exception.", oiodi, ex);
-                  }
-                } else {
-                  signal.countDown();
-                }
-              }
+        }));
+        signalOnDelivery(ndi, newStreams, node.context.getTask().signal);
+      } else {
+        Runnable runnable = new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            try {
+              lifecycle.setup();
+              node.run(); /* this is a blocking call */
+            } catch (Error error) {
+              lifecycle.failed(error);
+            } catch (Exception ex) {
+              lifecycle.failed(ex);
+            } finally {
+              lifecycle.teardown();
             }
           }
+        };
+        final Thread thread;
+        if (virtualThreads) {
+          thread = VirtualThreads.newThread(name, runnable);
+          if (node instanceof GenericNode) {
+            ((GenericNode)node).setParkWhenIdle(true);
+            signalOnDelivery(ndi, newStreams, new Runnable()
+            {
+              @Override
+              public void run()
+              {
+                LockSupport.unpark(thread);
+              }
+            });
+          }
+        } else {
+          thread = new Thread(runnable, name);
         }
-      };
-      node.context.setThread(thread);
-      thread.start();
+        node.context.setThread(thread);
+        thread.start();
+      }
     }
 
     /**
@@ -1473,6 +1563,143 @@ public class StreamingContainer extends YarnContainerMain
     }
   }
 
+  private EventLoop assignEventLoop(String streamId)
+  {
+    return eventLoopPool == null ? eventloop : eventLoopPool.assign(streamId);
+  }
+
+  private void releaseEventLoop(StreamContext context)
+  {
+    if (eventLoopPool != null) {
+      eventLoopPool.release(context.get(StreamContext.EVENT_LOOP));
+    }
+  }
+
+  /**
+   * Lets the streams delivering tuples to the node wake it up when it runs on the cooperative scheduler or parks on a
+   * virtual thread.
+   */
+  private void signalOnDelivery(OperatorDeployInfo ndi,
+      Map<String, ComponentContextPair<Stream, StreamContext>> newStreams, Runnable signal)
+  {
+    for (OperatorDeployInfo.InputDeployInfo nidi : ndi.inputs) {
+      String sinkIdentifier = Integer.toString(ndi.id).concat(Component.CONCAT_SEPARATOR).concat(nidi.portName);
+      ComponentContextPair<Stream, StreamContext> pair = newStreams.get(sinkIdentifier);
+      if (pair != null && pair.component instanceof Stream.SignalingStream) {
+        ((Stream.SignalingStream)pair.component).setSignal(signal);
+      }
+    }
+  }
+
+  /**
+   * Sets up a node along with the nodes in its thread local group, reports its failures and tears it down, on the
+   * thread of the node or on the cooperative scheduler.
+   */
+  private class NodeLifecycle
+  {
+    private final OperatorDeployInfo ndi;
+    private final Map<Integer, OperatorDeployInfo> nodeMap;
+    private final CountDownLatch signal;
+    private final HashSet<OperatorDeployInfo> setOperators = new HashSet<OperatorDeployInfo>();
+    private OperatorDeployInfo currentdi;
+
+    NodeLifecycle(OperatorDeployInfo ndi, Map<Integer, OperatorDeployInfo> nodeMap, CountDownLatch signal)
+    {
+      this.ndi = ndi;
+      this.nodeMap = nodeMap;
+      this.signal = signal;
+    }
+
+    void setup() throws Exception
+    {
+      currentdi = ndi;
+      /* primary operator initialization */
+      setupNode(currentdi);
+      setOperators.add(currentdi);
+
+      /* lets go for OiO operator initialization */
+      List<Integer> oioNodeIdList = oioGroups.get(ndi.id);
+      if (oioNodeIdList != null) {
+        for (Integer oioNodeId : oioNodeIdList) {
+          currentdi = nodeMap.get(oioNodeId);
+          setupNode(currentdi);
+          setOperators.add(currentdi);
+        }
+      }
+
+      currentdi = null;
+
+      for (int i = setOperators.size(); i-- > 0; ) {
+        signal.countDown();
+      }
+    }
+
+    void failed(Error error)
+    {
+      int[] operators;
+      if (currentdi == null) {
+        logger.error("Voluntary container termination due to an error in operator set {}.", setOperators, error);
+        operators = new int[setOperators.size()];
+        int i = 0;
+        for (Iterator<OperatorDeployInfo> it = setOperators.iterator(); it.hasNext(); i++) {
+          operators[i] = it.next().id;
+        }
+      } else {
+        logger.error("Voluntary container termination due to an error in operator {}.", currentdi, error);
+        operators = new int[]{currentdi.id};
+      }
+      umbilical.reportError(containerId, operators, "Voluntary container termination due to an error. " + ExceptionUtils.getStackTrace(error));
+      System.exit(1);
+    }
+
+    void failed(Throwable ex)
+    {
+      if (currentdi == null) {
+        failedNodes.add(ndi.id);
+        logger.error("Operator set {} stopped running due to an exception.", setOperators, ex);
+        int[] operators = new int[]{ndi.id};
+        umbilical.reportError(containerId, operators, "Stopped running due to an exception. " + ExceptionUtils.getStackTrace(ex));
+      } else {
+        failedNodes.add(currentdi.id);
+        logger.error("Abandoning deployment of operator {} due to setup failure.", currentdi, ex);
+        int[] operators = new int[]{currentdi.id};
+        umbilical.reportError(containerId, operators, "Abandoning deployment due to setup failure. " + ExceptionUtils.getStackTrace(ex));
+      }
+    }
+
+    void teardown()
+    {
+      if (setOperators.contains(ndi)) {
+        try {
+          teardownNode(ndi);
+        } catch (Exception ex) {
+          failedNodes.add(ndi.id);
+          logger.error("Shutdown of operator {} failed due to an exception.", ndi, ex);
+        }
+      } else {
+        signal.countDown();
+      }
+
+      List<Integer> oioNodeIdList = oioGroups.get(ndi.id);
+      if (oioNodeIdList != null) {
+        for (Integer oioNodeId : oioNodeIdList) {
+          OperatorDeployInfo oiodi = nodeMap.get(oioNodeId);
+          if (setOperators.contains(oiodi)) {
+            try {
+              teardownNode(oiodi);
+            } catch (Exception ex) {
+              failedNodes.add(oiodi.id);
+              logger.error("Shutdown of operator {} failed due to an exception.", oiodi, ex);
+            }
+          } else {
+            signal.countDown();
+          }
+        }
+      }
+    }
+
+  }
+
   private void groupInputStreams(HashMap<String, ArrayList<String>> groupedInputStreams, OperatorDeployInfo ndi)
   {
     for (OperatorDeployInfo.InputDeployInfo nidi : ndi.inputs) {
@@ -1515,7 +1742,7 @@ public class StreamingContainer extends YarnContainerMain
         temp = containerContext.getValue(OperatorContext.CHECKPOINT_WINDOW_COUNT);
       }
       int lCheckpointWindowCount = (int)(windowCount % temp);
-      checkpoint = new Checkpoint(WindowGenerator.getWindowId(now, firstWindowMillis, windowWidthMillis), appWindowCount, lCheckpointWindowCount);
+      checkpoint = new Checkpoint(windowWidthSchedule.getWindowId(now), appWindowCount, lCheckpointWindowCount);
       logger.debug("using {} on {} at {}", ProcessingMode.AT_MOST_ONCE, ndi.name, checkpoint);
     } else {
       checkpoint = ndi.checkpoint;
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates virtual threads on JVMs which support them, Java 21 and later.
+ *
+ * The engine is compiled for older releases, so the thread builder is looked up reflectively. Operators on virtual
+ * threads block and sleep by parking the virtual thread, which releases the carrier thread to the other operators, so
+ * a container can host many more operators than it could afford platform threads with their stacks.
+ *
+ * A virtual thread which blocks inside a monitor, or waits to enter a contended one, stays pinned to its carrier. The
+ * nodes and the reservoirs and schedules they use on every window therefore coordinate with the other threads through
+ * locks or volatile publication rather than monitors. The fast publisher still hands its buffers over to the event
+ * loop in short synchronized blocks, which may briefly pin the operators writing to it.
+ */
+public class VirtualThreads
+{
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+  private static final Method OF_VIRTUAL;
+  private static final Method NAME;
+  private static final Method UNSTARTED;
+
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method unstarted = null;
+    try {
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      name = builder.getMethod("name", String.class);
+      unstarted = builder.getMethod("unstarted", Runnable.class);
+    } catch (ClassNotFoundException | NoSuchMethodException ex) {
+      logger.debug("Virtual threads are not supported by this JVM.", ex);
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    UNSTARTED = unstarted;
+  }
+
+  private VirtualThreads()
+  {
+  }
+
+  public static boolean isSupported()
+  {
+    return UNSTARTED != null;
+  }
+
+  /**
+   * Creates a virtual thread which is not started yet.
+   *
+   * @param name name of the thread
+   * @param runnable work of the thread
+   * @return the thread
+   * @throws UnsupportedOperationException if the JVM does not support virtual threads
+   */
+  public static Thread newThread(String name, Runnable runnable)
+  {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("Virtual threads require Java 21 or later.");
+    }
+    try {
+      Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+      return (Thread)UNSTARTED.invoke(builder, runnable);
+    } catch (IllegalAccessException ex) {
+      throw new UnsupportedOperationException(ex);
+    } catch (InvocationTargetException ex) {
+      throw new RuntimeException(ex.getCause());
+    }
+  }
+}
@@ -20,14 +20,16 @@ package com.datatorrent.stram.engine;
 
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.datatorrent.bufferserver.packet.MessageType;
 import com.datatorrent.common.util.ScheduledExecutorService;
 import com.datatorrent.netlet.util.CircularBuffer;
+import com.datatorrent.stram.tuple.BeginWindowTuple;
+import com.datatorrent.stram.tuple.CheckpointTuple;
 import com.datatorrent.stram.tuple.EndWindowTuple;
 import com.datatorrent.stram.tuple.ResetWindowTuple;
 import com.datatorrent.stram.tuple.Tuple;
@@ -62,6 +64,10 @@ public class WindowGenerator extends MuxReservoir implements Stream, Runnable
   private long resetWindowMillis;
   private int checkPointWindowCount;
   private int checkpointCount = 60; /* default checkpointing after 60 windows */
+  private WindowWidthSchedule windowWidthSchedule;
+  private int initialCheckpointCount;
+  private volatile int scheduleGeneration;
+  private ScheduledFuture<?> scheduledWindows;
 
 
   public WindowGenerator(ScheduledExecutorService service, int capacity)
@@ -89,7 +95,7 @@ public class WindowGenerator extends MuxReservoir implements Stream, Runnable
     //logger.info("generating reset -> begin {}", Codec.getStringWindowId(baseSeconds));
 
     queue.put(new ResetWindowTuple(baseSeconds | windowWidthMillis));
-    queue.put(new Tuple(MessageType.BEGIN_WINDOW, baseSeconds | windowId));
+    queue.put(BeginWindowTuple.getTuple(baseSeconds | windowId));
   }
 
   /**
@@ -98,22 +104,47 @@ public class WindowGenerator extends MuxReservoir implements Stream, Runnable
    */
   private void endCurrentBeginNewWindow() throws InterruptedException
   {
-    queue.put(new EndWindowTuple(baseSeconds | windowId));
+    queue.put(EndWindowTuple.getTuple(baseSeconds | windowId));
     if (++checkPointWindowCount == checkpointCount) {
-      queue.put(new Tuple(MessageType.CHECKPOINT, baseSeconds | windowId));
+      queue.put(CheckpointTuple.getTuple(baseSeconds | windowId));
       checkPointWindowCount = 0;
     }
 
-    if (windowId == MAX_WINDOW_ID) {
+    if (windowWidthSchedule != null
+        && windowWidthSchedule.getWidth(currentWindowMillis + windowWidthMillis) != windowWidthMillis) {
+      changeWindowWidth();
+    }
+    else if (windowId == MAX_WINDOW_ID) {
       advanceWindow();
       run();
     }
     else {
       advanceWindow();
-      queue.put(new Tuple(MessageType.BEGIN_WINDOW, baseSeconds | windowId));
+      queue.put(BeginWindowTuple.getTuple(baseSeconds | windowId));
     }
   }
 
+  /**
+   * Starts the windows with the width which the schedule sets at the end of the current window. The new width starts
+   * with a reset window at the time the schedule changes it. In case the change is noticed late the windows continue
+   * on the grid of the new width, so they get the same ids as in other containers.
+   */
+  private void changeWindowWidth() throws InterruptedException
+  {
+    long endMillis = currentWindowMillis + windowWidthMillis;
+    long startMillis = windowWidthSchedule.getWidthStartMillis(endMillis);
+    int width = windowWidthSchedule.getWidth(endMillis);
+    logger.info("Changing window width from {} to {} at {}", windowWidthMillis, width, startMillis);
+
+    windowWidthMillis = width;
+    resetWindowMillis = startMillis;
+    currentWindowMillis = startMillis + (endMillis - startMillis + width - 1) / width * width;
+    checkpointCount = windowWidthSchedule.scaleWindowCount(initialCheckpointCount, startMillis);
+    checkPointWindowCount = (int)(windowWidthSchedule.getWindowCount(currentWindowMillis) % checkpointCount);
+    resetBeginNewWindow();
+    scheduleWindows(ses.getCurrentTimeMillis());
+  }
+
   @Override
   public final void run()
   {
@@ -150,22 +181,39 @@ public class WindowGenerator extends MuxReservoir implements Stream, Runnable
     checkPointWindowCount = offset;
   }
 
+  /**
+   * Sets the schedule which changes the window width while the windows are generated.
+   *
+   * @param schedule the window width schedule
+   * @param checkpointWindowCount the checkpoint window count in units of the initial window width of the schedule
+   */
+  public void setWindowWidthSchedule(WindowWidthSchedule schedule, int checkpointWindowCount)
+  {
+    windowWidthSchedule = schedule;
+    initialCheckpointCount = checkpointWindowCount;
+  }
+
   @Override
   public void setup(StreamContext context)
   {
     logger.info("WindowGenerator::setup does not do anything useful, please use setFirstWindow/setResetWindow/setWindowWidth do set properties.");
   }
 
-  @Override
-  public void activate(StreamContext context)
+  /**
+   * Schedules the end of the current window and the windows after it at the current window width. Windows scheduled
+   * for an earlier width are not generated any more.
+   */
+  private void scheduleWindows(long currentTms)
   {
-    currentWindowMillis = firstWindowMillis;
-
+    final int generation = ++scheduleGeneration;
     Runnable subsequentRun = new Runnable()
     {
       @Override
       public void run()
       {
+        if (generation != scheduleGeneration) {
+          return;
+        }
         try {
           endCurrentBeginNewWindow();
         }
@@ -176,6 +224,18 @@ public class WindowGenerator extends MuxReservoir implements Stream, Runnable
 
     };
 
+    if (scheduledWindows != null) {
+      scheduledWindows.cancel(false);
+    }
+    scheduledWindows = ses.scheduleAtFixedRate(subsequentRun, currentWindowMillis - currentTms + windowWidthMillis,
+        windowWidthMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void activate(StreamContext context)
+  {
+    currentWindowMillis = firstWindowMillis;
+
     final long currentTms = ses.getCurrentTimeMillis();
     if (currentWindowMillis < currentTms) {
       logger.info("Catching up from {} to {}", currentWindowMillis, currentTms);
@@ -205,7 +265,7 @@ public class WindowGenerator extends MuxReservoir implements Stream, Runnable
       ses.schedule(this, currentWindowMillis - currentTms, TimeUnit.MILLISECONDS);
     }
 
-    ses.scheduleAtFixedRate(subsequentRun, currentWindowMillis - currentTms + windowWidthMillis, windowWidthMillis, TimeUnit.MILLISECONDS);
+    scheduleWindows(currentTms);
   }
 
   @Override
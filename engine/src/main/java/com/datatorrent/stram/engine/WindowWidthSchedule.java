@@ -0,0 +1,223 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The streaming window widths of an application over time.<p>
+ * <br>
+ * The schedule starts with the configured window width at the start window of the application. Every later entry
+ * changes the width from the given time on. The window generators start a new range of window ids with a reset window
+ * at that time, just like at the start window, so the window ids before and after the change can be converted to wall
+ * clock time and back. A change must not share the base seconds of its window ids with the windows before it. While
+ * the schedule has a single entry all conversions are the same as the ones of {@link WindowGenerator}.<br>
+ * <br>
+ * Window counts configured for operators and for checkpointing are in units of the initial window width. Counts
+ * larger than one are scaled to keep their span of wall clock time, a count of one always means a single streaming
+ * window whatever its width.<br>
+ * <br>
+ * The schedule is read by the operators on every window and changed rarely by the heartbeat. Changes copy the
+ * schedule and publish the copy, so readers never lock, which would pin operators running on virtual threads to their
+ * carrier threads.<br>
+ */
+public class WindowWidthSchedule implements Serializable
+{
+  private volatile TreeMap<Long, Integer> widths = new TreeMap<Long, Integer>();
+  private final long startMillis;
+  private final int initialWidthMillis;
+
+  public WindowWidthSchedule(long startMillis, int widthMillis)
+  {
+    this.startMillis = startMillis;
+    this.initialWidthMillis = widthMillis;
+    widths.put(startMillis, widthMillis);
+  }
+
+  /**
+   * Changes the window width from the given time on. The time has to be in a later second than all earlier changes.
+   *
+   * @param millis time of the first window with the new width
+   * @param widthMillis the new window width
+   */
+  public synchronized void setWidth(long millis, int widthMillis)
+  {
+    if (millis / 1000 <= widths.lastKey() / 1000) {
+      throw new IllegalArgumentException("Window width change at " + millis + " is not in a later second than "
+          + widths.lastKey());
+    }
+    if (widthMillis > WindowGenerator.MAX_WINDOW_WIDTH || widthMillis < 1) {
+      throw new IllegalArgumentException("Window width " + widthMillis + " is invalid");
+    }
+    TreeMap<Long, Integer> copy = new TreeMap<Long, Integer>(widths);
+    copy.put(millis, widthMillis);
+    widths = copy;
+  }
+
+  /**
+   * Adds the changes of the given schedule which are not known yet.
+   *
+   * @param widths the window widths by the time they take effect
+   */
+  public synchronized void update(SortedMap<Long, Integer> widths)
+  {
+    for (Map.Entry<Long, Integer> entry : widths.tailMap(this.widths.lastKey() + 1).entrySet()) {
+      setWidth(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * @return the window widths by the time they take effect
+   */
+  public SortedMap<Long, Integer> getWidths()
+  {
+    return new TreeMap<Long, Integer>(widths);
+  }
+
+  /**
+   * @return true when the window width was never changed
+   */
+  public boolean isFixed()
+  {
+    return widths.size() == 1;
+  }
+
+  public long getStartMillis()
+  {
+    return startMillis;
+  }
+
+  public int getInitialWidth()
+  {
+    return initialWidthMillis;
+  }
+
+  private Map.Entry<Long, Integer> getEntry(long millis)
+  {
+    TreeMap<Long, Integer> widths = this.widths;
+    Map.Entry<Long, Integer> entry = widths.floorEntry(millis);
+    return entry == null ? widths.firstEntry() : entry;
+  }
+
+  private Map.Entry<Long, Integer> getEntryOfWindow(long windowId)
+  {
+    TreeMap<Long, Integer> widths = this.widths;
+    long baseSeconds = WindowGenerator.getBaseSecondsFromWindowId(windowId);
+    for (Map.Entry<Long, Integer> entry : widths.descendingMap().entrySet()) {
+      if (entry.getKey() / 1000 <= baseSeconds) {
+        return entry;
+      }
+    }
+    return widths.firstEntry();
+  }
+
+  /**
+   * @param millis
+   * @return the window width at the given time.
+   */
+  public int getWidth(long millis)
+  {
+    return getEntry(millis).getValue();
+  }
+
+  /**
+   * @param millis
+   * @return the time the window width in effect at the given time was set.
+   */
+  public long getWidthStartMillis(long millis)
+  {
+    return getEntry(millis).getKey();
+  }
+
+  /**
+   * @param millis
+   * @return the number of windows since the window width in effect at the given time was set.
+   */
+  public long getWindowCount(long millis)
+  {
+    Map.Entry<Long, Integer> entry = getEntry(millis);
+    return WindowGenerator.getWindowCount(millis, entry.getKey(), entry.getValue());
+  }
+
+  /**
+   * Scales a window count configured in units of the initial window width to the window width at the given time.
+   *
+   * @param windowCount
+   * @param millis
+   * @return the number of windows which span the same time at the given time.
+   */
+  public int scaleWindowCount(int windowCount, long millis)
+  {
+    return scaleWindowCount(windowCount, initialWidthMillis, getWidth(millis));
+  }
+
+  /**
+   * Scales a window count from windows of one width to windows of another so that it keeps spanning the same time.
+   * A count of one is not scaled.
+   *
+   * @param windowCount
+   * @param fromWidthMillis
+   * @param toWidthMillis
+   * @return the scaled window count
+   */
+  public static int scaleWindowCount(int windowCount, long fromWidthMillis, long toWidthMillis)
+  {
+    if (windowCount <= 1 || fromWidthMillis == toWidthMillis) {
+      return windowCount;
+    }
+    return (int)Math.max(1, windowCount * fromWidthMillis / toWidthMillis);
+  }
+
+  public long getWindowId(long millis)
+  {
+    Map.Entry<Long, Integer> entry = getEntry(millis);
+    return WindowGenerator.getWindowId(millis, entry.getKey(), entry.getValue());
+  }
+
+  public long getWindowMillis(long windowId)
+  {
+    if (windowId == -1) {
+      return startMillis;
+    }
+    Map.Entry<Long, Integer> entry = getEntryOfWindow(windowId);
+    return WindowGenerator.getWindowMillis(windowId, entry.getKey(), entry.getValue());
+  }
+
+  public long getNextWindowMillis(long windowId)
+  {
+    long millis = getWindowMillis(windowId);
+    return millis + getWidth(millis);
+  }
+
+  public long getNextWindowId(long windowId)
+  {
+    return getWindowId(getNextWindowMillis(windowId));
+  }
+
+  @Override
+  public String toString()
+  {
+    return "WindowWidthSchedule{" + widths + '}';
+  }
+
+  private static final long serialVersionUID = 201610190000L;
+}
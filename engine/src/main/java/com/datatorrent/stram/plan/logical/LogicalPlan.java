@@ -25,6 +25,12 @@ import java.io.*;
 import java.lang.reflect.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.validation.*;
@@ -59,7 +65,9 @@ import com.datatorrent.common.metric.sum.DoubleSumAggregator;
 import com.datatorrent.common.metric.sum.LongSumAggregator;
 import com.datatorrent.common.util.FSStorageAgent;
 import com.datatorrent.stram.engine.DefaultUnifier;
+import com.datatorrent.stram.engine.EventLoopPool;
 import com.datatorrent.stram.engine.Slider;
+import com.datatorrent.stram.plan.physical.ContainerPlacement;
 
 /**
  * DAG contains the logical declarations of operators and streams.
@@ -113,6 +121,85 @@ public class LogicalPlan implements Serializable, DAG
    * Then it can be moved back to DAGContext.
    */
   public static Attribute<Boolean> FAST_PUBLISHER_SUBSCRIBER = new Attribute<Boolean>(false);
+  /**
+   * Directory on a memory backed file system, such as /dev/shm, in which ring buffers for node local streams between
+   * containers are created. When all subscribers of a publisher can read from the ring, the ring carries the stream
+   * instead of the buffer server, and the upstream operator is redeployed together with its subscribers as it cannot
+   * be replayed from the buffer server. Not set by default, which disables the shared memory transport.
+   */
+  public static Attribute<String> SHARED_MEMORY_STREAM_PATH = new Attribute<String>(new StringCodec.String2String());
+  /**
+   * Size of the ring buffer of a shared memory stream in megabytes.
+   */
+  public static Attribute<Integer> SHARED_MEMORY_STREAM_BUFFER_MB = new Attribute<Integer>(16);
+  /**
+   * Time in milliseconds the publisher and the subscribers of a shared memory stream wait for each other before they
+   * fall back to the buffer server. Also the time after which the publisher detaches a subscriber that stopped reading
+   * the ring, such as the subscriber of a container which died.
+   */
+  public static Attribute<Long> SHARED_MEMORY_ATTACH_TIMEOUT_MILLIS = new Attribute<Long>(5000L);
+  /**
+   * Containers which host at least this many operators run their operators, except input operators, as cooperative
+   * tasks on a pool of as many threads as the container has vcores, instead of on a thread per operator. Not set by
+   * default, which gives every operator its own thread.
+   */
+  public static Attribute<Integer> COOPERATIVE_SCHEDULER_MIN_OPERATORS = new Attribute<Integer>(0);
+  /**
+   * Maximum time in milliseconds for which an operator on the cooperative scheduler processes its input before it
+   * yields the thread to the other operators.
+   */
+  public static Attribute<Integer> COOPERATIVE_SCHEDULER_SLICE_MILLIS = new Attribute<Integer>(10);
+  /**
+   * Runs the operators on virtual threads instead of a platform thread each, on JVMs which support them. Generic
+   * operators park while they wait for input and are unparked by the streams which deliver it. Ignored with a warning
+   * on older JVMs. Operators which the cooperative scheduler runs are not affected.
+   */
+  public static Attribute<Boolean> VIRTUAL_THREADS = new Attribute<Boolean>(false);
+  /**
+   * Number of event loops which serve the buffer server and the connections of the streams to buffer servers in a
+   * container. The buffer server accepts connections on the first event loop and hands them to the event loops in
+   * turn.
+   */
+  public static Attribute<Integer> EVENT_LOOPS = new Attribute<Integer>(1);
+  /**
+   * How the connections of the streams to buffer servers are assigned to the event loops of the container.
+   */
+  public static Attribute<EventLoopPool.Assignment> EVENT_LOOP_ASSIGNMENT =
+      new Attribute<EventLoopPool.Assignment>(EventLoopPool.Assignment.LEAST_LOADED);
+  /**
+   * Number of bytes which the buffer server sends to a subscriber, and receives from a publisher, before they grant it
+   * more credits. Keeps the buffer server from piling up data in the container of a slow subscriber and a publisher
+   * from sending more data than the buffer server can keep in memory. Not set by default, which leaves the flow control
+   * to the connections.
+   */
+  public static Attribute<Integer> BUFFER_SERVER_CREDIT_BYTES = new Attribute<Integer>(0);
+  /**
+   * Number of megabytes behind the newest data of a publisher which the buffer server keeps in memory when it spools,
+   * so the subscribers which keep up with the publisher are served from memory. Not set by default, which spools any
+   * block no subscriber reads once the buffer server runs low on memory.
+   */
+  public static Attribute<Integer> BUFFER_SERVER_SPOOL_LAG_MB = new Attribute<Integer>(0);
+  /**
+   * Whether the streaming window width adapts to the tuple rate and the latency of the critical path. The width starts
+   * with {@link #STREAMING_WINDOW_SIZE_MILLIS} and changes to a power of two multiple or fraction of it.
+   */
+  public static Attribute<Boolean> ADAPTIVE_WINDOW_SIZE = new Attribute<Boolean>(false);
+  /**
+   * Smallest streaming window width the adaptive window size picks.
+   */
+  public static Attribute<Integer> MIN_STREAMING_WINDOW_SIZE_MILLIS = new Attribute<Integer>(100);
+  /**
+   * Largest streaming window width the adaptive window size picks.
+   */
+  public static Attribute<Integer> MAX_STREAMING_WINDOW_SIZE_MILLIS = new Attribute<Integer>(4000);
+  /**
+   * Number of tuples per streaming window the adaptive window size aims for.
+   */
+  public static Attribute<Long> ADAPTIVE_WINDOW_TUPLES = new Attribute<Long>(10000L);
+  /**
+   * Minimum time between two changes of the streaming window width by the adaptive window size.
+   */
+  public static Attribute<Long> ADAPTIVE_WINDOW_SIZE_INTERVAL_MILLIS = new Attribute<Long>(60000L);
   public static Attribute<Long> HDFS_TOKEN_LIFE_TIME = new Attribute<Long>(604800000l);
   public static Attribute<Long> RM_TOKEN_LIFE_TIME = new Attribute<Long>(YarnConfiguration.DELEGATION_TOKEN_MAX_LIFETIME_DEFAULT);
   public static Attribute<String> KEY_TAB_FILE = new Attribute<String>((String) null, new StringCodec.String2String());
@@ -144,6 +231,33 @@ public class LogicalPlan implements Serializable, DAG
    * only one container will be requested from the resource manager.
    */
   public static Attribute<Integer> CONTAINERS_MAX_COUNT = new Attribute<Integer>(Integer.MAX_VALUE);
+  /**
+   * Strategy which decides in which containers the operators are deployed, see {@link ContainerPlacement}. Not set by
+   * default, which gives every group of container local operators its own container up to
+   * {@link #CONTAINERS_MAX_COUNT}.
+   */
+  public static Attribute<ContainerPlacement> CONTAINER_PLACEMENT =
+      new Attribute<ContainerPlacement>(new StringCodec.Object2String<ContainerPlacement>());
+  /**
+   * Observed bytes per second through the buffer server from which a stream is made container local while the
+   * application runs, see {@link com.datatorrent.stram.LocalityAdvisor}. Not set by default, which only suggests the
+   * streams.
+   */
+  public static Attribute<Long> LOCALITY_UPGRADE_BYTES_PER_SECOND = new Attribute<Long>(0L);
+  /**
+   * Minimum time between two streams made container local while the application runs.
+   */
+  public static Attribute<Long> LOCALITY_UPGRADE_INTERVAL_MILLIS = new Attribute<Long>(60000L);
+  /**
+   * Time by which a partition has to lag behind the median window of its sibling partitions to be considered a
+   * straggler and moved to a new container, see {@link com.datatorrent.stram.StragglerDetector}. Not set by default,
+   * which disables the detection.
+   */
+  public static Attribute<Long> STRAGGLER_LAG_MILLIS = new Attribute<Long>(0L);
+  /**
+   * Minimum time between two stragglers moved to new containers.
+   */
+  public static Attribute<Long> STRAGGLER_REPLACEMENT_INTERVAL_MILLIS = new Attribute<Long>(60000L);
 
   /**
    * The application attempt ID from YARN
@@ -1640,10 +1754,24 @@ public class LogicalPlan implements Serializable, DAG
     return classNames;
   }
 
+  /**
+   * Number of operators per thread above which the operators are validated in parallel.
+   */
+  private static final int PARALLEL_VALIDATION_OPERATORS = 500;
+
+  /**
+   * Validators are thread safe, building the factory is expensive.
+   */
+  private static class ValidatorHolder
+  {
+    static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+  }
+
   public static class ValidationContext
   {
     public int nodeIndex = 0;
     public Stack<OperatorMeta> stack = new Stack<OperatorMeta>();
+    public Set<OperatorMeta> onStack = new HashSet<>();
     public Stack<OperatorMeta> path = new Stack<OperatorMeta>();
     public List<Set<OperatorMeta>> stronglyConnected = new ArrayList<>();
     public OperatorMeta invalidLoopAt;
@@ -1666,12 +1794,33 @@ public class LogicalPlan implements Serializable, DAG
    */
   public void validate() throws ConstraintViolationException
   {
-    ValidatorFactory factory =
-            Validation.buildDefaultValidatorFactory();
-    Validator validator = factory.getValidator();
+    validate(null);
+  }
 
+  /**
+   * Validate the plan after changes to the given operators. The checks of single operators and the search for cycles
+   * only cover the changed operators, the checks of thread local streams also their thread local downstream
+   * operators, the remaining checks cover the whole plan. The operators with a new or removed stream, with changed
+   * properties and the new operators have to be included.
+   *
+   * @param changedOperators the changed operators, or null to validate all operators
+   * @throws ConstraintViolationException
+   */
+  public void validate(Collection<OperatorMeta> changedOperators) throws ConstraintViolationException
+  {
     checkAttributeValueSerializable(this.getAttributes(), DAG.class.getName());
 
+    List<OperatorMeta> validateOperators = new ArrayList<>();
+    if (changedOperators == null) {
+      validateOperators.addAll(operators.values());
+    } else {
+      for (OperatorMeta n : changedOperators) {
+        if (operators.get(n.getName()) == n && !validateOperators.contains(n)) {
+          validateOperators.add(n);
+        }
+      }
+    }
+
     // clear oioRoot values in all operators
     for (OperatorMeta n: operators.values()) {
       n.oioRoot = null;
@@ -1681,112 +1830,24 @@ public class LogicalPlan implements Serializable, DAG
     for (OperatorMeta n: operators.values()) {
       n.nindex = null;
       n.lowlink = null;
+    }
 
-      // validate configuration
-      Set<ConstraintViolation<Operator>> constraintViolations = validator.validate(n.getOperator());
-      if (!constraintViolations.isEmpty()) {
-        Set<ConstraintViolation<?>> copySet = new HashSet<ConstraintViolation<?>>(constraintViolations.size());
-        // workaround bug in ConstraintViolationException constructor
-        // (should be public <T> ConstraintViolationException(String message, Set<ConstraintViolation<T>> constraintViolations) { ... })
-        for (ConstraintViolation<Operator> cv: constraintViolations) {
-          copySet.add(cv);
-        }
-        throw new ConstraintViolationException("Operator " + n.getName() + " violates constraints " + copySet, copySet);
-      }
-
-      OperatorMeta.PortMapping portMapping = n.getPortMapping();
-
-      checkAttributeValueSerializable(n.getAttributes(), n.getName());
-
-      // Check operator annotation
-      if (n.operatorAnnotation != null) {
-        // Check if partition property of the operator is being honored
-        if (!n.operatorAnnotation.partitionable()) {
-          // Check if any of the input ports have partition attributes set
-          for (InputPortMeta pm: portMapping.inPortMap.values()) {
-            Boolean paralellPartition = pm.getValue(PortContext.PARTITION_PARALLEL);
-            if (paralellPartition) {
-              throw new ValidationException("Operator " + n.getName() + " is not partitionable but PARTITION_PARALLEL attribute is set");
-            }
-          }
-
-          // Check if the operator implements Partitioner
-          if (n.getValue(OperatorContext.PARTITIONER) != null
-              || n.attributes != null && !n.attributes.contains(OperatorContext.PARTITIONER) && Partitioner.class.isAssignableFrom(n.getOperator().getClass())) {
-            throw new ValidationException("Operator " + n.getName() + " provides partitioning capabilities but the annotation on the operator class declares it non partitionable!");
-          }
-        }
-
-        //If operator can not be check-pointed in middle of application window then the checkpoint window count should be
-        // a multiple of application window count
-        if (!n.operatorAnnotation.checkpointableWithinAppWindow()) {
-          if (n.getValue(OperatorContext.CHECKPOINT_WINDOW_COUNT) % n.getValue(OperatorContext.APPLICATION_WINDOW_COUNT) != 0) {
-            throw new ValidationException("Operator " + n.getName() + " cannot be check-pointed between an application window " +
-              "but the checkpoint-window-count " + n.getValue(OperatorContext.CHECKPOINT_WINDOW_COUNT) +
-              " is not a multiple application-window-count " + n.getValue(OperatorContext.APPLICATION_WINDOW_COUNT));
-          }
-        }
-      }
-
-      // check that non-optional ports are connected
-      for (InputPortMeta pm: portMapping.inPortMap.values()) {
-        checkAttributeValueSerializable(pm.getAttributes(), n.getName() + "." + pm.getPortName());
-        StreamMeta sm = n.inputStreams.get(pm);
-        if (sm == null) {
-          if ((pm.portAnnotation == null || !pm.portAnnotation.optional()) && pm.classDeclaringHiddenPort == null) {
-            throw new ValidationException("Input port connection required: " + n.name + "." + pm.getPortName());
-          }
-        } else {
-          if (pm.classDeclaringHiddenPort != null) {
-            throw new ValidationException(String.format("Invalid port connected: %s.%s is hidden by %s.%s", pm.classDeclaringHiddenPort.getName(),
-              pm.getPortName(), pm.operatorMeta.getOperator().getClass().getName(), pm.getPortName()));
-          }
-          // check locality constraints
-          DAG.Locality locality = sm.getLocality();
-          if (locality == DAG.Locality.THREAD_LOCAL) {
-            if (n.inputStreams.size() > 1) {
-              validateThreadLocal(n);
-            }
-          }
-
-          if (pm.portAnnotation != null && pm.portAnnotation.schemaRequired()) {
-            //since schema is required, the port attribute TUPLE_CLASS should be present
-            if (pm.attributes.get(PortContext.TUPLE_CLASS) == null) {
-              throw new ValidationException("Attribute " + PortContext.TUPLE_CLASS.getName() + " missing on port : " + n.name + "." + pm.getPortName());
-            }
-          }
-        }
-      }
+    validateOperators(validateOperators);
 
-      boolean allPortsOptional = true;
-      for (OutputPortMeta pm: portMapping.outPortMap.values()) {
-        checkAttributeValueSerializable(pm.getAttributes(), n.getName() + "." + pm.getPortName());
-        if (!n.outputStreams.containsKey(pm)) {
-          if ((pm.portAnnotation != null && !pm.portAnnotation.optional()) && pm.classDeclaringHiddenPort == null) {
-            throw new ValidationException("Output port connection required: " + n.name + "." + pm.getPortName());
-          }
-        } else {
-          //port is connected
-          if (pm.classDeclaringHiddenPort != null) {
-            throw new ValidationException(String.format("Invalid port connected: %s.%s is hidden by %s.%s", pm.classDeclaringHiddenPort.getName(),
-              pm.getPortName(), pm.operatorMeta.getOperator().getClass().getName(), pm.getPortName()));
-          }
-          if (pm.portAnnotation != null && pm.portAnnotation.schemaRequired()) {
-            //since schema is required, the port attribute TUPLE_CLASS should be present
-            if (pm.attributes.get(PortContext.TUPLE_CLASS) == null) {
-              throw new ValidationException("Attribute " + PortContext.TUPLE_CLASS.getName() + " missing on port : " + n.name + "." + pm.getPortName());
-            }
+    // check locality constraints
+    for (OperatorMeta n : getThreadLocalDownstream(validateOperators)) {
+      if (n.inputStreams.size() > 1) {
+        for (StreamMeta sm : n.inputStreams.values()) {
+          if (sm.getLocality() == DAG.Locality.THREAD_LOCAL) {
+            validateThreadLocal(n);
+            break;
           }
         }
-        allPortsOptional &= (pm.portAnnotation != null && pm.portAnnotation.optional());
-      }
-      if (!allPortsOptional && n.outputStreams.isEmpty()) {
-        throw new ValidationException("At least one output port must be connected: " + n.name);
       }
     }
 
     ValidationContext validatonContext = new ValidationContext();
-    for (OperatorMeta n: operators.values()) {
+    for (OperatorMeta n: validateOperators) {
       if (n.nindex == null) {
         findStronglyConnected(n, validatonContext);
       }
@@ -1795,10 +1856,16 @@ public class LogicalPlan implements Serializable, DAG
       throw new ValidationException("Loops in graph: " + validatonContext.invalidCycles);
     }
 
-    List<List<String>> invalidDelays = new ArrayList<>();
+    // only paths to delay operators can have invalid delays
+    Set<OperatorMeta> delayUpstream = getDelayUpstream();
+    List<OperatorMeta> delayRoots = new ArrayList<>();
     for (OperatorMeta n : rootOperators) {
-      findInvalidDelays(n, invalidDelays, new Stack<OperatorMeta>());
+      if (delayUpstream.contains(n)) {
+        delayRoots.add(n);
+      }
     }
+    List<List<String>> invalidDelays = new ArrayList<>();
+    findInvalidDelays(delayRoots, invalidDelays, delayUpstream);
     if (!invalidDelays.isEmpty()) {
       throw new ValidationException("Invalid delays in graph: " + invalidDelays);
     }
@@ -1829,6 +1896,211 @@ public class LogicalPlan implements Serializable, DAG
 
   }
 
+  /**
+   * Runs the checks of single operators. Large plans are checked by several threads, the exception thrown is the
+   * one of the first invalid operator in the given order either way.
+   */
+  private void validateOperators(final List<OperatorMeta> validateOperators)
+  {
+    int threads = Math.min(Runtime.getRuntime().availableProcessors(),
+        validateOperators.size() / PARALLEL_VALIDATION_OPERATORS);
+    if (threads < 2) {
+      for (OperatorMeta n : validateOperators) {
+        validateOperator(n);
+      }
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+    {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r)
+      {
+        Thread thread = new Thread(r, "plan-validation-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    try {
+      List<Future<Void>> futures = new ArrayList<>(threads);
+      int chunk = (validateOperators.size() + threads - 1) / threads;
+      for (int i = 0; i < validateOperators.size(); i += chunk) {
+        final List<OperatorMeta> subList = validateOperators.subList(i, Math.min(i + chunk,
+            validateOperators.size()));
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call()
+          {
+            for (OperatorMeta n : subList) {
+              validateOperator(n);
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException)e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error)e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void validateOperator(OperatorMeta n)
+  {
+    // validate configuration
+    Set<ConstraintViolation<Operator>> constraintViolations = ValidatorHolder.VALIDATOR.validate(n.getOperator());
+    if (!constraintViolations.isEmpty()) {
+      Set<ConstraintViolation<?>> copySet = new HashSet<ConstraintViolation<?>>(constraintViolations.size());
+      // workaround bug in ConstraintViolationException constructor
+      // (should be public <T> ConstraintViolationException(String message, Set<ConstraintViolation<T>> constraintViolations) { ... })
+      for (ConstraintViolation<Operator> cv: constraintViolations) {
+        copySet.add(cv);
+      }
+      throw new ConstraintViolationException("Operator " + n.getName() + " violates constraints " + copySet, copySet);
+    }
+
+    OperatorMeta.PortMapping portMapping = n.getPortMapping();
+
+    checkAttributeValueSerializable(n.getAttributes(), n.getName());
+
+    // Check operator annotation
+    if (n.operatorAnnotation != null) {
+      // Check if partition property of the operator is being honored
+      if (!n.operatorAnnotation.partitionable()) {
+        // Check if any of the input ports have partition attributes set
+        for (InputPortMeta pm: portMapping.inPortMap.values()) {
+          Boolean paralellPartition = pm.getValue(PortContext.PARTITION_PARALLEL);
+          if (paralellPartition) {
+            throw new ValidationException("Operator " + n.getName() + " is not partitionable but PARTITION_PARALLEL attribute is set");
+          }
+        }
+
+        // Check if the operator implements Partitioner
+        if (n.getValue(OperatorContext.PARTITIONER) != null
+            || n.attributes != null && !n.attributes.contains(OperatorContext.PARTITIONER) && Partitioner.class.isAssignableFrom(n.getOperator().getClass())) {
+          throw new ValidationException("Operator " + n.getName() + " provides partitioning capabilities but the annotation on the operator class declares it non partitionable!");
+        }
+      }
+
+      //If operator can not be check-pointed in middle of application window then the checkpoint window count should be
+      // a multiple of application window count
+      if (!n.operatorAnnotation.checkpointableWithinAppWindow()) {
+        if (n.getValue(OperatorContext.CHECKPOINT_WINDOW_COUNT) % n.getValue(OperatorContext.APPLICATION_WINDOW_COUNT) != 0) {
+          throw new ValidationException("Operator " + n.getName() + " cannot be check-pointed between an application window " +
+            "but the checkpoint-window-count " + n.getValue(OperatorContext.CHECKPOINT_WINDOW_COUNT) +
+            " is not a multiple application-window-count " + n.getValue(OperatorContext.APPLICATION_WINDOW_COUNT));
+        }
+      }
+    }
+
+    // check that non-optional ports are connected
+    for (InputPortMeta pm: portMapping.inPortMap.values()) {
+      checkAttributeValueSerializable(pm.getAttributes(), n.getName() + "." + pm.getPortName());
+      StreamMeta sm = n.inputStreams.get(pm);
+      if (sm == null) {
+        if ((pm.portAnnotation == null || !pm.portAnnotation.optional()) && pm.classDeclaringHiddenPort == null) {
+          throw new ValidationException("Input port connection required: " + n.name + "." + pm.getPortName());
+        }
+      } else {
+        if (pm.classDeclaringHiddenPort != null) {
+          throw new ValidationException(String.format("Invalid port connected: %s.%s is hidden by %s.%s", pm.classDeclaringHiddenPort.getName(),
+            pm.getPortName(), pm.operatorMeta.getOperator().getClass().getName(), pm.getPortName()));
+        }
+        if (pm.portAnnotation != null && pm.portAnnotation.schemaRequired()) {
+          //since schema is required, the port attribute TUPLE_CLASS should be present
+          if (pm.attributes.get(PortContext.TUPLE_CLASS) == null) {
+            throw new ValidationException("Attribute " + PortContext.TUPLE_CLASS.getName() + " missing on port : " + n.name + "." + pm.getPortName());
+          }
+        }
+      }
+    }
+
+    boolean allPortsOptional = true;
+    for (OutputPortMeta pm: portMapping.outPortMap.values()) {
+      checkAttributeValueSerializable(pm.getAttributes(), n.getName() + "." + pm.getPortName());
+      if (!n.outputStreams.containsKey(pm)) {
+        if ((pm.portAnnotation != null && !pm.portAnnotation.optional()) && pm.classDeclaringHiddenPort == null) {
+          throw new ValidationException("Output port connection required: " + n.name + "." + pm.getPortName());
+        }
+      } else {
+        //port is connected
+        if (pm.classDeclaringHiddenPort != null) {
+          throw new ValidationException(String.format("Invalid port connected: %s.%s is hidden by %s.%s", pm.classDeclaringHiddenPort.getName(),
+            pm.getPortName(), pm.operatorMeta.getOperator().getClass().getName(), pm.getPortName()));
+        }
+        if (pm.portAnnotation != null && pm.portAnnotation.schemaRequired()) {
+          //since schema is required, the port attribute TUPLE_CLASS should be present
+          if (pm.attributes.get(PortContext.TUPLE_CLASS) == null) {
+            throw new ValidationException("Attribute " + PortContext.TUPLE_CLASS.getName() + " missing on port : " + n.name + "." + pm.getPortName());
+          }
+        }
+      }
+      allPortsOptional &= (pm.portAnnotation != null && pm.portAnnotation.optional());
+    }
+    if (!allPortsOptional && n.outputStreams.isEmpty()) {
+      throw new ValidationException("At least one output port must be connected: " + n.name);
+    }
+  }
+
+  /**
+   * @return the given operators and all operators connected to them by a path of thread local streams downstream.
+   */
+  private Set<OperatorMeta> getThreadLocalDownstream(List<OperatorMeta> oms)
+  {
+    Set<OperatorMeta> downstream = new LinkedHashSet<>(oms);
+    Deque<OperatorMeta> pending = new ArrayDeque<>(oms);
+    while (!pending.isEmpty()) {
+      for (StreamMeta sm : pending.poll().outputStreams.values()) {
+        if (sm.locality == Locality.THREAD_LOCAL) {
+          for (InputPortMeta sink : sm.sinks) {
+            if (downstream.add(sink.getOperatorWrapper())) {
+              pending.add(sink.getOperatorWrapper());
+            }
+          }
+        }
+      }
+    }
+    return downstream;
+  }
+
+  /**
+   * @return the delay operators and all operators they are reachable from.
+   */
+  private Set<OperatorMeta> getDelayUpstream()
+  {
+    Set<OperatorMeta> upstream = new HashSet<>();
+    Deque<OperatorMeta> pending = new ArrayDeque<>();
+    for (OperatorMeta n : operators.values()) {
+      if (n.getOperator() instanceof Operator.DelayOperator) {
+        upstream.add(n);
+        pending.add(n);
+      }
+    }
+    while (!pending.isEmpty()) {
+      for (StreamMeta sm : pending.poll().inputStreams.values()) {
+        if (sm.source != null && upstream.add(sm.source.operatorMeta)) {
+          pending.add(sm.source.operatorMeta);
+        }
+      }
+    }
+    return upstream;
+  }
+
   private void checkAttributeValueSerializable(AttributeMap attributes, String context)
   {
     StringBuilder sb = new StringBuilder();
@@ -1932,7 +2204,8 @@ public class LogicalPlan implements Serializable, DAG
 
   /**
    * Check for cycles in the graph reachable from start node n. This is done by
-   * attempting to find strongly connected components.
+   * attempting to find strongly connected components. The depth first traversal
+   * keeps its own stack of successors, so deep graphs do not overflow the call stack.
    *
    * @see <a href="http://en.wikipedia.org/wiki/Tarjan%E2%80%99s_strongly_connected_components_algorithm">http://en.wikipedia.org/wiki/Tarjan%E2%80%99s_strongly_connected_components_algorithm</a>
    *
@@ -1941,33 +2214,27 @@ public class LogicalPlan implements Serializable, DAG
    */
   public void findStronglyConnected(OperatorMeta om, ValidationContext ctx)
   {
-    om.nindex = ctx.nodeIndex;
-    om.lowlink = ctx.nodeIndex;
-    ctx.nodeIndex++;
-    ctx.stack.push(om);
-    ctx.path.push(om);
-
-    // depth first successors traversal
-    for (StreamMeta downStream: om.outputStreams.values()) {
-      for (InputPortMeta sink: downStream.sinks) {
-        OperatorMeta successor = sink.getOperatorWrapper();
-        if (successor == null) {
-          continue;
-        }
+    Deque<Iterator<OperatorMeta>> successors = new ArrayDeque<>();
+    visitStronglyConnected(om, ctx, successors);
+
+    while (!successors.isEmpty()) {
+      OperatorMeta n = ctx.path.peek();
+      Iterator<OperatorMeta> iterator = successors.peek();
+      if (iterator.hasNext()) {
+        // depth first successors traversal
+        OperatorMeta successor = iterator.next();
         // check for self referencing node
-        if (om == successor) {
-          ctx.invalidCycles.add(Collections.singleton(om));
+        if (n == successor) {
+          ctx.invalidCycles.add(Collections.singleton(n));
         }
         if (successor.nindex == null) {
           // not visited yet
-          findStronglyConnected(successor, ctx);
-          om.lowlink = Math.min(om.lowlink, successor.lowlink);
-        }
-        else if (ctx.stack.contains(successor)) {
-          om.lowlink = Math.min(om.lowlink, successor.nindex);
+          visitStronglyConnected(successor, ctx, successors);
+        } else if (ctx.onStack.contains(successor)) {
+          n.lowlink = Math.min(n.lowlink, successor.nindex);
           boolean isDelayLoop = false;
-          for (int i=ctx.path.size(); i>0; i--) {
-            OperatorMeta om2 = ctx.path.get(i-1);
+          for (int i = ctx.path.size(); i > 0; i--) {
+            OperatorMeta om2 = ctx.path.get(i - 1);
             if (om2.getOperator() instanceof Operator.DelayOperator) {
               isDelayLoop = true;
             }
@@ -1979,100 +2246,284 @@ public class LogicalPlan implements Serializable, DAG
             ctx.invalidLoopAt = successor;
           }
         }
+        continue;
+      }
+
+      // pop stack for all root operators
+      if (n.lowlink.equals(n.nindex)) {
+        Set<OperatorMeta> connectedSet = new LinkedHashSet<>();
+        while (!ctx.stack.isEmpty()) {
+          OperatorMeta n2 = ctx.stack.pop();
+          ctx.onStack.remove(n2);
+          connectedSet.add(n2);
+          if (n2 == n) {
+            break; // collected all connected operators
+          }
+        }
+        // strongly connected (cycle) if more than one node in stack
+        if (connectedSet.size() > 1) {
+          ctx.stronglyConnected.add(connectedSet);
+          if (connectedSet.contains(ctx.invalidLoopAt)) {
+            ctx.invalidCycles.add(connectedSet);
+          }
+        }
+      }
+      ctx.path.pop();
+      successors.pop();
+      if (!ctx.path.isEmpty()) {
+        OperatorMeta predecessor = ctx.path.peek();
+        predecessor.lowlink = Math.min(predecessor.lowlink, n.lowlink);
       }
     }
+  }
 
-    // pop stack for all root operators
-    if (om.lowlink.equals(om.nindex)) {
-      Set<OperatorMeta> connectedSet = new LinkedHashSet<>(ctx.stack.size());
-      while (!ctx.stack.isEmpty()) {
-        OperatorMeta n2 = ctx.stack.pop();
-        connectedSet.add(n2);
-        if (n2 == om) {
-          break; // collected all connected operators
-        }
-      }
-      // strongly connected (cycle) if more than one node in stack
-      if (connectedSet.size() > 1) {
-        ctx.stronglyConnected.add(connectedSet);
-        if (connectedSet.contains(ctx.invalidLoopAt)) {
-          ctx.invalidCycles.add(connectedSet);
+  private void visitStronglyConnected(OperatorMeta om, ValidationContext ctx, Deque<Iterator<OperatorMeta>> successors)
+  {
+    om.nindex = ctx.nodeIndex;
+    om.lowlink = ctx.nodeIndex;
+    ctx.nodeIndex++;
+    ctx.stack.push(om);
+    ctx.onStack.add(om);
+    ctx.path.push(om);
+
+    List<OperatorMeta> sinkOperators = new ArrayList<>();
+    for (StreamMeta downStream: om.outputStreams.values()) {
+      for (InputPortMeta sink: downStream.sinks) {
+        OperatorMeta successor = sink.getOperatorWrapper();
+        if (successor != null) {
+          sinkOperators.add(successor);
         }
       }
     }
-    ctx.path.pop();
-
+    successors.push(sinkOperators.iterator());
   }
 
+  /**
+   * @deprecated use {@link #findInvalidDelays(OperatorMeta, List)}, the stack is not used
+   */
+  @Deprecated
   public void findInvalidDelays(OperatorMeta om, List<List<String>> invalidDelays, Stack<OperatorMeta> stack)
   {
-    stack.push(om);
+    findInvalidDelays(om, invalidDelays);
+  }
 
-    // depth first successors traversal
-    boolean isDelayOperator = om.getOperator() instanceof Operator.DelayOperator;
-    if (isDelayOperator) {
+  /**
+   * Check the delay operators downstream of the given operator. A delay operator has to have an application window
+   * count of 1 and has to output to operators which are on every path to it, so that its output closes a loop.
+   *
+   * @param om
+   * @param invalidDelays the delay operators and invalid sinks found
+   */
+  public void findInvalidDelays(OperatorMeta om, List<List<String>> invalidDelays)
+  {
+    findInvalidDelays(Collections.singletonList(om), invalidDelays, null);
+  }
+
+  /**
+   * Without the outputs of the delay operators the graph has no loops, so the operators which are on every path to
+   * an operator, its dominators, are found in a single pass over the operators in depth first reverse post order.
+   * Each operator is visited once instead of once per path.
+   *
+   * @see <a href="https://www.cs.rice.edu/~keith/EMBED/dom.pdf">A Simple, Fast Dominance Algorithm</a>
+   *
+   * @param delayUpstream the operators to traverse, or null to traverse all operators
+   */
+  private void findInvalidDelays(Collection<OperatorMeta> roots, List<List<String>> invalidDelays,
+      Set<OperatorMeta> delayUpstream)
+  {
+    // depth first post order, not following the outputs of delay operators
+    List<OperatorMeta> postOrder = new ArrayList<>();
+    Set<OperatorMeta> visited = new HashSet<>();
+    Deque<OperatorMeta> path = new ArrayDeque<>();
+    Deque<Iterator<OperatorMeta>> successors = new ArrayDeque<>();
+    for (OperatorMeta root : roots) {
+      if (visited.add(root)) {
+        path.push(root);
+        successors.push(getDelayPathSuccessors(root, delayUpstream));
+      }
+      while (!path.isEmpty()) {
+        Iterator<OperatorMeta> iterator = successors.peek();
+        if (iterator.hasNext()) {
+          OperatorMeta successor = iterator.next();
+          if (visited.add(successor)) {
+            path.push(successor);
+            successors.push(getDelayPathSuccessors(successor, delayUpstream));
+          }
+        } else {
+          postOrder.add(path.pop());
+          successors.pop();
+        }
+      }
+    }
+
+    // number the operators in reverse post order, 0 stands for the root of all the given operators
+    int count = postOrder.size();
+    Map<OperatorMeta, Integer> order = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      order.put(postOrder.get(i), count - i);
+    }
+    Set<OperatorMeta> rootSet = new HashSet<>(roots);
+    int[] idom = new int[count + 1];
+    for (int i = 1; i <= count; i++) {
+      OperatorMeta om = postOrder.get(count - i);
+      int dom = -1;
+      if (rootSet.contains(om)) {
+        dom = 0;
+      } else {
+        for (StreamMeta sm : om.inputStreams.values()) {
+          Integer predecessor = sm.source == null ? null : order.get(sm.source.operatorMeta);
+          // predecessors which come later are only found in graphs with invalid loops
+          if (predecessor == null || predecessor >= i
+              || sm.source.operatorMeta.getOperator() instanceof Operator.DelayOperator) {
+            continue;
+          }
+          dom = dom < 0 ? predecessor : intersectDominators(idom, dom, predecessor);
+        }
+      }
+      idom[i] = Math.max(dom, 0);
+    }
+
+    for (int i = count - 1; i >= 0; i--) {
+      OperatorMeta om = postOrder.get(i);
+      if (!(om.getOperator() instanceof Operator.DelayOperator)) {
+        continue;
+      }
       if (om.getValue(OperatorContext.APPLICATION_WINDOW_COUNT) != 1) {
         LOG.debug("detected DelayOperator having APPLICATION_WINDOW_COUNT not equal to 1");
         invalidDelays.add(Collections.singletonList(om.getName()));
       }
-    }
-
-    for (StreamMeta downStream: om.outputStreams.values()) {
-      for (InputPortMeta sink : downStream.sinks) {
-        OperatorMeta successor = sink.getOperatorWrapper();
-        if (isDelayOperator) {
+      for (StreamMeta downStream: om.outputStreams.values()) {
+        for (InputPortMeta sink : downStream.sinks) {
+          OperatorMeta successor = sink.getOperatorWrapper();
           sink.attributes.put(IS_CONNECTED_TO_DELAY_OPERATOR, true);
-          // Check whether all downstream operators are already visited in the path
-          if (successor != null && !stack.contains(successor)) {
+          // Check whether the downstream operator is on every path to the delay operator
+          if (successor != null && !isDominator(idom, order.get(successor), order.get(om))) {
             LOG.debug("detected DelayOperator does not immediately output to a visited operator {}.{}->{}.{}",
                 om.getName(), downStream.getSource().getPortName(), successor.getName(), sink.getPortName());
             invalidDelays.add(Arrays.asList(om.getName(), successor.getName()));
           }
-        } else {
-          findInvalidDelays(successor, invalidDelays, stack);
         }
       }
     }
-    stack.pop();
   }
 
-  private void validateProcessingMode(OperatorMeta om, Set<OperatorMeta> visited)
+  private static Iterator<OperatorMeta> getDelayPathSuccessors(OperatorMeta om, Set<OperatorMeta> delayUpstream)
+  {
+    List<OperatorMeta> successors = new ArrayList<>();
+    if (!(om.getOperator() instanceof Operator.DelayOperator)) {
+      for (StreamMeta downStream: om.outputStreams.values()) {
+        for (InputPortMeta sink : downStream.sinks) {
+          OperatorMeta successor = sink.getOperatorWrapper();
+          if (successor != null && (delayUpstream == null || delayUpstream.contains(successor))) {
+            successors.add(successor);
+          }
+        }
+      }
+    }
+    return successors.iterator();
+  }
+
+  private static int intersectDominators(int[] idom, int a, int b)
+  {
+    while (a != b) {
+      while (a > b) {
+        a = idom[a];
+      }
+      while (b > a) {
+        b = idom[b];
+      }
+    }
+    return a;
+  }
+
+  private static boolean isDominator(int[] idom, Integer dominator, int om)
+  {
+    if (dominator == null) {
+      return false;
+    }
+    while (om > dominator) {
+      om = idom[om];
+    }
+    return om == dominator;
+  }
+
+  /**
+   * Checks the processing modes downstream of the given operator depth first. Each operator is checked after all its
+   * inputs, the traversal keeps its own stack so deep graphs do not overflow the call stack.
+   */
+  private void validateProcessingMode(OperatorMeta root, Set<OperatorMeta> visited)
+  {
+    Deque<ProcessingModeFrame> frames = new ArrayDeque<>();
+    if (visitProcessingMode(root, visited)) {
+      frames.push(new ProcessingModeFrame(root));
+    }
+    while (!frames.isEmpty()) {
+      ProcessingModeFrame frame = frames.peek();
+      if (!frame.sinks.hasNext()) {
+        frames.pop();
+        continue;
+      }
+      OperatorMeta om = frame.om;
+      Operator.ProcessingMode pm = frame.pm;
+      OperatorMeta sinkOm = frame.sinks.next().getOperatorWrapper();
+      Operator.ProcessingMode sinkPm = sinkOm.attributes == null? null: sinkOm.attributes.get(OperatorContext.PROCESSING_MODE);
+      if (sinkPm == null) {
+        // If the source processing mode is AT_MOST_ONCE and a processing mode is not specified for the sink then set it to AT_MOST_ONCE as well
+        if (Operator.ProcessingMode.AT_MOST_ONCE.equals(pm)) {
+          LOG.warn("Setting processing mode for operator {} to {}", sinkOm.getName(), pm);
+          sinkOm.getAttributes().put(OperatorContext.PROCESSING_MODE, pm);
+        } else if (Operator.ProcessingMode.EXACTLY_ONCE.equals(pm)) {
+          // If the source processing mode is EXACTLY_ONCE and a processing mode is not specified for the sink then throw a validation error
+          String msg = String.format("Processing mode for %s should be AT_MOST_ONCE for source %s/%s", sinkOm.getName(), om.getName(), pm);
+          throw new ValidationException(msg);
+        }
+      } else {
+        /*
+         * If the source processing mode is AT_MOST_ONCE and the processing mode for the sink is not AT_MOST_ONCE throw a validation error
+         * If the source processing mode is EXACTLY_ONCE and the processing mode for the sink is not AT_MOST_ONCE throw a validation error
+         */
+        if ((Operator.ProcessingMode.AT_MOST_ONCE.equals(pm) && (sinkPm != pm))
+                || (Operator.ProcessingMode.EXACTLY_ONCE.equals(pm) && !Operator.ProcessingMode.AT_MOST_ONCE.equals(sinkPm))) {
+          String msg = String.format("Processing mode %s/%s not valid for source %s/%s", sinkOm.getName(), sinkPm, om.getName(), pm);
+          throw new ValidationException(msg);
+        }
+      }
+      if (visitProcessingMode(sinkOm, visited)) {
+        frames.push(new ProcessingModeFrame(sinkOm));
+      }
+    }
+  }
+
+  /**
+   * @return whether all inputs of the operator were checked, the operator is marked as visited then.
+   */
+  private boolean visitProcessingMode(OperatorMeta om, Set<OperatorMeta> visited)
   {
     for (StreamMeta is : om.getInputStreams().values()) {
       if (!visited.contains(is.getSource().getOperatorMeta())) {
         // process all inputs first
-        return;
+        return false;
       }
     }
     visited.add(om);
-    Operator.ProcessingMode pm = om.getValue(OperatorContext.PROCESSING_MODE);
-    for (StreamMeta os : om.outputStreams.values()) {
-      for (InputPortMeta sink: os.sinks) {
-        OperatorMeta sinkOm = sink.getOperatorWrapper();
-        Operator.ProcessingMode sinkPm = sinkOm.attributes == null? null: sinkOm.attributes.get(OperatorContext.PROCESSING_MODE);
-        if (sinkPm == null) {
-          // If the source processing mode is AT_MOST_ONCE and a processing mode is not specified for the sink then set it to AT_MOST_ONCE as well
-          if (Operator.ProcessingMode.AT_MOST_ONCE.equals(pm)) {
-            LOG.warn("Setting processing mode for operator {} to {}", sinkOm.getName(), pm);
-            sinkOm.getAttributes().put(OperatorContext.PROCESSING_MODE, pm);
-          } else if (Operator.ProcessingMode.EXACTLY_ONCE.equals(pm)) {
-            // If the source processing mode is EXACTLY_ONCE and a processing mode is not specified for the sink then throw a validation error
-            String msg = String.format("Processing mode for %s should be AT_MOST_ONCE for source %s/%s", sinkOm.getName(), om.getName(), pm);
-            throw new ValidationException(msg);
-          }
-        } else {
-          /*
-           * If the source processing mode is AT_MOST_ONCE and the processing mode for the sink is not AT_MOST_ONCE throw a validation error
-           * If the source processing mode is EXACTLY_ONCE and the processing mode for the sink is not AT_MOST_ONCE throw a validation error
-           */
-          if ((Operator.ProcessingMode.AT_MOST_ONCE.equals(pm) && (sinkPm != pm))
-                  || (Operator.ProcessingMode.EXACTLY_ONCE.equals(pm) && !Operator.ProcessingMode.AT_MOST_ONCE.equals(sinkPm))) {
-            String msg = String.format("Processing mode %s/%s not valid for source %s/%s", sinkOm.getName(), sinkPm, om.getName(), pm);
-            throw new ValidationException(msg);
-          }
-        }
-        validateProcessingMode(sinkOm, visited);
+    return true;
+  }
+
+  private static class ProcessingModeFrame
+  {
+    final OperatorMeta om;
+    final Operator.ProcessingMode pm;
+    final Iterator<InputPortMeta> sinks;
+
+    ProcessingModeFrame(OperatorMeta om)
+    {
+      this.om = om;
+      this.pm = om.getValue(OperatorContext.PROCESSING_MODE);
+      List<InputPortMeta> sinks = new ArrayList<>();
+      for (StreamMeta os : om.outputStreams.values()) {
+        sinks.addAll(os.sinks);
       }
+      this.sinks = sinks.iterator();
     }
   }
 
@@ -31,6 +31,7 @@ import java.lang.reflect.Type;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.regex.Pattern;
 
 
 import javax.validation.ValidationException;
@@ -110,6 +111,7 @@ public class LogicalPlanConfiguration {
 
   private static final String WILDCARD = "*";
   private static final String WILDCARD_PATTERN = ".*";
+  private static final String REGEXP_META_CHARACTERS = ".[]{}()\\*+?^$|";
 
   /**
    * This is done to initialize the serial id of these interfaces.
@@ -925,6 +927,8 @@ public class LogicalPlanConfiguration {
 
     protected Map<StramElement, Map<String, ? extends Conf>> children = Maps.newHashMap();
 
+    protected final Map<StramElement, ChildIndex<? extends Conf>> childIndexes = Maps.newHashMap();
+
     protected String id;
 
     public void setId(String id) {
@@ -981,6 +985,7 @@ public class LogicalPlanConfiguration {
         children.put(childType, elChildren);
       }
       T conf = getOrAddConf(elChildren, id, clazz);
+      childIndexes.remove(childType);
       if (conf != null) {
         conf.setParentConf(this);
       }
@@ -1011,40 +1016,23 @@ public class LogicalPlanConfiguration {
     public <T extends Conf> List<T> getMatchingChildConf(String name, StramElement childType) {
       List<T> childConfs = new ArrayList<>();
       Map<String, T> elChildren = getChildren(childType);
-      for (Map.Entry<String, T> entry : elChildren.entrySet()) {
-        String key = entry.getKey();
-        boolean match = false;
-        boolean exact = false;
-        // Match WILDCARD to null
-        if (name == null) {
-          if (key == null) {
-            match = true;
-            exact = true;
-          } else if (key.equals(WILDCARD)) {
-            match = true;
-          }
-        } else {
-          // Also treat WILDCARD as match any character string when running regular express match
-          if (key.equals(WILDCARD)) {
-            key = WILDCARD_PATTERN;
-          }
-          if (name.matches(key)) {
-            match = true;
-          }
-          if (name.equals(key)) {
-            exact = true;
-          }
+      // Match WILDCARD to null
+      if (name == null) {
+        if (elChildren.containsKey(null)) {
+          childConfs.add(elChildren.get(null));
         }
-        // There will be a better match preference order
-        if (match) {
-          if (!exact) {
-            childConfs.add(entry.getValue());
-          } else {
-            childConfs.add(0, entry.getValue());
-          }
+        if (elChildren.containsKey(WILDCARD)) {
+          childConfs.add(elChildren.get(WILDCARD));
         }
+        return childConfs;
       }
-      return childConfs;
+      @SuppressWarnings("unchecked")
+      ChildIndex<T> index = (ChildIndex<T>)childIndexes.get(childType);
+      if (index == null) {
+        index = new ChildIndex<>(elChildren);
+        childIndexes.put(childType, index);
+      }
+      return index.getMatching(name);
     }
 
     /**
@@ -1127,6 +1115,65 @@ public class LogicalPlanConfiguration {
     public abstract ConfElement getConfElement();
   }
 
+  /**
+   * The child {@link Conf}s of one type indexed by name for matching. A name without regular expression meta
+   * characters only matches itself and is looked up in the map, the other names are compiled once and matched in the
+   * iteration order of the map.
+   * @param <T> The type of the child {@link Conf}s.
+   */
+  private static class ChildIndex<T extends Conf> {
+
+    private final Map<String, T> confs;
+    private final List<Pattern> patterns = Lists.newArrayList();
+    private final List<T> patternConfs = Lists.newArrayList();
+
+    ChildIndex(Map<String, T> confs) {
+      this.confs = confs;
+      for (Map.Entry<String, T> entry : confs.entrySet()) {
+        String key = entry.getKey();
+        if (key == null) {
+          continue;
+        }
+        // Also treat WILDCARD as match any character string when running regular express match
+        if (key.equals(WILDCARD)) {
+          key = WILDCARD_PATTERN;
+        }
+        if (!isLiteral(key)) {
+          patterns.add(Pattern.compile(key));
+          patternConfs.add(entry.getValue());
+        }
+      }
+    }
+
+    /**
+     * @param name The name to match, not null.
+     * @return The child {@link Conf}s matching the name, the one with the same name first.
+     */
+    List<T> getMatching(String name) {
+      List<T> matching = new ArrayList<>();
+      T exact = name.equals(WILDCARD) ? null : confs.get(name);
+      if (exact != null) {
+        matching.add(exact);
+      }
+      for (int i = 0; i < patterns.size(); i++) {
+        T conf = patternConfs.get(i);
+        if (conf != exact && patterns.get(i).matcher(name).matches()) {
+          matching.add(conf);
+        }
+      }
+      return matching;
+    }
+
+    private static boolean isLiteral(String key) {
+      for (int i = 0; i < key.length(); i++) {
+        if (REGEXP_META_CHARACTERS.indexOf(key.charAt(i)) >= 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
   private static class StramConf extends Conf {
 
     private final Map<String, String> appAliases = Maps.newHashMap();
@@ -1239,19 +1286,19 @@ public class LogicalPlanConfiguration {
     public void setProperty(String name, String value)
     {
       if (name.equals(TEMPLATE_appNameRegExp)) {
-        appNameRegExp = value;
+        appNameRegExp = Pattern.compile(value);
       } else if (name.equals(TEMPLATE_idRegExp)) {
-        idRegExp = value;
+        idRegExp = Pattern.compile(value);
       } else if (name.equals(TEMPLATE_classNameRegExp)) {
-        classNameRegExp = value;
+        classNameRegExp = Pattern.compile(value);
       } else {
         super.setProperty(name, value);
       }
     }
 
-    private String idRegExp;
-    private String appNameRegExp;
-    private String classNameRegExp;
+    private Pattern idRegExp;
+    private Pattern appNameRegExp;
+    private Pattern classNameRegExp;
 
   }
 
@@ -2244,13 +2291,13 @@ public class LogicalPlanConfiguration {
   {
     TreeMap<Integer, TemplateConf> tm = Maps.newTreeMap();
     for (TemplateConf t : templates.values()) {
-      if ((t.idRegExp != null && pa.name.matches(t.idRegExp))) {
+      if ((t.idRegExp != null && t.idRegExp.matcher(pa.name).matches())) {
         tm.put(1, t);
       } else if (appName != null && t.appNameRegExp != null
-          && appName.matches(t.appNameRegExp)) {
+          && t.appNameRegExp.matcher(appName).matches()) {
         tm.put(2, t);
       } else if (t.classNameRegExp != null
-          && pa.className.matches(t.classNameRegExp)) {
+          && t.classNameRegExp.matcher(pa.className).matches()) {
         tm.put(3, t);
       }
     }
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.plan.logical.requests;
+
+import com.datatorrent.api.DAG.Locality;
+import com.datatorrent.stram.plan.physical.PlanModifier;
+
+/**
+ * <p>SetStreamLocalityRequest class.</p>
+ */
+public class SetStreamLocalityRequest extends LogicalPlanRequest
+{
+  private String streamName;
+  private String locality;
+
+  public String getStreamName()
+  {
+    return streamName;
+  }
+
+  public void setStreamName(String streamName)
+  {
+    this.streamName = streamName;
+  }
+
+  public String getLocality()
+  {
+    return locality;
+  }
+
+  public void setLocality(String locality)
+  {
+    this.locality = locality;
+  }
+
+  @Override
+  public void execute(PlanModifier pm)
+  {
+    pm.setStreamLocality(streamName, locality == null ? null : Locality.valueOf(locality));
+  }
+
+}
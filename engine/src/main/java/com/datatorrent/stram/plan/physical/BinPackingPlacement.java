@@ -0,0 +1,253 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.plan.physical;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import com.datatorrent.stram.plan.physical.PTOperator.PTInput;
+import com.datatorrent.stram.plan.physical.PTOperator.PTOutput;
+
+/**
+ * Packs the operators into as few containers as their memory and virtual cores allow.<p>
+ * <br>
+ * The groups are placed largest first. A group goes to the container with the most stream traffic to the operators
+ * already in it among the containers which have room for it, the observed bytes per second of the streams count
+ * and streams without observed traffic count one byte each. Ties go to the container with the least room left. When
+ * no container has room a new container is added until the maximum number of containers is reached, after that the
+ * group goes to the container with the most memory left. Groups with a node locality host only share containers with
+ * groups for the same or no host.<br>
+ * <br>
+ * Containers which are added for the placement can grow up to {@link #getContainerMemoryMB()} and
+ * {@link #getContainerVCores()}, or the size of the group if it is larger. Running containers are filled up to their
+ * allocated resources. Containers which are not running yet and were not added for the placement do not receive more
+ * operators, their resources were requested already.<br>
+ */
+public class BinPackingPlacement implements ContainerPlacement, Serializable
+{
+  private int containerMemoryMB;
+  private int containerVCores;
+
+  /**
+   * @return the memory up to which new containers are filled, 0 for the memory of the largest group
+   */
+  public int getContainerMemoryMB()
+  {
+    return containerMemoryMB;
+  }
+
+  public void setContainerMemoryMB(int containerMemoryMB)
+  {
+    this.containerMemoryMB = containerMemoryMB;
+  }
+
+  /**
+   * @return the virtual cores up to which new containers are filled, 0 for no limit
+   */
+  public int getContainerVCores()
+  {
+    return containerVCores;
+  }
+
+  public void setContainerVCores(int containerVCores)
+  {
+    this.containerVCores = containerVCores;
+  }
+
+  @Override
+  public List<PTContainer> place(List<Set<PTOperator>> groups, PlacementContext context)
+  {
+    final int[] memoryMB = new int[groups.size()];
+    int[] vCores = new int[groups.size()];
+    List<Integer> order = Lists.newArrayListWithCapacity(groups.size());
+    int maxMemoryMB = 0;
+    for (int i = 0; i < groups.size(); i++) {
+      memoryMB[i] = context.getMemoryMB(groups.get(i));
+      vCores[i] = context.getVCores(groups.get(i));
+      maxMemoryMB = Math.max(maxMemoryMB, memoryMB[i]);
+      order.add(i);
+    }
+    Collections.sort(order, new Comparator<Integer>()
+    {
+      @Override
+      public int compare(Integer o1, Integer o2)
+      {
+        int result = Integer.compare(memoryMB[o2], memoryMB[o1]);
+        return result != 0 ? result : Integer.compare(o1, o2);
+      }
+    });
+
+    List<Bin> bins = Lists.newArrayList();
+    Map<PTOperator, Bin> operatorBins = Maps.newHashMap();
+    for (PTContainer container : context.getContainers()) {
+      if (container.getState() == PTContainer.State.ACTIVE && container.getAllocatedMemoryMB() > 0) {
+        Bin bin = new Bin(container, container.getAllocatedMemoryMB() - container.getRequiredMemoryMB(),
+            container.getAllocatedVCores() > 0 ? container.getAllocatedVCores() - container.getRequiredVCores()
+            : Integer.MAX_VALUE);
+        for (PTOperator oper : container.getOperators()) {
+          bin.add(oper);
+          operatorBins.put(oper, bin);
+        }
+        bins.add(bin);
+      }
+    }
+
+    List<PTContainer> result = new ArrayList<>(Collections.<PTContainer>nCopies(groups.size(), null));
+    for (int i : order) {
+      Set<PTOperator> group = getOperators(groups.get(i));
+      String host = getHost(group);
+      Map<Bin, Long> traffic = getTraffic(group, operatorBins, context);
+      Bin bin = null;
+      long binTraffic = -1;
+      for (Bin b : bins) {
+        if (b.fits(memoryMB[i], vCores[i], host)) {
+          Long t = traffic.get(b);
+          long bytes = t == null ? 0 : t;
+          if (bytes > binTraffic || bytes == binTraffic && b.memoryMB < bin.memoryMB) {
+            bin = b;
+            binTraffic = bytes;
+          }
+        }
+      }
+      if (bin == null) {
+        if (context.getContainers().size() < context.getMaxContainers() || bins.isEmpty()) {
+          int binMemoryMB = Math.max(containerMemoryMB > 0 ? containerMemoryMB : maxMemoryMB, memoryMB[i]);
+          int binVCores = containerVCores > 0 ? Math.max(containerVCores, vCores[i]) : Integer.MAX_VALUE;
+          bin = new Bin(context.newContainer(), binMemoryMB, binVCores);
+          bins.add(bin);
+        } else {
+          for (Bin b : bins) {
+            if ((bin == null || b.memoryMB > bin.memoryMB) && (host == null || b.host == null || host.equals(b.host))) {
+              bin = b;
+            }
+          }
+          if (bin == null) {
+            bin = bins.get(0);
+          }
+          LOG.warn("Operators {} share container {} without enough resources", groups.get(i), bin.container);
+        }
+      }
+      bin.memoryMB -= memoryMB[i];
+      bin.vCores -= vCores[i];
+      if (host != null) {
+        bin.host = host;
+      }
+      for (PTOperator oper : group) {
+        bin.add(oper);
+        operatorBins.put(oper, bin);
+      }
+      result.set(i, bin.container);
+    }
+    return result;
+  }
+
+  /**
+   * @return the operators of the group with their MxN unifiers
+   */
+  private static Set<PTOperator> getOperators(Set<PTOperator> group)
+  {
+    Set<PTOperator> operators = Sets.newHashSet(group);
+    for (PTOperator oper : group) {
+      operators.addAll(oper.upstreamMerge.values());
+    }
+    return operators;
+  }
+
+  private static String getHost(Set<PTOperator> group)
+  {
+    for (PTOperator oper : group) {
+      String host = oper.getNodeLocalOperators().getHost();
+      if (host != null) {
+        return host;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the traffic between the operators of the group and the operators in each of the containers
+   */
+  private static Map<Bin, Long> getTraffic(Set<PTOperator> group, Map<PTOperator, Bin> operatorBins,
+      PlacementContext context)
+  {
+    Map<Bin, Long> traffic = Maps.newHashMap();
+    for (PTOperator oper : group) {
+      for (PTInput input : oper.getInputs()) {
+        addTraffic(traffic, operatorBins.get(input.source.source), input, context);
+      }
+      for (PTOutput output : oper.getOutputs()) {
+        for (PTInput sink : output.sinks) {
+          addTraffic(traffic, operatorBins.get(sink.target), sink, context);
+        }
+      }
+    }
+    return traffic;
+  }
+
+  private static void addTraffic(Map<Bin, Long> traffic, Bin bin, PTInput input, PlacementContext context)
+  {
+    if (bin != null) {
+      Long bytes = traffic.get(bin);
+      traffic.put(bin, (bytes == null ? 0 : bytes) + context.getBytesPerSecond(input) + 1);
+    }
+  }
+
+  private static class Bin
+  {
+    private final PTContainer container;
+    private int memoryMB;
+    private int vCores;
+    private String host;
+
+    private Bin(PTContainer container, int memoryMB, int vCores)
+    {
+      this.container = container;
+      this.memoryMB = memoryMB;
+      this.vCores = vCores;
+    }
+
+    private void add(PTOperator oper)
+    {
+      if (host == null) {
+        host = oper.getNodeLocalOperators().getHost();
+      }
+    }
+
+    private boolean fits(int memoryMB, int vCores, String host)
+    {
+      return memoryMB <= this.memoryMB && vCores <= this.vCores
+          && (host == null || this.host == null || host.equals(this.host));
+    }
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(BinPackingPlacement.class);
+  private static final long serialVersionUID = 201610190000L;
+}
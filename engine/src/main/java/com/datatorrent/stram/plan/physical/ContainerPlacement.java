@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.plan.physical;
+
+import java.util.List;
+import java.util.Set;
+
+import com.datatorrent.stram.plan.physical.PTOperator.PTInput;
+
+/**
+ * Decides in which containers the operators of the physical plan are deployed.<p>
+ * <br>
+ * The plan hands the strategy the operators which do not have a container yet, on the initial deployment and when
+ * operators are added on redeploy, grouped by container locality. The operators of a group have to share a container,
+ * the MxN unifiers of an operator are deployed with it. Operators which are container local with an operator which
+ * already has a container are deployed to that container without consulting the strategy.<br>
+ * <br>
+ * Without a strategy, set with {@link com.datatorrent.stram.plan.logical.LogicalPlan#CONTAINER_PLACEMENT}, every group
+ * gets its own container until the maximum number of containers is reached and then shares the containers in turn.<br>
+ */
+public interface ContainerPlacement
+{
+  /**
+   * @param groups the groups of operators which need a container
+   * @param context the resources and traffic of the operators and the containers of the plan
+   * @return the container for each group, in the order of the groups
+   */
+  List<PTContainer> place(List<Set<PTOperator>> groups, PlacementContext context);
+
+  interface PlacementContext
+  {
+    /**
+     * @return the containers of the plan, including the ones which were added by {@link #newContainer()}
+     */
+    List<PTContainer> getContainers();
+
+    /**
+     * @return the maximum number of containers of the application
+     */
+    int getMaxContainers();
+
+    /**
+     * Adds a container to the plan. Containers which do not receive any operators are released.
+     *
+     * @return the new container
+     */
+    PTContainer newContainer();
+
+    /**
+     * @param operators operators which share a container
+     * @return the memory which the operators and their MxN unifiers require, including the buffer server memory of
+     * the streams to operators outside of the group
+     */
+    int getMemoryMB(Set<PTOperator> operators);
+
+    /**
+     * @param operators operators which share a container
+     * @return the virtual cores which the operators require, the larger of the declared ones and the observed CPU
+     * usage
+     */
+    int getVCores(Set<PTOperator> operators);
+
+    /**
+     * @param input an input of an operator
+     * @return the observed bytes per second which the buffer server delivered to the input, 0 if not known
+     */
+    long getBytesPerSecond(PTInput input);
+  }
+}
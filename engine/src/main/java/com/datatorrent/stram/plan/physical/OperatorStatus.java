@@ -27,7 +27,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import com.datatorrent.api.Stats;
 import com.datatorrent.api.Stats.OperatorStats;
 import com.datatorrent.api.StatsListener;
-import com.datatorrent.api.StatsListener.BatchedOperatorStats;
+import com.datatorrent.api.StatsListener.LatencyPercentileStats;
 
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHeartbeat;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHeartbeat.DeployState;
@@ -35,6 +35,8 @@ import com.datatorrent.stram.engine.OperatorContext;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.physical.StatsRevisions.VersionedLong;
 import com.datatorrent.stram.util.MovingAverage.MovingAverageLong;
+import com.datatorrent.stram.util.MovingAverage.MovingLatencyHistogram;
+import com.datatorrent.stram.util.MovingAverage.MovingPercentilesLong;
 import com.datatorrent.stram.util.MovingAverage.TimedMovingAverageLong;
 
 /**
@@ -42,9 +44,9 @@ import com.datatorrent.stram.util.MovingAverage.TimedMovingAverageLong;
  *
  * @since 0.9.1
  */
-public class OperatorStatus implements BatchedOperatorStats, java.io.Serializable
+public class OperatorStatus implements LatencyPercentileStats, java.io.Serializable
 {
-  private static final long serialVersionUID = 201312231552L;
+  private static final long serialVersionUID = 201602231550L;
 
   public class PortStatus
   {
@@ -75,7 +77,12 @@ public class OperatorStatus implements BatchedOperatorStats, java.io.Serializabl
   public Stats.CheckpointStats checkpointStats;
   public final MovingAverageLong checkpointTimeMA;
   public final TimedMovingAverageLong cpuNanosPMSMA;
-  public final MovingAverageLong latencyMA;
+  public final MovingPercentilesLong latencyPercentiles;
+  /**
+   * Latencies of the tuples traced within the throughput calculation interval, one period per heartbeat.
+   */
+  public final MovingLatencyHistogram tracedLatency;
+  public final MovingLatencyHistogram tracedHopLatency;
   public final Map<String, PortStatus> inputPortStatusList = new ConcurrentHashMap<String, PortStatus>();
   public final Map<String, PortStatus> outputPortStatusList = new ConcurrentHashMap<String, PortStatus>();
   public List<OperatorStats> lastWindowedStats = Collections.emptyList();
@@ -100,8 +107,10 @@ public class OperatorStatus implements BatchedOperatorStats, java.io.Serializabl
     int heartbeatInterval = dag.getValue(LogicalPlan.HEARTBEAT_INTERVAL_MILLIS);
 
     cpuNanosPMSMA = new TimedMovingAverageLong(throughputCalculationMaxSamples, throughputCalculationInterval);
-    latencyMA = new MovingAverageLong(throughputCalculationInterval / heartbeatInterval);
+    latencyPercentiles = new MovingPercentilesLong(throughputCalculationInterval / heartbeatInterval);
     checkpointTimeMA = new MovingAverageLong(throughputCalculationInterval / heartbeatInterval);
+    tracedLatency = new MovingLatencyHistogram(throughputCalculationInterval / heartbeatInterval);
+    tracedHopLatency = new MovingLatencyHistogram(throughputCalculationInterval / heartbeatInterval);
     this.windowProcessingTimeoutMillis = dag.getValue(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS)
       * om.getValue(OperatorContext.TIMEOUT_WINDOW_COUNT);
   }
@@ -153,7 +162,13 @@ public class OperatorStatus implements BatchedOperatorStats, java.io.Serializabl
   @Override
   public long getLatencyMA()
   {
-    return this.latencyMA.getAvg();
+    return this.latencyPercentiles.getAvg();
+  }
+
+  @Override
+  public long getLatencyPercentile(double percentile)
+  {
+    return this.latencyPercentiles.getPercentile(percentile);
   }
 
   @Override
@@ -160,6 +160,7 @@ public class PTContainer implements java.io.Serializable
   public String host;
   public InetSocketAddress bufferServerAddress;
   public String nodeHttpAddress;
+  private String avoidedHost;
   int restartAttempts;
   private long startedTime = -1;
   private long finishedTime = -1;
@@ -247,6 +248,19 @@ public class PTContainer implements java.io.Serializable
     this.containerId = id;
   }
 
+  /**
+   * @return the host on which the container should rather not run, like the host a slow operator was moved away from
+   */
+  public String getAvoidedHost()
+  {
+    return avoidedHost;
+  }
+
+  public void setAvoidedHost(String avoidedHost)
+  {
+    this.avoidedHost = avoidedHost;
+  }
+
   public long getStartedTime()
   {
     return startedTime;
@@ -40,7 +40,7 @@ import com.datatorrent.api.annotation.Stateless;
 import com.datatorrent.stram.Journal.Recoverable;
 import com.datatorrent.stram.api.Checkpoint;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol;
-import com.datatorrent.stram.engine.WindowGenerator;
+import com.datatorrent.stram.engine.WindowWidthSchedule;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.logical.LogicalPlan.InputPortMeta;
 import com.datatorrent.stram.plan.logical.LogicalPlan.OperatorMeta;
@@ -416,12 +416,16 @@ public class PTOperator implements java.io.Serializable
     return operatorMeta.getOperator().getClass().isAnnotationPresent(Stateless.class);
   }
 
-  public Checkpoint addCheckpoint(long windowId, long startTime)
+  public Checkpoint addCheckpoint(long windowId, WindowWidthSchedule schedule)
   {
-    int widthMillis = operatorMeta.getDAG().getValue(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS);
-    long millis = WindowGenerator.getNextWindowMillis(windowId, startTime, widthMillis);
-    long count = WindowGenerator.getWindowCount(millis, startTime, widthMillis);
-    Checkpoint c = new Checkpoint(windowId, (int)(count % operatorMeta.getValue(OperatorContext.APPLICATION_WINDOW_COUNT)), (int)(count % operatorMeta.getValue(OperatorContext.CHECKPOINT_WINDOW_COUNT)));
+    long millis = schedule.getNextWindowMillis(windowId);
+    long count = schedule.getWindowCount(millis);
+    int applicationWindowCount = schedule.scaleWindowCount(
+        operatorMeta.getValue(OperatorContext.APPLICATION_WINDOW_COUNT), millis);
+    int checkpointWindowCount = schedule.scaleWindowCount(
+        operatorMeta.getValue(OperatorContext.CHECKPOINT_WINDOW_COUNT), millis);
+    Checkpoint c = new Checkpoint(windowId, (int)(count % applicationWindowCount),
+        (int)(count % checkpointWindowCount));
     this.checkpoints.add(c);
     return c;
   }
@@ -440,6 +444,10 @@ public class PTOperator implements java.io.Serializable
     return getGrouping(Locality.NODE_LOCAL);
   }
 
+  public HostOperatorSet getContainerLocalOperators() {
+    return getGrouping(Locality.CONTAINER_LOCAL);
+  }
+
   public class HostOperatorSet implements java.io.Serializable
   {
     private static final long serialVersionUID = 201312112033L;
@@ -26,6 +26,8 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.validation.ValidationException;
+
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +53,7 @@ import com.datatorrent.stram.Journal.Recoverable;
 import com.datatorrent.stram.api.Checkpoint;
 import com.datatorrent.stram.api.StramEvent;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.StramToNodeRequest;
+import com.datatorrent.stram.engine.WindowWidthSchedule;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.logical.LogicalPlan.InputPortMeta;
 import com.datatorrent.stram.plan.logical.LogicalPlan.OperatorMeta;
@@ -114,16 +117,21 @@ public class PhysicalPlan implements Serializable
   private final AtomicInteger strCodecIdSequence = new AtomicInteger();
   private final Map<StreamCodec<?>, Integer> streamCodecIdentifiers = Maps.newHashMap();
 
-  private PTContainer getContainer(int index) {
-    if (index >= containers.size()) {
+  /**
+   * Get the container at the given index, creating the missing containers up to it. The containers created are
+   * collected in the given list and added to the plan at once, which is less costly than adding them one by one.
+   */
+  private PTContainer getContainer(int index, List<PTContainer> newContainers) {
+    int size = containers.size() + newContainers.size();
+    if (index >= size) {
       if (index >= maxContainers) {
         index = maxContainers - 1;
       }
-      for (int i=containers.size(); i<index+1; i++) {
-        containers.add(i, new PTContainer(this));
+      for (int i=size; i<index+1; i++) {
+        newContainers.add(new PTContainer(this));
       }
     }
-    return containers.get(index);
+    return index < containers.size() ? containers.get(index) : newContainers.get(index - containers.size());
   }
 
   /**
@@ -188,7 +196,7 @@ public class PhysicalPlan implements Serializable
     private static final long serialVersionUID = 201312112033L;
 
     final private OperatorMeta logicalOperator;
-    private List<PTOperator> partitions = new LinkedList<PTOperator>();
+    private List<PTOperator> partitions = new ArrayList<PTOperator>();
     private final Map<LogicalPlan.OutputPortMeta, StreamMapping> outputStreams = Maps.newHashMap();
     private List<StatsListener> statsHandlers;
 
@@ -350,10 +358,26 @@ public class PhysicalPlan implements Serializable
     // assign operators to containers
     int groupCount = 0;
     Set<PTOperator> deployOperators = Sets.newHashSet();
+    ContainerPlacement placement = dag.getValue(LogicalPlan.CONTAINER_PLACEMENT);
+    if (placement != null) {
+      List<Set<PTOperator>> groups = Lists.newArrayList();
+      Set<PTOperator> grouped = Sets.newHashSet();
+      for (PMapping m : logicalToPTOperator.values()) {
+        for (PTOperator oper : m.getAllOperators()) {
+          if (oper.container == null && !grouped.contains(oper)) {
+            Set<PTOperator> group = getContainerLocalGroup(oper);
+            grouped.addAll(group);
+            groups.add(group);
+          }
+        }
+      }
+      placeGroups(placement, groups, Sets.<PTContainer>newHashSet());
+    }
+    List<PTContainer> newContainers = Lists.newArrayList();
     for (Map.Entry<OperatorMeta, PMapping> e : logicalToPTOperator.entrySet()) {
       for (PTOperator oper : e.getValue().getAllOperators()) {
         if (oper.container == null) {
-          PTContainer container = getContainer((groupCount++) % maxContainers);
+          PTContainer container = getContainer((groupCount++) % maxContainers, newContainers);
           if (!container.operators.isEmpty()) {
             LOG.warn("Operator {} shares container without locality contraint due to insufficient resources.", oper);
           }
@@ -366,12 +390,14 @@ public class PhysicalPlan implements Serializable
           } else {
             setContainer(oper, container);
           }
-          deployOperators.addAll(container.operators);
         }
       }
     }
+    containers.addAll(newContainers);
 
     for (PTContainer container : containers) {
+      // includes the merge unifiers placed with the operators
+      deployOperators.addAll(container.operators);
       updateContainerMemoryWithBufferServer(container);
       container.setRequiredVCores(getVCores(container.getOperators()));
     }
@@ -505,6 +531,119 @@ public class PhysicalPlan implements Serializable
     container.setRequiredMemoryMB(container.getRequiredMemoryMB() + memoryMB);
   }
 
+  /**
+   * @return the operators which have to share a container with the given operator, including the operator
+   */
+  private Set<PTOperator> getContainerLocalGroup(PTOperator oper)
+  {
+    Set<PTOperator> inlineSet = oper.getGrouping(Locality.CONTAINER_LOCAL).getOperatorSet();
+    return inlineSet.isEmpty() ? Collections.singleton(oper) : inlineSet;
+  }
+
+  /**
+   * Assigns the groups of operators to the containers picked by the placement strategy. Containers which the strategy
+   * added but did not use are removed again.
+   *
+   * @return the container of each group
+   */
+  private List<PTContainer> placeGroups(ContainerPlacement placement, List<Set<PTOperator>> groups,
+      Set<PTContainer> newContainers)
+  {
+    List<PTContainer> placed = groups.isEmpty() ? Collections.<PTContainer>emptyList()
+        : placement.place(groups, new PlacementContextImpl(newContainers));
+    if (placed == null || placed.size() != groups.size()) {
+      throw new IllegalStateException("Placement " + placement + " did not return a container for each of " + groups);
+    }
+    for (int i = 0; i < groups.size(); i++) {
+      PTContainer container = placed.get(i);
+      if (!containers.contains(container)) {
+        throw new IllegalStateException("Placement " + placement + " returned unknown container " + container);
+      }
+      for (PTOperator oper : groups.get(i)) {
+        setContainer(oper, container);
+      }
+    }
+    for (Iterator<PTContainer> it = newContainers.iterator(); it.hasNext();) {
+      PTContainer container = it.next();
+      if (container.operators.isEmpty()) {
+        containers.remove(container);
+        it.remove();
+      }
+    }
+    return placed;
+  }
+
+  private class PlacementContextImpl implements ContainerPlacement.PlacementContext
+  {
+    private final Set<PTContainer> newContainers;
+
+    private PlacementContextImpl(Set<PTContainer> newContainers)
+    {
+      this.newContainers = newContainers;
+    }
+
+    @Override
+    public List<PTContainer> getContainers()
+    {
+      return Collections.unmodifiableList(containers);
+    }
+
+    @Override
+    public int getMaxContainers()
+    {
+      return maxContainers;
+    }
+
+    @Override
+    public PTContainer newContainer()
+    {
+      PTContainer container = new PTContainer(PhysicalPlan.this);
+      containers.add(container);
+      newContainers.add(container);
+      return container;
+    }
+
+    @Override
+    public int getMemoryMB(Set<PTOperator> operators)
+    {
+      Set<PTOperator> groupOperators = Sets.newHashSet(operators);
+      for (PTOperator oper : operators) {
+        groupOperators.addAll(oper.upstreamMerge.values());
+      }
+      int memoryMB = 0;
+      for (PTOperator oper : groupOperators) {
+        memoryMB += oper.getOperatorMeta().getValue(OperatorContext.MEMORY_MB);
+        // the containers of the sinks are not known yet, all streams which leave the group need a buffer server
+        for (PTOutput output : oper.getOutputs()) {
+          for (PTInput sink : output.sinks) {
+            if (!groupOperators.contains(sink.target)) {
+              memoryMB += output.logicalStream.getSource().getValue(PortContext.BUFFER_MEMORY_MB);
+              break;
+            }
+          }
+        }
+      }
+      return memoryMB;
+    }
+
+    @Override
+    public int getVCores(Set<PTOperator> operators)
+    {
+      double cpuNanosPerMilli = 0;
+      for (PTOperator oper : operators) {
+        cpuNanosPerMilli += oper.stats.cpuNanosPMSMA.getAvg();
+      }
+      return Math.max(PhysicalPlan.this.getVCores(operators), (int)Math.ceil(cpuNanosPerMilli / 1000000));
+    }
+
+    @Override
+    public long getBytesPerSecond(PTInput input)
+    {
+      OperatorStatus.PortStatus ps = input.target.stats.inputPortStatusList.get(input.portName);
+      return ps == null ? 0 : (long)(ps.bufferServerBytesPMSMA.getAvg() * 1000);
+    }
+  }
+
   private void updateContainerMemoryWithBufferServer(PTContainer container)
   {
     int bufferServerMemory = 0;
@@ -645,6 +784,7 @@ public class PhysicalPlan implements Serializable
   {
     final List<PTOperator> operators;
     final List<DefaultPartition<Operator>> currentPartitions;
+    final Set<Partition<?>> currentPartitionSet;
     final Map<Partition<?>, PTOperator> currentPartitionMap;
     final Map<Integer, Partition<Operator>> operatorIdToPartition;
     final List<Partition<Operator>> addedPartitions = new ArrayList<Partition<Operator>>();
@@ -656,6 +796,7 @@ public class PhysicalPlan implements Serializable
       super(currentMapping, partitionCount);
       this.operators = currentMapping.partitions;
       this.currentPartitions = new ArrayList<DefaultPartition<Operator>>(operators.size());
+      this.currentPartitionSet = Sets.newIdentityHashSet();
       this.currentPartitionMap = Maps.newHashMapWithExpectedSize(operators.size());
       this.operatorIdToPartition = Maps.newHashMapWithExpectedSize(operators.size());
 
@@ -679,6 +820,7 @@ public class PhysicalPlan implements Serializable
         Operator partitionedOperator = loadOperator(pOperator);
         DefaultPartition<Operator> partition = new DefaultPartition<Operator>(partitionedOperator, pks, pOperator.loadIndicator, pOperator.stats);
         currentPartitions.add(partition);
+        currentPartitionSet.add(partition);
         currentPartitionMap.put(partition, pOperator);
         LOG.debug("partition load: {} {} {}", pOperator, partition.getPartitionKeys(), partition.getLoad());
         operatorIdToPartition.put(pOperator.getId(), partition);
@@ -748,13 +890,11 @@ public class PhysicalPlan implements Serializable
         addedPartitions.add(newPartition);
       } else {
         // check whether mapping was changed
-        for (DefaultPartition<Operator> pi : mainPC.currentPartitions) {
-          if (pi == newPartition && pi.isModified()) {
-            // existing partition changed (operator or partition keys)
-            // remove/add to update subscribers and state
-            mainPC.currentPartitionMap.put(newPartition, op);
-            addedPartitions.add(newPartition);
-          }
+        if (mainPC.currentPartitionSet.contains(newPartition) && ((DefaultPartition<?>)newPartition).isModified()) {
+          // existing partition changed (operator or partition keys)
+          // remove/add to update subscribers and state
+          mainPC.currentPartitionMap.put(newPartition, op);
+          addedPartitions.add(newPartition);
         }
       }
     }
@@ -849,13 +989,11 @@ public class PhysicalPlan implements Serializable
             pc.addedPartitions.add(newPartition);
           } else {
             // check whether mapping was changed - based on DefaultPartition implementation
-            for (DefaultPartition<Operator> pi : pc.currentPartitions) {
-              if (pi == newPartition && pi.isModified()) {
-                // existing partition changed (operator or partition keys)
-                // remove/add to update subscribers and state
-                mainPC.currentPartitionMap.put(newPartition, op);
-                pc.addedPartitions.add(newPartition);
-              }
+            if (pc.currentPartitionSet.contains(newPartition) && ((DefaultPartition<?>)newPartition).isModified()) {
+              // existing partition changed (operator or partition keys)
+              // remove/add to update subscribers and state
+              mainPC.currentPartitionMap.put(newPartition, op);
+              pc.addedPartitions.add(newPartition);
             }
           }
         }
@@ -994,6 +1132,9 @@ public class PhysicalPlan implements Serializable
       mxnUnifiers.addAll(o.upstreamMerge.values());
     }
     Set<PTContainer> updatedContainers =  Sets.newHashSet();
+    ContainerPlacement placement = dag.getValue(LogicalPlan.CONTAINER_PLACEMENT);
+    List<Set<PTOperator>> groups = Lists.newArrayList();
+    Set<PTOperator> grouped = Sets.newHashSet();
 
     for (Map.Entry<PTOperator, Operator> operEntry : this.newOpers.entrySet()) {
 
@@ -1019,6 +1160,15 @@ public class PhysicalPlan implements Serializable
         memoryMB += inlineOper.getBufferServerMemory();
       }
 
+      if (newContainer == null && placement != null) {
+        if (!grouped.contains(oper)) {
+          Set<PTOperator> group = getContainerLocalGroup(oper);
+          grouped.addAll(group);
+          groups.add(group);
+        }
+        continue;
+      }
+
       if (newContainer == null) {
         int vCores = getVCores(oper.getGrouping(Locality.CONTAINER_LOCAL).getOperatorSet());
         // attempt to find empty container with required size
@@ -1042,6 +1192,36 @@ public class PhysicalPlan implements Serializable
       }
       setContainer(oper, newContainer);
     }
+    if (placement != null) {
+      Set<PTContainer> occupiedContainers = Sets.newHashSet();
+      for (PTContainer c : this.containers) {
+        if (!c.operators.isEmpty()) {
+          occupiedContainers.add(c);
+        }
+      }
+      List<PTContainer> placed = placeGroups(placement, groups, newContainers);
+      for (int i = 0; i < groups.size(); i++) {
+        PTContainer c = placed.get(i);
+        if (occupiedContainers.contains(c)) {
+          // the required memory of a container which already hosts operators includes their buffer server memory
+          for (PTOperator oper : groups.get(i)) {
+            c.setRequiredMemoryMB(c.getRequiredMemoryMB() + oper.getBufferServerMemory());
+            for (PTOperator unifier : oper.upstreamMerge.values()) {
+              c.setRequiredMemoryMB(c.getRequiredMemoryMB() + unifier.getBufferServerMemory());
+            }
+          }
+          c.setRequiredVCores(getVCores(c.getOperators()));
+        } else if (updatedContainers.add(c) && !newContainers.contains(c)) {
+          LOG.debug("Reusing existing container {} for {}", c, groups.get(i));
+          c.setRequiredMemoryMB(0);
+          c.setRequiredVCores(0);
+          for (PTOperator oper : c.getOperators()) {
+            int memoryMB = oper.getOperatorMeta().getValue(OperatorContext.MEMORY_MB);
+            c.setRequiredMemoryMB(c.getRequiredMemoryMB() + memoryMB);
+          }
+        }
+      }
+    }
     // release containers that are no longer used
     for (PTContainer c : this.containers) {
       if (c.operators.isEmpty()) {
@@ -1384,29 +1564,48 @@ public class PhysicalPlan implements Serializable
   }
 
   private void getDeps(PTOperator operator, Set<PTOperator> visited) {
-    visited.add(operator);
-    for (PTInput in : operator.inputs) {
-      if (in.source.isDownStreamInline()) {
-        PTOperator sourceOperator = in.source.source;
-        if (!visited.contains(sourceOperator)) {
-          getDeps(sourceOperator, visited);
+    if (!visited.add(operator)) {
+      return;
+    }
+    // work list instead of recursion, the dependents of a large plan can be a deep chain of operators
+    Deque<PTOperator> pending = new ArrayDeque<PTOperator>();
+    pending.push(operator);
+    while (!pending.isEmpty()) {
+      PTOperator oper = pending.pop();
+      for (PTInput in : oper.inputs) {
+        if ((in.source.isDownStreamInline() || isSharedMemoryStream(in)) && visited.add(in.source.source)) {
+          pending.push(in.source.source);
         }
       }
-    }
-    // downstream traversal
-    for (PTOutput out: operator.outputs) {
-      for (PTInput sink : out.sinks) {
-        PTOperator sinkOperator = sink.target;
-        if (!visited.contains(sinkOperator)) {
-          getDeps(sinkOperator, visited);
+      // downstream traversal
+      for (PTOutput out: oper.outputs) {
+        for (PTInput sink : out.sinks) {
+          if (visited.add(sink.target)) {
+            pending.push(sink.target);
+          }
         }
       }
     }
   }
 
+  /**
+   * Node local streams between containers may be carried by a shared memory ring instead of the buffer server. The
+   * upstream operator of such a stream cannot be replayed from the buffer server and is a dependency like the
+   * upstream operator of an inline stream.
+   *
+   * @param input the input of the subscriber
+   * @return whether the stream to the input may be carried by shared memory
+   */
+  public boolean isSharedMemoryStream(PTInput input)
+  {
+    return input.logicalStream.getLocality() == Locality.NODE_LOCAL
+        && input.source.source.getContainer() != input.target.getContainer()
+        && dag.getValue(LogicalPlan.SHARED_MEMORY_STREAM_PATH) != null;
+  }
+
   /**
    * Get all operator instances that depend on the specified operator instance(s).
-   * Dependencies are all downstream and upstream inline operators.
+   * Dependencies are all downstream and upstream inline or shared memory operators.
    * @param operators
    * @return
    */
@@ -1530,16 +1729,15 @@ public class PhysicalPlan implements Serializable
     }
     // remove outgoing connections for logical stream
     PMapping m = this.logicalToPTOperator.get(sm.getSource().getOperatorMeta());
+    Set<PTOperator> downstreamOpers = Sets.newLinkedHashSet();
     for (PTOperator oper : m.partitions) {
       List<PTOutput> outputsCopy = Lists.newArrayList(oper.outputs);
       for (PTOutput out : oper.outputs) {
         if (out.logicalStream == sm) {
           for (PTInput input : out.sinks) {
-            PTOperator downstreamOper = input.source.source;
+            PTOperator downstreamOper = input.target;
             downstreamOper.inputs.remove(input);
-            Set<PTOperator> deps = this.getDependents(Collections.singletonList(downstreamOper));
-            undeployOpers.addAll(deps);
-            deployOpers.addAll(deps);
+            downstreamOpers.add(downstreamOper);
           }
           outputsCopy.remove(out);
           undeployOpers.add(oper);
@@ -1548,6 +1746,10 @@ public class PhysicalPlan implements Serializable
       }
       oper.outputs = outputsCopy;
     }
+    // collect the dependents of all affected operators in a single traversal
+    Set<PTOperator> deps = this.getDependents(downstreamOpers);
+    undeployOpers.addAll(deps);
+    deployOpers.addAll(deps);
   }
 
   /**
@@ -1577,6 +1779,128 @@ public class PhysicalPlan implements Serializable
     }
   }
 
+  /**
+   * Make the stream container local in the running application. The source and the sinks of the stream must not be
+   * partitioned. The sink operators are replaced by new ones, which are restored from the checkpoints of the operators
+   * they replace and assigned to the container of the source operator. Affected operators will redeploy.
+   *
+   * @param sm the stream
+   */
+  public void setContainerLocal(StreamMeta sm)
+  {
+    PMapping sourceMapping = this.logicalToPTOperator.get(sm.getSource().getOperatorMeta());
+    checkContainerLocal(sourceMapping, sm);
+    PTOperator source = sourceMapping.partitions.get(0);
+    LocalityPref sourcePref = inlinePrefs.prefs.get(sourceMapping);
+
+    List<PMapping> sinkMappings = Lists.newArrayList();
+    int memoryMB = 0;
+    for (InputPortMeta ipm : sm.getSinks()) {
+      PMapping m = this.logicalToPTOperator.get(ipm.getOperatorWrapper());
+      checkContainerLocal(m, sm);
+      if (ipm.getValue(PortContext.PARTITION_PARALLEL) || !m.parallelPartitions.isEmpty()) {
+        throw new ValidationException("Operator " + m.logicalOperator.getName() + " of stream " + sm.getName()
+            + " is parallel partitioned");
+      }
+      LocalityPref pref = inlinePrefs.prefs.get(m);
+      if (pref != null && pref != sourcePref) {
+        throw new ValidationException("Operator " + m.logicalOperator.getName() + " of stream " + sm.getName()
+            + " is container local with other operators");
+      }
+      PTOperator oper = m.partitions.get(0);
+      if (oper.container != source.container && !sinkMappings.contains(m)) {
+        sinkMappings.add(m);
+        memoryMB += m.logicalOperator.getValue(OperatorContext.MEMORY_MB) + oper.getBufferServerMemory();
+      }
+    }
+    PTContainer container = source.container;
+    memoryMB += container.getRequiredMemoryMB();
+    if (container.getAllocatedMemoryMB() > 0 && memoryMB > container.getAllocatedMemoryMB()) {
+      throw new ValidationException(String.format("Container %s of %s has %sm allocated, %sm required for stream %s",
+          container.getExternalId(), source, container.getAllocatedMemoryMB(), memoryMB, sm.getName()));
+    }
+
+    sm.setLocality(Locality.CONTAINER_LOCAL);
+    // the source output becomes inline, the source and all downstream operators redeploy
+    Set<PTOperator> deps = getDependents(Collections.singletonList(source));
+    this.undeployOpers.addAll(deps);
+    this.deployOpers.addAll(deps);
+    for (PMapping m : sinkMappings) {
+      inlinePrefs.setLocal(sourceMapping, m);
+      PTOperator oper = m.partitions.get(0);
+      Map<InputPort<?>, PartitionKeys> pks = oper.getPartitionKeys();
+      DefaultPartition<Operator> partition = new DefaultPartition<Operator>(loadOperator(oper),
+          pks != null ? pks : Maps.<InputPort<?>, PartitionKeys>newHashMap(), oper.loadIndicator, oper.stats);
+      Checkpoint checkpoint = oper.recoveryCheckpoint;
+      removePartition(oper, m);
+      m.partitions = Lists.newArrayList();
+      PTOperator newOper = addPTOperator(m, partition, checkpoint);
+      updateStreamMappings(m);
+      LOG.info("Replaced {} with {} for container local stream {}", oper, newOper, sm.getName());
+    }
+  }
+
+  private void checkContainerLocal(PMapping m, StreamMeta sm)
+  {
+    if (m.partitions.size() != 1 || m.getAllOperators().size() != 1) {
+      throw new ValidationException("Operator " + m.logicalOperator.getName() + " of stream " + sm.getName()
+          + " is partitioned");
+    }
+    if (m.logicalOperator.getOperator() instanceof Operator.DelayOperator) {
+      throw new ValidationException("Operator " + m.logicalOperator.getName() + " of stream " + sm.getName()
+          + " is a delay operator");
+    }
+  }
+
+  /**
+   * Move an operator, together with the operators which have to share a container with it, to a new container which
+   * avoids the host of the current one. Used to get a slow partition away from a bad disk or a busy node. The moved
+   * operators and all their dependents redeploy from their recovery checkpoints, the upstream buffer servers replay
+   * the tuples after those checkpoints. The current container is released when no operators are left in it.
+   *
+   * @param oper the operator to move
+   * @return the new container
+   */
+  public PTContainer moveToNewContainer(PTOperator oper)
+  {
+    PTContainer container = oper.container;
+    Set<PTOperator> group = getContainerLocalGroup(oper);
+    Set<PTOperator> moved = Sets.newLinkedHashSet();
+    for (PTOperator o : group) {
+      moved.add(o);
+      moved.addAll(o.upstreamMerge.values());
+    }
+    int memoryMB = 0;
+    for (PTOperator o : moved) {
+      container.operators.remove(o);
+      o.container = null;
+      memoryMB += o.getOperatorMeta().getValue(OperatorContext.MEMORY_MB);
+    }
+
+    PTContainer newContainer = new PTContainer(this);
+    newContainer.setAvoidedHost(container.host);
+    for (PTOperator o : group) {
+      setContainer(o, newContainer);
+    }
+    updateContainerMemoryWithBufferServer(newContainer);
+    newContainer.setRequiredVCores(getVCores(newContainer.getOperators()));
+    containers.add(newContainer);
+
+    Set<PTContainer> releaseContainers = Sets.newHashSet();
+    if (container.operators.isEmpty()) {
+      containers.remove(container);
+      releaseContainers.add(container);
+    } else {
+      // the buffer server memory stays, the outputs of the remaining operators to the moved ones are no longer inline
+      container.setRequiredMemoryMB(container.getRequiredMemoryMB() - memoryMB);
+      container.setRequiredVCores(getVCores(container.getOperators()));
+    }
+
+    Set<PTOperator> deps = getDependents(moved);
+    ctx.deploy(releaseContainers, deps, Collections.singleton(newContainer), deps);
+    return newContainer;
+  }
+
   /**
    * Remove all physical operators for the given logical operator.
    * All connected streams must have been previously removed.
@@ -1664,11 +1988,11 @@ public class PhysicalPlan implements Serializable
 
   /**
    * Read available checkpoints from storage agent for all operators.
-   * @param startTime
+   * @param schedule
    * @param currentTime
    * @throws IOException
    */
-  public void syncCheckpoints(long startTime, long currentTime) throws IOException
+  public void syncCheckpoints(WindowWidthSchedule schedule, long currentTime) throws IOException
   {
     for (PTOperator oper : getAllOperators().values()) {
       StorageAgent sa = oper.operatorMeta.getValue(OperatorContext.STORAGE_AGENT);
@@ -1677,7 +2001,7 @@ public class PhysicalPlan implements Serializable
       oper.checkpoints.clear();
       for (long wid : windowIds) {
         if (wid != Stateless.WINDOW_ID) {
-          oper.addCheckpoint(wid, startTime);
+          oper.addCheckpoint(wid, schedule);
         }
       }
     }
@@ -19,8 +19,11 @@
 package com.datatorrent.stram.plan.physical;
 
 import com.datatorrent.api.Context.DAGContext;
+import com.datatorrent.api.DAG.Locality;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.validation.ValidationException;
 
@@ -48,6 +51,7 @@ public class PlanModifier {
 
   final private LogicalPlan logicalPlan;
   final private PhysicalPlan physicalPlan;
+  final private Set<OperatorMeta> changedOperators = new LinkedHashSet<>();
 
   /**
    * For dry run on logical plan only
@@ -95,6 +99,7 @@ public class PlanModifier {
         }
       }
     }
+    addChangedOperators(sm);
     return sm;
   }
 
@@ -184,6 +189,7 @@ public class PlanModifier {
       return;
     }
 
+    addChangedOperators(sm);
     if (physicalPlan != null) {
       // associated operators will redeploy
       physicalPlan.removeLogicalStream(sm);
@@ -192,6 +198,33 @@ public class PlanModifier {
     sm.remove();
   }
 
+  /**
+   * Set the locality of the named stream. On the running application only
+   * container locality is supported, see {@link PhysicalPlan#setContainerLocal(StreamMeta)}.
+   *
+   * @param streamName
+   * @param locality
+   */
+  public void setStreamLocality(String streamName, Locality locality)
+  {
+    StreamMeta sm = logicalPlan.getStream(streamName);
+    if (sm == null) {
+      throw new ValidationException("Invalid stream name " + streamName);
+    }
+    if (sm.getLocality() == locality) {
+      return;
+    }
+    addChangedOperators(sm);
+    if (physicalPlan != null) {
+      if (locality != Locality.CONTAINER_LOCAL) {
+        throw new ValidationException("Stream " + streamName + " cannot change to " + locality + " while running");
+      }
+      physicalPlan.setContainerLocal(sm);
+    } else {
+      sm.setLocality(locality);
+    }
+  }
+
   /**
    * Add operator to logical plan.
    * @param name
@@ -199,6 +232,7 @@ public class PlanModifier {
   public void addOperator(String name, Operator operator)
   {
     logicalPlan.addOperator(name, operator);
+    changedOperators.add(logicalPlan.getMeta(operator));
     // add to physical plan after all changes are done
     if (physicalPlan != null) {
       OperatorMeta om = logicalPlan.getMeta(operator);
@@ -243,6 +277,10 @@ public class PlanModifier {
     }
     */
     logicalPlan.removeOperator(om.getOperator());
+    changedOperators.remove(om);
+    for (StreamMeta sm : om.getInputStreams().values()) {
+      changedOperators.add(sm.getSource().getOperatorMeta());
+    }
 
     if (physicalPlan != null) {
       physicalPlan.removeLogicalOperator(om);
@@ -270,6 +308,28 @@ public class PlanModifier {
     }
     Map<String, String> props = Collections.singletonMap(propertyName, propertyValue);
     LogicalPlanConfiguration.setOperatorProperties(om.getOperator(), props);
+    changedOperators.add(om);
+  }
+
+  private void addChangedOperators(StreamMeta sm)
+  {
+    if (sm.getSource() != null) {
+      changedOperators.add(sm.getSource().getOperatorMeta());
+    }
+    for (InputPortMeta ipm : sm.getSinks()) {
+      changedOperators.add(ipm.getOperatorWrapper());
+    }
+  }
+
+  /**
+   * The operators which were added or which have new or removed streams or changed properties, to validate the
+   * changed part of the logical plan with {@link LogicalPlan#validate(java.util.Collection)}.
+   *
+   * @return the changed operators
+   */
+  public Set<OperatorMeta> getChangedOperators()
+  {
+    return changedOperators;
   }
 
   /**
@@ -18,7 +18,9 @@
  */
 package com.datatorrent.stram.plan.physical;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -66,7 +68,11 @@ public class StreamMapping implements java.io.Serializable
   final Set<PTOperator> cascadingUnifiers = Sets.newHashSet();
   final Set<PTOperator> slidingUnifiers = Sets.newHashSet();
   private final List<PTOutput> upstream = Lists.newArrayList();
-
+  /**
+   * Outputs at the top of the cascading unifier tree which feed the final or per downstream partition unifiers, null
+   * when the unifiers do not cascade or are cascaded separately for each stream codec.
+   */
+  private List<PTOutput> cascadeSources;
 
   public StreamMapping(StreamMeta streamMeta, PhysicalPlan plan) {
     this.streamMeta = streamMeta;
@@ -192,8 +198,177 @@ public class StreamMapping implements java.io.Serializable
   }
 
   /**
-   * rebuild the tree, which may cause more changes to execution layer than need be
-   * TODO: investigate incremental logic
+   * Updates the cascading unifier tree for the current upstream outputs instead of rebuilding it, so that only the
+   * unifiers on the paths from added or removed outputs to the top of the tree are redeployed. Removed outputs are
+   * detached from their unifiers and unifiers left with a single input are spliced out. Added outputs fill the free
+   * inputs closest to the top first, the remaining ones are cascaded among themselves and pushed down below the top of
+   * the tree when it is full.
+   *
+   * @param limit the maximum number of inputs of a unifier
+   * @return false if the tree has to be rebuilt, because there is none yet or most of its leaves were replaced.
+   */
+  private boolean updateCascadingUnifiers(int limit)
+  {
+    if (cascadeSources == null) {
+      return false;
+    }
+
+    Set<PTOutput> leaves = Sets.newLinkedHashSet();
+    for (PTOutput out : cascadeSources) {
+      if (!cascadingUnifiers.contains(out.source)) {
+        leaves.add(out);
+      }
+    }
+    for (PTOperator unifier : cascadingUnifiers) {
+      for (PTInput in : unifier.inputs) {
+        if (!cascadingUnifiers.contains(in.source.source)) {
+          leaves.add(in.source);
+        }
+      }
+    }
+    List<PTOutput> added = Lists.newArrayList();
+    for (PTOutput out : upstream) {
+      if (!leaves.remove(out)) {
+        added.add(out);
+      }
+    }
+    if (2 * added.size() > upstream.size()) {
+      return false;
+    }
+
+    Set<PTOperator> affected = Sets.newHashSet();
+    for (PTOutput out : leaves) {
+      removeCascadeSource(out, affected);
+    }
+    // removed partitions are already detached from their unifiers
+    for (PTOperator unifier : Lists.newArrayList(cascadingUnifiers)) {
+      if (unifier.inputs.size() < 2 && cascadingUnifiers.contains(unifier)) {
+        removeCascadingUnifier(unifier, affected);
+      }
+    }
+    List<PTOutput> pending = Lists.newArrayList();
+    for (PTOutput out : added) {
+      if (!addCascadeSource(out, limit, affected)) {
+        pending.add(out);
+      }
+    }
+    if (pending.size() > limit) {
+      pending = setupCascadingUnifiers(pending, Lists.<PTOperator>newArrayList(), limit, 0);
+    }
+    for (PTOutput out : pending) {
+      if (!addCascadeSource(out, limit, affected)) {
+        // the tree is full, push one of the outputs at its top down below a new unifier
+        PTOperator pu = createUnifier(streamMeta, plan);
+        this.cascadingUnifiers.add(pu);
+        addInput(pu, cascadeSources.set(cascadeSources.size() - 1, pu.outputs.get(0)), null);
+        addInput(pu, out, null);
+      }
+    }
+
+    affected.retainAll(cascadingUnifiers);
+    affected.removeAll(plan.newOpers.keySet());
+    LOG.debug("Updated cascading unifiers of {}, added {} removed {} redeploy {}", streamMeta, added, leaves, affected);
+    plan.undeployOpers.addAll(affected);
+    plan.deployOpers.addAll(affected);
+    return true;
+  }
+
+  /**
+   * Adds the output to the free input of a unifier closest to the top of the tree, or to the top itself.
+   *
+   * @return false if all unifiers have as many inputs as they may have
+   */
+  private boolean addCascadeSource(PTOutput source, int limit, Set<PTOperator> affected)
+  {
+    if (cascadeSources.size() < limit) {
+      cascadeSources.add(source);
+      return true;
+    }
+    Deque<PTOutput> outputs = new ArrayDeque<PTOutput>(cascadeSources);
+    while (!outputs.isEmpty()) {
+      PTOperator unifier = outputs.remove().source;
+      if (cascadingUnifiers.contains(unifier)) {
+        if (unifier.inputs.size() < limit) {
+          addInput(unifier, source, null);
+          affected.add(unifier);
+          return true;
+        }
+        for (PTInput in : unifier.inputs) {
+          outputs.add(in.source);
+        }
+      }
+    }
+    return false;
+  }
+
+  private void removeCascadeSource(PTOutput source, Set<PTOperator> affected)
+  {
+    if (cascadeSources.remove(source)) {
+      return;
+    }
+    PTInput input = getCascadeInput(source);
+    if (input != null) {
+      input.target.inputs.remove(input);
+      source.sinks.remove(input);
+      affected.add(input.target);
+      if (input.target.inputs.size() < 2) {
+        removeCascadingUnifier(input.target, affected);
+      }
+    }
+  }
+
+  /**
+   * Removes a unifier with less than two inputs from the tree, its remaining input takes its place.
+   */
+  private void removeCascadingUnifier(PTOperator unifier, Set<PTOperator> affected)
+  {
+    PTOutput remaining = unifier.inputs.isEmpty() ? null : unifier.inputs.get(0).source;
+    PTOutput out = unifier.outputs.get(0);
+    PTInput parentInput = getCascadeInput(out);
+    int index = cascadeSources.indexOf(out);
+    detachUnifier(unifier);
+    this.cascadingUnifiers.remove(unifier);
+    plan.removePTOperator(unifier);
+
+    if (parentInput == null) {
+      if (index < 0) {
+        return;
+      }
+      if (remaining == null) {
+        cascadeSources.remove(index);
+      } else {
+        cascadeSources.set(index, remaining);
+      }
+    } else {
+      PTOperator parent = parentInput.target;
+      affected.add(parent);
+      if (remaining != null) {
+        addInput(parent, remaining, null);
+      } else if (parent.inputs.size() < 2) {
+        removeCascadingUnifier(parent, affected);
+      }
+    }
+  }
+
+  /**
+   * @return the input of the cascading unifier the output is connected to, null if there is none
+   */
+  private PTInput getCascadeInput(PTOutput source)
+  {
+    for (PTOperator unifier : cascadingUnifiers) {
+      for (PTInput in : unifier.inputs) {
+        if (in.source == source) {
+          return in;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Maps the upstream outputs to the downstream operators, through unifiers if there are several upstream outputs.
+   * An existing cascading unifier tree is updated incrementally where possible, see
+   * {@link #updateCascadingUnifiers(int)}.
    */
   private void redoMapping() {
 
@@ -213,16 +388,9 @@ public class StreamMapping implements java.io.Serializable
 
     if (!downstreamOpers.isEmpty()) {
       // unifiers are required
-      for (PTOperator unifier : this.cascadingUnifiers) {
-        detachUnifier(unifier);
-      }
       if (this.finalUnifier != null) {
         detachUnifier(finalUnifier);
       }
-
-      List<PTOperator> currentUnifiers = Lists.newArrayList(this.cascadingUnifiers);
-      this.cascadingUnifiers.clear();
-      plan.undeployOpers.addAll(currentUnifiers);
       addSlidingUnifiers();
 
       int limit = streamMeta.getSource().getValue(PortContext.UNIFIER_LIMIT);
@@ -243,24 +411,39 @@ public class StreamMapping implements java.io.Serializable
       List<PTOutput> unifierSources = this.upstream;
       Map<StreamCodec<?>, List<PTOutput>> cascadeUnifierSourcesMap = Maps.newHashMap();
 
-      if (limit > 1 && this.upstream.size() > limit) {
-        // cascading unifier
-        if (!separateUnifiers) {
-          unifierSources = setupCascadingUnifiers(this.upstream, currentUnifiers, limit, 0);
-        } else {
-          for (InputPortMeta ipm : streamMeta.getSinks()) {
-            StreamCodec<?> streamCodecInfo = StreamingContainerAgent.getStreamCodec(ipm);
-            if (!cascadeUnifierSourcesMap.containsKey(streamCodecInfo)) {
-              unifierSources = setupCascadingUnifiers(this.upstream, currentUnifiers, limit, 0);
-              cascadeUnifierSourcesMap.put(streamCodecInfo, unifierSources);
+      boolean cascade = limit > 1 && this.upstream.size() > limit;
+      if (cascade && !separateUnifiers && updateCascadingUnifiers(limit)) {
+        unifierSources = cascadeSources;
+      } else {
+        // rebuild the tree, reusing the existing unifiers
+        for (PTOperator unifier : this.cascadingUnifiers) {
+          detachUnifier(unifier);
+        }
+        List<PTOperator> currentUnifiers = Lists.newArrayList(this.cascadingUnifiers);
+        this.cascadingUnifiers.clear();
+        plan.undeployOpers.addAll(currentUnifiers);
+        cascadeSources = null;
+
+        if (cascade) {
+          // cascading unifier
+          if (!separateUnifiers) {
+            unifierSources = setupCascadingUnifiers(this.upstream, currentUnifiers, limit, 0);
+            cascadeSources = Lists.newArrayList(unifierSources);
+          } else {
+            for (InputPortMeta ipm : streamMeta.getSinks()) {
+              StreamCodec<?> streamCodecInfo = StreamingContainerAgent.getStreamCodec(ipm);
+              if (!cascadeUnifierSourcesMap.containsKey(streamCodecInfo)) {
+                unifierSources = setupCascadingUnifiers(this.upstream, currentUnifiers, limit, 0);
+                cascadeUnifierSourcesMap.put(streamCodecInfo, unifierSources);
+              }
             }
           }
         }
-      }
 
-      // remove remaining unifiers
-      for (PTOperator oper : currentUnifiers) {
-        plan.removePTOperator(oper);
+        // remove remaining unifiers
+        for (PTOperator oper : currentUnifiers) {
+          plan.removePTOperator(oper);
+        }
       }
 
       // Directly getting attribute from map to know if it is set or not as it can be overriden by the input
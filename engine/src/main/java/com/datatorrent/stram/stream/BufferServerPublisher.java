@@ -19,19 +19,23 @@
 package com.datatorrent.stram.stream;
 
 import java.net.InetSocketAddress;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.datatorrent.api.StreamCodec;
+import com.esotericsoftware.kryo.io.Output;
 
 import com.datatorrent.bufferserver.client.Publisher;
 import com.datatorrent.bufferserver.packet.*;
 import com.datatorrent.bufferserver.util.Codec;
 import com.datatorrent.netlet.EventLoop;
-import com.datatorrent.stram.codec.StatefulStreamCodec;
-import com.datatorrent.stram.codec.StatefulStreamCodec.DataStatePair;
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.netlet.util.VarInt;
+import com.datatorrent.stram.codec.BufferStreamCodec;
+import com.datatorrent.stram.codec.BufferStreamCodecAdapter;
 import com.datatorrent.stram.engine.ByteCounterStream;
 import com.datatorrent.stram.engine.StreamContext;
 import com.datatorrent.stram.tuple.Tuple;
@@ -50,11 +54,39 @@ import static java.lang.Thread.sleep;
  */
 public class BufferServerPublisher extends Publisher implements ByteCounterStream
 {
-  private StreamCodec<Object> serde;
+  private BufferStreamCodec<Object> codec;
+  /**
+   * Receives the serialized payload of each tuple before it is framed as a payload tuple.
+   */
+  private final Output output = new Output(4096, Integer.MAX_VALUE);
   private final AtomicLong publishedByteCount;
   private EventLoop eventloop;
   private int count;
-  private StatefulStreamCodec<Object> statefulSerde;
+  /**
+   * Bytes which the publisher sends before it waits for credits from the buffer server, 0 if it does not use credits.
+   */
+  private int creditBytes;
+  /**
+   * Bytes which the publisher may send before it has to wait for the buffer server to grant more.
+   */
+  private final AtomicLong credits = new AtomicLong();
+  private final AtomicLong uncompressedByteCount = new AtomicLong();
+  /**
+   * Compresses the batches of payload tuples, null if the stream is not compressed.
+   */
+  private Deflater deflater;
+  /**
+   * Whether a batch holds the payload tuples of a single partition only.
+   */
+  private boolean partitionedSinks;
+  /**
+   * Payload tuples of the current window which are not published yet, each prepended with its length, null if the
+   * payload tuples are published one by one.
+   */
+  private byte[] batch;
+  private int batchLength;
+  private int batchPartition;
+  private boolean batchMixed;
 
   public BufferServerPublisher(String sourceId, int queueCapacity)
   {
@@ -67,21 +99,18 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
    * @param payload
    */
   @Override
-  @SuppressWarnings("SleepWhileInLoop")
   public void put(Object payload)
   {
     count++;
     byte[] array;
     if (payload instanceof Tuple) {
       final Tuple t = (Tuple)payload;
+      flush();
 
       switch (t.getType()) {
         case CHECKPOINT:
-          if (statefulSerde != null) {
-            statefulSerde.resetState();
-          }
-          array = WindowIdTuple.getSerializedTuple((int)t.getWindowId());
-          array[0] = MessageType.CHECKPOINT_VALUE;
+          codec.resetState();
+          array = CheckpointTuple.getSerializedTuple((int)t.getWindowId());
           break;
 
         case BEGIN_WINDOW:
@@ -101,41 +130,108 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
           array = ResetWindowTuple.getSerializedTuple(rwt.getBaseSeconds(), rwt.getIntervalMillis());
           break;
 
+        case TRACE:
+          com.datatorrent.stram.tuple.TraceTuple tt = (com.datatorrent.stram.tuple.TraceTuple)t;
+          array = TraceTuple.getSerializedTuple((int)tt.getWindowId(), tt.getOriginId(), tt.getOriginTimestamp(),
+              tt.getHopTimestamp(), tt.getHopCount());
+          break;
+
         default:
           throw new UnsupportedOperationException("this data type is not handled in the stream");
       }
     }
     else {
-      if (statefulSerde == null) {
-        array = PayloadTuple.getSerializedTuple(serde.getPartition(payload), serde.toByteArray(payload));
+      output.setPosition(0);
+      Slice state = codec.writeTuple(payload, output);
+      /*
+       * if there is any state write that for the subscriber before we write the data.
+       */
+      if (state != null) {
+        flush();
+        publish(DataTuple.getSerializedTuple(MessageType.CODEC_STATE_VALUE, state));
       }
-      else {
-        DataStatePair dsp = statefulSerde.toDataStatePair(payload);
-        /*
-         * if there is any state write that for the subscriber before we write the data.
-         */
-        if (dsp.state != null) {
-          array = DataTuple.getSerializedTuple(MessageType.CODEC_STATE_VALUE, dsp.state);
-          try {
-            while (!write(array)) {
-              sleep(5);
-            }
-          } catch (InterruptedException ie) {
-            throw new RuntimeException(ie);
-          }
-        }
-        /*
-         * Now that the state if any has been sent, we can proceed with the actual data we want to send.
-         */
-        array = PayloadTuple.getSerializedTuple(statefulSerde.getPartition(payload), dsp.data);
+      /*
+       * Now that the state if any has been sent, we can proceed with the actual data we want to send.
+       */
+      int partition = codec.getPartition(payload);
+      if (batch != null) {
+        addToBatch(partition, output.getBuffer(), output.position());
+        return;
       }
+      array = PayloadTuple.getSerializedTuple(partition, output.position());
+      System.arraycopy(output.getBuffer(), 0, array, 5, output.position());
     }
 
+    publish(array);
+    publishedByteCount.addAndGet(array.length);
+    uncompressedByteCount.addAndGet(array.length);
+  }
+
+  /**
+   * Serializes the payload tuple into the batch, publishing the batch first if it is full or, when some subscribers are
+   * partitioned, holds another partition. Otherwise a batch may hold payload tuples of different partitions and is
+   * marked as mixed, so that the buffer server can select the payload tuples for subscribers which are partitioned
+   * later on.
+   *
+   * @param partition partition of the tuple
+   * @param data serialized payload
+   * @param dataLength length of the serialized payload
+   */
+  private void addToBatch(int partition, byte[] data, int dataLength)
+  {
+    final int length = dataLength + 5;
+    if (batchLength > 0 && (partitionedSinks && partition != batchPartition
+        || batchLength + length > MAX_BATCH_BYTES)) {
+      flush();
+    }
+
+    int size = VarInt.getSize(length) + length;
+    if (batch.length - batchLength < size) {
+      batch = Arrays.copyOf(batch, batchLength + size);
+    }
+    batchLength = VarInt.write(length, batch, batchLength);
+    batchLength = PayloadTuple.writeSerializedTuple(partition, data, 0, dataLength, batch, batchLength);
+    batchMixed |= batchLength > size && partition != batchPartition;
+    batchPartition = partition;
+    uncompressedByteCount.addAndGet(length);
+  }
+
+  /**
+   * Publishes the batch of payload tuples as a single payload batch tuple, compressed if the stream is compressed.
+   */
+  private void flush()
+  {
+    if (batchLength > 0) {
+      byte[] array = PayloadBatchTuple.getSerializedTuple(batchPartition, batchMixed, deflater, batch, 0, batchLength);
+      batchLength = 0;
+      batchMixed = false;
+      if (batch.length > MAX_BATCH_BYTES) {
+        batch = new byte[MAX_BATCH_BYTES];
+      }
+      publish(array);
+      publishedByteCount.addAndGet(array.length);
+    }
+  }
+
+  /**
+   * Writes the serialized tuple to the buffer server, waiting while the send buffer is full or, with credits, while the
+   * buffer server has not granted any.
+   *
+   * @param array serialized tuple
+   */
+  @SuppressWarnings("SleepWhileInLoop")
+  protected void publish(byte[] array)
+  {
     try {
+      if (creditBytes > 0) {
+        while (credits.get() <= 0) {
+          sleep(1);
+        }
+        credits.addAndGet(-array.length);
+      }
       while (!write(array)) {
         sleep(5);
       }
-      publishedByteCount.addAndGet(array.length);
     }
     catch (InterruptedException ie) {
       throw new RuntimeException(ie);
@@ -157,6 +253,11 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
 
     logger.debug("Registering publisher: {} {} windowId={} server={}", new Object[] {context.getSourceId(), context.getId(), Codec.getStringWindowId(context.getFinishedWindowId()), context.getBufferServerAddress()});
     super.activate(null, context.getFinishedWindowId());
+    creditBytes = context.getValue(StreamContext.CREDIT_BYTES);
+    if (creditBytes > 0) {
+      credits.set(creditBytes);
+      write(CreditTuple.getSerializedTuple(creditBytes));
+    }
   }
 
   @Override
@@ -169,28 +270,34 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
   @Override
   public void onMessage(byte[] buffer, int offset, int size)
   {
-    throw new RuntimeException("OutputStream is not supposed to receive anything!");
+    if (buffer[offset] != MessageType.CREDIT_VALUE) {
+      throw new RuntimeException("OutputStream is not supposed to receive anything but credits!");
+    }
+    credits.addAndGet(((CreditTuple)com.datatorrent.bufferserver.packet.Tuple.getTuple(buffer, offset, size))
+        .getCredits());
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public void setup(StreamContext context)
   {
-    StreamCodec<?> codec = context.get(StreamContext.CODEC);
-    if (codec == null) {
-      statefulSerde = ((StatefulStreamCodec < Object >)StreamContext.CODEC.defaultValue).newInstance();
-    }
-    else if (codec instanceof StatefulStreamCodec) {
-      statefulSerde = ((StatefulStreamCodec<Object>)codec).newInstance();
+    codec = BufferStreamCodecAdapter.getBufferStreamCodec(context.get(StreamContext.CODEC));
+
+    if (context.getValue(StreamContext.COMPRESSION)) {
+      deflater = new Deflater(Deflater.BEST_SPEED);
     }
-    else {
-      serde = (StreamCodec<Object>)codec;
+    if (deflater != null || context.getValue(StreamContext.BATCHING)) {
+      batch = new byte[MAX_BATCH_BYTES];
+      partitionedSinks = context.getValue(StreamContext.PARTITIONED_SINKS);
     }
   }
 
   @Override
   public void teardown()
   {
+    if (deflater != null) {
+      deflater.end();
+      deflater = null;
+    }
   }
 
   @Override
@@ -203,6 +310,16 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
     return publishedByteCount.get();
   }
 
+  @Override
+  public long getUncompressedByteCount(boolean reset)
+  {
+    if (reset) {
+      return uncompressedByteCount.getAndSet(0);
+    }
+
+    return uncompressedByteCount.get();
+  }
+
   @Override
   public int getCount(boolean reset)
   {
@@ -216,5 +333,9 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
     }
   }
 
+  /**
+   * Payload tuples are batched up to a window, or up to this many bytes if the window holds more.
+   */
+  private static final int MAX_BATCH_BYTES = 64 * 1024;
   private static final Logger logger = LoggerFactory.getLogger(BufferServerPublisher.class);
 }
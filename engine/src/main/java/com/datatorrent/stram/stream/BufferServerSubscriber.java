@@ -20,9 +20,14 @@ package com.datatorrent.stram.stream;
 
 import java.net.InetSocketAddress;
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Inflater;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,13 +36,18 @@ import com.datatorrent.api.Sink;
 import com.datatorrent.api.StreamCodec;
 
 import com.datatorrent.bufferserver.client.Subscriber;
+import com.datatorrent.bufferserver.packet.PayloadBatchTuple;
+import com.datatorrent.bufferserver.packet.CreditTuple;
+import com.datatorrent.bufferserver.packet.MessageType;
 import com.datatorrent.bufferserver.util.Codec;
 import com.datatorrent.netlet.util.Slice;
 import com.datatorrent.netlet.EventLoop;
 import com.datatorrent.netlet.util.CircularBuffer;
-import com.datatorrent.stram.codec.StatefulStreamCodec;
-import com.datatorrent.stram.codec.StatefulStreamCodec.DataStatePair;
+import com.datatorrent.netlet.util.VarInt;
+import com.datatorrent.stram.codec.BufferStreamCodec;
+import com.datatorrent.stram.codec.BufferStreamCodecAdapter;
 import com.datatorrent.stram.engine.ByteCounterStream;
+import com.datatorrent.stram.engine.Stream;
 import com.datatorrent.stram.engine.StreamContext;
 import com.datatorrent.stram.engine.SweepableReservoir;
 import com.datatorrent.stram.engine.WindowGenerator;
@@ -52,20 +62,50 @@ import com.datatorrent.stram.tuple.*;
  *
  * @since 0.3.2
  */
-public class BufferServerSubscriber extends Subscriber implements ByteCounterStream
+public class BufferServerSubscriber extends Subscriber implements ByteCounterStream, Stream.SignalingStream
 {
   private boolean suspended;
   private long baseSeconds;
-  protected StreamCodec<Object> serde;
-  protected StatefulStreamCodec<Object> statefulSerde;
+  protected BufferStreamCodec<Object> codec;
   protected EventLoop eventloop;
-  private final DataStatePair dsp;
   CircularBuffer<Slice> offeredFragments;
   CircularBuffer<Slice> polledFragments;
   CircularBuffer<Slice> freeFragments;
   private final ArrayDeque<CircularBuffer<Slice>> backlog;
+  /**
+   * Guards the backlog, shared by the event loop and the operator. Not a monitor as the operator may run on a virtual
+   * thread, which a contended monitor would pin to its carrier.
+   */
+  private final ReentrantLock backlogLock = new ReentrantLock();
   private int lastWindowId = WindowGenerator.MAX_WINDOW_ID;
+  private int windowWidth;
   private final AtomicLong readByteCount;
+  private final AtomicLong uncompressedByteCount = new AtomicLong();
+  private final VarInt.MutableInt messageOffset = new VarInt.MutableInt();
+  private Inflater inflater;
+  private volatile Runnable signal;
+  /**
+   * Bytes which the buffer server sends before it waits for credits, 0 if the subscriber does not grant credits.
+   */
+  private int creditBytes;
+  /**
+   * Bytes of messages consumed since the last credits were granted.
+   */
+  private int consumedBytes;
+  /**
+   * Bytes by which the payload tuples unpacked from batches are larger than the batches, which the buffer server
+   * counted for its credits.
+   */
+  private final AtomicInteger unpackedBytes = new AtomicInteger();
+  /**
+   * Payload tuples received per masked partition key, null unless the stream is partitioned with a mask of up to
+   * {@link #MAX_KEY_GROUP_MASK}. Only the thread which sweeps the tuples updates the counts, the counts already
+   * reported are kept separately instead of resetting them.
+   */
+  private volatile long[] keyGroupTupleCounts;
+  private long[] reportedKeyGroupTupleCounts;
+  private int keyGroupMask;
+  private Collection<Integer> keyGroups;
 
   public BufferServerSubscriber(String id, int queueCapacity)
   {
@@ -73,7 +113,6 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
     this.reservoirs = new BufferReservoir[0];
     this.reservoirMap = new HashMap<String, BufferReservoir>();
     this.readByteCount = new AtomicLong(0);
-    this.dsp = new DataStatePair();
     polledFragments = offeredFragments = new CircularBuffer<Slice>(queueCapacity);
     freeFragments = new CircularBuffer<Slice>(queueCapacity);
     backlog = new ArrayDeque<CircularBuffer<Slice>>();
@@ -84,6 +123,7 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
   {
     super.read(len);
     readByteCount.addAndGet(len);
+    uncompressedByteCount.addAndGet(len);
   }
 
   @Override
@@ -95,11 +135,59 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
     eventloop.connect(address.isUnresolved() ? new InetSocketAddress(address.getHostName(), address.getPort()) : address, this);
 
     logger.debug("Registering subscriber: id={} upstreamId={} streamLogicalName={} windowId={} mask={} partitions={} server={}", new Object[] {context.getSinkId(), context.getSourceId(), context.getId(), Codec.getStringWindowId(context.getFinishedWindowId()), context.getPartitionMask(), context.getPartitions(), context.getBufferServerAddress()});
-    activate(null, context.getId() + '/' + context.getSinkId(), context.getSourceId(), context.getPartitionMask(), context.getPartitions(), context.getFinishedWindowId(), freeFragments.capacity());
+    creditBytes = context.getValue(StreamContext.CREDIT_BYTES);
+    keyGroupMask = context.getPartitionMask();
+    keyGroups = context.getPartitions();
+    if (keyGroups != null && !keyGroups.isEmpty() && keyGroupMask > 0 && keyGroupMask <= MAX_KEY_GROUP_MASK) {
+      reportedKeyGroupTupleCounts = new long[keyGroupMask + 1];
+      keyGroupTupleCounts = new long[keyGroupMask + 1];
+    } else {
+      keyGroupTupleCounts = null;
+    }
+    consumedBytes = 0;
+    unpackedBytes.set(0);
+    activate(null, context.getId() + '/' + context.getSinkId(), context.getSourceId(), context.getPartitionMask(),
+        context.getPartitions(), context.getFinishedWindowId(), freeFragments.capacity(), creditBytes);
   }
 
   @Override
   public void onMessage(byte[] buffer, int offset, int length)
+  {
+    if (buffer[offset] == MessageType.PAYLOAD_BATCH_VALUE) {
+      /*
+       * hand the payload tuples of the batch over one by one just as if they had been sent one by one.
+       */
+      PayloadBatchTuple batch = new PayloadBatchTuple(buffer, offset, length);
+      if (inflater == null && batch.getCodec() != PayloadBatchTuple.STORED) {
+        inflater = new Inflater();
+      }
+      Slice messages = batch.getMessages(inflater);
+      int position = messages.offset;
+      int limit = messages.offset + messages.length;
+      int unpacked = -length;
+      while (position < limit) {
+        int size = VarInt.read(messages.buffer, position, limit, messageOffset);
+        position = messageOffset.integer;
+        offer(messages.buffer, position, size);
+        position += size;
+        unpacked += size;
+      }
+      if (batch.getCodec() != PayloadBatchTuple.STORED) {
+        uncompressedByteCount.addAndGet(messages.length - length);
+      }
+      unpackedBytes.addAndGet(unpacked);
+    }
+    else {
+      offer(buffer, offset, length);
+    }
+
+    Runnable signal = this.signal;
+    if (signal != null) {
+      signal.run();
+    }
+  }
+
+  private void offer(byte[] buffer, int offset, int length)
   {
     Slice f;
     if (freeFragments.isEmpty()) {
@@ -113,32 +201,32 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
     }
 
     if (!offeredFragments.offer(f)) {
-      synchronized (backlog) {
+      backlogLock.lock();
+      try {
         if (!suspended) {
-          suspendRead();
+          suspendReadIfResumed();
           suspended = true;
         }
         int newsize = offeredFragments.capacity() == MAX_SENDBUFFER_SIZE ? offeredFragments.capacity() : offeredFragments.capacity() << 1;
         backlog.add(offeredFragments = new CircularBuffer<Slice>(newsize));
         offeredFragments.add(f);
       }
+      finally {
+        backlogLock.unlock();
+      }
     }
   }
 
   @Override
-  @SuppressWarnings("unchecked")
+  public void setSignal(Runnable signal)
+  {
+    this.signal = signal;
+  }
+
+  @Override
   public void setup(StreamContext context)
   {
-    StreamCodec<?> codec = context.get(StreamContext.CODEC);
-    if (codec == null) {
-      statefulSerde = ((StatefulStreamCodec <Object>)StreamContext.CODEC.defaultValue).newInstance();
-    }
-    else if (codec instanceof StatefulStreamCodec) {
-      statefulSerde = ((StatefulStreamCodec<Object>)codec).newInstance();
-    }
-    else {
-      serde = (StreamCodec<Object>)codec;
-    }
+    codec = BufferStreamCodecAdapter.getBufferStreamCodec(context.get(StreamContext.CODEC));
     baseSeconds = context.getFinishedWindowId() & 0xffffffff00000000L;
   }
 
@@ -152,6 +240,10 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
   @Override
   public void teardown()
   {
+    if (inflater != null) {
+      inflater.end();
+      inflater = null;
+    }
   }
 
   @SuppressWarnings("VolatileArrayField")
@@ -231,6 +323,38 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
     return readByteCount.get();
   }
 
+  /**
+   * @param reset flag to indicate if the counts should be reset to zero after this operation
+   * @return the payload tuples received per key of the partition, null if the stream is not partitioned
+   */
+  public Map<Integer, Long> getKeyGroupTupleCounts(boolean reset)
+  {
+    long[] counts = keyGroupTupleCounts;
+    if (counts == null) {
+      return null;
+    }
+    Map<Integer, Long> keyGroupCounts = new HashMap<Integer, Long>(keyGroups.size() * 2);
+    for (int key : keyGroups) {
+      int index = key & keyGroupMask;
+      long count = counts[index];
+      keyGroupCounts.put(index, count - reportedKeyGroupTupleCounts[index]);
+      if (reset) {
+        reportedKeyGroupTupleCounts[index] = count;
+      }
+    }
+    return keyGroupCounts;
+  }
+
+  @Override
+  public long getUncompressedByteCount(boolean reset)
+  {
+    if (reset) {
+      return uncompressedByteCount.getAndSet(0);
+    }
+
+    return uncompressedByteCount.get();
+  }
+
   class BufferReservoir extends CircularBuffer<Object> implements SweepableReservoir
   {
     protected boolean skipObject = false;
@@ -284,13 +408,14 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
         count += size;
       }
 
-      synchronized (backlog) {
+      backlogLock.lock();
+      try {
         /* find out the minimum remaining capacity in all the other buffers and consume those many tuples from bufferserver */
         int min = polledFragments.size();
         if (min == 0) {
           if (offeredFragments == polledFragments) {
             if (suspended) {
-              resumeRead();
+              resumeReadIfSuspended();
               suspended = false;
             }
             return null;
@@ -305,8 +430,10 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
           }
         }
 
+        long[] keyGroupCounts = keyGroupTupleCounts;
         while (min-- > 0) {
           Slice fm = polledFragments.pollUnsafe();
+          consumedBytes += fm.length;
           com.datatorrent.bufferserver.packet.Tuple data = com.datatorrent.bufferserver.packet.Tuple.getTuple(fm.buffer, fm.offset, fm.length);
           Object o;
           switch (data.getType()) {
@@ -315,33 +442,35 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
               continue;
 
             case CODEC_STATE:
-              dsp.state = data.getData();
+              codec.readState(fm.buffer, fm.offset + 1, fm.length - 1);
               freeFragments.offer(fm);
               continue;
 
             case RESET_WINDOW:
               baseSeconds = (long)data.getBaseSeconds() << 32;
-              if (lastWindowId < WindowGenerator.MAX_WINDOW_ID) {
+              if (lastWindowId < WindowGenerator.MAX_WINDOW_ID && data.getWindowWidth() == windowWidth) {
                 freeFragments.offer(fm);
                 continue;
               }
-              o = new ResetWindowTuple(baseSeconds | data.getWindowWidth());
+              windowWidth = data.getWindowWidth();
+              o = new ResetWindowTuple(baseSeconds | windowWidth);
               break;
 
             case PAYLOAD:
-              o = processPayload(data);
+              if (keyGroupCounts != null) {
+                keyGroupCounts[data.getPartition() & keyGroupMask]++;
+              }
+              o = processPayload(fm);
               break;
 
             case CHECKPOINT:
-              if (statefulSerde != null) {
-                statefulSerde.resetState();
-              }
-              o = new CheckpointTuple(baseSeconds | data.getWindowId());
+              codec.resetState();
+              o = CheckpointTuple.getTuple(baseSeconds | data.getWindowId());
               break;
 
             case END_WINDOW:
               //logger.debug("received {}", data);
-              o = new EndWindowTuple(baseSeconds | (lastWindowId = data.getWindowId()));
+              o = EndWindowTuple.getTuple(baseSeconds | (lastWindowId = data.getWindowId()));
               break;
 
             case END_STREAM:
@@ -349,7 +478,13 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
               break;
 
             case BEGIN_WINDOW:
-              o = new Tuple(data.getType(), baseSeconds | data.getWindowId());
+              o = BeginWindowTuple.getTuple(baseSeconds | data.getWindowId());
+              break;
+
+            case TRACE:
+              com.datatorrent.bufferserver.packet.TraceTuple tt = (com.datatorrent.bufferserver.packet.TraceTuple)data;
+              o = new TraceTuple(baseSeconds | tt.getWindowId(), tt.getOriginId(), tt.getOriginTimestamp(),
+                  tt.getHopTimestamp(), tt.getHopCount());
               break;
 
             default:
@@ -365,21 +500,34 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
             }
           }
         }
+
+        /*
+         * grant the buffer server the consumed bytes once half of its credits are used up, counting the payload
+         * tuples unpacked from a batch with the size of the batch.
+         */
+        if (creditBytes > 0) {
+          int unpacked = Math.min(unpackedBytes.get(), consumedBytes);
+          int bytes = consumedBytes - unpacked;
+          if (bytes >= creditBytes / 2 && write(CreditTuple.getSerializedTuple(bytes))) {
+            unpackedBytes.addAndGet(-unpacked);
+            consumedBytes = 0;
+          }
+        }
+      }
+      finally {
+        backlogLock.unlock();
       }
 
       return null;
     }
 
-    protected Object processPayload(com.datatorrent.bufferserver.packet.Tuple data)
+    /**
+     * @param fm the payload tuple
+     * @return the tuple deserialized from the data of the payload tuple
+     */
+    protected Object processPayload(Slice fm)
     {
-      Object o;
-      if (statefulSerde == null) {
-        o = serde.fromByteArray(data.getData());
-      } else {
-        dsp.data = data.getData();
-        o = statefulSerde.fromDataStatePair(dsp);
-      }
-      return o;
+      return codec.readTuple(fm.buffer, fm.offset + 5, fm.length - 5);
     }
 
     @Override
@@ -408,9 +556,9 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
     }
 
     @Override
-    protected Object processPayload(com.datatorrent.bufferserver.packet.Tuple data)
+    protected Object processPayload(Slice fm)
     {
-      Object o = wrapperStreamCodec.fromByteArray(data.getData());
+      Object o = wrapperStreamCodec.fromByteArray(new Slice(fm.buffer, fm.offset + 5, fm.length - 5));
       if (!wrapperStreamCodec.shouldCaptureEvent(o)) {
         skipObject = true;
       }
@@ -419,5 +567,6 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
     }
   }
 
+  private static final int MAX_KEY_GROUP_MASK = 0xffff;
   private static final Logger logger = LoggerFactory.getLogger(BufferServerSubscriber.class);
 }
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.util.LinkedHashMap;
+
+import com.datatorrent.api.Combiner;
+import com.datatorrent.api.Sink;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * Sink which combines the data tuples with equal keys of a window and passes the combined tuples on before the next
+ * control tuple, see {@link Combiner}.
+ */
+public class CombiningSink implements Sink<Object>
+{
+  private final Combiner<Object> combiner;
+  private final LinkedHashMap<Object, Object> partials = new LinkedHashMap<Object, Object>();
+  private volatile Sink<Object> sink;
+
+  @SuppressWarnings("unchecked")
+  public CombiningSink(Combiner<?> combiner, Sink<Object> sink)
+  {
+    this.combiner = (Combiner<Object>)combiner;
+    this.sink = sink;
+  }
+
+  @Override
+  public void put(Object tuple)
+  {
+    if (tuple instanceof Tuple) {
+      flush();
+      sink.put(tuple);
+    } else {
+      Object key = combiner.getKey(tuple);
+      Object partial = partials.get(key);
+      partials.put(key, partial == null ? tuple : combiner.combine(partial, tuple));
+    }
+  }
+
+  private void flush()
+  {
+    if (!partials.isEmpty()) {
+      for (Object partial : partials.values()) {
+        sink.put(partial);
+      }
+      partials.clear();
+    }
+  }
+
+  /**
+   * @return the count of the combined and control tuples passed on
+   */
+  @Override
+  public int getCount(boolean reset)
+  {
+    return sink.getCount(reset);
+  }
+
+  public Sink<Object> getSink()
+  {
+    return sink;
+  }
+
+  /**
+   * Replace the sink the combined tuples are passed on to, the tuples combined so far are kept.
+   *
+   * @param sink
+   */
+  public void setSink(Sink<Object> sink)
+  {
+    this.sink = sink;
+  }
+
+}
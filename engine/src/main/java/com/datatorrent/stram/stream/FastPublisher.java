@@ -123,12 +123,10 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
       synchronized (lReadBuffer) {
         sc.write(readBuffer);
         if (readBuffer.position() < readBuffer.capacity()) {
-          if (!readBuffer.hasRemaining()) {
-            synchronized (readBuffers) {
-              if (write) {
-                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
-                write = false;
-              }
+          synchronized (readBuffers) {
+            if (write && !readBuffer.hasRemaining()) {
+              key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+              write = false;
             }
           }
           return;
@@ -215,8 +213,7 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
       byte[] array;
       switch (t.getType()) {
         case CHECKPOINT:
-          array = WindowIdTuple.getSerializedTuple((int)t.getWindowId());
-          array[0] = MessageType.CHECKPOINT_VALUE;
+          array = CheckpointTuple.getSerializedTuple((int)t.getWindowId());
           break;
 
         case BEGIN_WINDOW:
@@ -236,6 +233,12 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
           array = ResetWindowTuple.getSerializedTuple(rwt.getBaseSeconds(), rwt.getIntervalMillis());
           break;
 
+        case TRACE:
+          com.datatorrent.stram.tuple.TraceTuple tt = (com.datatorrent.stram.tuple.TraceTuple)t;
+          array = TraceTuple.getSerializedTuple((int)tt.getWindowId(), tt.getOriginId(), tt.getOriginTimestamp(),
+              tt.getHopTimestamp(), tt.getHopCount());
+          break;
+
         default:
           throw new UnsupportedOperationException("this data type is not handled in the stream");
       }
@@ -324,30 +327,22 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
       }
       else {
         size = BUFFER_CAPACITY - position - 2 + writeBuffer.position();
-        int index = writeIndex;
-        synchronized (readBuffers[index]) {
-          readBuffers[index].position(0);
-          readBuffers[index].limit(writeBuffer.position());
-        }
+        int index = wi;
         do {
-          if (index == 0) {
-            index = lastIndex;
+          if (index == lastIndex) {
+            index = 0;
           }
           else {
-            index--;
+            index++;
           }
-
-          if (index == wi) {
+          if (index == writeIndex) {
             break;
           }
-          synchronized (readBuffers[index]) {
-            readBuffers[index].position(0);
-            readBuffers[index].limit(BUFFER_CAPACITY);
-          }
           size += BUFFER_CAPACITY;
         }
         while (true);
         assert (size <= Short.MAX_VALUE);
+        final int first = wi;
         index = wi;
         switch (position) {
           case BUFFER_CAPACITY:
@@ -479,16 +474,31 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
             writeBuffers[wi].put(position, (byte)(hashcode >> 24));
             break;
         }
-        synchronized (readBuffers[index]) {
-          readBuffers[index].limit(BUFFER_CAPACITY);
+
+        /*
+         * The header may start in a buffer the socket has already drained up to its end, so the buffers
+         * that follow it are made readable only once the header is in place.
+         */
+        do {
+          index = index == lastIndex ? 0 : index + 1;
+          synchronized (readBuffers[index]) {
+            readBuffers[index].position(0);
+            readBuffers[index].limit(index == writeIndex ? writeBuffer.position() : BUFFER_CAPACITY);
+          }
+        }
+        while (index != writeIndex);
+        synchronized (readBuffers[first]) {
+          readBuffers[first].limit(BUFFER_CAPACITY);
         }
       }
     }
 
-    if (!write) {
-      key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
-      write = true;
-      key.selector().wakeup();
+    synchronized (readBuffers) {
+      if (!write) {
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        write = true;
+        key.selector().wakeup();
+      }
     }
   }
 
@@ -503,7 +513,16 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
     }
 
     try {
+      /*
+       * The socket moves on to the next buffer as soon as it drains one, so it may be waiting on an empty buffer
+       * at the write index; only a buffer it has not sent yet holds the writer back.
+       */
       while (writeIndex == readIndex) {
+        synchronized (readBuffers[writeIndex]) {
+          if (readBuffers[writeIndex].limit() == 0) {
+            break;
+          }
+        }
         sleep(spinMillis);
       }
 
@@ -645,6 +664,12 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
       }
     }
 
+    @Override
+    public int writeVarInt(int value, boolean optimizePositive) throws KryoException
+    {
+      return writeInt(value, optimizePositive);
+    }
+
     @Override
     public int writeInt(int value, boolean optimizePositive) throws KryoException
     {
@@ -671,19 +696,19 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
         switch (remaining) {
           case 0:
             advanceWriteBuffer();
-            writeBuffer.put((byte)(value >>> 7));
             writeBuffer.put((byte)((value & 0x7F) | 0x80));
+            writeBuffer.put((byte)(value >>> 7));
             break;
 
           case 1:
-            writeBuffer.put((byte)(value >>> 7));
-            advanceWriteBuffer();
             writeBuffer.put((byte)((value & 0x7F) | 0x80));
+            advanceWriteBuffer();
+            writeBuffer.put((byte)(value >>> 7));
             break;
 
           default:
-            writeBuffer.put((byte)(value >>> 7));
             writeBuffer.put((byte)((value & 0x7F) | 0x80));
+            writeBuffer.put((byte)(value >>> 7));
             break;
         }
         return 2;
@@ -1067,6 +1092,12 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
       }
     }
 
+    @Override
+    public int writeVarLong(long value, boolean optimizePositive) throws KryoException
+    {
+      return writeLong(value, optimizePositive);
+    }
+
     @Override
     public int writeLong(long value, boolean optimizePositive) throws KryoException
     {
@@ -1093,19 +1124,19 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
         switch (remaining) {
           case 0:
             advanceWriteBuffer();
-            writeBuffer.put((byte)(value >>> 7));
             writeBuffer.put((byte)((value & 0x7F) | 0x80));
+            writeBuffer.put((byte)(value >>> 7));
             break;
 
           case 1:
-            writeBuffer.put((byte)(value >>> 7));
-            advanceWriteBuffer();
             writeBuffer.put((byte)((value & 0x7F) | 0x80));
+            advanceWriteBuffer();
+            writeBuffer.put((byte)(value >>> 7));
             break;
 
           default:
-            writeBuffer.put((byte)(value >>> 7));
             writeBuffer.put((byte)((value & 0x7F) | 0x80));
+            writeBuffer.put((byte)(value >>> 7));
             break;
         }
         return 2;
@@ -58,8 +58,8 @@ public class FastSubscriber extends BufferServerSubscriber
       return -1;
     }
 
-    short s = buffer[readOffset++];
-    return s | (buffer[readOffset++] << 8);
+    int s = buffer[readOffset++] & 0xff;
+    return s | (buffer[readOffset++] & 0xff) << 8;
   }
 
   private static final Logger logger = LoggerFactory.getLogger(FastSubscriber.class);
@@ -22,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.datatorrent.stram.engine.AbstractReservoir;
+import com.datatorrent.stram.engine.CooperativeScheduler;
 import com.datatorrent.stram.engine.ForwardingReservoir;
 import com.datatorrent.stram.engine.Stream;
 import com.datatorrent.stram.engine.StreamContext;
@@ -34,8 +35,10 @@ import com.datatorrent.stram.engine.SweepableReservoir;
  *
  * @since 0.3.2
  */
-public class InlineStream extends ForwardingReservoir implements Stream, SweepableReservoir
+public class InlineStream extends ForwardingReservoir implements Stream.SignalingStream, SweepableReservoir
 {
+  private volatile Runnable signal;
+
   public InlineStream(int capacity)
   {
     super(AbstractReservoir.newReservoir("InlineStream", capacity));
@@ -76,11 +79,28 @@ public class InlineStream extends ForwardingReservoir implements Stream, Sweepab
   {
   }
 
+  @Override
+  public void setSignal(Runnable signal)
+  {
+    this.signal = signal;
+  }
+
   @Override
   public void put(Object tuple)
   {
     try {
-      super.put(tuple);
+      Runnable signal = this.signal;
+      if (signal == null) {
+        super.put(tuple);
+      }
+      else {
+        if (!getReservoir().offer(tuple)) {
+          /* the consumer may be waiting for a thread of the same pool as this producer */
+          signal.run();
+          CooperativeScheduler.put(getReservoir(), tuple);
+        }
+        signal.run();
+      }
     }
     catch (InterruptedException ie) {
       logger.debug("Interrupted", ie);
@@ -34,6 +34,11 @@ public class PartitionAwareSink<T> implements Sink<T>
 {
   private final StreamCodec<T> serde;
   private final Set<Integer> partitions;
+  /**
+   * Whether each masked partition is accepted, looked up instead of the boxed partitions for masks of up to
+   * {@link #MAX_LOOKUP_MASK}, null for larger masks.
+   */
+  private final boolean[] accepted;
   private final int mask;
   private volatile Sink<T> output;
   private int count;
@@ -51,6 +56,16 @@ public class PartitionAwareSink<T> implements Sink<T>
     this.partitions = partitions;
     this.output = output;
     this.mask = mask;
+    if (mask >= 0 && mask <= MAX_LOOKUP_MASK) {
+      accepted = new boolean[mask + 1];
+      for (int partition : partitions) {
+        if (partition >= 0 && partition <= mask) {
+          accepted[partition] = true;
+        }
+      }
+    } else {
+      accepted = null;
+    }
   }
 
   /**
@@ -72,7 +87,8 @@ public class PartitionAwareSink<T> implements Sink<T>
 
   protected boolean canSendToOutput(T payload)
   {
-    return partitions.contains(serde.getPartition(payload) & mask);
+    int partition = serde.getPartition(payload) & mask;
+    return accepted == null ? partitions.contains(partition) : accepted[partition];
   }
 
   @Override
@@ -88,4 +104,5 @@ public class PartitionAwareSink<T> implements Sink<T>
     }
   }
 
+  private static final int MAX_LOOKUP_MASK = 0xffff;
 }
@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.bufferserver.util.Codec;
+import com.datatorrent.stram.engine.StreamContext;
+
+/**
+ * Publisher which writes the stream to a shared memory ring read by subscribers in other containers on the same host
+ * instead of sending it to the buffer server.
+ *
+ * The ring carries the stream only when all subscribers of the publisher are served by it and attach before the first
+ * tuple, otherwise the publisher falls back to the buffer server for all of them. As the buffer server does not keep
+ * a stream carried by the ring, the publisher is redeployed together with its subscribers, like the upstream
+ * operator of a container local stream.
+ */
+public class SharedMemoryPublisher extends BufferServerPublisher
+{
+  private final File file;
+  private final int capacity;
+  private final List<String> sinkIds;
+  private final long attachTimeoutMillis;
+  private volatile SharedMemoryRing ring;
+  private boolean inUse;
+  private long droppedCount;
+
+  /**
+   * @param sourceId identifier of the publisher
+   * @param queueCapacity capacity of the send queue of the buffer server connection
+   * @param file location of the ring
+   * @param capacity size of the ring in bytes
+   * @param sinkIds identifiers of the subscribers expected to read from the ring
+   * @param attachTimeoutMillis time to wait for the subscribers to attach to the ring and for an attached subscriber
+   * which stopped reading before it is detached
+   */
+  public SharedMemoryPublisher(String sourceId, int queueCapacity, File file, int capacity, List<String> sinkIds,
+      long attachTimeoutMillis)
+  {
+    super(sourceId, queueCapacity);
+    this.file = file;
+    this.capacity = capacity;
+    this.sinkIds = sinkIds;
+    this.attachTimeoutMillis = attachTimeoutMillis;
+  }
+
+  @Override
+  public void activate(StreamContext context)
+  {
+    try {
+      ring = SharedMemoryRing.create(file, capacity, sinkIds, context.getFinishedWindowId());
+      ring.setReaderTimeoutMillis(attachTimeoutMillis);
+      logger.debug("Created {} for {} windowId={}", ring, sinkIds,
+          Codec.getStringWindowId(context.getFinishedWindowId()));
+    } catch (IOException ex) {
+      logger.warn("Cannot create shared memory ring {}, subscribers will use the buffer server", file, ex);
+    }
+    super.activate(context);
+  }
+
+  @Override
+  protected void publish(byte[] array)
+  {
+    try {
+      if (ring != null && !inUse) {
+        inUse = ring.awaitReaders(attachTimeoutMillis);
+        if (!inUse) {
+          logger.info("Not all of {} attached to {}, publishing to the buffer server", sinkIds, ring);
+          ring.close();
+          ring = null;
+        }
+      }
+      if (ring == null) {
+        super.publish(array);
+      } else if (!ring.write(array) && droppedCount++ == 0) {
+        /* the subscribers are undeployed or dead, this publisher is redeployed with them */
+        logger.warn("No subscribers left on {}, dropping the tuples until the publisher is redeployed", ring);
+      }
+    } catch (InterruptedException ie) {
+      throw new RuntimeException(ie);
+    }
+  }
+
+  @Override
+  public void deactivate()
+  {
+    SharedMemoryRing current = ring;
+    if (current != null) {
+      current.close();
+    }
+    if (droppedCount > 0) {
+      logger.warn("Dropped {} messages without subscribers on {}", droppedCount, current);
+    }
+    super.deactivate();
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(SharedMemoryPublisher.class);
+}
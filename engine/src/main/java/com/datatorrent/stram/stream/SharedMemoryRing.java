@@ -0,0 +1,613 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.UnsafeAccess;
+
+/**
+ * Single producer, multiple consumer ring of length prefixed messages in a memory mapped file.
+ *
+ * The publisher creates the file with one slot for each of the subscribers it expects. A subscriber attaches to its
+ * slot and then reads every message written after the ring was created. Before the first message the writer waits for
+ * the readers to attach: the ring is used only if all of them attach, otherwise it is abandoned and the readers which
+ * attached subscribe to the buffer server like the others. Once in use, the writer does not overwrite a message before
+ * all attached readers consumed it and waits for slow readers the way the buffer server publisher waits for the buffer
+ * server. Attached readers keep a heartbeat in their slot, the writer detaches a reader whose heartbeat stopped for
+ * longer than the reader timeout instead of waiting for it forever. A message larger than the ring is written as a
+ * sequence of fragments, which the readers reassemble.
+ *
+ * Every field of the ring is written by either the writer or one of the readers only, except for the state of a reader
+ * detached by the writer. Positions are absolute byte counts so that readers and the writer never confuse an empty ring
+ * with a full one. The file is meant to live on a memory backed file system such as /dev/shm and is shared only between
+ * processes of the same host, hence the native byte order.
+ *
+ * The processes synchronize through the header fields only, which are accessed with ordered stores and volatile loads
+ * on the absolute address of the mapping. The writer copies a message into the data area with plain stores and then
+ * publishes its write position with an ordered store, a reader which loads that position sees the complete message.
+ * In the other direction a reader copies the message out before it publishes its read position with an ordered store,
+ * so the writer never reuses the space of a message which is still being read.
+ */
+public class SharedMemoryRing
+{
+  public static final int MAX_READERS = 16;
+  static final int MAGIC = 0x41505852;
+  static final int MODE_PENDING = 0;
+  static final int MODE_IN_USE = 1;
+  static final int MODE_ABANDONED = 2;
+  static final int READER_EXPECTED = 0;
+  static final int READER_ATTACHED = 1;
+  static final int READER_DETACHED = 2;
+  private static final int CAPACITY_OFFSET = 4;
+  private static final int READER_COUNT_OFFSET = 8;
+  private static final int START_WINDOW_OFFSET = 16;
+  private static final int MODE_OFFSET = 24;
+  private static final int INSTANCE_OFFSET = 32;
+  private static final int WRITE_POSITION_OFFSET = 64;
+  private static final int CLOSED_OFFSET = 128;
+  private static final int READERS_OFFSET = 192;
+  private static final int READER_SLOT_SIZE = 64;
+  private static final int HEADER_SIZE = READERS_OFFSET + MAX_READERS * READER_SLOT_SIZE;
+  private static final int PADDING = -1;
+  private static final int FRAGMENTED = -2;
+  private static final long ADDRESS_OFFSET;
+
+  static {
+    try {
+      ADDRESS_OFFSET = UnsafeAccess.UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+    } catch (NoSuchFieldException ex) {
+      throw new ExceptionInInitializerError(ex);
+    }
+  }
+
+  private final File file;
+  private final MappedByteBuffer mapped;
+  /**
+   * Address of the mapping, which stays valid as long as the mapped buffer is referenced.
+   */
+  private final long address;
+  /**
+   * View of the data area for the bulk copies of this instance, which is used by a single thread.
+   */
+  private final ByteBuffer data;
+  private final int capacity;
+  private final int mask;
+  private final int readerCount;
+  private long readerTimeoutMillis = Long.MAX_VALUE;
+  private volatile boolean closed;
+  private int slot = -1;
+  private long position;
+  private long cachedMinReadPosition;
+
+  private SharedMemoryRing(File file, MappedByteBuffer mapped)
+  {
+    this.file = file;
+    this.mapped = mapped;
+    this.address = UnsafeAccess.UNSAFE.getLong(mapped, ADDRESS_OFFSET);
+    mapped.order(ByteOrder.nativeOrder());
+    this.capacity = mapped.getInt(CAPACITY_OFFSET);
+    this.mask = capacity - 1;
+    this.readerCount = mapped.getInt(READER_COUNT_OFFSET);
+    ByteBuffer duplicate = mapped.duplicate();
+    duplicate.position(HEADER_SIZE);
+    this.data = duplicate.slice().order(ByteOrder.nativeOrder());
+  }
+
+  private int getIntVolatile(int offset)
+  {
+    return UnsafeAccess.UNSAFE.getIntVolatile(null, address + offset);
+  }
+
+  private long getLongVolatile(int offset)
+  {
+    return UnsafeAccess.UNSAFE.getLongVolatile(null, address + offset);
+  }
+
+  private void putOrderedInt(int offset, int value)
+  {
+    UnsafeAccess.UNSAFE.putOrderedInt(null, address + offset, value);
+  }
+
+  private void putOrderedLong(int offset, long value)
+  {
+    UnsafeAccess.UNSAFE.putOrderedLong(null, address + offset, value);
+  }
+
+  /**
+   * Creates the ring file for the given readers. The file is written under a temporary name and renamed when it is
+   * complete, so that a reader never maps a partially initialized ring.
+   *
+   * @param file location of the ring
+   * @param capacity minimum size of the data area in bytes, rounded up to a power of 2
+   * @param readerIds identifiers of the readers that will attach to the ring
+   * @param startWindowId the window after which the first message written to the ring belongs
+   * @return the ring for writing
+   * @throws IOException
+   */
+  public static SharedMemoryRing create(File file, int capacity, List<String> readerIds, long startWindowId)
+      throws IOException
+  {
+    if (readerIds.isEmpty() || readerIds.size() > MAX_READERS) {
+      throw new IllegalArgumentException("Number of readers has to be between 1 and " + MAX_READERS + ": " + readerIds);
+    }
+    int size = Pow2.roundToPowerOfTwo(Math.max(capacity, 4096));
+    File tmp = new File(file.getPath() + ".tmp");
+    MappedByteBuffer buffer = map(tmp, HEADER_SIZE + size);
+    buffer.order(ByteOrder.nativeOrder());
+    buffer.putInt(CAPACITY_OFFSET, size);
+    buffer.putInt(READER_COUNT_OFFSET, readerIds.size());
+    buffer.putLong(START_WINDOW_OFFSET, startWindowId);
+    buffer.putLong(INSTANCE_OFFSET, ThreadLocalRandom.current().nextLong());
+    for (int i = 0; i < readerIds.size(); i++) {
+      buffer.putLong(READERS_OFFSET + i * READER_SLOT_SIZE + 8, hash(readerIds.get(i)));
+    }
+    SharedMemoryRing ring = new SharedMemoryRing(file, buffer);
+    ring.putOrderedInt(0, MAGIC);
+    buffer.force();
+    /* readers which mapped the ring of a previous writer wait for its replacement */
+    SharedMemoryRing previous = null;
+    try {
+      previous = open(file);
+    } catch (IOException ex) {
+      file.delete();
+    }
+    if (previous != null) {
+      previous.close();
+    }
+    if (!tmp.renameTo(file)) {
+      tmp.delete();
+      throw new IOException("Failed to rename " + tmp + " to " + file);
+    }
+    return ring;
+  }
+
+  /**
+   * Maps an existing ring for reading.
+   *
+   * @param file location of the ring
+   * @return the ring or null if the file does not exist yet
+   * @throws IOException if the file is not a valid ring
+   */
+  public static SharedMemoryRing open(File file) throws IOException
+  {
+    if (!file.exists()) {
+      return null;
+    }
+    MappedByteBuffer buffer;
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      if (raf.length() < HEADER_SIZE) {
+        throw new IOException("Not a shared memory ring: " + file);
+      }
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+    } finally {
+      raf.close();
+    }
+    buffer.order(ByteOrder.nativeOrder());
+    SharedMemoryRing ring = new SharedMemoryRing(file, buffer);
+    if (ring.getIntVolatile(0) != MAGIC || HEADER_SIZE + (long)ring.capacity != buffer.capacity()) {
+      throw new IOException("Not a shared memory ring: " + file);
+    }
+    return ring;
+  }
+
+  private static MappedByteBuffer map(File file, int size) throws IOException
+  {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.setLength(0);
+      raf.setLength(size);
+      return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * FNV-1a hash of the reader identifier, used to find the slot of a reader.
+   */
+  static long hash(String id)
+  {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < id.length(); i++) {
+      h ^= id.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    return h;
+  }
+
+  public File getFile()
+  {
+    return file;
+  }
+
+  public int getCapacity()
+  {
+    return capacity;
+  }
+
+  public long getStartWindowId()
+  {
+    return mapped.getLong(START_WINDOW_OFFSET);
+  }
+
+  /**
+   * Sets the time after which the writer detaches an attached reader that stopped updating its heartbeat, such as the
+   * reader of a container which died. Readers wait forever by default.
+   *
+   * @param readerTimeoutMillis the timeout
+   */
+  public void setReaderTimeoutMillis(long readerTimeoutMillis)
+  {
+    this.readerTimeoutMillis = readerTimeoutMillis;
+  }
+
+  private static int readerOffset(int index)
+  {
+    return READERS_OFFSET + index * READER_SLOT_SIZE;
+  }
+
+  private int readerState(int index)
+  {
+    return getIntVolatile(readerOffset(index) + 16);
+  }
+
+  private long readPosition(int index)
+  {
+    return getLongVolatile(readerOffset(index));
+  }
+
+  private long readerHeartbeat(int index)
+  {
+    return getLongVolatile(readerOffset(index) + 24);
+  }
+
+  /**
+   * @return whether the writer uses the ring, {@link #MODE_PENDING} until it decided
+   */
+  int getMode()
+  {
+    return getIntVolatile(MODE_OFFSET);
+  }
+
+  private int findSlot(String readerId)
+  {
+    long h = hash(readerId);
+    for (int i = 0; i < readerCount; i++) {
+      if (mapped.getLong(readerOffset(i) + 8) == h) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Waits for all readers to attach before the first message is written. The ring is used only if all of them attach
+   * within the timeout, otherwise it is abandoned and has to be closed.
+   *
+   * @param timeoutMillis time to wait for the readers
+   * @return true if the ring is used
+   * @throws InterruptedException
+   */
+  public boolean awaitReaders(long timeoutMillis) throws InterruptedException
+  {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    boolean attached;
+    do {
+      attached = true;
+      for (int i = 0; i < readerCount && attached; i++) {
+        int state = readerState(i);
+        if (state == READER_DETACHED) {
+          /* a reader which does not attach gives up its slot so that the writer does not wait for it */
+          deadline = 0;
+        }
+        attached = state == READER_ATTACHED;
+      }
+      if (!attached) {
+        Thread.sleep(1);
+      }
+    } while (!attached && !closed && System.currentTimeMillis() < deadline);
+    putOrderedInt(MODE_OFFSET, attached ? MODE_IN_USE : MODE_ABANDONED);
+    return attached;
+  }
+
+  /**
+   * Writes the message, waiting for the slowest attached reader to make room for it. A message which does not fit in
+   * the ring is split into fragments of half the ring.
+   *
+   * @param message the message
+   * @return false if there are no readers left or the ring was closed, in which case the message is not written
+   * @throws InterruptedException
+   */
+  public boolean write(byte[] message) throws InterruptedException
+  {
+    final int length = message.length;
+    if (align(length + 4) <= capacity) {
+      return writeRecord(length, message, 0, length);
+    }
+    byte[] total = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder()).putInt(length).array();
+    if (!writeRecord(FRAGMENTED, total, 0, total.length)) {
+      return false;
+    }
+    final int fragmentLength = capacity / 2 - 4;
+    for (int off = 0; off < length; off += fragmentLength) {
+      int len = Math.min(fragmentLength, length - off);
+      if (!writeRecord(len, message, off, len)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the header followed by the given bytes as one record.
+   */
+  private boolean writeRecord(int header, byte[] src, int off, int length) throws InterruptedException
+  {
+    final int required = align(length + 4);
+    int offset = (int)(position & mask);
+    int padding = offset + required > capacity ? capacity - offset : 0;
+    long limit = position + padding + required - capacity;
+    if (cachedMinReadPosition < limit) {
+      cachedMinReadPosition = awaitSpace(limit);
+      if (cachedMinReadPosition < 0) {
+        return false;
+      }
+    }
+    if (padding > 0) {
+      data.putInt(offset, PADDING);
+      offset = 0;
+    }
+    data.putInt(offset, header);
+    data.position(offset + 4);
+    data.put(src, off, length);
+    position += padding + required;
+    putOrderedLong(WRITE_POSITION_OFFSET, position);
+    return true;
+  }
+
+  /**
+   * @return the position of the slowest reader once it reaches the limit, -1 if there are no readers left
+   */
+  private long awaitSpace(long limit) throws InterruptedException
+  {
+    long spins = 0;
+    while (!closed) {
+      long min = Long.MAX_VALUE;
+      long now = System.currentTimeMillis();
+      for (int i = 0; i < readerCount; i++) {
+        if (readerState(i) == READER_ATTACHED) {
+          long readPosition = readPosition(i);
+          if (readPosition < limit && now - readerHeartbeat(i) > readerTimeoutMillis) {
+            /* the state is set before the space of the reader is reused, which the reader checks after each copy */
+            UnsafeAccess.UNSAFE.putIntVolatile(null, address + readerOffset(i) + 16, READER_DETACHED);
+            logger.warn("Detached reader {} of {} which stopped reading for {} ms", i, this, now - readerHeartbeat(i));
+            continue;
+          }
+          min = Math.min(min, readPosition);
+        }
+      }
+      if (min == Long.MAX_VALUE) {
+        return -1;
+      }
+      if (min >= limit) {
+        return min;
+      }
+      if (++spins < 100) {
+        Thread.yield();
+      } else {
+        Thread.sleep(1);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Attaches the reader with the given identifier to its slot.
+   *
+   * @param readerId identifier of the reader
+   * @return true if the reader is attached, false if the ring does not expect the reader or it already attached
+   */
+  public boolean attach(String readerId)
+  {
+    int index = findSlot(readerId);
+    if (index < 0 || readerState(index) != READER_EXPECTED) {
+      return false;
+    }
+    slot = index;
+    position = readPosition(index);
+    heartbeat();
+    putOrderedInt(readerOffset(index) + 16, READER_ATTACHED);
+    return true;
+  }
+
+  /**
+   * Tells the writer that the attached reader is alive, to be called regularly also when there is nothing to read.
+   *
+   * @throws IllegalStateException if the writer detached the reader because it missed its heartbeats
+   */
+  public void heartbeat()
+  {
+    if (slot >= 0) {
+      putOrderedLong(readerOffset(slot) + 24, System.currentTimeMillis());
+      checkAttached();
+    }
+  }
+
+  private void checkAttached()
+  {
+    if (readerState(slot) == READER_DETACHED) {
+      throw new IllegalStateException("Writer of " + this + " detached reader " + slot + " after missed heartbeats");
+    }
+  }
+
+  /**
+   * Gives up the slot of the reader, so that the writer no longer waits for it. Also used by a reader which does
+   * not attach, to let the writer decide against the ring without waiting for the timeout.
+   *
+   * @param readerId identifier of the reader
+   */
+  public void detach(String readerId)
+  {
+    int index = findSlot(readerId);
+    if (index >= 0) {
+      putOrderedInt(readerOffset(index) + 16, READER_DETACHED);
+    }
+    slot = -1;
+  }
+
+  /**
+   * @return the length of the next message or -1 if there is none available
+   */
+  public int available()
+  {
+    long writePosition = getLongVolatile(WRITE_POSITION_OFFSET);
+    while (writePosition > position) {
+      int offset = (int)(position & mask);
+      int header = data.getInt(offset);
+      if (header == FRAGMENTED) {
+        return data.getInt(offset + 4);
+      }
+      if (header != PADDING) {
+        return header;
+      }
+      position += capacity - offset;
+    }
+    return -1;
+  }
+
+  /**
+   * Copies the next message and releases its space to the writer. A fragmented message is copied as its fragments
+   * arrive, waiting for the writer to write the rest of it.
+   *
+   * @param dst destination array
+   * @param off offset in the destination array
+   * @return length of the message
+   * @throws InterruptedException
+   */
+  public int read(byte[] dst, int off) throws InterruptedException
+  {
+    int length = available();
+    if (length < 0) {
+      return -1;
+    }
+    if (data.getInt((int)(position & mask)) != FRAGMENTED) {
+      readRecord(dst, off, length);
+      return length;
+    }
+    release(align(4 + 4));
+    int idle = 0;
+    for (int copied = 0; copied < length;) {
+      int fragmentLength = available();
+      if (fragmentLength >= 0) {
+        readRecord(dst, off + copied, fragmentLength);
+        copied += fragmentLength;
+        idle = 0;
+      } else if (isWriterClosed() && available() < 0) {
+        throw new IllegalStateException("Writer closed " + this + " in the middle of a message");
+      } else if (++idle < 100) {
+        Thread.yield();
+      } else {
+        heartbeat();
+        Thread.sleep(1);
+      }
+    }
+    return length;
+  }
+
+  private void readRecord(byte[] dst, int off, int length)
+  {
+    data.position((int)(position & mask) + 4);
+    data.get(dst, off, length);
+    if (slot >= 0) {
+      /* a copy which raced with the writer reusing the space of a detached reader is discarded */
+      checkAttached();
+    }
+    release(align(length + 4));
+  }
+
+  private void release(int recordLength)
+  {
+    position += recordLength;
+    if (slot >= 0) {
+      putOrderedLong(readerOffset(slot), position);
+    }
+  }
+
+  /**
+   * @return true if the writer closed the ring, there may still be messages to read
+   */
+  boolean isWriterClosed()
+  {
+    return getIntVolatile(CLOSED_OFFSET) != 0;
+  }
+
+  /**
+   * @return true if the writer closed the ring and all of its messages have been read
+   */
+  public boolean isClosed()
+  {
+    return isWriterClosed() && available() < 0;
+  }
+
+  /**
+   * Marks the ring closed and removes the file unless it was replaced by the ring of another writer. Readers that
+   * already mapped the ring can still consume the remaining messages. A writer waiting for the readers returns.
+   */
+  public void close()
+  {
+    closed = true;
+    putOrderedInt(CLOSED_OFFSET, 1);
+    try {
+      SharedMemoryRing current = open(file);
+      if (current != null && current.mapped.getLong(INSTANCE_OFFSET) == mapped.getLong(INSTANCE_OFFSET)) {
+        file.delete();
+      }
+    } catch (IOException ex) {
+      file.delete();
+    }
+  }
+
+  private static int align(int length)
+  {
+    return (length + 3) & ~3;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "SharedMemoryRing{" + "file=" + file + ", capacity=" + capacity + ", readers=" + readerCount + '}';
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(SharedMemoryRing.class);
+}
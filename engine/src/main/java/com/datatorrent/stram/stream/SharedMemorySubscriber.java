@@ -0,0 +1,338 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.api.StreamCodec;
+
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.packet.PayloadBatchTuple;
+import com.datatorrent.bufferserver.packet.Tuple;
+import com.datatorrent.bufferserver.util.Codec;
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.engine.SweepableReservoir;
+
+/**
+ * Subscriber which reads the stream from the shared memory ring of a publisher on the same host.
+ *
+ * When the ring is not there in time, was created after the window from which the subscriber has to start, or the
+ * publisher does not use it because not all of its subscribers attached, the subscriber connects to the buffer server
+ * instead. A ring which carries the stream without this subscriber means the publisher was not redeployed with it,
+ * the subscriber fails as it cannot get the tuples from anywhere else.
+ */
+public class SharedMemorySubscriber extends BufferServerSubscriber
+{
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private final File file;
+  private final long attachTimeoutMillis;
+  private final AtomicLong sharedMemoryByteCount = new AtomicLong();
+  private final AtomicLong sharedMemoryUncompressedByteCount = new AtomicLong();
+  private volatile boolean sharedMemory;
+  private volatile boolean paused;
+  private volatile Throwable failure;
+  private Thread reader;
+
+  /**
+   * @param id identifier of the subscriber
+   * @param queueCapacity capacity of the queue of received tuples
+   * @param file location of the ring
+   * @param attachTimeoutMillis time to wait for the publisher to create the ring
+   */
+  public SharedMemorySubscriber(String id, int queueCapacity, File file, long attachTimeoutMillis)
+  {
+    super(id, queueCapacity);
+    this.file = file;
+    this.attachTimeoutMillis = attachTimeoutMillis;
+  }
+
+  @Override
+  public void activate(final StreamContext context)
+  {
+    sharedMemory = true;
+    reader = new Thread("shm:" + context.getSinkId())
+    {
+      @Override
+      public void run()
+      {
+        SharedMemoryRing ring = null;
+        try {
+          ring = attach(context);
+          if (ring == null) {
+            sharedMemory = false;
+            SharedMemorySubscriber.super.activate(context);
+          } else {
+            read(ring, context.getPartitionMask(), context.getPartitions());
+          }
+        } catch (InterruptedException ie) {
+          logger.debug("Stopped reading {}", file);
+        } catch (Throwable th) {
+          failure = th;
+        } finally {
+          if (ring != null) {
+            ring.detach(context.getSinkId());
+          }
+        }
+      }
+
+    };
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  private SharedMemoryRing attach(StreamContext context) throws InterruptedException, IOException
+  {
+    long deadline = System.currentTimeMillis() + attachTimeoutMillis;
+    while (true) {
+      SharedMemoryRing ring = SharedMemoryRing.open(file);
+      if (ring == null || ring.isWriterClosed()) {
+        /* a closed ring was left by a previous deployment of the publisher, which replaces it */
+        if (System.currentTimeMillis() > deadline) {
+          logger.info("No shared memory ring at {}, subscribing through the buffer server", file);
+          return null;
+        }
+        Thread.sleep(10);
+        continue;
+      }
+
+      boolean attached = false;
+      if (context.getFinishedWindowId() < ring.getStartWindowId()) {
+        logger.info("{} starts after window {}, subscribing through the buffer server", ring,
+            Codec.getStringWindowId(context.getFinishedWindowId()));
+        ring.detach(context.getSinkId());
+      } else if (ring.attach(context.getSinkId())) {
+        logger.debug("Attached {} to {}", context.getSinkId(), ring);
+        attached = true;
+      }
+
+      /* the publisher decides whether it uses the ring when it has the first tuple */
+      int mode = SharedMemoryRing.MODE_PENDING;
+      try {
+        while ((mode = ring.getMode()) == SharedMemoryRing.MODE_PENDING && !ring.isWriterClosed()) {
+          Thread.sleep(1);
+        }
+      } finally {
+        if (attached && mode != SharedMemoryRing.MODE_IN_USE) {
+          ring.detach(context.getSinkId());
+        }
+      }
+      if (mode == SharedMemoryRing.MODE_IN_USE) {
+        if (attached) {
+          return ring;
+        }
+        /* the ring of a previous deployment of the publisher, which is about to be replaced */
+        while (!ring.isWriterClosed()) {
+          if (System.currentTimeMillis() > deadline) {
+            throw new IllegalStateException(ring + " carries the stream without " + context.getSinkId());
+          }
+          Thread.sleep(10);
+        }
+      } else if (mode == SharedMemoryRing.MODE_ABANDONED) {
+        return null;
+      }
+    }
+  }
+
+  private void read(SharedMemoryRing ring, final int mask, final Collection<Integer> partitions)
+      throws InterruptedException
+  {
+    PayloadBatchTuple.PartitionMatcher matcher = new PayloadBatchTuple.PartitionMatcher()
+    {
+      @Override
+      public boolean matches(int partition)
+      {
+        return partitions.contains(partition & mask);
+      }
+
+    };
+    Inflater inflater = null;
+    byte[] chunk = new byte[CHUNK_SIZE];
+    int offset = 0;
+    int idle = 0;
+    while (!ring.isClosed()) {
+      ring.heartbeat();
+      int length = ring.available();
+      if (length < 0 || paused) {
+        if (++idle < 100) {
+          Thread.yield();
+        } else {
+          Thread.sleep(1);
+        }
+        continue;
+      }
+      idle = 0;
+      if (offset + length > chunk.length) {
+        /* the messages handed over to the reservoirs refer to the chunk, so it is never reused */
+        chunk = new byte[Math.max(CHUNK_SIZE, length)];
+        offset = 0;
+      }
+      ring.read(chunk, offset);
+      sharedMemoryByteCount.addAndGet(length);
+      sharedMemoryUncompressedByteCount.addAndGet(length);
+      if (partitions == null
+          || chunk[offset] != MessageType.PAYLOAD_VALUE && chunk[offset] != MessageType.PAYLOAD_BATCH_VALUE) {
+        onMessage(chunk, offset, length);
+      } else {
+        Tuple tuple = Tuple.getTuple(chunk, offset, length);
+        if (tuple instanceof PayloadBatchTuple && ((PayloadBatchTuple)tuple).isMixed()) {
+          PayloadBatchTuple batch = (PayloadBatchTuple)tuple;
+          if (inflater == null && batch.getCodec() != PayloadBatchTuple.STORED) {
+            inflater = new Inflater();
+          }
+          Slice selected = batch.select(inflater, matcher);
+          if (selected != null) {
+            onMessage(selected.buffer, selected.offset, selected.length);
+          }
+        } else if (matcher.matches(tuple.getPartition())) {
+          onMessage(chunk, offset, length);
+        }
+      }
+      offset += length;
+    }
+    logger.debug("Publisher closed {}", ring);
+  }
+
+  @Override
+  public boolean suspendReadIfResumed()
+  {
+    if (sharedMemory) {
+      boolean resumed = !paused;
+      paused = true;
+      return resumed;
+    }
+    return super.suspendReadIfResumed();
+  }
+
+  @Override
+  public boolean resumeReadIfSuspended()
+  {
+    if (sharedMemory) {
+      boolean suspended = paused;
+      paused = false;
+      return suspended;
+    }
+    return super.resumeReadIfSuspended();
+  }
+
+  @Override
+  public void deactivate()
+  {
+    if (reader != null) {
+      reader.interrupt();
+      try {
+        reader.join(attachTimeoutMillis);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+      reader = null;
+    }
+    if (!sharedMemory) {
+      super.deactivate();
+    }
+  }
+
+  @Override
+  public SweepableReservoir acquireReservoir(String id, int capacity)
+  {
+    return new FailureAwareReservoir(super.acquireReservoir(id, capacity));
+  }
+
+  @Override
+  public SweepableReservoir acquireReservoirForPersistStream(String id, int capacity, StreamCodec<?> streamCodec)
+  {
+    return new FailureAwareReservoir(super.acquireReservoirForPersistStream(id, capacity, streamCodec));
+  }
+
+  @Override
+  public long getByteCount(boolean reset)
+  {
+    return super.getByteCount(reset) + (reset ? sharedMemoryByteCount.getAndSet(0) : sharedMemoryByteCount.get());
+  }
+
+  @Override
+  public long getUncompressedByteCount(boolean reset)
+  {
+    return super.getUncompressedByteCount(reset)
+        + (reset ? sharedMemoryUncompressedByteCount.getAndSet(0) : sharedMemoryUncompressedByteCount.get());
+  }
+
+  /**
+   * Surfaces a failure of the reader thread on the thread of the operator.
+   */
+  private class FailureAwareReservoir implements SweepableReservoir
+  {
+    private final SweepableReservoir reservoir;
+
+    FailureAwareReservoir(SweepableReservoir reservoir)
+    {
+      this.reservoir = reservoir;
+    }
+
+    @Override
+    public Sink<Object> setSink(Sink<Object> sink)
+    {
+      return reservoir.setSink(sink);
+    }
+
+    @Override
+    public com.datatorrent.stram.tuple.Tuple sweep()
+    {
+      if (failure != null) {
+        throw new RuntimeException("Reading " + file + " failed", failure);
+      }
+      return reservoir.sweep();
+    }
+
+    @Override
+    public int getCount(boolean reset)
+    {
+      return reservoir.getCount(reset);
+    }
+
+    @Override
+    public int size(boolean dataTupleAware)
+    {
+      return reservoir.size(dataTupleAware);
+    }
+
+    @Override
+    public Object remove()
+    {
+      return reservoir.remove();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+      return reservoir.isEmpty();
+    }
+
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(SharedMemorySubscriber.class);
+}
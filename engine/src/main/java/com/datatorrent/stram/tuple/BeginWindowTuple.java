@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.tuple;
+
+import com.datatorrent.bufferserver.packet.MessageType;
+
+/**
+ * Begin window tuple<p>
+ * <br>
+ * This defines the beginning of a window. All the tuples between it and the end window tuple with the same window id
+ * belong to the window.<br>
+ * <br>
+ */
+public class BeginWindowTuple extends Tuple
+{
+  private static final WindowTupleCache<BeginWindowTuple> tuples = new WindowTupleCache<BeginWindowTuple>()
+  {
+    @Override
+    protected BeginWindowTuple newTuple(long windowId)
+    {
+      return new BeginWindowTuple(windowId);
+    }
+  };
+
+  public BeginWindowTuple(long windowId)
+  {
+    super(MessageType.BEGIN_WINDOW, windowId);
+  }
+
+  /**
+   * @param windowId
+   * @return the shared begin window tuple for the window, it must not be modified.
+   */
+  public static BeginWindowTuple getTuple(long windowId)
+  {
+    return tuples.get(windowId);
+  }
+}
@@ -27,9 +27,26 @@ import com.datatorrent.bufferserver.packet.MessageType;
  */
 public class CheckpointTuple extends Tuple
 {
+  private static final WindowTupleCache<CheckpointTuple> tuples = new WindowTupleCache<CheckpointTuple>()
+  {
+    @Override
+    protected CheckpointTuple newTuple(long windowId)
+    {
+      return new CheckpointTuple(windowId);
+    }
+  };
+
   public CheckpointTuple(long windowId)
   {
     super(MessageType.CHECKPOINT, windowId);
   }
-}
 
+  /**
+   * @param windowId
+   * @return the shared checkpoint tuple for the window, it must not be modified.
+   */
+  public static CheckpointTuple getTuple(long windowId)
+  {
+    return tuples.get(windowId);
+  }
+}
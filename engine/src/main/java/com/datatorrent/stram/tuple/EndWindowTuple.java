@@ -31,8 +31,26 @@ import com.datatorrent.bufferserver.packet.MessageType;
  */
 public class EndWindowTuple extends Tuple
 {
+  private static final WindowTupleCache<EndWindowTuple> tuples = new WindowTupleCache<EndWindowTuple>()
+  {
+    @Override
+    protected EndWindowTuple newTuple(long windowId)
+    {
+      return new EndWindowTuple(windowId);
+    }
+  };
+
   public EndWindowTuple(long windowId)
   {
     super(MessageType.END_WINDOW, windowId);
   }
+
+  /**
+   * @param windowId
+   * @return the shared end window tuple for the window, it must not be modified.
+   */
+  public static EndWindowTuple getTuple(long windowId)
+  {
+    return tuples.get(windowId);
+  }
 }
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.tuple;
+
+import com.datatorrent.bufferserver.packet.MessageType;
+
+/**
+ *
+ * Follows a data tuple sampled for latency tracing<p>
+ * <br>
+ * Carries the id of the input operator which emitted the sampled tuple, the time at which it emitted it, the time at
+ * which the previous operator forwarded the trace and the number of operators the trace passed through so far. The
+ * origin id and the origin timestamp together identify the trace.<br>
+ * <br>
+ */
+public class TraceTuple extends Tuple
+{
+  private final int originId;
+  private final long originTimestamp;
+  private final long hopTimestamp;
+  private final int hopCount;
+
+  public TraceTuple(long windowId, int originId, long originTimestamp, long hopTimestamp, int hopCount)
+  {
+    super(MessageType.TRACE, windowId);
+    this.originId = originId;
+    this.originTimestamp = originTimestamp;
+    this.hopTimestamp = hopTimestamp;
+    this.hopCount = hopCount;
+  }
+
+  public int getOriginId()
+  {
+    return originId;
+  }
+
+  public long getOriginTimestamp()
+  {
+    return originTimestamp;
+  }
+
+  public long getHopTimestamp()
+  {
+    return hopTimestamp;
+  }
+
+  public int getHopCount()
+  {
+    return hopCount;
+  }
+
+  @Override
+  public String toString()
+  {
+    return super.toString() + " origin = " + originId + "@" + originTimestamp + " hop = " + hopTimestamp
+        + " hops = " + hopCount;
+  }
+
+}
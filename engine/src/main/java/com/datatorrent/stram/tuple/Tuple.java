@@ -52,6 +52,11 @@ public class Tuple
     return windowId;
   }
 
+  /**
+   * Changes the window id of a tuple which is not shared, the interned control tuples must not be changed.
+   *
+   * @param windowId
+   */
   public void setWindowId(long windowId)
   {
     this.windowId = windowId;
@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.tuple;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Interns the control tuples of a kind by window id<p>
+ * <br>
+ * Every stream delivers the same begin window, end window and checkpoint tuples for a window, so the window generator,
+ * the nodes and the subscribers of a container share one tuple per window instead of allocating one for every port.
+ * The cache keeps the tuples of the recent windows, a tuple which is evicted by a later window is allocated again.
+ * Interned tuples are shared and must not be modified.<br>
+ * <br>
+ *
+ * @param <T> type of the tuples
+ */
+abstract class WindowTupleCache<T extends Tuple>
+{
+  private static final int CAPACITY = 1024;
+  private final AtomicReferenceArray<T> tuples = new AtomicReferenceArray<T>(CAPACITY);
+
+  T get(long windowId)
+  {
+    int slot = (int)windowId & (CAPACITY - 1);
+    T tuple = tuples.get(slot);
+    if (tuple == null || tuple.getWindowId() != windowId) {
+      tuple = newTuple(windowId);
+      tuples.lazySet(slot, tuple);
+    }
+    return tuple;
+  }
+
+  protected abstract T newTuple(long windowId);
+}
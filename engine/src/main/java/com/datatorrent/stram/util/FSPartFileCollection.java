@@ -41,14 +41,18 @@ public class FSPartFileCollection
   private transient FSDataOutputStream partOutStr;
   private transient FSDataOutputStream indexOutStr;
   private transient FSDataOutputStream metaOs;
+  private transient FSDataOutputStream partIndexOutStr;
   private transient String localBasePath;
   public static final String INDEX_FILE = "index.txt";
   public static final String META_FILE = "meta.txt";
+  public static final String PART_INDEX_FILE_SUFFIX = ".idx";
   protected int bytesPerPartFile = 1024 * 1024;
   protected long millisPerPartFile = 60 * 60 * 1000; // 60 minutes
   protected int fileParts = 0;
   protected int partFileItemCount = 0;
   protected int partFileBytes = 0;
+  protected int bytesPerPartIndexEntry = 64 * 1024;
+  protected int lastPartIndexEntryBytes = 0;
   protected long currentPartFileTimeStamp = 0;
   protected String basePath = ".";
   protected String hdfsFile;
@@ -65,6 +69,11 @@ public class FSPartFileCollection
     this.millisPerPartFile = millis;
   }
 
+  public void setBytesPerPartIndexEntry(int bytes)
+  {
+    this.bytesPerPartIndexEntry = bytes;
+  }
+
   public void setLocalMode(boolean isLocalMode)
   {
     this.isLocalMode = isLocalMode;
@@ -116,6 +125,7 @@ public class FSPartFileCollection
       if (partOutStr != null) {
         logger.debug("Closing part file");
         partOutStr.close();
+        closePartIndex();
         if (indexOutStr != null) {
           writeIndex();
         }
@@ -134,18 +144,54 @@ public class FSPartFileCollection
   private void openNewPartFile() throws IOException
   {
     hdfsFile = "part" + fileParts + ".txt";
-    Path path = new Path(basePath, hdfsFile);
     logger.debug("Opening new part file: {}", hdfsFile);
-    if (isLocalMode) {
-      partOutStr = new FSDataOutputStream(new FileOutputStream(localBasePath + "/" + hdfsFile), null);
-    }
-    else {
-      partOutStr = fs.create(path);
-    }
+    partOutStr = create(hdfsFile);
     fileParts++;
     currentPartFileTimeStamp = System.currentTimeMillis();
     partFileItemCount = 0;
     partFileBytes = 0;
+    lastPartIndexEntryBytes = 0;
+  }
+
+  private FSDataOutputStream create(String fileName) throws IOException
+  {
+    if (isLocalMode) {
+      return new FSDataOutputStream(new FileOutputStream(localBasePath + "/" + fileName), null);
+    }
+    return fs.create(new Path(basePath, fileName));
+  }
+
+  public static String getPartIndexFile(String partFile)
+  {
+    return partFile + PART_INDEX_FILE_SUFFIX;
+  }
+
+  /**
+   * Adds an entry to the sparse index of the current part file, mapping the given key to the byte offset at which the
+   * next data item will be written. The entry is dropped if fewer than bytesPerPartIndexEntry bytes were written since
+   * the previous one, so readers seek to the closest preceding entry and scan forward from there.
+   *
+   * @param key the key of the entry, must not contain newlines
+   * @throws IOException
+   */
+  public void writePartIndexEntry(String key) throws IOException
+  {
+    if (partOutStr == null || partFileBytes - lastPartIndexEntryBytes < bytesPerPartIndexEntry) {
+      return;
+    }
+    if (partIndexOutStr == null) {
+      partIndexOutStr = create(getPartIndexFile(hdfsFile));
+    }
+    partIndexOutStr.write((partFileBytes + ":" + key + "\n").getBytes());
+    lastPartIndexEntryBytes = partFileBytes;
+  }
+
+  private void closePartIndex() throws IOException
+  {
+    if (partIndexOutStr != null) {
+      partIndexOutStr.close();
+      partIndexOutStr = null;
+    }
   }
 
   public void writeMetaData(byte[] bytes) throws IOException
@@ -185,6 +231,9 @@ public class FSPartFileCollection
   {
     if (partOutStr != null) {
       partOutStr.hflush();
+      if (partIndexOutStr != null) {
+        partIndexOutStr.hflush();
+      }
       if (isReadyTurnoverPartFile()) {
         turnover();
         return true;
@@ -197,6 +246,7 @@ public class FSPartFileCollection
   {
     partOutStr.close();
     partOutStr = null;
+    closePartIndex();
     writeIndex();
     syncRequested = false;
   }
@@ -18,105 +18,125 @@
  */
 package com.datatorrent.stram.util;
 
+import java.util.Arrays;
+
+import com.datatorrent.api.Stats;
+
 /**
  * Moving average calculations.
  *
+ * The calculators are meant to be updated by a single thread at a time, such as the thread processing the heartbeat
+ * of the container, and read by any number of threads. Updates compute the result and publish it through a volatile
+ * field, so readers never block the writer and always see the result of a complete update.
+ *
  * @since 0.9.1
  */
 public class MovingAverage
 {
-  public static class MovingAverageLong implements java.io.Serializable {
-    private static final long serialVersionUID = 201404291550L;
+  public static class MovingAverageLong implements java.io.Serializable
+  {
+    private static final long serialVersionUID = 201602231550L;
     private final int periods;
     private final long[] values;
     private int index = 0;
-    private boolean filled = false;
+    private int count = 0;
+    private long sum = 0;
+    private volatile long avg = 0;
 
-    public MovingAverageLong(int periods) {
+    public MovingAverageLong(int periods)
+    {
       this.periods = periods;
       this.values = new long[periods];
     }
 
-    public synchronized void add(long val) {
-      values[index++] = val;
-      if (index == periods) {
-        filled = true;
+    public void add(long val)
+    {
+      int i = index;
+      sum += val - values[i];
+      values[i] = val;
+      index = i + 1 == periods ? 0 : i + 1;
+      if (count < periods) {
+        count++;
       }
-      index %= periods;
+      avg = sum / count;
     }
 
-    public synchronized long getAvg() {
-      long sum = 0;
-      for (int i=0; i<periods; i++) {
-        sum += values[i];
-      }
-
-      if (!filled) {
-        return index == 0 ? 0 : sum/index;
-      } else {
-        return sum/periods;
-      }
+    public long getAvg()
+    {
+      return avg;
     }
   }
 
   // Generics don't work with numbers.  Hence this mess.
-  public static class MovingAverageDouble implements java.io.Serializable {
-    private static final long serialVersionUID = 201404291550L;
+  public static class MovingAverageDouble implements java.io.Serializable
+  {
+    private static final long serialVersionUID = 201602231550L;
     private final int periods;
     private final double[] values;
     private int index = 0;
-    private boolean filled = false;
+    private int count = 0;
+    private double sum = 0;
+    private volatile double avg = 0;
 
-    public MovingAverageDouble(int periods) {
+    public MovingAverageDouble(int periods)
+    {
       this.periods = periods;
       this.values = new double[periods];
     }
 
-    public synchronized void add(double val) {
-      values[index++] = val;
-      if (index == periods) {
-        filled = true;
+    public void add(double val)
+    {
+      int i = index;
+      double old = values[i];
+      values[i] = val;
+      index = i + 1 == periods ? 0 : i + 1;
+      if (count < periods) {
+        count++;
       }
-      index %= periods;
-    }
-
-    public synchronized double getAvg() {
-      double sum = 0;
-      for (int i=0; i<periods; i++) {
-        sum += values[i];
+      if (index == 0) {
+        // recompute the sum once per round to not accumulate rounding errors
+        sum = 0;
+        for (double value : values) {
+          sum += value;
+        }
       }
-
-      if (!filled) {
-        return index == 0 ? 0 : sum/index;
-      } else {
-        return sum/periods;
+      else {
+        sum += val - old;
       }
+      avg = sum / count;
+    }
+
+    public double getAvg()
+    {
+      return avg;
     }
   }
 
-  public static class TimedMovingAverageLong implements java.io.Serializable {
-    private static final long serialVersionUID = 201404291550L;
+  public static class TimedMovingAverageLong implements java.io.Serializable
+  {
+    private static final long serialVersionUID = 201602231550L;
     private final int periods;
     private final long[] values;
     private final long[] timeIntervals;
     private int index = 0;
     private final long baseTimeInterval;
+    private volatile double avg = 0;
 
-    public TimedMovingAverageLong(int samples, long baseTimeInterval) {
+    public TimedMovingAverageLong(int samples, long baseTimeInterval)
+    {
       this.periods = samples;
       this.values = new long[samples];
       this.timeIntervals = new long[samples];
       this.baseTimeInterval = baseTimeInterval;
     }
 
-    public synchronized void add(long val, long time) {
+    public void add(long val, long time)
+    {
       values[index] = val;
       timeIntervals[index] = time;
       index++;
       index %= periods;
-    }
 
-    public synchronized double getAvg() {
       long sumValues = 0;
       long sumTimeIntervals = 0;
       int i = index;
@@ -134,13 +154,113 @@ public class MovingAverage
           break;
         }
       }
+      avg = sumTimeIntervals == 0 ? 0 : ((double)sumValues) / sumTimeIntervals;
+    }
+
+    public double getAvg()
+    {
+      return avg;
+    }
+  }
+
+  /**
+   * Tracks the average and the distribution of the most recent samples, for example to report latency percentiles.
+   * Each update publishes an immutable sorted copy of the samples that readers use without any coordination.
+   */
+  public static class MovingPercentilesLong implements java.io.Serializable
+  {
+    private static final long serialVersionUID = 201602231550L;
+    private static final long[] EMPTY = new long[0];
+    private final MovingAverageLong movingAverage;
+    private final long[] values;
+    private int index = 0;
+    private int count = 0;
+    private volatile long[] sorted = EMPTY;
+
+    public MovingPercentilesLong(int periods)
+    {
+      this.movingAverage = new MovingAverageLong(periods);
+      this.values = new long[periods];
+    }
+
+    public void add(long val)
+    {
+      movingAverage.add(val);
+      values[index] = val;
+      index = index + 1 == values.length ? 0 : index + 1;
+      if (count < values.length) {
+        count++;
+      }
+      long[] snapshot = Arrays.copyOf(values, count);
+      Arrays.sort(snapshot);
+      sorted = snapshot;
+    }
 
-      if (sumTimeIntervals == 0) {
+    public long getAvg()
+    {
+      return movingAverage.getAvg();
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recent samples fall, using the nearest rank method.
+     *
+     * @param percentile percentage between 0 and 100
+     * @return the percentile or 0 if there are no samples yet
+     */
+    public long getPercentile(double percentile)
+    {
+      long[] snapshot = sorted;
+      if (snapshot.length == 0) {
         return 0;
       }
-      else {
-        return ((double)sumValues) / sumTimeIntervals;
+      int rank = (int)Math.ceil(percentile / 100 * snapshot.length);
+      return snapshot[Math.min(Math.max(rank, 1), snapshot.length) - 1];
+    }
+  }
+
+  /**
+   * Latency histogram of the recent periods, each period contributing the histogram of the samples it collected.
+   */
+  public static class MovingLatencyHistogram implements java.io.Serializable
+  {
+    private static final long serialVersionUID = 201602251030L;
+    private final Stats.LatencyHistogram[] histograms;
+    private int index = 0;
+    private volatile Stats.LatencyHistogram merged = new Stats.LatencyHistogram();
+
+    public MovingLatencyHistogram(int periods)
+    {
+      this.histograms = new Stats.LatencyHistogram[periods];
+    }
+
+    /**
+     * Ends a period.
+     *
+     * @param histogram the samples collected during the period or null if there were none
+     */
+    public void add(Stats.LatencyHistogram histogram)
+    {
+      Stats.LatencyHistogram evicted = histograms[index];
+      histograms[index] = histogram;
+      index = index + 1 == histograms.length ? 0 : index + 1;
+      if (evicted == null && histogram == null) {
+        return;
+      }
+      Stats.LatencyHistogram snapshot = new Stats.LatencyHistogram();
+      for (Stats.LatencyHistogram h : histograms) {
+        if (h != null) {
+          snapshot.merge(h);
+        }
       }
+      merged = snapshot;
+    }
+
+    /**
+     * @return the histogram of the samples of the recent periods, not to be modified
+     */
+    public Stats.LatencyHistogram get()
+    {
+      return merged;
     }
   }
 
@@ -50,6 +50,8 @@ public class ContainerInfo {
   public long gcCollectionTime;
   @RecordField(type = "stats")
   public long gcCollectionCount;
+  @RecordField(type = "stats")
+  public double[] eventLoopUtilization;
   @RecordField(type = "meta", publish = false)
   public String containerLogsUrl;
   public long startedTime = -1;
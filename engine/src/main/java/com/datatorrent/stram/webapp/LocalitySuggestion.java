@@ -0,0 +1,45 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.webapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.datatorrent.api.DAG.Locality;
+
+/**
+ * A stream which would no longer pass its tuples through the buffer server with a stricter locality, with the
+ * observed rates of the traffic it would save.
+ */
+@XmlRootElement(name = "localitySuggestion")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class LocalitySuggestion
+{
+  public String streamName;
+  public String sourceOperatorName;
+  public List<String> sinkOperatorNames = new ArrayList<String>();
+  public Locality locality;
+  public Locality suggestedLocality;
+  public long tuplesPSMA;
+  public long bufferServerBytesPSMA;
+  public int memoryMB;
+}
@@ -67,6 +67,10 @@ public class OperatorInfo
   public double cpuPercentageMA;
   @RecordField(type = "stats")
   public long latencyMA;
+  @RecordField(type = "stats")
+  public long latencyP50;
+  @RecordField(type = "stats")
+  public long latencyP99;
   public String status;
   public long lastHeartbeat;
   public long failureCount;
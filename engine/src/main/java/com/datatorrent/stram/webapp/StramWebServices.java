@@ -39,6 +39,7 @@ import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.yarn.api.ApplicationConstants;
+import org.apache.hadoop.yarn.webapp.BadRequestException;
 import org.apache.hadoop.yarn.webapp.NotFoundException;
 import org.apache.log4j.DTLoggerFactory;
 import org.codehaus.jackson.JsonGenerator;
@@ -105,6 +106,8 @@ public class StramWebServices
   public static final String PATH_OPERATOR_CLASSES = "operatorClasses";
   public static final String PATH_ALERTS = "alerts";
   public static final String PATH_LOGGERS = "loggers";
+  public static final String PATH_LATENCY = "latency";
+  public static final String PATH_LOCALITY_SUGGESTIONS = "localitySuggestions";
   public static final long WAIT_TIME = 5000;
 
   //public static final String PATH_ACTION_OPERATOR_CLASSES = "actionOperatorClasses";
@@ -229,6 +232,17 @@ public class StramWebServices
     return new JSONObject(objectMapper.writeValueAsString(streamList));
   }
 
+  @GET
+  @Path(PATH_PHYSICAL_PLAN_STREAMS + "/" + PATH_LOCALITY_SUGGESTIONS)
+  @Produces(MediaType.APPLICATION_JSON)
+  public JSONObject getLocalitySuggestions() throws Exception
+  {
+    init();
+    Map<String, Object> result = new HashMap<String, Object>();
+    result.put("suggestions", dagManager.getLocalitySuggestions());
+    return new JSONObject(objectMapper.writeValueAsString(result));
+  }
+
   @GET
   @Path(PATH_PHYSICAL_PLAN_OPERATORS + "/{operatorId:\\d+}")
   @Produces(MediaType.APPLICATION_JSON)
@@ -242,6 +256,19 @@ public class StramWebServices
     return new JSONObject(objectMapper.writeValueAsString(oi));
   }
 
+  @GET
+  @Path(PATH_PHYSICAL_PLAN_OPERATORS + "/{operatorId:\\d+}/" + PATH_LATENCY)
+  @Produces(MediaType.APPLICATION_JSON)
+  public JSONObject getOperatorLatency(@PathParam("operatorId") int operatorId) throws Exception
+  {
+    init();
+    TupleLatencyInfo tli = dagManager.getOperatorLatencyInfo(operatorId);
+    if (tli == null) {
+      throw new NotFoundException();
+    }
+    return new JSONObject(objectMapper.writeValueAsString(tli));
+  }
+
   @GET
   @Path(PATH_PHYSICAL_PLAN_OPERATORS + "/{operatorId:\\d+}/ports")
   @Produces(MediaType.APPLICATION_JSON)
@@ -365,16 +392,7 @@ public class StramWebServices
   {
     init();
     LOG.debug("Start recording on {} requested", opId);
-    JSONObject response = new JSONObject();
-    long numWindows = 0;
-    if (StringUtils.isNotBlank(content)) {
-      JSONObject r = new JSONObject(content);
-      numWindows = r.optLong("numWindows", 0);
-    }
-    String id = getTupleRecordingId();
-    dagManager.startRecording(id, opId, null, numWindows);
-    response.put("id", id);
-    return response;
+    return startRecordingHelper(opId, null, content);
   }
 
   @POST
@@ -384,14 +402,30 @@ public class StramWebServices
   {
     init();
     LOG.debug("Start recording on {}.{} requested", opId, portName);
+    return startRecordingHelper(opId, portName, content);
+  }
+
+  private JSONObject startRecordingHelper(int opId, String portName, String content) throws JSONException
+  {
     JSONObject response = new JSONObject();
     long numWindows = 0;
+    int reservoirSize = 0;
+    double sampleProbability = 1.0;
+    long maxTuplesPerSecond = 0;
     if (StringUtils.isNotBlank(content)) {
       JSONObject r = new JSONObject(content);
       numWindows = r.optLong("numWindows", 0);
+      reservoirSize = r.optInt("reservoirSize", 0);
+      sampleProbability = r.optDouble("sampleProbability", 1.0);
+      maxTuplesPerSecond = r.optLong("maxTuplesPerSecond", 0);
     }
     String id = getTupleRecordingId();
-    dagManager.startRecording(id, opId, portName, numWindows);
+    try {
+      dagManager.startRecording(id, opId, portName, numWindows, reservoirSize, sampleProbability, maxTuplesPerSecond);
+    }
+    catch (IllegalArgumentException ex) {
+      throw new BadRequestException(ex.getMessage());
+    }
     response.put("id", id);
     return response;
   }
@@ -553,6 +587,19 @@ public class StramWebServices
     return new JSONObject(objectMapper.writeValueAsString(operatorAggregationInfo));
   }
 
+  @GET
+  @Path(PATH_LOGICAL_PLAN_OPERATORS + "/{operatorName}/" + PATH_LATENCY)
+  @Produces(MediaType.APPLICATION_JSON)
+  public JSONObject getLogicalOperatorLatency(@PathParam("operatorName") String operatorName) throws Exception
+  {
+    init();
+    TupleLatencyInfo tli = dagManager.getLogicalOperatorLatencyInfo(operatorName);
+    if (tli == null) {
+      throw new NotFoundException();
+    }
+    return new JSONObject(objectMapper.writeValueAsString(tli));
+  }
+
   @POST // not supported by WebAppProxyServlet, can only be called directly
   @Path(PATH_LOGICAL_PLAN_OPERATORS + "/{operatorName}/properties")
   @Consumes(MediaType.APPLICATION_JSON)
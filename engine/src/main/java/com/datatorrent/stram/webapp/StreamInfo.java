@@ -43,4 +43,6 @@ public class StreamInfo
   public Port source = new Port();
   public List<Port> sinks = new ArrayList<Port>();
   public Locality locality;
+  public long tuplesPSMA;
+  public long bufferServerBytesPSMA;
 }
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.webapp;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.datatorrent.api.Stats.LatencyHistogram;
+
+/**
+ * <p>Latencies in milliseconds of the tuples traced through an operator, either a single partition or all the
+ * partitions of a logical operator.</p>
+ */
+@XmlRootElement(name = "tupleLatency")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class TupleLatencyInfo
+{
+  public String name;
+  /**
+   * Latency since the input operator emitted the traced tuples.
+   */
+  public Histogram latency;
+  /**
+   * Latency since the upstream operator passed the traced tuples on.
+   */
+  public Histogram hopLatency;
+
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class Histogram
+  {
+    public long count;
+    public long avg;
+    public long max;
+    public long p50;
+    public long p90;
+    public long p99;
+
+    public Histogram()
+    {
+    }
+
+    public Histogram(LatencyHistogram histogram)
+    {
+      count = histogram.getCount();
+      avg = histogram.getAvg();
+      max = histogram.getMax();
+      p50 = histogram.getPercentile(50);
+      p90 = histogram.getPercentile(90);
+      p99 = histogram.getPercentile(99);
+    }
+  }
+}
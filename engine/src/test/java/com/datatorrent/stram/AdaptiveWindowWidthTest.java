@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.DefaultInputPort;
+import com.datatorrent.common.util.BaseOperator;
+import com.datatorrent.stram.engine.TestGeneratorInputOperator;
+import com.datatorrent.stram.engine.WindowGenerator;
+import com.datatorrent.stram.engine.WindowWidthSchedule;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.support.StramTestSupport;
+
+public class AdaptiveWindowWidthTest
+{
+  @Rule
+  public StramTestSupport.TestMeta testMeta = new StramTestSupport.TestMeta();
+
+  @Test
+  public void testWidth()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    dag.setAttribute(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS, 500);
+    dag.setAttribute(LogicalPlan.CHECKPOINT_WINDOW_COUNT, 60);
+    TestGeneratorInputOperator input = dag.addOperator("input", new TestGeneratorInputOperator());
+    AdaptiveWindowWidth adaptiveWindowWidth = new AdaptiveWindowWidth(dag);
+    long interval = dag.getValue(LogicalPlan.ADAPTIVE_WINDOW_SIZE_INTERVAL_MILLIS);
+
+    long now = 1431714014000L;
+    Assert.assertEquals("no tuples", 500, adaptiveWindowWidth.getWidth(500, 0, 0, now));
+    Assert.assertEquals("many tuples", 1000, adaptiveWindowWidth.getWidth(500, 100000, 0, now));
+    Assert.assertEquals("too soon", 1000, adaptiveWindowWidth.getWidth(1000, 100000, 0, now + 1));
+    now += interval;
+    Assert.assertEquals("many tuples", 2000, adaptiveWindowWidth.getWidth(1000, 100000, 0, now));
+    now += interval;
+    Assert.assertEquals("checkpoint span", 2000, adaptiveWindowWidth.getWidth(2000, 100000, 0, now));
+    Assert.assertEquals("few tuples", 250, adaptiveWindowWidth.getWidth(500, 10, 0, now));
+    now += interval;
+    Assert.assertEquals("high latency", 500, adaptiveWindowWidth.getWidth(500, 10, 1000, now));
+    Assert.assertEquals("minimum", 125, adaptiveWindowWidth.getWidth(250, 10, 0, now));
+    now += interval;
+    Assert.assertEquals("minimum", 125, adaptiveWindowWidth.getWidth(125, 10, 0, now));
+
+    long start = 1431714000000L;
+    WindowWidthSchedule schedule = new WindowWidthSchedule(start, 500);
+    Assert.assertEquals("checkpoint boundary", start + 30500, adaptiveWindowWidth.getChangeMillis(schedule, 1000,
+        start + 1));
+
+    dag.setAttribute(input, OperatorContext.APPLICATION_WINDOW_COUNT, 3);
+    Assert.assertEquals("application window span", 500, adaptiveWindowWidth.getWidth(500, 100000, 0, now));
+    Assert.assertEquals("application window boundary", start + 30500,
+        adaptiveWindowWidth.getChangeMillis(schedule, 250, start + 1));
+    Assert.assertEquals("lead time", start + 60500, adaptiveWindowWidth.getChangeMillis(schedule, 250, start + 27000));
+
+    dag.setAttribute(LogicalPlan.CHECKPOINT_WINDOW_COUNT, 1);
+    dag.setAttribute(input, OperatorContext.APPLICATION_WINDOW_COUNT, 1);
+    long resetMillis = start + 500L * (WindowGenerator.MAX_WINDOW_ID + 1);
+    Assert.assertEquals("reset in the same second", resetMillis + 1500,
+        adaptiveWindowWidth.getChangeMillis(schedule, 1000, resetMillis - 3600));
+  }
+
+  @Test
+  public void testLocalCluster() throws Exception
+  {
+    LogicalPlan dag = new LogicalPlan();
+    dag.setAttribute(LogicalPlan.APPLICATION_PATH, testMeta.getPath());
+    dag.setAttribute(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS, 500);
+    dag.setAttribute(LogicalPlan.CHECKPOINT_WINDOW_COUNT, 2);
+    TestGeneratorInputOperator input = dag.addOperator("input", new TestGeneratorInputOperator());
+    input.setEmitInterval(0);
+    WindowCollector collector = dag.addOperator("collector", new WindowCollector());
+    dag.setAttribute(collector, OperatorContext.APPLICATION_WINDOW_COUNT, 4);
+    dag.addStream("stream", input.outport, collector.input);
+    WindowCollector.windowIds.clear();
+
+    StramLocalCluster localCluster = new StramLocalCluster(dag);
+    localCluster.runAsync();
+    long changeMillis;
+    try {
+      StreamingContainerManager scm = localCluster.getStreamingContainerManager();
+      while (WindowCollector.windowIds.isEmpty()) {
+        Thread.sleep(10);
+      }
+
+      changeMillis = new AdaptiveWindowWidth(dag).getChangeMillis(scm.getWindowWidthSchedule(), 250,
+          System.currentTimeMillis());
+      scm.setWindowWidth(changeMillis, 250);
+      while (System.currentTimeMillis() < changeMillis + 4000) {
+        Thread.sleep(100);
+      }
+    } finally {
+      localCluster.shutdown();
+    }
+
+    StreamingContainerManager scm = localCluster.getStreamingContainerManager();
+    long firstMillis = scm.getWindowStartMillis() + 500;
+    List<Long> windowMillis = new ArrayList<>();
+    for (long windowId : WindowCollector.windowIds) {
+      windowMillis.add(scm.windowIdToMillis(windowId));
+    }
+    for (int i = 0; i < windowMillis.size(); i++) {
+      Assert.assertEquals("application window " + windowMillis, 0, (windowMillis.get(i) - firstMillis) % 2000);
+      if (i > 0) {
+        Assert.assertEquals("application window " + windowMillis, 2000, windowMillis.get(i) - windowMillis.get(i - 1));
+      }
+    }
+    Assert.assertTrue("window at change " + windowMillis, windowMillis.contains(changeMillis));
+    Assert.assertTrue("windows after change " + windowMillis, windowMillis.contains(changeMillis + 2000));
+    Assert.assertTrue("reset at change", WindowCollector.windowIds.contains(changeMillis / 1000 << 32));
+  }
+
+  public static class WindowCollector extends BaseOperator
+  {
+    static final ConcurrentLinkedQueue<Long> windowIds = new ConcurrentLinkedQueue<>();
+
+    public final transient DefaultInputPort<Object> input = new DefaultInputPort<Object>()
+    {
+      @Override
+      public void process(Object tuple)
+      {
+      }
+    };
+
+    @Override
+    public void beginWindow(long windowId)
+    {
+      windowIds.add(windowId);
+    }
+  }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.DAG.Locality;
+import com.datatorrent.common.partitioner.StatelessPartitioner;
+import com.datatorrent.stram.engine.GenericTestOperator;
+import com.datatorrent.stram.plan.TestPlanContext;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.physical.OperatorStatus.PortStatus;
+import com.datatorrent.stram.plan.physical.PTOperator;
+import com.datatorrent.stram.plan.physical.PhysicalPlan;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.webapp.LocalitySuggestion;
+
+public class LocalityAdvisorTest
+{
+  @Test
+  public void testSuggestions()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new StramTestSupport.MemoryStorageAgent());
+    dag.setAttribute(LogicalPlan.LOCALITY_UPGRADE_BYTES_PER_SECOND, 5000L);
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    GenericTestOperator o3 = dag.addOperator("o3", GenericTestOperator.class);
+    GenericTestOperator o4 = dag.addOperator("o4", GenericTestOperator.class);
+    GenericTestOperator o5 = dag.addOperator("o5", GenericTestOperator.class);
+    dag.setAttribute(o4, OperatorContext.PARTITIONER, new StatelessPartitioner<GenericTestOperator>(2));
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1);
+    dag.addStream("o2.outport1", o2.outport1, o3.inport1);
+    dag.addStream("o3.outport1", o3.outport1, o4.inport1);
+    dag.addStream("o1.outport2", o1.outport2, o5.inport1).setLocality(Locality.CONTAINER_LOCAL);
+
+    PhysicalPlan plan = new PhysicalPlan(dag, new TestPlanContext());
+    setBytesPerSecond(plan.getOperators(dag.getMeta(o2)).get(0), 1000);
+    setBytesPerSecond(plan.getOperators(dag.getMeta(o3)).get(0), 10000);
+    for (PTOperator oper : plan.getOperators(dag.getMeta(o4))) {
+      setBytesPerSecond(oper, 100000);
+    }
+    setBytesPerSecond(plan.getOperators(dag.getMeta(o5)).get(0), 100000);
+
+    LocalityAdvisor advisor = new LocalityAdvisor(plan);
+    List<LocalitySuggestion> suggestions = advisor.getSuggestions();
+    Assert.assertEquals("suggestions " + suggestions, 2, suggestions.size());
+    LocalitySuggestion suggestion = suggestions.get(0);
+    Assert.assertEquals("most traffic", "o2.outport1", suggestion.streamName);
+    Assert.assertEquals("source", "o2", suggestion.sourceOperatorName);
+    Assert.assertEquals("sinks", "o3", suggestion.sinkOperatorNames.get(0));
+    Assert.assertEquals("locality", Locality.CONTAINER_LOCAL, suggestion.suggestedLocality);
+    Assert.assertEquals("bytes", 10000, suggestion.bufferServerBytesPSMA);
+    Assert.assertEquals("tuples", 100, suggestion.tuplesPSMA);
+    Assert.assertEquals("least traffic", "o1.outport1", suggestions.get(1).streamName);
+
+    long now = System.currentTimeMillis();
+    Assert.assertEquals("upgrade", "o2.outport1", advisor.getUpgrade(now).streamName);
+    Assert.assertNull("interval", advisor.getUpgrade(now + 1));
+    setBytesPerSecond(plan.getOperators(dag.getMeta(o3)).get(0), 1000);
+    Assert.assertNull("too little traffic", advisor.getUpgrade(now + dag.getValue(
+        LogicalPlan.LOCALITY_UPGRADE_INTERVAL_MILLIS)));
+  }
+
+  private static void setBytesPerSecond(PTOperator oper, long bytesPerSecond)
+  {
+    PortStatus ps = oper.stats.new PortStatus();
+    ps.portName = "inport1";
+    ps.bufferServerBytesPMSMA.add(bytesPerSecond, 1000);
+    ps.tuplesPMSMA.add(bytesPerSecond / 100, 1000);
+    oper.stats.inputPortStatusList.put(ps.portName, ps);
+  }
+}
@@ -33,6 +33,7 @@ import org.junit.Test;
 import com.datatorrent.api.DAG.Locality;
 import com.datatorrent.api.StorageAgent;
 
+import com.datatorrent.common.partitioner.StatelessPartitioner;
 import com.datatorrent.common.util.AsyncFSStorageAgent;
 import com.datatorrent.common.util.FSStorageAgent;
 import com.datatorrent.stram.engine.GenericTestOperator;
@@ -332,6 +333,52 @@ public class LogicalPlanModificationTest
 
   }
 
+  @Test
+  public void testSetStreamLocality()
+  {
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    GenericTestOperator o3 = dag.addOperator("o3", GenericTestOperator.class);
+    GenericTestOperator o4 = dag.addOperator("o4", GenericTestOperator.class);
+    dag.setAttribute(o4, OperatorContext.PARTITIONER, new StatelessPartitioner<GenericTestOperator>(2));
+
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1);
+    dag.addStream("o2.outport1", o2.outport1, o3.inport1);
+    dag.addStream("o3.outport1", o3.outport1, o4.inport1);
+
+    TestPlanContext ctx = new TestPlanContext();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, ctx);
+    PhysicalPlan plan = new PhysicalPlan(dag, ctx);
+    ctx.deploy.clear();
+    ctx.undeploy.clear();
+
+    Assert.assertEquals("containers", 5, plan.getContainers().size());
+    PTOperator o1p1 = plan.getOperators(dag.getMeta(o1)).get(0);
+    PTOperator o2p1 = plan.getOperators(dag.getMeta(o2)).get(0);
+
+    PlanModifier pm = new PlanModifier(plan);
+    try {
+      pm.setStreamLocality("o3.outport1", Locality.CONTAINER_LOCAL);
+      Assert.fail("validation error expected");
+    } catch (ValidationException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("partitioned"));
+    }
+
+    pm.setStreamLocality("o1.outport1", Locality.CONTAINER_LOCAL);
+    pm.applyChanges(ctx);
+
+    Assert.assertEquals("locality", Locality.CONTAINER_LOCAL, dag.getStream("o1.outport1").getLocality());
+    Assert.assertEquals("containers post change", 4, plan.getContainers().size());
+    PTOperator o2p2 = plan.getOperators(dag.getMeta(o2)).get(0);
+    Assert.assertNotSame("o2 replaced", o2p1, o2p2);
+    Assert.assertEquals("o2 container", o1p1.getContainer(), o2p2.getContainer());
+    Assert.assertEquals("container local", Sets.newHashSet(o1p1, o2p2),
+        o1p1.getContainerLocalOperators().getOperatorSet());
+    Assert.assertTrue("undeploy " + ctx.undeploy, ctx.undeploy.containsAll(Sets.newHashSet(o1p1, o2p1)));
+    Assert.assertTrue("deploy " + ctx.deploy, ctx.deploy.containsAll(Sets.newHashSet(o1p1, o2p2)));
+    Assert.assertFalse("deploy " + ctx.deploy, ctx.deploy.contains(o2p1));
+  }
+
   @Test
   public void testExecutionManagerWithSyncStorageAgent() throws Exception
   {
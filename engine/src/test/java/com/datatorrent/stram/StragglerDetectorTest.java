@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.Context.PortContext;
+import com.datatorrent.common.partitioner.StatelessPartitioner;
+import com.datatorrent.stram.engine.GenericTestOperator;
+import com.datatorrent.stram.engine.WindowWidthSchedule;
+import com.datatorrent.stram.plan.TestPlanContext;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.physical.PTContainer;
+import com.datatorrent.stram.plan.physical.PTOperator;
+import com.datatorrent.stram.plan.physical.PhysicalPlan;
+import com.datatorrent.stram.support.StramTestSupport;
+
+public class StragglerDetectorTest
+{
+  @Test
+  public void testStragglers()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new StramTestSupport.MemoryStorageAgent());
+    dag.setAttribute(LogicalPlan.STRAGGLER_LAG_MILLIS, 5000L);
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    GenericTestOperator o3 = dag.addOperator("o3", GenericTestOperator.class);
+    GenericTestOperator o4 = dag.addOperator("o4", GenericTestOperator.class);
+    dag.setAttribute(o2, OperatorContext.PARTITIONER, new StatelessPartitioner<GenericTestOperator>(4));
+    dag.setInputPortAttribute(o3.inport1, PortContext.PARTITION_PARALLEL, true);
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1);
+    dag.addStream("o2.outport1", o2.outport1, o3.inport1);
+    dag.addStream("o3.outport1", o3.outport1, o4.inport1);
+
+    TestPlanContext ctx = new TestPlanContext();
+    PhysicalPlan plan = new PhysicalPlan(dag, ctx);
+    long start = 1431714000000L;
+    WindowWidthSchedule schedule = new WindowWidthSchedule(start, 500);
+    for (PTOperator oper : plan.getAllOperators().values()) {
+      setWindow(oper, schedule, start + 10000);
+    }
+    PTOperator straggler = plan.getOperators(dag.getMeta(o2)).get(1);
+    setWindow(straggler, schedule, start + 2000);
+    PTOperator parallelStraggler = null;
+    for (PTOperator oper : plan.getOperators(dag.getMeta(o3))) {
+      if (oper.getInputs().get(0).source.source == straggler) {
+        parallelStraggler = oper;
+        setWindow(oper, schedule, start + 1500);
+      }
+    }
+
+    StragglerDetector detector = new StragglerDetector(plan);
+    Map<PTOperator, Long> stragglers = detector.detect(schedule);
+    Assert.assertEquals("stragglers " + stragglers, 2, stragglers.size());
+    Assert.assertEquals("lag", 8000, (long)stragglers.get(straggler));
+    Assert.assertEquals("parallel lag", 8500, (long)stragglers.get(parallelStraggler));
+    Assert.assertTrue("recorded once", detector.detect(schedule).isEmpty());
+    Assert.assertEquals("still lagging", 2, detector.getStragglers().size());
+
+    long now = System.currentTimeMillis();
+    Assert.assertSame("upstream straggler replaced", straggler, detector.getReplacement(now));
+    Assert.assertNull("interval", detector.getReplacement(now + 1));
+
+    PTContainer container = straggler.getContainer();
+    container.host = "host1";
+    PTContainer newContainer = plan.moveToNewContainer(straggler);
+    Assert.assertSame("container", newContainer, straggler.getContainer());
+    Assert.assertEquals("avoided host", "host1", newContainer.getAvoidedHost());
+    Assert.assertTrue("released " + ctx.releaseContainers, ctx.releaseContainers.contains(container));
+    Assert.assertFalse("plan containers", plan.getContainers().contains(container));
+    Assert.assertTrue("plan containers", plan.getContainers().contains(newContainer));
+    Assert.assertTrue("undeploy " + ctx.undeploy, ctx.undeploy.contains(straggler));
+    Assert.assertTrue("undeploy " + ctx.undeploy, ctx.undeploy.contains(parallelStraggler));
+    Assert.assertTrue("deploy " + ctx.deploy, ctx.deploy.containsAll(plan.getOperators(dag.getMeta(o4))));
+    Assert.assertEquals("partitions, unifier and downstream " + ctx.deploy, 4, ctx.deploy.size());
+
+    setWindow(straggler, schedule, start + 10000);
+    setWindow(parallelStraggler, schedule, start + 10000);
+    Assert.assertTrue("caught up", detector.detect(schedule).isEmpty());
+    Assert.assertTrue("caught up", detector.getStragglers().isEmpty());
+  }
+
+  private static void setWindow(PTOperator oper, WindowWidthSchedule schedule, long millis)
+  {
+    oper.setState(PTOperator.State.ACTIVE);
+    oper.stats.statsRevs.checkout();
+    oper.stats.currentWindowId.set(schedule.getWindowId(millis));
+    oper.stats.statsRevs.commit();
+  }
+}
@@ -694,6 +694,75 @@ public class StreamingContainerManagerTest
     Assert.assertEquals("type " + o1DeployInfo, OperatorDeployInfo.OperatorType.INPUT, o1DeployInfo.type);
   }
 
+  @Test
+  public void testWindowWidthChange()
+  {
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new MemoryStorageAgent());
+    dag.addOperator("o1", TestGeneratorInputOperator.class);
+    StreamingContainerManager scm = new StreamingContainerManager(dag);
+    String containerId = "container1";
+    StreamingContainerAgent sca = scm.assignContainer(new ContainerResource(0, containerId, "localhost", 512, 0, null),
+        InetSocketAddress.createUnresolved("localhost", 0));
+    Assert.assertNotNull(sca);
+
+    ContainerHeartbeat hb = new ContainerHeartbeat();
+    hb.setContainerStats(new ContainerStats(containerId));
+    hb.windowWidthStartMillis = scm.getWindowStartMillis();
+    Assert.assertNull("fixed width", scm.processHeartbeat(hb).windowWidths);
+
+    long changeMillis = scm.getWindowStartMillis() + 2000;
+    scm.setWindowWidth(changeMillis, 250);
+    try {
+      scm.setWindowWidth(changeMillis, 100);
+      Assert.fail("change in the same second");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    SortedMap<Long, Integer> widths = scm.processHeartbeat(hb).windowWidths;
+    Assert.assertNotNull("changed width", widths);
+    Assert.assertEquals("width", Integer.valueOf(250), widths.get(changeMillis));
+    Assert.assertEquals("widths", 2, widths.size());
+
+    // the container knows the latest width
+    hb.windowWidthStartMillis = changeMillis;
+    Assert.assertNull("known width", scm.processHeartbeat(hb).windowWidths);
+  }
+
+  @Test
+  public void testMoveToNewContainer()
+  {
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new MemoryStorageAgent());
+
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    GenericTestOperator o3 = dag.addOperator("o3", GenericTestOperator.class);
+
+    dag.addStream("stream1", o1.outport1, o2.inport1);
+    dag.addStream("stream2", o2.outport1, o3.inport1);
+
+    dag.setAttribute(o2, OperatorContext.MEMORY_MB, 4000);
+    dag.setAttribute(LogicalPlan.CONTAINERS_MAX_COUNT, 1);
+    StreamingContainerManager scm = new StreamingContainerManager(dag);
+
+    PhysicalPlan physicalPlan = scm.getPhysicalPlan();
+    Assert.assertEquals("number containers", 1, physicalPlan.getContainers().size());
+    PTContainer container = physicalPlan.getContainers().get(0);
+    new MockContainer(scm, container).deploy();
+    int requiredMemoryMB = container.getRequiredMemoryMB();
+
+    PTOperator o2p1 = physicalPlan.getOperators(dag.getMeta(o2)).get(0);
+    PTContainer newContainer = physicalPlan.moveToNewContainer(o2p1);
+    Assert.assertEquals("o2 moved", newContainer, o2p1.getContainer());
+    Assert.assertEquals("avoided host", "localhost", newContainer.getAvoidedHost());
+    // only the memory of the moved operator leaves the container, its buffer server memory remains
+    Assert.assertEquals("memory container", requiredMemoryMB - 4000, container.getRequiredMemoryMB());
+    Assert.assertEquals("memory new container", 4000 + o2p1.getBufferServerMemory(),
+        newContainer.getRequiredMemoryMB());
+
+    new MockContainer(scm, newContainer);
+    Assert.assertNull("avoided host after allocation", newContainer.getAvoidedHost());
+  }
+
   @Test
   public void testOperatorShutdown()
   {
@@ -149,6 +149,75 @@ public class DefaultStatefulStreamCodecTest
     Assert.assertEquals(dsp1.state, dsp2.state);
   }
 
+  @Test
+  public void testBufferSerialization()
+  {
+    DefaultStatefulStreamCodec<Object> coder = new DefaultStatefulStreamCodec<Object>();
+    DefaultStatefulStreamCodec<Object> decoder = new DefaultStatefulStreamCodec<Object>();
+    TestClass tc = new TestClass("hello!", 42);
+
+    Output output = new Output(1, Integer.MAX_VALUE);
+    output.writeByte(-1);
+    Slice state = coder.writeTuple(tc, output);
+    Assert.assertNotNull("state of new class", state);
+    int length = output.position();
+    Assert.assertNull("known class", coder.writeTuple(tc, output));
+    Assert.assertEquals("data", coder.toDataStatePair(tc).data, new Slice(output.getBuffer(), 1, length - 1));
+
+    decoder.readState(state.buffer, state.offset, state.length);
+    Assert.assertEquals("first tuple", tc, decoder.readTuple(output.getBuffer(), 1, length - 1));
+    Assert.assertEquals("second tuple", tc, decoder.readTuple(output.getBuffer(), length, output.position() - length));
+  }
+
+  @Test
+  public void testAdapter()
+  {
+    BufferStreamCodec<Object> coder = BufferStreamCodecAdapter.getBufferStreamCodec(new JavaSerializationStreamCodec());
+    BufferStreamCodec<Object> decoder = BufferStreamCodecAdapter.getBufferStreamCodec(
+        new JavaSerializationStreamCodec());
+    Assert.assertTrue("adapted", coder instanceof BufferStreamCodecAdapter);
+    Assert.assertTrue("default", BufferStreamCodecAdapter.getBufferStreamCodec(null)
+        instanceof DefaultStatefulStreamCodec);
+
+    Output output = new Output(1, Integer.MAX_VALUE);
+    Assert.assertNull("stateless", coder.writeTuple("hello", output));
+    Assert.assertEquals("tuple", "hello", decoder.readTuple(output.getBuffer(), 0, output.position()));
+  }
+
+  public static class JavaSerializationStreamCodec implements com.datatorrent.api.StreamCodec<Object>
+  {
+    @Override
+    public Object fromByteArray(Slice fragment)
+    {
+      try {
+        return new ObjectInputStream(new ByteArrayInputStream(fragment.buffer, fragment.offset, fragment.length))
+            .readObject();
+      } catch (Exception ex) {
+        throw new RuntimeException(ex);
+      }
+    }
+
+    @Override
+    public Slice toByteArray(Object o)
+    {
+      try {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(o);
+        oos.close();
+        return new Slice(bos.toByteArray());
+      } catch (IOException ex) {
+        throw new RuntimeException(ex);
+      }
+    }
+
+    @Override
+    public int getPartition(Object o)
+    {
+      return o.hashCode();
+    }
+  }
+
   public static class TestTuple
   {
     final Integer finalField;
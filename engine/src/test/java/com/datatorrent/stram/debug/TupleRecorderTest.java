@@ -20,6 +20,9 @@ package com.datatorrent.stram.debug;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import org.junit.Assert;
 
 import org.codehaus.jackson.map.ObjectMapper;
@@ -39,6 +42,9 @@ import com.datatorrent.api.Context;
 import com.datatorrent.common.util.AsyncFSStorageAgent;
 import com.datatorrent.stram.engine.StreamingContainer;
 import com.datatorrent.stram.StramLocalCluster;
+import com.datatorrent.stram.client.RecordingsAgent;
+import com.datatorrent.stram.client.RecordingsAgent.TuplesInfo;
+import com.datatorrent.stram.client.StramAgent;
 import com.datatorrent.stram.debug.TupleRecorder.PortInfo;
 import com.datatorrent.stram.engine.GenericTestOperator;
 import com.datatorrent.stram.engine.TestGeneratorInputOperator;
@@ -47,6 +53,7 @@ import com.datatorrent.stram.plan.physical.PTOperator;
 import com.datatorrent.stram.support.StramTestSupport;
 import com.datatorrent.stram.support.StramTestSupport.WaitCondition;
 import com.datatorrent.stram.util.FSPartFileCollection;
+import com.datatorrent.stram.util.WebServicesClient;
 import org.codehaus.jettison.json.JSONObject;
 
 /**
@@ -202,6 +209,186 @@ public class TupleRecorderTest
     }
   }
 
+  @Test
+  public void testRecordingsAgentSeek() throws Exception
+  {
+    final File appDir = new File(testWorkDir, "app");
+    TupleRecorder recorder = new TupleRecorder("rec", "application_test_id_2");
+    recorder.getStorage().setBytesPerPartFile(4096);
+    recorder.getStorage().setBytesPerPartIndexEntry(256);
+    recorder.getStorage().setLocalMode(true);
+    recorder.getStorage().setBasePath("file://" + appDir.getAbsolutePath() + "/recordings/1/rec");
+    recorder.addInputPortInfo("ip1", "str1");
+    recorder.addInputPortInfo("ip2", "str2");
+    recorder.setup(null, null);
+    for (long windowId = 1000; windowId < 1200; windowId++) {
+      recorder.beginWindow(windowId);
+      Tuple t1 = new Tuple();
+      t1.key = "ip1";
+      t1.value = windowId + "-0";
+      recorder.writeTuple(t1, "ip1");
+      Tuple t2 = new Tuple();
+      t2.key = "ip2";
+      t2.value = windowId + "-1";
+      recorder.writeTuple(t2, "ip2");
+      recorder.endWindow();
+      recorder.endWindow();
+    }
+    recorder.teardown();
+
+    File recordingDir = new File(appDir, "recordings/1/rec");
+    Assert.assertTrue("part index should exist", new File(recordingDir, FSPartFileCollection.getPartIndexFile("part0.txt")).exists());
+
+    try (FileSystem fs = FileSystem.newInstance(new Configuration())) {
+      RecordingsAgent agent = createRecordingsAgent(fs, appDir);
+
+      TuplesInfo byOffset = agent.getTuplesInfoByOffset("app", "1", "rec", 151, 3, null);
+      Assert.assertEquals("start offset", 151, byOffset.startOffset);
+      Assert.assertEquals("tuples by offset", Arrays.asList("1075-1", "1076-0", "1076-1"), getTupleValues(byOffset));
+
+      TuplesInfo byPortOffset = agent.getTuplesInfoByOffset("app", "1", "rec", 40, 2, new String[]{"1"});
+      Assert.assertEquals("tuples by port offset", Arrays.asList("1040-1", "1041-1"), getTupleValues(byPortOffset));
+
+      TuplesInfo byWindow = agent.getTuplesInfoByWindow("app", "1", "rec", 1150, 4, null);
+      Assert.assertEquals("tuples by window", Arrays.asList("1150-0", "1150-1", "1151-0", "1151-1"), getTupleValues(byWindow));
+
+      // the same queries have to yield identical results when the part files are scanned from the beginning
+      for (File file : recordingDir.listFiles()) {
+        if (file.getName().endsWith(FSPartFileCollection.PART_INDEX_FILE_SUFFIX)) {
+          Assert.assertTrue("delete " + file, file.delete());
+        }
+      }
+      Assert.assertEquals(getTupleValues(byOffset), getTupleValues(agent.getTuplesInfoByOffset("app", "1", "rec", 151, 3, null)));
+      Assert.assertEquals(getTupleValues(byPortOffset), getTupleValues(agent.getTuplesInfoByOffset("app", "1", "rec", 40, 2, new String[]{"1"})));
+      Assert.assertEquals(getTupleValues(byWindow), getTupleValues(agent.getTuplesInfoByWindow("app", "1", "rec", 1150, 4, null)));
+    }
+  }
+
+  @Test
+  public void testSampledRecording() throws Exception
+  {
+    final File appDir = new File(testWorkDir, "sampled");
+    TupleRecorder recorder = new TupleRecorder("rec", "application_test_id_3");
+    recorder.getStorage().setLocalMode(true);
+    recorder.getStorage().setBasePath("file://" + appDir.getAbsolutePath() + "/recordings/1/rec");
+    recorder.setSampler(new TupleSampler(3, 1.0, 0));
+    recorder.addInputPortInfo("ip1", "str1");
+    recorder.addOutputPortInfo("op1", "str2");
+    recorder.setup(null, null);
+    for (long windowId = 1000; windowId < 1005; windowId++) {
+      recorder.beginWindow(windowId);
+      for (int i = 0; i < 10; i++) {
+        Tuple t = new Tuple();
+        t.key = "ip1";
+        t.value = String.valueOf(i);
+        recorder.writeTuple(t, "ip1");
+      }
+      Tuple t = new Tuple();
+      t.key = "op1";
+      t.value = "10";
+      recorder.writeTuple(t, "op1");
+      recorder.endWindow();
+      recorder.endWindow();
+    }
+    recorder.teardown();
+    Assert.assertEquals("recorded tuples", 15, recorder.getTotalTupleCount());
+
+    int windowTupleCount = 0;
+    int previousValue = -1;
+    int sampleLines = 0;
+    try (BufferedReader br = new BufferedReader(new FileReader(new File(appDir, "recordings/1/rec/part0.txt")))) {
+      String line;
+      while ((line = br.readLine()) != null) {
+        if (line.startsWith("B:")) {
+          windowTupleCount = 0;
+          previousValue = -1;
+        }
+        else if (line.startsWith("T:")) {
+          windowTupleCount++;
+          int value = Integer.valueOf(new JSONObject(line.substring(line.indexOf('{'))).getString("value"));
+          Assert.assertTrue("tuples are written in the order received", value > previousValue);
+          previousValue = value;
+        }
+        else if (line.startsWith("S:")) {
+          sampleLines++;
+          Assert.assertTrue("observed tuple counts " + line, line.endsWith(":10,1"));
+        }
+        else if (line.startsWith("E:")) {
+          Assert.assertEquals("tuples per window", 3, windowTupleCount);
+        }
+      }
+    }
+    Assert.assertEquals("sample lines", 5, sampleLines);
+
+    try (FileSystem fs = FileSystem.newInstance(new Configuration())) {
+      RecordingsAgent.RecordingInfo info = createRecordingsAgent(fs, appDir).getRecordingInfo("app", "1", "rec");
+      Assert.assertEquals("total tuples", 15, info.totalTuples);
+      Assert.assertEquals("observed tuples", 55, info.observedTuples);
+    }
+  }
+
+  @Test
+  public void testTupleSampler()
+  {
+    TupleSampler sampler = new TupleSampler(0, 1.0, 5, new Random(0));
+    for (int i = 0; i < 5; i++) {
+      Assert.assertEquals(TupleSampler.RECORD, sampler.offer(1000));
+    }
+    Assert.assertEquals("over budget", TupleSampler.SKIP, sampler.offer(1999));
+    Assert.assertEquals("next second", TupleSampler.RECORD, sampler.offer(2000));
+
+    sampler = new TupleSampler(0, 0.25, 0, new Random(0));
+    int recorded = 0;
+    for (int i = 0; i < 10000; i++) {
+      if (sampler.offer(1000) == TupleSampler.RECORD) {
+        recorded++;
+      }
+    }
+    Assert.assertTrue("recorded with probability " + recorded, recorded > 2000 && recorded < 3000);
+
+    sampler = new TupleSampler(2, 1.0, 0, new Random(0));
+    sampler.beginWindow(1);
+    Assert.assertEquals(0, sampler.offer(1000));
+    Assert.assertEquals(1, sampler.offer(1000));
+    for (int i = 0; i < 100; i++) {
+      int slot = sampler.offer(1000);
+      Assert.assertTrue("reservoir slot " + slot, slot == TupleSampler.SKIP || slot == 0 || slot == 1);
+    }
+    sampler.beginWindow(2);
+    Assert.assertEquals("reservoir is reset for each window", 0, sampler.offer(1000));
+  }
+
+  private static RecordingsAgent createRecordingsAgent(FileSystem fs, final File appDir)
+  {
+    StramAgent stramAgent = new StramAgent(fs, new Configuration())
+    {
+      @Override
+      public String getAppPath(String appId)
+      {
+        return appDir.getAbsolutePath();
+      }
+
+      @Override
+      public JSONObject issueStramWebGetRequest(WebServicesClient webServiceClient, String appId, String resourcePath) throws IOException
+      {
+        throw new IOException("Application " + appId + " is not running");
+      }
+
+    };
+    return new RecordingsAgent(stramAgent);
+  }
+
+  private static List<String> getTupleValues(TuplesInfo tuplesInfo) throws Exception
+  {
+    List<String> values = new ArrayList<>();
+    for (RecordingsAgent.WindowTuplesInfo wti : tuplesInfo.tuples) {
+      for (RecordingsAgent.TupleInfo ti : wti.tuples) {
+        values.add(new JSONObject(ti.data.toString()).getString("value"));
+      }
+    }
+    return values;
+  }
+
   private static final File testWorkDir = new File("target", TupleRecorderTest.class.getName());
   private static final int testTupleCount = 10;
 
@@ -0,0 +1,248 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.LineNumberReader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.datatorrent.stram.StramLocalCluster;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.support.StramTestSupport;
+
+public class CooperativeSchedulerTest
+{
+  @Rule
+  public StramTestSupport.TestMeta testMeta = new StramTestSupport.TestMeta();
+
+  @Test
+  public void testParkAndSignal() throws Exception
+  {
+    CooperativeScheduler scheduler = new CooperativeScheduler(1, 10);
+    final AtomicInteger turns = new AtomicInteger();
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    CooperativeScheduler.Task task = scheduler.submit("test", new CooperativeScheduler.Job()
+    {
+      @Override
+      public long turn(long sliceNanos) throws Exception
+      {
+        int turn = turns.incrementAndGet();
+        if (turn < 3) {
+          return 0;
+        }
+        /* wait much longer than the test, only the signal gets the last turn in time */
+        return turn == 3 ? 60000 : -1;
+      }
+
+      @Override
+      public boolean hasWork()
+      {
+        return false;
+      }
+
+      @Override
+      public void terminated(Throwable cause)
+      {
+        failure.set(cause);
+      }
+
+    });
+
+    for (int i = 0; i < 100 && turns.get() < 3; i++) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(50);
+    Assert.assertEquals("parked after", 3, turns.get());
+    Assert.assertFalse("parked", task.isTerminated());
+
+    task.signal.run();
+    Assert.assertTrue("terminated", task.awaitTermination(5000));
+    Assert.assertTrue("terminated", task.isTerminated());
+    Assert.assertEquals("turns", 4, turns.get());
+    Assert.assertNull("failure", failure.get());
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void testWorkBeforePark() throws Exception
+  {
+    CooperativeScheduler scheduler = new CooperativeScheduler(1, 10);
+    final AtomicInteger turns = new AtomicInteger();
+    CooperativeScheduler.Task task = scheduler.submit("test", new CooperativeScheduler.Job()
+    {
+      @Override
+      public long turn(long sliceNanos) throws Exception
+      {
+        /* wait much longer than the test, the work found when parking gets the second turn in time */
+        return turns.incrementAndGet() == 1 ? 60000 : -1;
+      }
+
+      @Override
+      public boolean hasWork()
+      {
+        return turns.get() == 1;
+      }
+
+      @Override
+      public void terminated(Throwable cause)
+      {
+      }
+
+    });
+    Assert.assertTrue("terminated", task.awaitTermination(5000));
+    Assert.assertEquals("turns", 2, turns.get());
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void testFailure() throws Exception
+  {
+    CooperativeScheduler scheduler = new CooperativeScheduler(1, 10);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    CooperativeScheduler.Task task = scheduler.submit("test", new CooperativeScheduler.Job()
+    {
+      @Override
+      public long turn(long sliceNanos) throws Exception
+      {
+        throw new IllegalStateException("test");
+      }
+
+      @Override
+      public boolean hasWork()
+      {
+        return false;
+      }
+
+      @Override
+      public void terminated(Throwable cause)
+      {
+        failure.set(cause);
+      }
+
+    });
+    Assert.assertTrue("terminated", task.awaitTermination(5000));
+    Assert.assertTrue("failure", failure.get() instanceof IllegalStateException);
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void testBlockingPut() throws Exception
+  {
+    /* the producer blocks the only thread of the pool until the consumer takes the tuples */
+    final CooperativeScheduler scheduler = new CooperativeScheduler(1, 10);
+    final BlockingQueue<Object> queue = new ArrayBlockingQueue<Object>(1);
+    final AtomicInteger consumed = new AtomicInteger();
+    CooperativeScheduler.Task producer = scheduler.submit("producer", new CooperativeScheduler.Job()
+    {
+      @Override
+      public long turn(long sliceNanos) throws Exception
+      {
+        for (int i = 0; i < 100; i++) {
+          CooperativeScheduler.put(queue, i);
+        }
+        return -1;
+      }
+
+      @Override
+      public boolean hasWork()
+      {
+        return false;
+      }
+
+      @Override
+      public void terminated(Throwable cause)
+      {
+      }
+
+    });
+    CooperativeScheduler.Task consumer = scheduler.submit("consumer", new CooperativeScheduler.Job()
+    {
+      @Override
+      public long turn(long sliceNanos) throws Exception
+      {
+        while (queue.poll() != null) {
+          consumed.incrementAndGet();
+        }
+        return consumed.get() == 100 ? -1 : 1;
+      }
+
+      @Override
+      public boolean hasWork()
+      {
+        return !queue.isEmpty();
+      }
+
+      @Override
+      public void terminated(Throwable cause)
+      {
+      }
+
+    });
+    Assert.assertTrue("producer terminated", producer.awaitTermination(10000));
+    Assert.assertTrue("consumer terminated", consumer.awaitTermination(10000));
+    Assert.assertEquals("consumed", 100, consumed.get());
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void testLocalCluster() throws Exception
+  {
+    LogicalPlan dag = StramTestSupport.createDAG(testMeta);
+    TestGeneratorInputOperator genNode = dag.addOperator("genNode", TestGeneratorInputOperator.class);
+    genNode.setMaxTuples(100);
+    genNode.setEmitInterval(0);
+
+    GenericTestOperator node1 = dag.addOperator("node1", GenericTestOperator.class);
+    node1.setEmitFormat("%s >> node1");
+    GenericTestOperator node2 = dag.addOperator("node2", GenericTestOperator.class);
+    node2.setEmitFormat("%s");
+
+    File outFile = new File(testMeta.getPath(), "out");
+    TestOutputOperator outNode = dag.addOperator("outNode", TestOutputOperator.class);
+    outNode.pathSpec = outFile.toURI().toString();
+
+    dag.addStream("fromGenNode", genNode.outport, node1.inport1);
+    dag.addStream("fromNode1", node1.outport1, node2.inport1);
+    dag.addStream("fromNode2", node2.outport1, outNode.inport);
+
+    dag.setAttribute(LogicalPlan.CONTAINERS_MAX_COUNT, 1);
+    dag.setAttribute(LogicalPlan.COOPERATIVE_SCHEDULER_MIN_OPERATORS, 2);
+
+    StramLocalCluster localCluster = new StramLocalCluster(dag);
+    localCluster.setHeartbeatMonitoringEnabled(false);
+    localCluster.run();
+
+    LineNumberReader lnr = new LineNumberReader(new FileReader(outFile));
+    String line;
+    while ((line = lnr.readLine()) != null) {
+      Assert.assertEquals("line", lnr.getLineNumber() + " >> node1", line);
+    }
+    Assert.assertEquals("number lines", 100, lnr.getLineNumber());
+    lnr.close();
+  }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.server.Server;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.netlet.EventLoop;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.stream.BufferServerPublisher;
+import com.datatorrent.stram.stream.BufferServerSubscriber;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+import static java.lang.Thread.sleep;
+
+public class EventLoopPoolTest
+{
+  @Test
+  public void testAssignment() throws Exception
+  {
+    EventLoopPool pool = new EventLoopPool(DefaultEventLoop.createEventLoop("testAssignment"), 3,
+        EventLoopPool.Assignment.LEAST_LOADED);
+    List<DefaultEventLoop> eventloops = pool.getEventLoops();
+    Assert.assertEquals("event loops", 3, eventloops.size());
+    Assert.assertSame("first", eventloops.get(0), pool.assign("a"));
+    Assert.assertSame("second", eventloops.get(1), pool.assign("b"));
+    Assert.assertSame("third", eventloops.get(2), pool.assign("c"));
+    pool.release(eventloops.get(1));
+    Assert.assertSame("released", eventloops.get(1), pool.assign("d"));
+
+    pool = new EventLoopPool(DefaultEventLoop.createEventLoop("testAssignment"), 3,
+        EventLoopPool.Assignment.STREAM_ID);
+    for (String streamId : new String[] {"a", "b", "c", "d"}) {
+      Assert.assertSame(streamId, pool.assign(streamId), pool.assign(streamId));
+    }
+  }
+
+  @Test
+  public void testBufferServer() throws Exception
+  {
+    DefaultEventLoop eventloop = DefaultEventLoop.createEventLoop("testBufferServer");
+    EventLoopPool pool = new EventLoopPool(eventloop, 3, EventLoopPool.Assignment.LEAST_LOADED);
+    pool.start();
+    Server bufferServer = new Server(0);
+    int port = bufferServer.run(eventloop, pool.getEventLoops()).getPort();
+    try {
+      for (int i = 0; i < 3; i++) {
+        String sourceId = i + ".output.1";
+        String sinkId = (i + 10) + ".input";
+
+        StreamContext subscriberContext = getContext(sourceId, sinkId, port, pool.assign(sinkId));
+        BufferServerSubscriber subscriber = new BufferServerSubscriber(sinkId, 1024);
+        subscriber.setup(subscriberContext);
+        subscriber.activate(subscriberContext);
+
+        StreamContext publisherContext = getContext(sourceId, sinkId, port, pool.assign(sourceId));
+        BufferServerPublisher publisher = new BufferServerPublisher(sourceId, 1024);
+        publisher.setup(publisherContext);
+        publisher.activate(publisherContext);
+
+        publisher.put(StramTestSupport.generateBeginWindowTuple(sourceId, 0));
+        for (int j = 0; j < 100; j++) {
+          publisher.put("hello" + j);
+        }
+        publisher.put(StramTestSupport.generateEndWindowTuple(sourceId, 0));
+
+        Assert.assertEquals("received by " + sinkId, 100, receive(subscriber).size());
+
+        publisher.deactivate();
+        subscriber.deactivate();
+        pool.release(publisherContext.get(StreamContext.EVENT_LOOP));
+        pool.release(subscriberContext.get(StreamContext.EVENT_LOOP));
+      }
+
+      double[] utilization = pool.sampleUtilization();
+      Assert.assertEquals("utilization", 3, utilization.length);
+      for (double u : utilization) {
+        Assert.assertTrue("utilization " + u, u >= 0 && u <= 1);
+      }
+    } finally {
+      eventloop.stop(bufferServer);
+      pool.stop();
+    }
+  }
+
+  private static StreamContext getContext(String sourceId, String sinkId, int port, EventLoop eventloop)
+  {
+    StreamContext context = new StreamContext("stream" + sourceId);
+    context.setSourceId(sourceId);
+    context.setSinkId(sinkId);
+    context.setFinishedWindowId(-1);
+    context.setBufferServerAddress(InetSocketAddress.createUnresolved("localhost", port));
+    context.put(StreamContext.CODEC, new DefaultStatefulStreamCodec<Object>());
+    context.put(StreamContext.EVENT_LOOP, eventloop);
+    return context;
+  }
+
+  private static List<Object> receive(BufferServerSubscriber subscriber) throws InterruptedException
+  {
+    final List<Object> received = new ArrayList<Object>();
+    SweepableReservoir reservoir = subscriber.acquireReservoir("reservoir", 1024);
+    reservoir.setSink(new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        received.add(tuple);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+
+    });
+    for (int i = 0; i < 1000; i++) {
+      Tuple t = reservoir.sweep();
+      if (t == null) {
+        sleep(5);
+        continue;
+      }
+      reservoir.remove();
+      if (t instanceof EndWindowTuple) {
+        break;
+      }
+    }
+    return received;
+  }
+
+}
@@ -47,6 +47,7 @@ import com.datatorrent.api.Operator;
 import com.datatorrent.api.Operator.CheckpointListener;
 import com.datatorrent.api.Operator.ProcessingMode;
 import com.datatorrent.api.Sink;
+import com.datatorrent.api.Stats;
 import com.datatorrent.api.Stats.OperatorStats;
 import com.datatorrent.api.annotation.InputPortFieldAnnotation;
 import com.datatorrent.api.annotation.OutputPortFieldAnnotation;
@@ -57,6 +58,7 @@ import com.datatorrent.stram.api.Checkpoint;
 import com.datatorrent.common.util.ScheduledExecutorService;
 import com.datatorrent.stram.tuple.EndStreamTuple;
 import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.TraceTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
 /**
@@ -387,6 +389,91 @@ public class GenericNodeTest
     Assert.assertEquals(Thread.State.TERMINATED, t.getState());
   }
 
+  @Test
+  public void testTupleTracing() throws InterruptedException
+  {
+    long sleeptime = 25L;
+    final ArrayList<Object> list = new ArrayList<Object>();
+    GenericOperator go = new GenericOperator();
+    com.datatorrent.stram.engine.OperatorContext context = new com.datatorrent.stram.engine.OperatorContext(0, new DefaultAttributeMap(), null);
+    final GenericNode gn = new GenericNode(go, context);
+    gn.setId(1);
+    AbstractReservoir reservoir1 = AbstractReservoir.newReservoir("ip1Res", 1024);
+    AbstractReservoir reservoir2 = AbstractReservoir.newReservoir("ip2Res", 1024);
+    Sink<Object> output = new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        list.add(tuple);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+
+    };
+
+    gn.connectInputPort("ip1", reservoir1);
+    gn.connectInputPort("ip2", reservoir2);
+    gn.connectOutputPort("op", output);
+    gn.firstWindowMillis = 0;
+    gn.windowWidthMillis = 100;
+
+    Thread t = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        gn.activate();
+        gn.run();
+        gn.deactivate();
+      }
+
+    };
+    t.start();
+
+    /* the same trace arrives on both ports of the fan-in and is passed on once */
+    long origin = System.currentTimeMillis() - 100;
+    for (AbstractReservoir reservoir : new AbstractReservoir[] {reservoir1, reservoir2}) {
+      reservoir.add(new Tuple(MessageType.BEGIN_WINDOW, 0x1L));
+      reservoir.add(new TraceTuple(0x1L, 7, origin, origin + 60, 2));
+      reservoir.add(new EndWindowTuple(0x1L));
+      reservoir.add(new Tuple(MessageType.BEGIN_WINDOW, 0x2L));
+      reservoir.add(new EndWindowTuple(0x2L));
+      reservoir.add(new EndStreamTuple(0x2L));
+    }
+    t.join(5000);
+
+    Assert.assertEquals(6, list.size());
+    TraceTuple trace = (TraceTuple)list.get(1);
+    Assert.assertEquals("origin id", 7, trace.getOriginId());
+    Assert.assertEquals("origin timestamp", origin, trace.getOriginTimestamp());
+    Assert.assertTrue("hop timestamp", trace.getHopTimestamp() >= origin + 100);
+    Assert.assertEquals("hop count", 3, trace.getHopCount());
+
+    List<OperatorStats> stats = new ArrayList<OperatorStats>();
+    context.drainStats(stats);
+    Assert.assertEquals(2, stats.size());
+    Stats.LatencyHistogram latency = stats.get(0).tracedLatency;
+    Stats.LatencyHistogram hopLatency = stats.get(0).tracedHopLatency;
+    Assert.assertEquals(1, latency.getCount());
+    Assert.assertTrue("latency " + latency, latency.getMax() >= 100);
+    Assert.assertTrue("hop latency " + hopLatency, hopLatency.getMax() >= 40 && hopLatency.getMax() < latency.getMax());
+    Assert.assertNull("no trace in second window", stats.get(1).tracedLatency);
+
+    Stats.LatencyHistogram merged = new Stats.LatencyHistogram();
+    for (int i = 0; i < 99; i++) {
+      merged.add(i % 10);
+    }
+    merged.merge(latency);
+    Assert.assertEquals(100, merged.getCount());
+    Assert.assertEquals(7, merged.getPercentile(50));
+    Assert.assertEquals(latency.getMax(), merged.getPercentile(100));
+  }
+
   @Test
   public void testPrematureTermination() throws InterruptedException
   {
@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.LineNumberReader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.datatorrent.api.Attribute.AttributeMap.DefaultAttributeMap;
+import com.datatorrent.api.DAG;
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.stram.StramLocalCluster;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.tuple.EndStreamTuple;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+public class VirtualThreadsTest
+{
+  @Rule
+  public StramTestSupport.TestMeta testMeta = new StramTestSupport.TestMeta();
+
+  @Test
+  public void testNewThread() throws Exception
+  {
+    final CountDownLatch ran = new CountDownLatch(1);
+    Runnable runnable = new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        ran.countDown();
+      }
+    };
+
+    if (!VirtualThreads.isSupported()) {
+      try {
+        VirtualThreads.newThread("test", runnable);
+        Assert.fail("virtual threads are not supported");
+      } catch (UnsupportedOperationException ex) {
+        return;
+      }
+    }
+
+    Thread thread = VirtualThreads.newThread("test", runnable);
+    Assert.assertEquals("name", "test", thread.getName());
+    Assert.assertEquals("state", Thread.State.NEW, thread.getState());
+    thread.start();
+    Assert.assertTrue("ran", ran.await(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testParkWhenIdle() throws Exception
+  {
+    final AtomicInteger endWindowCount = new AtomicInteger();
+    final GenericNode node = new GenericNode(new GenericNodeTest.GenericOperator(),
+        new OperatorContext(0, new DefaultAttributeMap(), null));
+    node.setId(1);
+    node.setParkWhenIdle(true);
+    AbstractReservoir reservoir = AbstractReservoir.newReservoir("ip1Res", 1024);
+    node.connectInputPort("ip1", reservoir);
+    node.connectOutputPort("op", new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        if (tuple instanceof Tuple && ((Tuple)tuple).getType() == MessageType.END_WINDOW) {
+          endWindowCount.incrementAndGet();
+        }
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+
+    });
+    node.firstWindowMillis = 0;
+    node.windowWidthMillis = 100;
+
+    Thread thread = new Thread("testParkWhenIdle")
+    {
+      @Override
+      public void run()
+      {
+        node.activate();
+        node.run();
+        node.deactivate();
+      }
+
+    };
+    thread.start();
+
+    for (long windowId = 1; windowId <= 10; windowId++) {
+      reservoir.add(new Tuple(MessageType.BEGIN_WINDOW, windowId));
+      reservoir.add(new EndWindowTuple(windowId));
+      LockSupport.unpark(thread);
+      for (int i = 0; i < 500 && endWindowCount.get() < windowId; i++) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals("end windows", windowId, endWindowCount.get());
+    }
+
+    reservoir.add(new EndStreamTuple(10L));
+    LockSupport.unpark(thread);
+    thread.join(5000);
+    Assert.assertFalse("terminated", thread.isAlive());
+  }
+
+  @Test
+  public void testLocalCluster() throws Exception
+  {
+    LogicalPlan dag = StramTestSupport.createDAG(testMeta);
+    TestGeneratorInputOperator genNode = dag.addOperator("genNode", TestGeneratorInputOperator.class);
+    genNode.setMaxTuples(100);
+    genNode.setEmitInterval(0);
+
+    GenericTestOperator node1 = dag.addOperator("node1", GenericTestOperator.class);
+    node1.setEmitFormat("%s >> node1");
+
+    File outFile = new File(testMeta.getPath(), "out");
+    TestOutputOperator outNode = dag.addOperator("outNode", TestOutputOperator.class);
+    outNode.pathSpec = outFile.toURI().toString();
+
+    dag.addStream("fromGenNode", genNode.outport, node1.inport1).setLocality(DAG.Locality.CONTAINER_LOCAL);
+    dag.addStream("fromNode1", node1.outport1, outNode.inport).setLocality(DAG.Locality.CONTAINER_LOCAL);
+
+    dag.setAttribute(LogicalPlan.VIRTUAL_THREADS, true);
+
+    StramLocalCluster localCluster = new StramLocalCluster(dag);
+    localCluster.setHeartbeatMonitoringEnabled(false);
+    localCluster.run();
+
+    LineNumberReader lnr = new LineNumberReader(new FileReader(outFile));
+    String line;
+    while ((line = lnr.readLine()) != null) {
+      Assert.assertEquals("line", lnr.getLineNumber() + " >> node1", line);
+    }
+    Assert.assertEquals("number lines", 100, lnr.getLineNumber());
+    lnr.close();
+  }
+
+}
@@ -384,5 +384,98 @@ public class WindowGeneratorTest
     }
   }
 
+  @Test
+  public void testWindowWidthChange()
+  {
+    ManualScheduledExecutorService msse = new ManualScheduledExecutorService(1);
+    final long start = 1431714014000L;
+    msse.setCurrentTimeMillis(start);
+    WindowWidthSchedule schedule = new WindowWidthSchedule(start, 500);
+    schedule.setWidth(start + 2000, 250);
+
+    WindowGenerator generator = new WindowGenerator(msse, 1024);
+    generator.setFirstWindow(start);
+    generator.setResetWindow(start);
+    generator.setWindowWidth(500);
+    generator.setCheckpointCount(4, 0);
+    generator.setWindowWidthSchedule(schedule, 4);
+    SweepableReservoir reservoir = generator.acquireReservoir(Node.OUTPUT, 1024);
+    reservoir.setSink(Sink.BLACKHOLE);
+    generator.activate(null);
+
+    msse.tick(0);
+    for (int i = 0; i < 16; i++) {
+      msse.tick(250);
+    }
+
+    int resetWindows = 0;
+    int checkpoints = 0;
+    long lastWindowMillis = start - 500;
+    Tuple t;
+    reservoir.sweep();
+    while ((t = reservoir.sweep()) != null) {
+      reservoir.remove();
+      switch (t.getType()) {
+        case RESET_WINDOW:
+          ResetWindowTuple rwt = (ResetWindowTuple)t;
+          long resetMillis = resetWindows++ == 0 ? start : start + 2000;
+          Assert.assertEquals("reset window", resetMillis / 1000, rwt.getBaseSeconds());
+          Assert.assertEquals("width", schedule.getWidth(resetMillis), rwt.getIntervalMillis());
+          break;
+
+        case BEGIN_WINDOW:
+          long windowMillis = schedule.getWindowMillis(t.getWindowId());
+          Assert.assertEquals("window after " + lastWindowMillis,
+              lastWindowMillis + schedule.getWidth(lastWindowMillis), windowMillis);
+          Assert.assertEquals("window id", schedule.getWindowId(windowMillis), t.getWindowId());
+          lastWindowMillis = windowMillis;
+          break;
+
+        case CHECKPOINT:
+          checkpoints++;
+          Assert.assertEquals("checkpoint", 0, (schedule.getNextWindowMillis(t.getWindowId()) - start) % 2000);
+          break;
+
+        default:
+          break;
+      }
+    }
+
+    Assert.assertEquals("reset windows", 2, resetWindows);
+    Assert.assertEquals("checkpoints", 2, checkpoints);
+    Assert.assertEquals("last window", start + 4000, lastWindowMillis);
+  }
+
+  @Test
+  public void testWindowWidthScheduleToTime()
+  {
+    long first = 1431714014000L;
+    WindowWidthSchedule schedule = new WindowWidthSchedule(first, 500);
+    long window1 = schedule.getWindowId(first + 1500);
+    Assert.assertEquals("fixed", WindowGenerator.getWindowId(first + 1500, first, 500), window1);
+    Assert.assertEquals("fixed", WindowGenerator.getNextWindowId(window1, first, 500),
+        schedule.getNextWindowId(window1));
+
+    schedule.setWidth(first + 2000, 125);
+    long window2 = schedule.getNextWindowId(window1);
+    Assert.assertEquals("base seconds of new width", (first + 2000) / 1000, window2 >> 32);
+    Assert.assertEquals("first window of new width", 0, window2 & WindowGenerator.WINDOW_MASK);
+    Assert.assertEquals("millis", first + 2000, schedule.getWindowMillis(window2));
+    Assert.assertEquals("millis", first + 2125, schedule.getWindowMillis(schedule.getNextWindowId(window2)));
+    Assert.assertEquals("window before change", first + 1500, schedule.getWindowMillis(window1));
+    Assert.assertEquals("window count", 4, schedule.getWindowCount(first + 2500));
+
+    Assert.assertEquals("scaled count", 8, schedule.scaleWindowCount(2, first + 2000));
+    Assert.assertEquals("single window", 1, schedule.scaleWindowCount(1, first + 2000));
+    Assert.assertEquals("count before change", 2, schedule.scaleWindowCount(2, first));
+
+    try {
+      schedule.setWidth(first + 2500, 250);
+      Assert.fail("width changes on whole seconds only");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
   public static final Logger logger = LoggerFactory.getLogger(WindowGeneratorTest.class);
 }
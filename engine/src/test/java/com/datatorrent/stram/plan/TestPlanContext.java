@@ -123,7 +123,7 @@ public class TestPlanContext implements PlanContext, StorageAgent
   {
   }
 
-  public static class MockOperatorStatus implements StatsListener.BatchedOperatorStats
+  public static class MockOperatorStatus implements StatsListener.LatencyPercentileStats
   {
     final PTOperator oper;
 
@@ -178,6 +178,12 @@ public class TestPlanContext implements PlanContext, StorageAgent
       return 0;
     }
 
+    @Override
+    public long getLatencyPercentile(double percentile)
+    {
+      return 0;
+    }
+
     @Override
     public List<StatsListener.OperatorResponse> getOperatorResponse()
     {
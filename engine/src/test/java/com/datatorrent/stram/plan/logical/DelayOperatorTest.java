@@ -24,7 +24,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.locks.Lock;
@@ -105,7 +104,7 @@ public class DelayOperatorTest
     dag.addStream("DelayToD", opDelay.output, opD.inport2);
 
     List<List<String>> invalidDelays = new ArrayList<>();
-    dag.findInvalidDelays(dag.getMeta(opB), invalidDelays, new Stack<OperatorMeta>());
+    dag.findInvalidDelays(dag.getMeta(opB), invalidDelays);
     assertEquals("operator invalid delay", 1, invalidDelays.size());
 
     try {
@@ -128,7 +127,7 @@ public class DelayOperatorTest
     dag.addStream("DelayToC", opDelay.output, opC.inport2);
 
     invalidDelays = new ArrayList<>();
-    dag.findInvalidDelays(dag.getMeta(opB), invalidDelays, new Stack<OperatorMeta>());
+    dag.findInvalidDelays(dag.getMeta(opB), invalidDelays);
     assertEquals("operator invalid delay", 1, invalidDelays.size());
 
     try {
@@ -533,6 +533,54 @@ public class LogicalPlanConfigurationTest {
     Assert.assertEquals("", PartitionLoadWatch.class, dag.getOperatorMeta("operator2").getValue(OperatorContext.STATS_LISTENERS).toArray()[0].getClass());
   }
 
+  @Test
+  public void testOperatorNameRegExp()
+  {
+    StreamingApplication app = new StreamingApplication()
+    {
+      @Override
+      public void populateDAG(DAG dag, Configuration conf)
+      {
+        dag.addOperator("operator", GenericTestOperator.class);
+        dag.addOperator("operator1", GenericTestOperator.class);
+        dag.addOperator("operator2", GenericTestOperator.class);
+      }
+    };
+
+    String prefix = StreamingApplication.DT_PREFIX + "application.app1.operator.";
+    Properties props = new Properties();
+    props.put(prefix + "operator[0-9]+." + OperatorContext.MEMORY_MB.getName(), "1024");
+    props.put(prefix + "operator[0-9]+." + OperatorContext.APPLICATION_WINDOW_COUNT.getName(), "3");
+    props.put(prefix + "operator1." + OperatorContext.MEMORY_MB.getName(), "512");
+    props.put(prefix + "operator2." + OperatorContext.APPLICATION_WINDOW_COUNT.getName(), "4");
+
+    LogicalPlanConfiguration dagBuilder = new LogicalPlanConfiguration(new Configuration(false));
+    dagBuilder.addFromProperties(props, null);
+    LogicalPlan dag = new LogicalPlan();
+    dagBuilder.prepareDAG(dag, app, "app1");
+
+    Assert.assertEquals("no match", OperatorContext.MEMORY_MB.defaultValue,
+        dag.getOperatorMeta("operator").getValue(OperatorContext.MEMORY_MB));
+    Assert.assertEquals("exact name first", 512,
+        (int)dag.getOperatorMeta("operator1").getValue(OperatorContext.MEMORY_MB));
+    Assert.assertEquals("regular expression", 3,
+        (int)dag.getOperatorMeta("operator1").getValue(OperatorContext.APPLICATION_WINDOW_COUNT));
+    Assert.assertEquals("regular expression", 1024,
+        (int)dag.getOperatorMeta("operator2").getValue(OperatorContext.MEMORY_MB));
+    Assert.assertEquals("exact name first", 4,
+        (int)dag.getOperatorMeta("operator2").getValue(OperatorContext.APPLICATION_WINDOW_COUNT));
+
+    props = new Properties();
+    props.put(prefix + "operator." + OperatorContext.MEMORY_MB.getName(), "256");
+    props.put(prefix + "operator2." + OperatorContext.MEMORY_MB.getName(), "2048");
+    dagBuilder.addFromProperties(props, null);
+    dag = new LogicalPlan();
+    dagBuilder.prepareDAG(dag, app, "app1");
+
+    Assert.assertEquals("added name", 256, (int)dag.getOperatorMeta("operator").getValue(OperatorContext.MEMORY_MB));
+    Assert.assertEquals("added name", 2048, (int)dag.getOperatorMeta("operator2").getValue(OperatorContext.MEMORY_MB));
+  }
+
   @Test
   @SuppressWarnings( {"UnnecessaryBoxing", "AssertEqualsBetweenInconvertibleTypes"})
   public void testUnifierLevelAttributes() {
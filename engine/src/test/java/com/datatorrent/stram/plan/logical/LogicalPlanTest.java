@@ -147,6 +147,80 @@ public class LogicalPlanTest
   }
 
 
+  @Test
+  public void testValidateLargePlan()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    TestGeneratorInputOperator input = dag.addOperator("input", TestGeneratorInputOperator.class);
+    GenericTestOperator first = dag.addOperator("o0", GenericTestOperator.class);
+    dag.addStream("s0", input.outport, first.inport1);
+    GenericTestOperator last = first;
+    for (int i = 1; i < 10000; i++) {
+      GenericTestOperator o = dag.addOperator("o" + i, GenericTestOperator.class);
+      dag.addStream("s" + i, last.outport1, o.inport1);
+      last = o;
+    }
+    // deep plans do not overflow the stack
+    dag.validate();
+
+    ValidationTestOperator invalid = dag.addOperator("invalid", ValidationTestOperator.class);
+    invalid.stringField1 = "malhar1";
+    invalid.intField1 = 1;
+    try {
+      dag.validate();
+      fail("validation should fail");
+    } catch (ConstraintViolationException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Operator invalid violates constraints"));
+    }
+
+    // only the changed operators are checked
+    dag.validate(Collections.singleton(dag.getMeta(last)));
+
+    dag.addStream("loop", last.outport2, first.inport2);
+    try {
+      dag.validate(Arrays.asList(dag.getMeta(last), dag.getMeta(first)));
+      fail("validation should fail");
+    } catch (ValidationException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Loops in graph"));
+    }
+
+    dag.removeOperator(invalid);
+    dag.getStream("loop").remove();
+    dag.validate(Collections.singleton(dag.getMeta(first)));
+
+    // a delay loop after a deep chain of diamonds, with more paths to the delay operator than could be enumerated
+    dag = new LogicalPlan();
+    input = dag.addOperator("input", TestGeneratorInputOperator.class);
+    last = dag.addOperator("a0", GenericTestOperator.class);
+    dag.addStream("s0", input.outport, last.inport1);
+    GenericTestOperator branch = null;
+    for (int i = 1; i < 3333; i++) {
+      GenericTestOperator b = dag.addOperator("b" + i, GenericTestOperator.class);
+      branch = dag.addOperator("c" + i, GenericTestOperator.class);
+      GenericTestOperator a = dag.addOperator("a" + i, GenericTestOperator.class);
+      dag.addStream("ab" + i, last.outport1, b.inport1);
+      dag.addStream("ac" + i, last.outport2, branch.inport1);
+      dag.addStream("ba" + i, b.outport1, a.inport1);
+      dag.addStream("ca" + i, branch.outport1, a.inport2);
+      last = a;
+    }
+    GenericTestOperator loop = dag.addOperator("loop", GenericTestOperator.class);
+    DefaultDelayOperator<Object> delay = dag.addOperator("delay", DefaultDelayOperator.class);
+    dag.addStream("toLoop", last.outport1, loop.inport1);
+    dag.addStream("toDelay", loop.outport1, delay.input);
+    StreamMeta fromDelay = dag.addStream("fromDelay", delay.output, loop.inport2);
+    dag.validate();
+
+    // the other branch of the last diamond also leads to the delay operator
+    fromDelay.addSink(branch.inport2);
+    try {
+      dag.validate();
+      fail("validation should fail");
+    } catch (ValidationException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid delays in graph"));
+    }
+  }
+
   public static class ValidationOperator extends BaseOperator
   {
     public final transient DefaultOutputPort<Object> goodOutputPort = new DefaultOutputPort<Object>();
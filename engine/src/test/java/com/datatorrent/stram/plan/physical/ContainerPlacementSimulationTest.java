@@ -0,0 +1,392 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.plan.physical;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.Context.PortContext;
+import com.datatorrent.api.DAG.Locality;
+import com.datatorrent.common.partitioner.StatelessPartitioner;
+import com.datatorrent.stram.engine.GenericTestOperator;
+import com.datatorrent.stram.plan.TestPlanContext;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.physical.PTOperator.PTInput;
+import com.datatorrent.stram.plan.physical.PTOperator.PTOutput;
+import com.datatorrent.stram.support.StramTestSupport;
+
+/**
+ * Runs the {@link BinPackingPlacement} against random plans with random stream traffic and compares the containers,
+ * the memory, the nodes of a simulated cluster and the traffic between containers and nodes with the default
+ * placement of one container per group.
+ */
+public class ContainerPlacementSimulationTest
+{
+  private static final int[] MEMORY_MB = {256, 512, 1024, 2048, 4096};
+  private static final int CONTAINER_MEMORY_MB = 8192;
+  private static final int NODE_MEMORY_MB = 32768;
+
+  @Test
+  public void testSimulation()
+  {
+    for (int operatorCount : new int[]{10, 50, 200}) {
+      for (long seed = 0; seed < 3; seed++) {
+        Simulation simulation = new Simulation(operatorCount, seed);
+        Result defaultResult = simulation.getDefaultResult();
+        Result binPackingResult = simulation.getBinPackingResult();
+        LOG.info("{} operators seed {}: default {} bin packing {}", operatorCount, seed, defaultResult,
+            binPackingResult);
+        Assert.assertTrue("containers " + binPackingResult,
+            binPackingResult.containers <= defaultResult.containers);
+        Assert.assertTrue("memory " + binPackingResult, binPackingResult.memoryMB <= defaultResult.memoryMB);
+        Assert.assertTrue("container traffic " + binPackingResult,
+            binPackingResult.containerBytes <= defaultResult.containerBytes);
+        Assert.assertTrue("container memory " + binPackingResult,
+            binPackingResult.maxContainerMemoryMB <= Math.max(CONTAINER_MEMORY_MB, simulation.getMaxGroupMemoryMB()));
+      }
+    }
+  }
+
+  @Test
+  public void testRedeploy()
+  {
+    Simulation simulation = new Simulation(50, 0);
+    SimulatedContext context = simulation.newContext();
+    List<Set<PTOperator>> groups = simulation.groups;
+    int half = groups.size() / 2;
+    List<PTContainer> placed = new BinPackingPlacement().place(groups.subList(0, half), context);
+    Map<PTOperator, PTContainer> containers = Maps.newHashMap();
+    for (int i = 0; i < half; i++) {
+      for (PTOperator oper : groups.get(i)) {
+        containers.put(oper, placed.get(i));
+      }
+    }
+    // the placed containers run with the memory which their operators require and room for a small operator
+    Map<PTContainer, Integer> freeMemoryMB = Maps.newHashMap();
+    for (PTContainer container : context.containers) {
+      Set<PTOperator> operators = Sets.newHashSet();
+      for (Map.Entry<PTOperator, PTContainer> entry : containers.entrySet()) {
+        if (entry.getValue() == container) {
+          operators.add(entry.getKey());
+        }
+      }
+      int memoryMB = context.getMemoryMB(operators);
+      container.setState(PTContainer.State.ACTIVE);
+      container.setAllocatedMemoryMB(memoryMB + MEMORY_MB[0]);
+      container.setRequiredMemoryMB(memoryMB);
+      freeMemoryMB.put(container, MEMORY_MB[0]);
+    }
+    List<Set<PTOperator>> newGroups = Lists.newArrayList(groups.subList(half, groups.size()));
+    newGroups.add(Collections.singleton(simulation.smallOperator));
+    placed = new BinPackingPlacement().place(newGroups, context);
+    int reused = 0;
+    for (int i = 0; i < newGroups.size(); i++) {
+      Integer memoryMB = freeMemoryMB.get(placed.get(i));
+      if (memoryMB != null) {
+        memoryMB -= context.getMemoryMB(newGroups.get(i));
+        Assert.assertTrue("running container has room for " + newGroups.get(i), memoryMB >= 0);
+        freeMemoryMB.put(placed.get(i), memoryMB);
+        reused++;
+      }
+    }
+    Assert.assertTrue("running containers reused", reused > 0);
+  }
+
+  private static class Simulation
+  {
+    private final PhysicalPlan plan;
+    private final Map<PTInput, Long> bytesPerSecond = Maps.newHashMap();
+    private final List<Set<PTOperator>> groups = Lists.newArrayList();
+    private PTOperator smallOperator;
+
+    /**
+     * Creates a random plan. Every operator reads the output of an earlier one, some operators are partitioned and
+     * some streams are container local.
+     */
+    private Simulation(int operatorCount, long seed)
+    {
+      Random random = new Random(seed);
+      LogicalPlan dag = new LogicalPlan();
+      dag.setAttribute(OperatorContext.STORAGE_AGENT, new StramTestSupport.MemoryStorageAgent());
+      dag.setAttribute(LogicalPlan.CONTAINERS_MAX_COUNT, Integer.MAX_VALUE);
+      List<GenericTestOperator> operators = Lists.newArrayList();
+      Map<GenericTestOperator, LogicalPlan.StreamMeta> streams = Maps.newHashMap();
+      for (int i = 0; i < operatorCount; i++) {
+        GenericTestOperator oper = dag.addOperator("o" + i, GenericTestOperator.class);
+        dag.setAttribute(oper, OperatorContext.MEMORY_MB, i == 0 ? MEMORY_MB[0] : MEMORY_MB[random.nextInt(
+            MEMORY_MB.length)]);
+        if (random.nextInt(5) == 0) {
+          dag.setAttribute(oper, OperatorContext.PARTITIONER,
+              new StatelessPartitioner<GenericTestOperator>(2 + random.nextInt(3)));
+        }
+        if (i > 0) {
+          int sourceIndex = random.nextInt(i);
+          GenericTestOperator source = operators.get(sourceIndex);
+          LogicalPlan.StreamMeta stream = streams.get(source);
+          if (stream == null) {
+            stream = dag.addStream("o" + sourceIndex + ".outport1", source.outport1, oper.inport1);
+            if (random.nextInt(10) == 0 && dag.getMeta(source).getValue(OperatorContext.PARTITIONER) == null) {
+              stream.setLocality(Locality.CONTAINER_LOCAL);
+            }
+            streams.put(source, stream);
+          } else {
+            stream.addSink(oper.inport1);
+          }
+        }
+        operators.add(oper);
+      }
+      // an operator without streams which fits into the spare memory of a running container
+      GenericTestOperator small = dag.addOperator("small", GenericTestOperator.class);
+      dag.setAttribute(small, OperatorContext.MEMORY_MB, MEMORY_MB[0]);
+
+      plan = new PhysicalPlan(dag, new TestPlanContext());
+      smallOperator = plan.getOperators(dag.getMeta(small)).get(0);
+
+      Set<PTOperator> mxnUnifiers = Sets.newHashSet();
+      for (PTOperator oper : plan.getAllOperators().values()) {
+        mxnUnifiers.addAll(oper.upstreamMerge.values());
+        for (PTInput input : oper.getInputs()) {
+          bytesPerSecond.put(input, (long)random.nextInt(1000000));
+        }
+      }
+      Set<PTOperator> grouped = Sets.newHashSet(smallOperator);
+      for (PTOperator oper : plan.getAllOperators().values()) {
+        if (!mxnUnifiers.contains(oper) && !grouped.contains(oper)) {
+          Set<PTOperator> group = oper.getGrouping(Locality.CONTAINER_LOCAL).getOperatorSet();
+          if (group.isEmpty()) {
+            group = Collections.singleton(oper);
+          }
+          grouped.addAll(group);
+          groups.add(group);
+        }
+      }
+    }
+
+    private int getMaxGroupMemoryMB()
+    {
+      SimulatedContext context = newContext();
+      int memoryMB = 0;
+      for (Set<PTOperator> group : groups) {
+        memoryMB = Math.max(memoryMB, context.getMemoryMB(group));
+      }
+      return memoryMB;
+    }
+
+    private SimulatedContext newContext()
+    {
+      return new SimulatedContext(this);
+    }
+
+    private Result getDefaultResult()
+    {
+      Map<PTOperator, PTContainer> containers = Maps.newHashMap();
+      for (PTOperator oper : plan.getAllOperators().values()) {
+        if (oper != smallOperator) {
+          containers.put(oper, oper.getContainer());
+        }
+      }
+      return getResult(containers);
+    }
+
+    private Result getBinPackingResult()
+    {
+      BinPackingPlacement placement = new BinPackingPlacement();
+      placement.setContainerMemoryMB(CONTAINER_MEMORY_MB);
+      List<PTContainer> placed = placement.place(groups, newContext());
+      Assert.assertEquals("containers for all groups", groups.size(), placed.size());
+      Map<PTOperator, PTContainer> containers = Maps.newHashMap();
+      for (int i = 0; i < groups.size(); i++) {
+        for (PTOperator oper : groups.get(i)) {
+          containers.put(oper, placed.get(i));
+          for (PTOperator unifier : oper.upstreamMerge.values()) {
+            containers.put(unifier, placed.get(i));
+          }
+        }
+      }
+      return getResult(containers);
+    }
+
+    /**
+     * @return the memory of the operators in the container and the buffer servers of their streams to other
+     * containers
+     */
+    private int getMemoryMB(PTContainer container, Map<PTOperator, PTContainer> containers)
+    {
+      int memoryMB = 0;
+      for (Map.Entry<PTOperator, PTContainer> entry : containers.entrySet()) {
+        if (entry.getValue() == container) {
+          PTOperator oper = entry.getKey();
+          memoryMB += oper.getOperatorMeta().getValue(OperatorContext.MEMORY_MB);
+          for (PTOutput output : oper.getOutputs()) {
+            for (PTInput sink : output.sinks) {
+              if (containers.get(sink.target) != container) {
+                memoryMB += output.logicalStream.getSource().getValue(PortContext.BUFFER_MEMORY_MB);
+                break;
+              }
+            }
+          }
+        }
+      }
+      return memoryMB;
+    }
+
+    /**
+     * Places the containers on nodes of the simulated cluster first fit decreasing by memory.
+     */
+    private Result getResult(Map<PTOperator, PTContainer> containers)
+    {
+      Result result = new Result();
+      final Map<PTContainer, Integer> memoryMB = Maps.newHashMap();
+      for (PTContainer container : Sets.newHashSet(containers.values())) {
+        int containerMemoryMB = getMemoryMB(container, containers);
+        memoryMB.put(container, containerMemoryMB);
+        result.memoryMB += containerMemoryMB;
+        result.maxContainerMemoryMB = Math.max(result.maxContainerMemoryMB, containerMemoryMB);
+      }
+      result.containers = memoryMB.size();
+
+      List<PTContainer> byMemory = Lists.newArrayList(memoryMB.keySet());
+      Collections.sort(byMemory, new java.util.Comparator<PTContainer>()
+      {
+        @Override
+        public int compare(PTContainer o1, PTContainer o2)
+        {
+          return Integer.compare(memoryMB.get(o2), memoryMB.get(o1));
+        }
+      });
+      List<Integer> nodes = Lists.newArrayList();
+      Map<PTContainer, Integer> containerNodes = Maps.newHashMap();
+      for (PTContainer container : byMemory) {
+        int node = 0;
+        while (node < nodes.size() && nodes.get(node) + memoryMB.get(container) > NODE_MEMORY_MB) {
+          node++;
+        }
+        if (node == nodes.size()) {
+          nodes.add(0);
+        }
+        nodes.set(node, nodes.get(node) + memoryMB.get(container));
+        containerNodes.put(container, node);
+      }
+      result.nodes = nodes.size();
+
+      for (Map.Entry<PTInput, Long> entry : bytesPerSecond.entrySet()) {
+        PTContainer source = containers.get(entry.getKey().source.source);
+        PTContainer target = containers.get(entry.getKey().target);
+        if (source != target) {
+          result.containerBytes += entry.getValue();
+          if (!containerNodes.get(source).equals(containerNodes.get(target))) {
+            result.nodeBytes += entry.getValue();
+          }
+        }
+      }
+      return result;
+    }
+  }
+
+  private static class SimulatedContext implements ContainerPlacement.PlacementContext
+  {
+    private final Simulation simulation;
+    private final List<PTContainer> containers = Lists.newArrayList();
+
+    private SimulatedContext(Simulation simulation)
+    {
+      this.simulation = simulation;
+    }
+
+    @Override
+    public List<PTContainer> getContainers()
+    {
+      return containers;
+    }
+
+    @Override
+    public int getMaxContainers()
+    {
+      return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public PTContainer newContainer()
+    {
+      PTContainer container = new PTContainer(simulation.plan);
+      containers.add(container);
+      return container;
+    }
+
+    @Override
+    public int getMemoryMB(Set<PTOperator> operators)
+    {
+      PTContainer container = new PTContainer(simulation.plan);
+      Map<PTOperator, PTContainer> group = Maps.newHashMap();
+      for (PTOperator oper : operators) {
+        group.put(oper, container);
+        for (PTOperator unifier : oper.upstreamMerge.values()) {
+          group.put(unifier, container);
+        }
+      }
+      return simulation.getMemoryMB(container, group);
+    }
+
+    @Override
+    public int getVCores(Set<PTOperator> operators)
+    {
+      return 0;
+    }
+
+    @Override
+    public long getBytesPerSecond(PTInput input)
+    {
+      Long bytes = simulation.bytesPerSecond.get(input);
+      return bytes == null ? 0 : bytes;
+    }
+  }
+
+  private static class Result
+  {
+    private int containers;
+    private int memoryMB;
+    private int maxContainerMemoryMB;
+    private int nodes;
+    private long containerBytes;
+    private long nodeBytes;
+
+    @Override
+    public String toString()
+    {
+      return "Result{containers=" + containers + ", memoryMB=" + memoryMB + ", maxContainerMemoryMB="
+          + maxContainerMemoryMB + ", nodes=" + nodes + ", containerBytes=" + containerBytes + ", nodeBytes="
+          + nodeBytes + '}';
+    }
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(ContainerPlacementSimulationTest.class);
+}
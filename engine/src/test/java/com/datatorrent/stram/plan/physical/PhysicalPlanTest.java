@@ -40,6 +40,8 @@ import com.datatorrent.api.Operator.InputPort;
 import com.datatorrent.api.Partitioner.Partition;
 import com.datatorrent.api.Partitioner.PartitionKeys;
 import com.datatorrent.api.annotation.InputPortFieldAnnotation;
+import com.datatorrent.common.partitioner.AutoScalingPartitioner;
+import com.datatorrent.common.partitioner.KeyGroupPartitioner;
 import com.datatorrent.common.partitioner.StatelessPartitioner;
 import com.datatorrent.stram.PartitioningTest;
 import com.datatorrent.stram.PartitioningTest.TestInputOperator;
@@ -435,6 +437,109 @@ public class PhysicalPlanTest
 
   }
 
+  @Test
+  public void testAutoScalingPartitioner()
+  {
+    LogicalPlan dag = new LogicalPlan();
+
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1);
+
+    AutoScalingPartitioner<GenericTestOperator> partitioner = new AutoScalingPartitioner<GenericTestOperator>(2);
+    partitioner.setMaxPartitions(3);
+    partitioner.setMaxTuplesPerSecond(5);
+    partitioner.setCooldownMillis(0);
+    OperatorMeta o2Meta = dag.getMeta(o2);
+    dag.setAttribute(o2, OperatorContext.PARTITIONER, partitioner);
+    dag.setAttribute(o2, OperatorContext.STATS_LISTENERS, Lists.newArrayList((StatsListener)partitioner));
+
+    TestPlanContext ctx = new TestPlanContext();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, ctx);
+    PhysicalPlan plan = new PhysicalPlan(dag, ctx);
+
+    List<PTOperator> o2Partitions = plan.getOperators(o2Meta);
+    Assert.assertEquals("number operators " + o2Meta, 2, o2Partitions.size());
+    PTOperator o2p1 = o2Partitions.get(0);
+    Assert.assertEquals("stats handlers " + o2p1.statsListeners, Lists.newArrayList(partitioner), o2p1.statsListeners);
+
+    setThroughput(o2p1, 3);
+    plan.onStatusUpdate(o2p1);
+    Assert.assertEquals("load within range", 0, ctx.events.size());
+
+    setThroughput(o2p1, 10);
+    plan.onStatusUpdate(o2p1);
+    Assert.assertEquals("load exceeds max", 1, ctx.events.size());
+    ctx.events.remove(0).run();
+    o2Partitions = plan.getOperators(o2Meta);
+    Assert.assertEquals("partition split " + o2Partitions, 3, o2Partitions.size());
+
+    for (PTOperator p : o2Partitions) {
+      setThroughput(p, 10);
+      plan.onStatusUpdate(p);
+    }
+    Assert.assertEquals("maximum partitions", 0, ctx.events.size());
+
+    for (PTOperator p : o2Partitions) {
+      setThroughput(p, 1);
+      plan.onStatusUpdate(p);
+    }
+    Assert.assertEquals("load below min", 1, ctx.events.size());
+    ctx.events.remove(0).run();
+    Assert.assertEquals("partitions merged", 2, plan.getOperators(o2Meta).size());
+  }
+
+  @Test
+  public void testKeyGroupPartitioner()
+  {
+    LogicalPlan dag = new LogicalPlan();
+
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1);
+
+    KeyGroupPartitioner<GenericTestOperator> partitioner = new KeyGroupPartitioner<GenericTestOperator>(3);
+    partitioner.setKeyGroupCount(8);
+    partitioner.setCooldownMillis(0);
+    OperatorMeta o2Meta = dag.getMeta(o2);
+    dag.setAttribute(o2, OperatorContext.PARTITIONER, partitioner);
+    dag.setAttribute(o2, OperatorContext.STATS_LISTENERS, Lists.newArrayList((StatsListener)partitioner));
+
+    TestPlanContext ctx = new TestPlanContext();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, ctx);
+    PhysicalPlan plan = new PhysicalPlan(dag, ctx);
+
+    List<PTOperator> o2Partitions = plan.getOperators(o2Meta);
+    Assert.assertEquals("number operators " + o2Meta, 3, o2Partitions.size());
+    PTOperator hot = o2Partitions.get(0);
+    PartitionKeys hotKeys = hot.getPartitionKeys().get(o2Meta.getMeta(o2.inport1).getPortObject());
+    Assert.assertEquals("key group mask", 7, hotKeys.mask);
+
+    Map<Integer, Long> counts = new HashMap<>();
+    for (int key : hotKeys.partitions) {
+      counts.put(key, 100L);
+    }
+    Stats.OperatorStats os = new Stats.OperatorStats();
+    Stats.OperatorStats.PortStats ps = new Stats.OperatorStats.PortStats("inport1");
+    ps.keyGroupTupleCounts = counts;
+    os.inputPorts = Lists.newArrayList(ps);
+    hot.stats.lastWindowedStats = Lists.newArrayList(os);
+    plan.onStatusUpdate(hot);
+    Assert.assertEquals("load imbalance", 1, ctx.events.size());
+    ctx.events.remove(0).run();
+
+    o2Partitions = plan.getOperators(o2Meta);
+    Assert.assertEquals("number operators " + o2Meta, 3, o2Partitions.size());
+    Set<Integer> keys = Sets.newHashSet();
+    for (PTOperator p : o2Partitions) {
+      PartitionKeys pks = p.getPartitionKeys().get(o2Meta.getMeta(o2.inport1).getPortObject());
+      Assert.assertTrue("hot key groups spread " + pks, Sets.intersection(pks.partitions, counts.keySet()).size() < 3);
+      keys.addAll(pks.partitions);
+    }
+    Assert.assertEquals("all key groups", 8, keys.size());
+    Assert.assertTrue("undeploy " + ctx.undeploy, ctx.undeploy.contains(hot));
+  }
+
   /**
    * Test partitioning of an input operator (no input port).
    * Cover aspects that are not part of generic operator test.
@@ -941,6 +1046,32 @@ public class PhysicalPlanTest
     }
   }
 
+  @Test
+  public void testSharedMemoryDependents()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    GenericTestOperator o3 = dag.addOperator("o3", GenericTestOperator.class);
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1).setLocality(Locality.NODE_LOCAL);
+    dag.addStream("o2.outport1", o2.outport1, o3.inport1);
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new TestPlanContext());
+
+    PhysicalPlan plan = new PhysicalPlan(dag, new TestPlanContext());
+    PTOperator o1p = plan.getOperators(dag.getMeta(o1)).get(0);
+    PTOperator o2p = plan.getOperators(dag.getMeta(o2)).get(0);
+    PTOperator o3p = plan.getOperators(dag.getMeta(o3)).get(0);
+    Assert.assertNotSame("containers", o1p.getContainer(), o2p.getContainer());
+    Assert.assertEquals("dependents", Sets.newHashSet(o2p, o3p), plan.getDependents(Collections.singletonList(o2p)));
+
+    /* the buffer server cannot replay a stream carried by shared memory, the upstream operator is redeployed too */
+    dag.setAttribute(LogicalPlan.SHARED_MEMORY_STREAM_PATH, "/dev/shm");
+    Assert.assertTrue("shared memory " + o2p.getInputs(), plan.isSharedMemoryStream(o2p.getInputs().get(0)));
+    Assert.assertEquals("dependents", Sets.newHashSet(o1p, o2p, o3p),
+        plan.getDependents(Collections.singletonList(o2p)));
+    Assert.assertEquals("dependents", Sets.newHashSet(o3p), plan.getDependents(Collections.singletonList(o3p)));
+  }
+
   @Test
   public void testParallelPartitioning() {
 
@@ -1696,6 +1827,107 @@ public class PhysicalPlanTest
 
   }
 
+  /**
+   * Keeps the existing partitions and adds or removes partitions at the end to reach the partition count.
+   */
+  public static class ResizingPartitioner implements Partitioner<GenericTestOperator>, Serializable
+  {
+    private static final long serialVersionUID = 201610190000L;
+    int partitionCount;
+
+    @Override
+    public Collection<Partition<GenericTestOperator>> definePartitions(Collection<Partition<GenericTestOperator>> partitions, PartitioningContext context)
+    {
+      List<Partition<GenericTestOperator>> newPartitions = Lists.newArrayList(partitions);
+      while (newPartitions.size() > partitionCount) {
+        newPartitions.remove(newPartitions.size() - 1);
+      }
+      while (newPartitions.size() < partitionCount) {
+        newPartitions.add(new DefaultPartition<GenericTestOperator>(new GenericTestOperator()));
+      }
+      return newPartitions;
+    }
+
+    @Override
+    public void partitioned(Map<Integer, Partition<GenericTestOperator>> partitions)
+    {
+    }
+  }
+
+  @Test
+  public void testIncrementalCascadingUnifier()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    ResizingPartitioner partitioner = new ResizingPartitioner();
+    partitioner.partitionCount = 256;
+    dag.setAttribute(o1, OperatorContext.PARTITIONER, partitioner);
+    dag.setAttribute(o1, OperatorContext.STATS_LISTENERS, Arrays.asList(new StatsListener[]{new PartitioningTest.PartitionLoadWatch()}));
+    dag.setOutputPortAttribute(o1.outport1, PortContext.UNIFIER_LIMIT, 16);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1);
+
+    TestPlanContext ctx = new TestPlanContext();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, ctx);
+    PhysicalPlan plan = new PhysicalPlan(dag, ctx);
+    OperatorMeta o1Meta = dag.getMeta(o1);
+    PTOperator o2p = plan.getOperators(dag.getMeta(o2)).get(0);
+    List<PTOperator> unifiers = plan.getMergeOperators(o1Meta);
+    Assert.assertEquals("16 cascading and the final unifier", 17, unifiers.size());
+    PTOperator finalUnifier = o2p.getInputs().get(0).source.source;
+
+    // scale up, the added partitions go below a new unifier at the top
+    List<PTOperator> partitions = plan.getOperators(o1Meta);
+    partitioner.partitionCount = 260;
+    PartitioningTest.PartitionLoadWatch.put(partitions.get(0), 1);
+    plan.onStatusUpdate(partitions.get(0));
+    ctx.events.remove(0).run();
+    List<PTOperator> added = Lists.newArrayList(plan.getOperators(o1Meta));
+    added.removeAll(partitions);
+    Assert.assertEquals("added partitions", 4, added.size());
+    List<PTOperator> newUnifiers = Lists.newArrayList(plan.getMergeOperators(o1Meta));
+    newUnifiers.removeAll(unifiers);
+    Assert.assertEquals("new unifiers " + newUnifiers, 1, newUnifiers.size());
+    Assert.assertTrue("existing unifiers kept", plan.getMergeOperators(o1Meta).containsAll(unifiers));
+    Set<PTOperator> expDeploy = Sets.newHashSet(added);
+    expDeploy.addAll(newUnifiers);
+    expDeploy.add(finalUnifier);
+    expDeploy.add(o2p);
+    Assert.assertEquals("deploy " + ctx.deploy, expDeploy, ctx.deploy);
+    Assert.assertEquals("undeploy " + ctx.undeploy, Collections.emptySet(), ctx.undeploy);
+    Assert.assertEquals("inputs of new unifier", 5, newUnifiers.get(0).getInputs().size());
+
+    // scale down to the initial partitions, the new unifier is removed again
+    partitioner.partitionCount = 256;
+    plan.onStatusUpdate(partitions.get(0));
+    ctx.events.remove(0).run();
+    Assert.assertEquals("partitions", partitions, plan.getOperators(o1Meta));
+    Assert.assertEquals("unifiers", Sets.newHashSet(unifiers), Sets.newHashSet(plan.getMergeOperators(o1Meta)));
+    Assert.assertEquals("deploy " + ctx.deploy, Sets.newHashSet(finalUnifier, o2p), ctx.deploy);
+    Set<PTOperator> expUndeploy = Sets.newHashSet(added);
+    expUndeploy.addAll(newUnifiers);
+    expUndeploy.add(finalUnifier);
+    expUndeploy.add(o2p);
+    Assert.assertEquals("undeploy " + ctx.undeploy, expUndeploy, ctx.undeploy);
+
+    // scale down, only the unifier of the removed partitions is redeployed
+    partitioner.partitionCount = 252;
+    plan.onStatusUpdate(partitions.get(0));
+    ctx.events.remove(0).run();
+    List<PTOperator> removed = Lists.newArrayList(partitions);
+    removed.removeAll(plan.getOperators(o1Meta));
+    Assert.assertEquals("removed partitions", 4, removed.size());
+    PTOperator unifier = removed.get(0).getOutputs().get(0).sinks.get(0).target;
+    Assert.assertEquals("unifiers", Sets.newHashSet(unifiers), Sets.newHashSet(plan.getMergeOperators(o1Meta)));
+    Assert.assertEquals("inputs of unifier", 12, unifier.getInputs().size());
+    Assert.assertEquals("deploy " + ctx.deploy, Sets.newHashSet(unifier, finalUnifier, o2p), ctx.deploy);
+    expUndeploy = Sets.newHashSet(removed);
+    expUndeploy.add(unifier);
+    expUndeploy.add(finalUnifier);
+    expUndeploy.add(o2p);
+    Assert.assertEquals("undeploy " + ctx.undeploy, expUndeploy, ctx.undeploy);
+  }
+
   @Test
   public void testSingleFinalUnifierInputOverride() {
     LogicalPlan dag = new LogicalPlan();
@@ -1871,6 +2103,39 @@ public class PhysicalPlanTest
     Assert.assertEquals("vcores container 1 is 12", 12, plan.getContainers().get(0).getRequiredVCores());
   }
 
+  @Test
+  public void testBinPackingPlacement()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new StramTestSupport.MemoryStorageAgent());
+
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    GenericTestOperator o3 = dag.addOperator("o3", GenericTestOperator.class);
+    GenericTestOperator o4 = dag.addOperator("o4", GenericTestOperator.class);
+
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1);
+    dag.addStream("o2.outport1", o2.outport1, o3.inport1);
+    dag.addStream("o3.outport1", o3.outport1, o4.inport1);
+
+    dag.setAttribute(o2, OperatorContext.MEMORY_MB, 4000);
+    dag.setAttribute(o3, OperatorContext.LOCALITY_HOST, "host1");
+    dag.setAttribute(o4, OperatorContext.LOCALITY_HOST, "host2");
+    dag.setAttribute(LogicalPlan.CONTAINERS_MAX_COUNT, 10);
+    BinPackingPlacement placement = new BinPackingPlacement();
+    placement.setContainerMemoryMB(6144);
+    dag.setAttribute(LogicalPlan.CONTAINER_PLACEMENT, placement);
+
+    PhysicalPlan plan = new PhysicalPlan(dag, new TestPlanContext());
+
+    Assert.assertEquals("number of containers", 3, plan.getContainers().size());
+    PTContainer container = plan.getOperators(dag.getMeta(o2)).get(0).getContainer();
+    Assert.assertEquals("o1 with o2", container, plan.getOperators(dag.getMeta(o1)).get(0).getContainer());
+    Assert.assertEquals("memory container 1", 5536, container.getRequiredMemoryMB());
+    Assert.assertNotEquals("o4 on other host than o3", plan.getOperators(dag.getMeta(o3)).get(0).getContainer(),
+        plan.getOperators(dag.getMeta(o4)).get(0).getContainer());
+  }
+
   @Test
   public void testContainerSizeWithPartitioning()
   {
@@ -0,0 +1,248 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.server.Server;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+import static java.lang.Thread.sleep;
+
+public class BufferServerBatchingTest
+{
+  private static DefaultEventLoop eventloop;
+  private static Server bufferServer;
+  private static int bufferServerPort;
+
+  @BeforeClass
+  public static void setup() throws IOException
+  {
+    eventloop = DefaultEventLoop.createEventLoop("BufferServerBatchingTest");
+    eventloop.start();
+    bufferServer = new Server(0);
+    bufferServerPort = bufferServer.run(eventloop).getPort();
+  }
+
+  @AfterClass
+  public static void tearDown()
+  {
+    eventloop.stop(bufferServer);
+    eventloop.stop();
+  }
+
+  private StreamContext getContext(String sourceId, String sinkId)
+  {
+    StreamContext context = new StreamContext("stream");
+    context.setSourceId(sourceId);
+    context.setSinkId(sinkId);
+    context.setFinishedWindowId(-1);
+    context.setBufferServerAddress(InetSocketAddress.createUnresolved("localhost", bufferServerPort));
+    context.put(StreamContext.CODEC, new DefaultStatefulStreamCodec<Object>());
+    context.put(StreamContext.EVENT_LOOP, eventloop);
+    return context;
+  }
+
+  private List<Object> receive(BufferServerSubscriber subscriber, StreamContext context) throws InterruptedException
+  {
+    subscriber.setup(context);
+    final List<Object> received = new ArrayList<Object>();
+    SweepableReservoir reservoir = subscriber.acquireReservoir("reservoir", 1024);
+    reservoir.setSink(new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        received.add(tuple);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+
+    });
+    subscriber.activate(context);
+
+    for (int i = 0; i < 2000; i++) {
+      Tuple t = reservoir.sweep();
+      if (t == null) {
+        sleep(5);
+        continue;
+      }
+      reservoir.remove();
+      if (t instanceof EndWindowTuple) {
+        break;
+      }
+    }
+
+    subscriber.deactivate();
+    subscriber.teardown();
+    return received;
+  }
+
+  @Test
+  public void testBatching() throws Exception
+  {
+    BufferServerPublisher publisher = new BufferServerPublisher("5.output.1", 1024);
+    StreamContext publisherContext = getContext("5.output.1", "6.input");
+    publisherContext.put(StreamContext.BATCHING, true);
+    publisher.setup(publisherContext);
+    publisher.activate(publisherContext);
+
+    publisher.put(StramTestSupport.generateBeginWindowTuple("5", 0));
+    for (int i = 0; i < 10000; i++) {
+      publisher.put(i);
+    }
+    publisher.put(StramTestSupport.generateEndWindowTuple("5", 0));
+
+    BufferServerSubscriber subscriber = new BufferServerSubscriber("6.input", 1024);
+    List<Object> received = receive(subscriber, getContext("5.output.1", "6.input"));
+    publisher.deactivate();
+    publisher.teardown();
+
+    Assert.assertEquals("received", 10000, received.size());
+    for (int i = 0; i < 10000; i++) {
+      Assert.assertEquals("tuple", i, received.get(i));
+    }
+    Assert.assertEquals("not compressed", subscriber.getByteCount(false), subscriber.getUncompressedByteCount(false));
+  }
+
+  @Test
+  public void testCompression() throws Exception
+  {
+    BufferServerPublisher publisher = new BufferServerPublisher("1.output.1", 1024);
+    StreamContext publisherContext = getContext("1.output.1", "2.input");
+    publisherContext.put(StreamContext.COMPRESSION, true);
+    publisherContext.put(StreamContext.CREDIT_BYTES, 256);
+    publisher.setup(publisherContext);
+    publisher.activate(publisherContext);
+
+    publisher.put(StramTestSupport.generateBeginWindowTuple("1", 0));
+    for (int i = 0; i < 10000; i++) {
+      publisher.put("hello" + i);
+    }
+    publisher.put(StramTestSupport.generateEndWindowTuple("1", 0));
+
+    BufferServerSubscriber subscriber = new BufferServerSubscriber("2.input", 1024);
+    StreamContext subscriberContext = getContext("1.output.1", "2.input");
+    subscriberContext.put(StreamContext.CREDIT_BYTES, 256);
+    List<Object> received = receive(subscriber, subscriberContext);
+    publisher.deactivate();
+    publisher.teardown();
+
+    Assert.assertEquals("received", 10000, received.size());
+    for (int i = 0; i < 10000; i++) {
+      Assert.assertEquals("tuple", "hello" + i, received.get(i));
+    }
+    long bytes = publisher.getByteCount(false);
+    Assert.assertTrue("compressed " + bytes, 2 * bytes < publisher.getUncompressedByteCount(false));
+    Assert.assertTrue("inflated", subscriber.getByteCount(false) < subscriber.getUncompressedByteCount(false));
+  }
+
+  @Test
+  public void testPartitionedCompression() throws Exception
+  {
+    BufferServerPublisher publisher = new BufferServerPublisher("3.output.1", 1024);
+    StreamContext publisherContext = getContext("3.output.1", "4.input");
+    publisherContext.put(StreamContext.COMPRESSION, true);
+    publisherContext.put(StreamContext.PARTITIONED_SINKS, true);
+    publisher.setup(publisherContext);
+    publisher.activate(publisherContext);
+
+    List<String> expected = new ArrayList<String>();
+    publisher.put(StramTestSupport.generateBeginWindowTuple("3", 0));
+    for (int i = 0; i < 1000; i++) {
+      String tuple = "hello" + i / 10;
+      publisher.put(tuple);
+      if ((tuple.hashCode() & 1) == 0) {
+        expected.add(tuple);
+      }
+    }
+    publisher.put(StramTestSupport.generateEndWindowTuple("3", 0));
+
+    BufferServerSubscriber subscriber = new BufferServerSubscriber("4.input", 1024);
+    StreamContext subscriberContext = getContext("3.output.1", "4.input");
+    subscriberContext.setPartitions(1, Collections.singleton(0));
+    List<Object> received = receive(subscriber, subscriberContext);
+    publisher.deactivate();
+    publisher.teardown();
+
+    Assert.assertEquals("received", expected, received);
+  }
+
+  @Test
+  public void testRepartitionedSubscribers() throws Exception
+  {
+    /* the publisher was deployed when the downstream operator was not partitioned, batches mix partitions */
+    BufferServerPublisher publisher = new BufferServerPublisher("7.output.1", 1024);
+    StreamContext publisherContext = getContext("7.output.1", "8.input");
+    publisherContext.put(StreamContext.COMPRESSION, true);
+    publisher.setup(publisherContext);
+    publisher.activate(publisherContext);
+
+    publisher.put(StramTestSupport.generateBeginWindowTuple("7", 0));
+    for (int i = 0; i < 1000; i++) {
+      publisher.put(i);
+    }
+    publisher.put(StramTestSupport.generateEndWindowTuple("7", 0));
+    List<Object> received = receive(new BufferServerSubscriber("8.input", 1024), getContext("7.output.1", "8.input"));
+    Assert.assertEquals("received before repartitioning", 1000, received.size());
+
+    /* the downstream operator is repartitioned while the publisher keeps running */
+    List<List<Object>> expected = new ArrayList<List<Object>>();
+    expected.add(new ArrayList<Object>());
+    expected.add(new ArrayList<Object>());
+    publisher.put(StramTestSupport.generateBeginWindowTuple("7", 1));
+    for (int i = 0; i < 1000; i++) {
+      publisher.put(i);
+      expected.get(i & 1).add(i);
+    }
+    publisher.put(StramTestSupport.generateEndWindowTuple("7", 1));
+
+    for (int partition = 0; partition < 2; partition++) {
+      String sinkId = "8.input." + partition;
+      StreamContext subscriberContext = getContext("7.output.1", sinkId);
+      subscriberContext.setFinishedWindowId(0);
+      subscriberContext.setPartitions(1, Collections.singleton(partition));
+      received = receive(new BufferServerSubscriber(sinkId, 1024), subscriberContext);
+      Assert.assertEquals("received by partition " + partition, expected.get(partition), received);
+    }
+    publisher.deactivate();
+    publisher.teardown();
+  }
+
+}
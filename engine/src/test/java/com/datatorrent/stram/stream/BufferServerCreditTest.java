@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.server.Server;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+import static java.lang.Thread.sleep;
+
+public class BufferServerCreditTest
+{
+  private static DefaultEventLoop eventloop;
+  private static Server bufferServer;
+  private static int bufferServerPort;
+
+  @BeforeClass
+  public static void setup() throws IOException
+  {
+    eventloop = DefaultEventLoop.createEventLoop("BufferServerCreditTest");
+    eventloop.start();
+    bufferServer = new Server(0);
+    bufferServerPort = bufferServer.run(eventloop).getPort();
+  }
+
+  @AfterClass
+  public static void tearDown()
+  {
+    eventloop.stop(bufferServer);
+    eventloop.stop();
+  }
+
+  private StreamContext getContext(String sinkId)
+  {
+    StreamContext context = new StreamContext("stream");
+    context.setSourceId("1.output.1");
+    context.setSinkId(sinkId);
+    context.setFinishedWindowId(-1);
+    context.setBufferServerAddress(InetSocketAddress.createUnresolved("localhost", bufferServerPort));
+    context.put(StreamContext.CODEC, new DefaultStatefulStreamCodec<Object>());
+    context.put(StreamContext.EVENT_LOOP, eventloop);
+    context.put(StreamContext.CREDIT_BYTES, 256);
+    return context;
+  }
+
+  @Test
+  public void testCredits() throws Exception
+  {
+    BufferServerPublisher publisher = new BufferServerPublisher("1.output.1", 1024);
+    StreamContext publisherContext = getContext("2.input");
+    publisher.setup(publisherContext);
+    publisher.activate(publisherContext);
+
+    BufferServerSubscriber subscriber = new BufferServerSubscriber("2.input", 1024);
+    StreamContext subscriberContext = getContext("2.input");
+    subscriber.setup(subscriberContext);
+    final List<Object> received = new ArrayList<Object>();
+    SweepableReservoir reservoir = subscriber.acquireReservoir("reservoir", 1024);
+    reservoir.setSink(new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        received.add(tuple);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+
+    });
+    subscriber.activate(subscriberContext);
+
+    /* many times the credits, so the publisher and the subscriber have to grant them over and over */
+    publisher.put(StramTestSupport.generateBeginWindowTuple("1", 0));
+    for (int i = 0; i < 1000; i++) {
+      publisher.put("hello" + i);
+    }
+    publisher.put(StramTestSupport.generateEndWindowTuple("1", 0));
+
+    for (int i = 0; i < 2000; i++) {
+      Tuple t = reservoir.sweep();
+      if (t == null) {
+        sleep(5);
+        continue;
+      }
+      reservoir.remove();
+      if (t instanceof EndWindowTuple) {
+        break;
+      }
+    }
+
+    subscriber.deactivate();
+    publisher.deactivate();
+
+    Assert.assertEquals("received", 1000, received.size());
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertEquals("tuple", "hello" + i, received.get(i));
+    }
+  }
+
+}
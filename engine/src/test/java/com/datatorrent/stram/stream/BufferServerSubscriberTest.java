@@ -32,6 +32,7 @@ import com.datatorrent.api.StreamCodec;
 
 import com.datatorrent.bufferserver.packet.PayloadTuple;
 import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.stram.codec.BufferStreamCodecAdapter;
 import com.datatorrent.stram.engine.SweepableReservoir;
 
 /**
@@ -89,19 +90,21 @@ public class BufferServerSubscriberTest
     BufferServerSubscriber bss = new BufferServerSubscriber("subscriber", 5)
     {
       {
-        serde = myserde;
+        codec = new BufferStreamCodecAdapter<Object>(myserde);
       }
 
       @Override
-      public void suspendRead()
+      public boolean suspendReadIfResumed()
       {
         logger.debug("read suspended");
+        return true;
       }
 
       @Override
-      public void resumeRead()
+      public boolean resumeReadIfSuspended()
       {
         logger.debug("read resumed");
+        return true;
       }
 
     };
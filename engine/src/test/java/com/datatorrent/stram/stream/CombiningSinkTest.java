@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.datatorrent.api.Attribute.AttributeMap.DefaultAttributeMap;
+import com.datatorrent.api.Combiner;
+import com.datatorrent.api.DefaultOutputPort;
+import com.datatorrent.api.Sink;
+import com.datatorrent.common.util.BaseOperator;
+import com.datatorrent.stram.engine.GenericNode;
+import com.datatorrent.stram.engine.OperatorContext;
+import com.datatorrent.stram.engine.TestSink;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.tuple.Tuple;
+
+public class CombiningSinkTest
+{
+  public static class SumCombiner implements Combiner<String>
+  {
+    @Override
+    public Object getKey(String tuple)
+    {
+      return tuple.substring(0, tuple.indexOf('='));
+    }
+
+    @Override
+    public String combine(String tuple1, String tuple2)
+    {
+      int sum = Integer.parseInt(tuple1.substring(tuple1.indexOf('=') + 1))
+          + Integer.parseInt(tuple2.substring(tuple2.indexOf('=') + 1));
+      return getKey(tuple1) + "=" + sum;
+    }
+  }
+
+  public static class Emitter extends BaseOperator
+  {
+    public final transient DefaultOutputPort<Object> output = new DefaultOutputPort<Object>();
+  }
+
+  @Test
+  public void testCombine()
+  {
+    TestSink output = new TestSink();
+    CombiningSink sink = new CombiningSink(new SumCombiner(), output);
+    Tuple beginWindow = StramTestSupport.generateBeginWindowTuple("1", 0);
+    Tuple endWindow = StramTestSupport.generateEndWindowTuple("1", 0);
+
+    sink.put(beginWindow);
+    sink.put("b=1");
+    sink.put("a=2");
+    sink.put("b=3");
+    Assert.assertEquals("combined in window", Arrays.<Object>asList(beginWindow), output.collectedTuples);
+
+    TestSink replacement = new TestSink();
+    sink.setSink(replacement);
+    sink.put("a=4");
+    sink.put(endWindow);
+    Assert.assertEquals("first sink", Arrays.<Object>asList(beginWindow), output.collectedTuples);
+    Assert.assertEquals("combined tuples", Arrays.<Object>asList("b=4", "a=6", endWindow),
+        replacement.collectedTuples);
+
+    replacement.clear();
+    sink.put(endWindow);
+    Assert.assertEquals("empty window", Arrays.<Object>asList(endWindow), replacement.collectedTuples);
+  }
+
+  @Test
+  public void testNodeOutput()
+  {
+    Emitter emitter = new Emitter();
+    GenericNode node = new GenericNode(emitter, new OperatorContext(0, new DefaultAttributeMap(), null));
+    node.setCombiner("output", new SumCombiner());
+    TestSink first = new TestSink();
+    TestSink second = new TestSink();
+    node.addSinks(Collections.<String, Sink<Object>>singletonMap("output", first));
+
+    emitter.output.emit("a=1");
+    node.addSinks(Collections.<String, Sink<Object>>singletonMap("output", second));
+    emitter.output.emit("a=2");
+    Assert.assertTrue("combined until the end of the window", first.collectedTuples.isEmpty());
+
+    Tuple endWindow = StramTestSupport.generateEndWindowTuple("1", 0);
+    emitter.output.emit("a=3");
+    node.removeSinks(Collections.<String, Sink<Object>>singletonMap("output", first));
+    emitter.output.emit(endWindow);
+    Assert.assertTrue("removed sink", first.collectedTuples.isEmpty());
+    Assert.assertEquals("remaining sink", Arrays.<Object>asList("a=6", endWindow), second.collectedTuples);
+  }
+
+}
@@ -0,0 +1,250 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.datatorrent.stram.support.StramTestSupport.TestMeta;
+
+public class SharedMemoryRingTest
+{
+  @Rule
+  public TestMeta testMeta = new TestMeta();
+
+  private static byte[] message(int length, int value)
+  {
+    byte[] bytes = new byte[length];
+    Arrays.fill(bytes, (byte)value);
+    return bytes;
+  }
+
+  @Test
+  public void testWrapAround() throws Exception
+  {
+    File file = new File(testMeta.getPath(), "ring");
+    SharedMemoryRing writer = SharedMemoryRing.create(file, 4096, Collections.singletonList("sink"), 5);
+    SharedMemoryRing reader = SharedMemoryRing.open(file);
+    Assert.assertEquals("start window", 5, reader.getStartWindowId());
+    Assert.assertTrue("attached", reader.attach("sink"));
+    Assert.assertFalse("attached once", SharedMemoryRing.open(file).attach("sink"));
+    Assert.assertTrue("in use", writer.awaitReaders(1000));
+    Assert.assertEquals("mode", SharedMemoryRing.MODE_IN_USE, reader.getMode());
+
+    byte[] dst = new byte[1500];
+    for (int i = 0; i < 100; i++) {
+      int length = 1000 + i;
+      Assert.assertTrue("written " + i, writer.write(message(length, i)));
+      Assert.assertEquals("available " + i, length, reader.available());
+      Assert.assertEquals("read " + i, length, reader.read(dst, 0));
+      Assert.assertArrayEquals("message " + i, message(length, i), Arrays.copyOf(dst, length));
+    }
+    Assert.assertEquals("empty", -1, reader.available());
+
+    writer.close();
+    Assert.assertTrue("closed", reader.isClosed());
+    Assert.assertFalse("file removed", file.exists());
+  }
+
+  @Test
+  public void testWriterWaitsForSlowReader() throws Exception
+  {
+    File file = new File(testMeta.getPath(), "ring");
+    final SharedMemoryRing writer = SharedMemoryRing.create(file, 4096, Arrays.asList("fast", "slow"), -1);
+    SharedMemoryRing fast = SharedMemoryRing.open(file);
+    SharedMemoryRing slow = SharedMemoryRing.open(file);
+    Assert.assertTrue("attached", fast.attach("fast"));
+    Assert.assertTrue("attached", slow.attach("slow"));
+    Assert.assertTrue("in use", writer.awaitReaders(1000));
+
+    final int count = 20;
+    final AtomicInteger written = new AtomicInteger();
+    Thread thread = new Thread("writer")
+    {
+      @Override
+      public void run()
+      {
+        try {
+          for (int i = 0; i < count && writer.write(message(1000, i)); i++) {
+            written.incrementAndGet();
+          }
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+    };
+    thread.start();
+
+    byte[] dst = new byte[1024];
+    thread.join(200);
+    Assert.assertTrue("writer waits for the slow reader", thread.isAlive());
+    int read = 0;
+    while (fast.available() > 0) {
+      Assert.assertEquals(1000, fast.read(dst, 0));
+      Assert.assertEquals("message", (byte)read++, dst[0]);
+    }
+    Assert.assertEquals("messages written", read, written.get());
+    Assert.assertTrue("messages written " + written, written.get() < count);
+
+    for (int i = 0; i < count; i++) {
+      while (slow.available() < 0) {
+        Thread.sleep(1);
+      }
+      Assert.assertEquals(1000, slow.read(dst, 0));
+      Assert.assertEquals("message", (byte)i, dst[0]);
+      while (read <= i) {
+        if (fast.available() > 0) {
+          Assert.assertEquals(1000, fast.read(dst, 0));
+          Assert.assertEquals("message", (byte)read++, dst[0]);
+        }
+      }
+    }
+    thread.join(1000);
+    Assert.assertEquals("messages written", count, written.get());
+    writer.close();
+  }
+
+  @Test
+  public void testAbandoned() throws Exception
+  {
+    File file = new File(testMeta.getPath(), "ring");
+    SharedMemoryRing writer = SharedMemoryRing.create(file, 4096, Arrays.asList("first", "second"), -1);
+    SharedMemoryRing first = SharedMemoryRing.open(file);
+    Assert.assertTrue("attached", first.attach("first"));
+    Assert.assertFalse("unknown reader", SharedMemoryRing.open(file).attach("other"));
+    Assert.assertEquals("mode", SharedMemoryRing.MODE_PENDING, first.getMode());
+
+    Assert.assertFalse("second reader missing", writer.awaitReaders(50));
+    Assert.assertEquals("mode", SharedMemoryRing.MODE_ABANDONED, first.getMode());
+    writer.close();
+
+    writer = SharedMemoryRing.create(file, 4096, Arrays.asList("first", "second"), -1);
+    Assert.assertTrue("previous ring closed", first.isClosed());
+    Assert.assertTrue("attached", SharedMemoryRing.open(file).attach("first"));
+    SharedMemoryRing.open(file).detach("second");
+    long start = System.currentTimeMillis();
+    Assert.assertFalse("second reader gave up", writer.awaitReaders(60000));
+    Assert.assertTrue("no wait for the timeout", System.currentTimeMillis() - start < 10000);
+    writer.close();
+  }
+
+  @Test
+  public void testMessageLargerThanRing() throws Exception
+  {
+    File file = new File(testMeta.getPath(), "ring");
+    final SharedMemoryRing writer = SharedMemoryRing.create(file, 4096, Collections.singletonList("sink"), -1);
+    SharedMemoryRing reader = SharedMemoryRing.open(file);
+    Assert.assertTrue("attached", reader.attach("sink"));
+    Assert.assertTrue("in use", writer.awaitReaders(1000));
+
+    final byte[] large = new byte[3 * writer.getCapacity() + 123];
+    for (int i = 0; i < large.length; i++) {
+      large[i] = (byte)i;
+    }
+    final AtomicInteger written = new AtomicInteger();
+    Thread thread = new Thread("writer")
+    {
+      @Override
+      public void run()
+      {
+        try {
+          if (writer.write(message(100, 1)) && writer.write(large) && writer.write(message(100, 2))) {
+            written.set(3);
+          }
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+    };
+    thread.start();
+
+    byte[] dst = new byte[large.length];
+    while (reader.available() < 0) {
+      Thread.sleep(1);
+    }
+    Assert.assertEquals(100, reader.read(dst, 0));
+    while (reader.available() < 0) {
+      Thread.sleep(1);
+    }
+    Assert.assertEquals("length of the fragmented message", large.length, reader.available());
+    Assert.assertEquals(large.length, reader.read(dst, 0));
+    Assert.assertArrayEquals("reassembled", large, dst);
+    thread.join(1000);
+    Assert.assertEquals("messages written", 3, written.get());
+    Assert.assertEquals(100, reader.read(dst, 0));
+    Assert.assertEquals("message", 2, dst[0]);
+    writer.close();
+  }
+
+  @Test
+  public void testDeadReaderDetached() throws Exception
+  {
+    File file = new File(testMeta.getPath(), "ring");
+    SharedMemoryRing writer = SharedMemoryRing.create(file, 4096, Arrays.asList("live", "dead"), -1);
+    writer.setReaderTimeoutMillis(100);
+    SharedMemoryRing live = SharedMemoryRing.open(file);
+    SharedMemoryRing dead = SharedMemoryRing.open(file);
+    Assert.assertTrue("attached", live.attach("live"));
+    Assert.assertTrue("attached", dead.attach("dead"));
+    Assert.assertTrue("in use", writer.awaitReaders(1000));
+
+    byte[] dst = new byte[1024];
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < 20; i++) {
+      Assert.assertTrue("written " + i, writer.write(message(1000, i)));
+      live.heartbeat();
+      Assert.assertEquals(1000, live.read(dst, 0));
+    }
+    Assert.assertTrue("writer waited for the timeout", System.currentTimeMillis() - start >= 100);
+    try {
+      dead.heartbeat();
+      Assert.fail("detached reader has to notice");
+    } catch (IllegalStateException expected) {
+      // the reader fails, its operator is redeployed together with the publisher
+    }
+    writer.close();
+  }
+
+  @Test
+  public void testNoReadersLeft() throws Exception
+  {
+    File file = new File(testMeta.getPath(), "ring");
+    SharedMemoryRing writer = SharedMemoryRing.create(file, 4096, Collections.singletonList("sink"), -1);
+    SharedMemoryRing reader = SharedMemoryRing.open(file);
+    Assert.assertTrue("attached", reader.attach("sink"));
+    Assert.assertTrue("in use", writer.awaitReaders(1000));
+    Assert.assertTrue("written", writer.write(message(1000, 1)));
+
+    reader.detach("sink");
+    int written = 0;
+    while (writer.write(message(1000, 0))) {
+      Assert.assertTrue("the ring fills up without readers", ++written < writer.getCapacity() / 1000);
+    }
+    writer.close();
+  }
+
+}
@@ -0,0 +1,208 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.server.Server;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.support.StramTestSupport.TestMeta;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+
+import static java.lang.Thread.sleep;
+
+public class SharedMemoryStreamTest
+{
+  private static DefaultEventLoop eventloop;
+  private static Server bufferServer;
+  private static int bufferServerPort;
+
+  @Rule
+  public TestMeta testMeta = new TestMeta();
+
+  @BeforeClass
+  public static void setup() throws IOException
+  {
+    eventloop = DefaultEventLoop.createEventLoop("SharedMemoryStreamTest");
+    eventloop.start();
+    bufferServer = new Server(0);
+    bufferServerPort = bufferServer.run(eventloop).getPort();
+  }
+
+  @AfterClass
+  public static void tearDown()
+  {
+    eventloop.stop(bufferServer);
+    eventloop.stop();
+  }
+
+  private StreamContext getContext(String sinkId, long finishedWindowId)
+  {
+    StreamContext context = new StreamContext("stream");
+    context.setSourceId("1.output.1");
+    context.setSinkId(sinkId);
+    context.setFinishedWindowId(finishedWindowId);
+    context.setBufferServerAddress(InetSocketAddress.createUnresolved("localhost", bufferServerPort));
+    context.put(StreamContext.CODEC, new DefaultStatefulStreamCodec<Object>());
+    context.put(StreamContext.EVENT_LOOP, eventloop);
+    return context;
+  }
+
+  private List<Object> receive(BufferServerSubscriber subscriber) throws InterruptedException
+  {
+    final List<Object> received = new ArrayList<Object>();
+    SweepableReservoir reservoir = subscriber.acquireReservoir("reservoir", 1024);
+    reservoir.setSink(new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        received.add(tuple);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+
+    });
+    for (int i = 0; i < 1000; i++) {
+      Tuple t = reservoir.sweep();
+      if (t == null) {
+        sleep(5);
+        continue;
+      }
+      reservoir.remove();
+      if (t instanceof EndWindowTuple) {
+        break;
+      }
+    }
+    return received;
+  }
+
+  private void publish(BufferServerPublisher publisher)
+  {
+    publisher.put(StramTestSupport.generateBeginWindowTuple("1", 0));
+    for (int i = 0; i < 100; i++) {
+      publisher.put("hello" + i);
+    }
+    publisher.put(StramTestSupport.generateEndWindowTuple("1", 0));
+  }
+
+  @Test
+  public void testSharedMemory() throws Exception
+  {
+    File file = new File(testMeta.getPath(), "ring");
+    SharedMemoryPublisher publisher = new SharedMemoryPublisher("1.output.1", 1024, file, 1 << 16,
+        Collections.singletonList("2.input"), 10000);
+    StreamContext publisherContext = getContext("2.input", -1);
+    publisher.setup(publisherContext);
+    publisher.activate(publisherContext);
+
+    SharedMemorySubscriber subscriber = new SharedMemorySubscriber("2.input", 1024, file, 10000);
+    StreamContext subscriberContext = getContext("2.input", -1);
+    subscriber.setup(subscriberContext);
+    subscriber.activate(subscriberContext);
+
+    publish(publisher);
+    List<Object> received = receive(subscriber);
+    Assert.assertEquals("received", 100, received.size());
+    Assert.assertEquals("first", "hello0", received.get(0));
+    Assert.assertTrue("read from shared memory", subscriber.getByteCount(false) > 0);
+
+    subscriber.deactivate();
+    publisher.deactivate();
+    Assert.assertFalse("ring removed", file.exists());
+  }
+
+  @Test
+  public void testFallbackToBufferServer() throws Exception
+  {
+    File file = new File(testMeta.getPath(), "ring");
+    SharedMemoryPublisher publisher = new SharedMemoryPublisher("1.output.1", 1024, file, 1 << 16,
+        Collections.singletonList("2.input"), 10000);
+    StreamContext publisherContext = getContext("2.input", 10);
+    publisher.setup(publisherContext);
+    publisher.activate(publisherContext);
+
+    /* the subscriber needs windows the ring does not have */
+    SharedMemorySubscriber subscriber = new SharedMemorySubscriber("2.input", 1024, file, 10000);
+    StreamContext subscriberContext = getContext("2.input", -1);
+    subscriber.setup(subscriberContext);
+    subscriber.activate(subscriberContext);
+
+    publish(publisher);
+    List<Object> received = receive(subscriber);
+    Assert.assertEquals("received", 100, received.size());
+
+    subscriber.deactivate();
+    publisher.deactivate();
+  }
+
+  @Test
+  public void testSubscriberNotAttached() throws Exception
+  {
+    File file = new File(testMeta.getPath(), "ring");
+    SharedMemoryPublisher publisher = new SharedMemoryPublisher("1.output.1", 1024, file, 1 << 16,
+        Arrays.asList("2.input", "3.input"), 200);
+    StreamContext publisherContext = getContext("2.input", -1);
+    publisher.setup(publisherContext);
+    publisher.activate(publisherContext);
+
+    SharedMemorySubscriber subscriber = new SharedMemorySubscriber("2.input", 1024, file, 10000);
+    StreamContext subscriberContext = getContext("2.input", -1);
+    subscriber.setup(subscriberContext);
+    subscriber.activate(subscriberContext);
+
+    /* the other subscriber does not attach to the ring, the publisher sends the stream to the buffer server */
+    BufferServerSubscriber other = new BufferServerSubscriber("3.input", 1024);
+    StreamContext otherContext = getContext("3.input", -1);
+    other.setup(otherContext);
+    other.activate(otherContext);
+
+    publish(publisher);
+    Assert.assertEquals("received", 100, receive(subscriber).size());
+    Assert.assertEquals("received by other", 100, receive(other).size());
+    Assert.assertFalse("ring removed", file.exists());
+
+    other.deactivate();
+    subscriber.deactivate();
+    publisher.deactivate();
+  }
+
+}
\ No newline at end of file
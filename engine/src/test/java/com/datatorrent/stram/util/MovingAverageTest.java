@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.datatorrent.api.Stats;
+import com.datatorrent.stram.util.MovingAverage.MovingAverageDouble;
+import com.datatorrent.stram.util.MovingAverage.MovingAverageLong;
+import com.datatorrent.stram.util.MovingAverage.MovingLatencyHistogram;
+import com.datatorrent.stram.util.MovingAverage.MovingPercentilesLong;
+import com.datatorrent.stram.util.MovingAverage.TimedMovingAverageLong;
+
+public class MovingAverageTest
+{
+  @Test
+  public void testMovingAverageLong()
+  {
+    MovingAverageLong ma = new MovingAverageLong(3);
+    Assert.assertEquals(0, ma.getAvg());
+    ma.add(3);
+    Assert.assertEquals(3, ma.getAvg());
+    ma.add(6);
+    Assert.assertEquals(4, ma.getAvg());
+    ma.add(9);
+    Assert.assertEquals(6, ma.getAvg());
+    ma.add(12);
+    Assert.assertEquals("oldest value is dropped", 9, ma.getAvg());
+  }
+
+  @Test
+  public void testMovingAverageDouble()
+  {
+    MovingAverageDouble ma = new MovingAverageDouble(2);
+    ma.add(1.5);
+    Assert.assertEquals(1.5, ma.getAvg(), 0);
+    ma.add(2.5);
+    Assert.assertEquals(2.0, ma.getAvg(), 0);
+    ma.add(4.5);
+    Assert.assertEquals(3.5, ma.getAvg(), 0);
+  }
+
+  @Test
+  public void testTimedMovingAverageLong()
+  {
+    TimedMovingAverageLong ma = new TimedMovingAverageLong(10, 1000);
+    ma.add(100, 500);
+    Assert.assertEquals(0.2, ma.getAvg(), 0);
+    ma.add(300, 500);
+    Assert.assertEquals(0.4, ma.getAvg(), 0);
+    ma.add(1000, 500);
+    Assert.assertEquals("only samples within the base interval", 1.3, ma.getAvg(), 0);
+  }
+
+  @Test
+  public void testPercentiles()
+  {
+    MovingPercentilesLong mp = new MovingPercentilesLong(100);
+    Assert.assertEquals(0, mp.getPercentile(50));
+    for (int i = 100; i > 0; i--) {
+      mp.add(i);
+    }
+    Assert.assertEquals(50, mp.getAvg());
+    Assert.assertEquals(50, mp.getPercentile(50));
+    Assert.assertEquals(99, mp.getPercentile(99));
+    Assert.assertEquals(100, mp.getPercentile(100));
+    Assert.assertEquals(1, mp.getPercentile(0));
+    mp.add(1000);
+    Assert.assertEquals("oldest value is dropped", 1000, mp.getPercentile(100));
+    Assert.assertEquals(99, mp.getPercentile(99));
+  }
+
+  @Test
+  public void testLatencyHistogram()
+  {
+    MovingLatencyHistogram mh = new MovingLatencyHistogram(2);
+    Assert.assertEquals(0, mh.get().getCount());
+    Stats.LatencyHistogram h = new Stats.LatencyHistogram();
+    h.add(10);
+    h.add(1000);
+    mh.add(h);
+    mh.add(null);
+    Assert.assertEquals(2, mh.get().getCount());
+    Assert.assertEquals(1000, mh.get().getMax());
+    h = new Stats.LatencyHistogram();
+    h.add(5);
+    mh.add(h);
+    Assert.assertEquals("oldest period is dropped", 1, mh.get().getCount());
+    Assert.assertEquals(5, mh.get().getMax());
+    mh.add(null);
+    mh.add(null);
+    Assert.assertEquals(0, mh.get().getCount());
+  }
+
+  @Test
+  public void testConcurrentReaders() throws Exception
+  {
+    final MovingAverageLong ma = new MovingAverageLong(10);
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicReference<String> error = new AtomicReference<String>();
+    Thread reader = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        while (!done.get()) {
+          long avg = ma.getAvg();
+          if (avg != 0 && avg != 5) {
+            error.set("Reader saw partial update " + avg);
+          }
+        }
+      }
+
+    };
+    reader.start();
+    for (int i = 0; i < 1000000; i++) {
+      ma.add(5);
+    }
+    done.set(true);
+    reader.join();
+    Assert.assertNull(error.get());
+  }
+
+}